@@ -53,7 +53,9 @@ import com.itextpdf.text.pdf.PdfTemplate;
 import com.itextpdf.text.pdf.PdfWriter;
 import com.vividsolutions.jts.geom.Envelope;
 import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import org.orbisgis.coremap.layerModel.ILayer;
 import org.orbisgis.coremap.map.MapTransform;
@@ -110,6 +112,114 @@ public class GeoSpatialPDF {
         document.close();
     }
 
+    /**
+     * Create the PDF document. Vector layers are drawn once in their layer template, raster layers are drawn tile
+     * by tile in order to keep a bounded memory usage. Each layer template is written in the output stream once
+     * drawn.
+     *
+     * @param out
+     * @param tiledMapRenderer Tile layout and extent of the map
+     * @param pm
+     * @throws IOException
+     */
+    public void createPDF(OutputStream out, TiledMapRenderer tiledMapRenderer, ProgressMonitor pm) throws IOException {
+        Document document = new Document(new Rectangle(width, height));
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setTagged();
+            writer.setUserProperties(true);
+            document.open();
+
+            PdfContentByte cb = writer.getDirectContent();
+
+            int numLayers = rootLayer.getLayerCount();
+            ProgressMonitor layersPm = pm.startTask(numLayers);
+            for (int i = numLayers - 1; i >= 0 && !pm.isCancelled(); i--) {
+                ILayer layer = rootLayer.getLayer(i);
+                processSubLayer(layer, tiledMapRenderer, writer, cb, layersPm, null);
+                layersPm.endTask();
+            }
+            if(pm.isCancelled()) {
+                throw new InterruptedIOException("Map export cancelled");
+            }
+            georefPdf(writer, tiledMapRenderer.createMapTransform());
+
+        } catch (DocumentException ex) {
+            throw new IOException("Cannot create the pdf", ex);
+        }
+        document.close();
+    }
+
+    private void processSubLayer(ILayer layer, TiledMapRenderer tiledMapRenderer, PdfWriter writer,
+                                 PdfContentByte cb, ProgressMonitor pm, PdfLayer mainLayer) throws IOException {
+        if (layer.acceptsChilds() && layer.getLayerCount() > 0) {
+            PdfLayer groupLayer = new PdfLayer(layer.getName(), writer);
+            //To manage group of layers
+            for (ILayer subLayer : layer.getChildren()) {
+                processSubLayer(subLayer, tiledMapRenderer, writer, cb, pm, groupLayer);
+            }
+        } else if (layer.isVisible() && layer.getEnvelope().intersects(tiledMapRenderer.getAdjustedExtent())) {
+            PdfLayer mapLayer = new PdfLayer(layer.getName(), writer);
+            if (mainLayer != null) {
+                mainLayer.addChild(mapLayer);
+            }
+            PdfTemplate layerTemplate = cb.createTemplate(width, height);
+            Graphics2D g2dLayer = layerTemplate.createGraphics(width, height);
+            cb.beginLayer(mapLayer);
+            // Scale from exported image pixels to pdf units
+            g2dLayer.scale(width / tiledMapRenderer.getWidth(), height / tiledMapRenderer.getHeight());
+            if (layer.isVectorial() && !layer.isStream()) {
+                // Vector features are written once, the map transform does not allocate the map image
+                PdfRenderer renderer = new PdfRenderer(layerTemplate, width, height);
+                renderer.draw(tiledMapRenderer.createMapTransform(), g2dLayer, tiledMapRenderer.getWidth(),
+                        tiledMapRenderer.getHeight(), layer, null);
+            } else {
+                drawTiles(layer, tiledMapRenderer, layerTemplate, g2dLayer, pm);
+            }
+            g2dLayer.dispose();
+            cb.addTemplate(layerTemplate, 0, 0);
+            cb.endLayer();
+            // Write the layer content now instead of keeping it until the document is closed
+            writer.releaseTemplate(layerTemplate);
+        }
+    }
+
+    /**
+     * Draw a raster layer tile by tile, the map image of each tile is bounded by the tile size.
+     * @param layer Raster or stream layer
+     * @param tiledMapRenderer Tile layout and extent of the map
+     * @param layerTemplate Pdf template of the layer
+     * @param g2dLayer Graphics of the layer template, in exported image pixels
+     * @param pm Progress monitor, checked for cancellation between rows
+     */
+    private void drawTiles(ILayer layer, TiledMapRenderer tiledMapRenderer, PdfTemplate layerTemplate,
+                           Graphics2D g2dLayer, ProgressMonitor pm) {
+        // The tile image is only used to provide the tile size to the map transform
+        BufferedImage tileImage = null;
+        for (int row = 0; row < tiledMapRenderer.getTileRowCount() && !pm.isCancelled(); row++) {
+            for (int column = 0; column < tiledMapRenderer.getTileColumnCount(); column++) {
+                java.awt.Rectangle bounds = tiledMapRenderer.getTileBounds(column, row);
+                // Features near the tile are drawn too, clipped to the tile
+                java.awt.Rectangle renderBounds = tiledMapRenderer.getRenderBounds(bounds);
+                if (tileImage == null || tileImage.getWidth() != renderBounds.width ||
+                        tileImage.getHeight() != renderBounds.height) {
+                    tileImage = new BufferedImage(renderBounds.width, renderBounds.height,
+                            BufferedImage.TYPE_BYTE_BINARY);
+                }
+                MapTransform tileMt = tiledMapRenderer.createTileTransform(renderBounds, tileImage);
+                Graphics2D g2dTile = (Graphics2D) g2dLayer.create();
+                try {
+                    g2dTile.clipRect(bounds.x, bounds.y, bounds.width, bounds.height);
+                    g2dTile.translate(renderBounds.x, renderBounds.y);
+                    PdfRenderer renderer2 = new PdfRenderer(layerTemplate, width, height);
+                    renderer2.draw(tileMt, g2dTile, renderBounds.width, renderBounds.height, layer, null);
+                } finally {
+                    g2dTile.dispose();
+                }
+            }
+        }
+    }
+
     /**
      * Process all layers in the layermodel and build the corresponding pdf tree
      * layer
@@ -36,16 +36,12 @@
  */
 package org.orbisgis.core_export;
 
-import com.sun.media.jai.codec.PNGEncodeParam;
-import com.sun.media.jai.codec.TIFFEncodeParam;
-import com.sun.media.jai.codec.TIFFField;
 import com.vividsolutions.jts.geom.Envelope;
 import org.orbisgis.coremap.layerModel.ILayer;
 import org.orbisgis.coremap.map.MapTransform;
 import org.orbisgis.coremap.renderer.ImageRenderer;
 import org.orbisgis.commons.progress.ProgressMonitor;
 
-import javax.media.jai.JAI;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
@@ -77,8 +73,8 @@ public class MapImageWriter {
     public static final boolean DEFAULT_ADJUST_EXTENT = true;
     public static final double MILLIMETERS_BY_INCH = 25.4;
     public static Format DEFAULT_FORMAT = Format.PNG;
-    private static final int X_RES_TAG = 282; // Binary file code index
-    private static final int Y_RES_TAG = 283;
+    // TIFF tiles width and height must be a multiple of 16
+    private static final int TILE_SIZE_MULTIPLE = 16;
     // Properties
     private double pixelSize = DEFAULT_PIXEL_SIZE;
     private int width = DEFAULT_WITH;
@@ -86,6 +82,8 @@ public class MapImageWriter {
     private Format format = DEFAULT_FORMAT;
     private boolean adjustExtent = DEFAULT_ADJUST_EXTENT;
     private Color backgroundColor;
+    private int tileSize = TiledMapRenderer.DEFAULT_TILE_SIZE;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
     // Properties without default values
     private Envelope boundingBox;
     private final ILayer rootLayer;
@@ -209,56 +207,80 @@ public class MapImageWriter {
         this.width = width;
     }
 
+    /**
+     * @return Width and height in pixels of the rendered tiles
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * @param tileSize Width and height in pixels of the rendered tiles, rounded up to a multiple of 16
+     */
+    public void setTileSize(int tileSize) {
+        this.tileSize = Math.max(TILE_SIZE_MULTIPLE, (tileSize + TILE_SIZE_MULTIPLE - 1) / TILE_SIZE_MULTIPLE *
+                TILE_SIZE_MULTIPLE);
+    }
+
+    /**
+     * @param threadCount Maximum number of tiles rendered at the same time
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Write the map in the output stream. PNG, TIFF and PDF are rendered by tiles, then the memory usage
+     * does not depend on the image size.
+     * @param out Output stream, closed at the end of the export
+     * @param pm Progress monitor, cancel the export if cancelled
+     * @throws IOException
+     */
     public void write(OutputStream out, ProgressMonitor pm) throws IOException {
-        MapTransform mt = new MapTransform();
-        mt.setAdjustExtent(adjustExtent);
         double dpi = MILLIMETERS_BY_INCH / pixelSize;
-        mt.setDpi(dpi);
-
-        int imgType = BufferedImage.TYPE_4BYTE_ABGR;
-        if (format.equals(Format.JPEG)) {
-            imgType = BufferedImage.TYPE_3BYTE_BGR;
-            if (getBackgroundColor() == null) {
-                setBackgroundColor(Color.WHITE);
-            }
-        }
-        BufferedImage img = new BufferedImage(width, height, imgType);
-        mt.setImage(img);
-        mt.setExtent(boundingBox);
-        int dpm = (int) (1000 / pixelSize + 1);
-        Graphics2D g2 = null;
+        TiledMapRenderer tiledMapRenderer = new TiledMapRenderer(rootLayer, boundingBox, width, height, dpi,
+                adjustExtent);
+        tiledMapRenderer.setTileSize(tileSize);
+        tiledMapRenderer.setThreadCount(threadCount);
+        tiledMapRenderer.setBackgroundColor(backgroundColor);
         switch (format) {
             case PNG:
-                g2 = prepareImageRenderer(mt, img, pm);
-                // Encode in PNG
-                PNGEncodeParam pEnc = PNGEncodeParam.getDefaultEncodeParam(img);
-                pEnc.setPhysicalDimension(dpm, dpm, 1);
-                JAI.create("Encode", img, out, "PNG", pEnc);
-                out.close();
+                try {
+                    PngTileWriter pngTileWriter = new PngTileWriter(out, width, height, dpi, true);
+                    tiledMapRenderer.render(pngTileWriter, pm);
+                    pngTileWriter.finish();
+                } finally {
+                    out.close();
+                }
                 break;
             case JPEG:
-                g2 = prepareImageRenderer(mt, img, pm);
+                // The JPEG encoder needs the whole image
+                MapTransform mt = new MapTransform();
+                mt.setAdjustExtent(adjustExtent);
+                mt.setDpi(dpi);
+                if (getBackgroundColor() == null) {
+                    setBackgroundColor(Color.WHITE);
+                }
+                BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+                mt.setImage(img);
+                mt.setExtent(boundingBox);
+                Graphics2D g2 = prepareImageRenderer(mt, img, pm);
                 ImageIO.write(img, "jpeg", out);
                 out.close();
+                g2.dispose();
                 break;
             case PDF:
-                new GeoSpatialPDF(rootLayer, width, height).createPDF(out, mt, pm);
+                new GeoSpatialPDF(rootLayer, width, height).createPDF(out, tiledMapRenderer, pm);
                 break;
             default:
-                g2 = prepareImageRenderer(mt, img, pm);
-                // Encode in TIFF
-                long[] resolution = {dpm, 1};
-                TIFFField xRes = new TIFFField(X_RES_TAG,
-                        TIFFField.TIFF_RATIONAL, 1, new long[][]{resolution});
-                TIFFField yRes = new TIFFField(Y_RES_TAG,
-                        TIFFField.TIFF_RATIONAL, 1, new long[][]{resolution});
-                TIFFEncodeParam tep = new TIFFEncodeParam();
-                tep.setExtraFields(new TIFFField[]{xRes, yRes});
-                JAI.create("Encode", img, out, "TIFF", tep);
-                out.close();
-        }
-        if (g2 != null) {
-            g2.dispose();
+                try {
+                    TiffTileWriter tiffTileWriter = new TiffTileWriter(out, width, height, tileSize, dpi, true,
+                            false);
+                    tiledMapRenderer.render(tiffTileWriter, pm);
+                    tiffTileWriter.finish();
+                } finally {
+                    out.close();
+                }
         }
     }
 
@@ -83,7 +83,8 @@ public class PdfRenderer extends Renderer {
     protected void initGraphics2D(List<Symbolizer> symbs, Graphics2D g2, MapTransform mt) {
         g2Levels = new HashMap<Integer, Graphics2D>();
 
-        baseG2 = pdfTemplate.createGraphics(width, height);
+        // Derived from the provided graphics in order to keep its transformation and clip
+        baseG2 = g2 != null ? (Graphics2D) g2.create() : pdfTemplate.createGraphics(width, height);
 
         //HashMap<Integer, Graphics2D> g2Level = new HashMap<Integer, Graphics2D>();
         List<Integer> levels = new LinkedList<Integer>();
@@ -107,6 +108,7 @@ public class PdfRenderer extends Renderer {
         for (Integer level : levels) {
             Graphics2D sg2 = (Graphics2D) baseG2.create();
             sg2.addRenderingHints(mt.getRenderingHints());
+            sg2.setRenderingHint(KEY_VECTOR_OUTPUT, Boolean.TRUE);
             g2Levels.put(level, sg2);
         }
     }
@@ -0,0 +1,195 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.core_export;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * PNG encoder that receive the image by tiles. Only one row of tiles is kept in memory,
+ * scanlines are compressed and written as soon as the tile row is complete.
+ * @author Nicolas Fortin
+ */
+class PngTileWriter implements TiledMapRenderer.TileConsumer {
+    private static final byte[] SIGNATURE = new byte[]{(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+    private static final int COLOR_TYPE_RGB = 2;
+    private static final int COLOR_TYPE_RGBA = 6;
+    private static final int FILTER_SUB = 1;
+    private static final int IDAT_SIZE = 1 << 16;
+    private static final double METERS_BY_INCH = 0.0254;
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final boolean alpha;
+    private final int bytesPerPixel;
+    private final DeflaterOutputStream idatStream;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private int[] band;
+    private int bandY = 0;
+    private int bandHeight = 0;
+    private int bandWidth = 0;
+    private int writtenRows = 0;
+
+    /**
+     * @param out Output stream, not closed by this writer
+     * @param width Image width
+     * @param height Image height
+     * @param dpi Image resolution
+     * @param alpha True to write the alpha channel
+     * @throws IOException
+     */
+    PngTileWriter(OutputStream out, int width, int height, double dpi, boolean alpha) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.alpha = alpha;
+        this.bytesPerPixel = alpha ? 4 : 3;
+        this.out.write(SIGNATURE);
+        ByteArrayOutputStream ihdr = new ByteArrayOutputStream(13);
+        DataOutputStream ihdrData = new DataOutputStream(ihdr);
+        ihdrData.writeInt(width);
+        ihdrData.writeInt(height);
+        ihdrData.writeByte(8); // Bit depth
+        ihdrData.writeByte(alpha ? COLOR_TYPE_RGBA : COLOR_TYPE_RGB);
+        ihdrData.writeByte(0); // Compression method
+        ihdrData.writeByte(0); // Filter method
+        ihdrData.writeByte(0); // No interlace
+        writeChunk("IHDR", ihdr.toByteArray(), 0, ihdr.size());
+        ByteArrayOutputStream phys = new ByteArrayOutputStream(9);
+        DataOutputStream physData = new DataOutputStream(phys);
+        int pixelsByMeter = (int) Math.round(dpi / METERS_BY_INCH);
+        physData.writeInt(pixelsByMeter);
+        physData.writeInt(pixelsByMeter);
+        physData.writeByte(1); // Unit is the meter
+        writeChunk("pHYs", phys.toByteArray(), 0, phys.size());
+        idatStream = new DeflaterOutputStream(new IdatOutputStream(), deflater, IDAT_SIZE);
+    }
+
+    private void writeChunk(String type, byte[] data, int offset, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, offset, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    @Override
+    public void consumeTile(Rectangle bounds, BufferedImage tile) throws IOException {
+        if(bounds.x == 0) {
+            if(bounds.y != writtenRows) {
+                throw new IllegalStateException("Tiles must be provided in row-major order");
+            }
+            bandY = bounds.y;
+            bandHeight = bounds.height;
+            bandWidth = 0;
+            if(band == null || band.length < width * bandHeight) {
+                band = new int[width * bandHeight];
+            }
+        } else if(bounds.y != bandY || bounds.x != bandWidth) {
+            throw new IllegalStateException("Tiles must be provided in row-major order");
+        }
+        tile.getRGB(0, 0, bounds.width, bounds.height, band, bounds.x, width);
+        bandWidth += bounds.width;
+        if(bandWidth == width) {
+            writeBand();
+        }
+    }
+
+    private void writeBand() throws IOException {
+        byte[] scanLine = new byte[1 + width * bytesPerPixel];
+        scanLine[0] = FILTER_SUB;
+        for(int row = 0; row < bandHeight; row++) {
+            int offset = row * width;
+            int previous = 0;
+            int pos = 1;
+            for(int x = 0; x < width; x++) {
+                int argb = band[offset + x];
+                scanLine[pos++] = (byte) ((argb >>> 16) - (previous >>> 16));
+                scanLine[pos++] = (byte) ((argb >>> 8) - (previous >>> 8));
+                scanLine[pos++] = (byte) (argb - previous);
+                if(alpha) {
+                    scanLine[pos++] = (byte) ((argb >>> 24) - (previous >>> 24));
+                }
+                previous = argb;
+            }
+            idatStream.write(scanLine);
+        }
+        writtenRows += bandHeight;
+    }
+
+    /**
+     * Write the end of the image. The output stream is not closed.
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        if(writtenRows != height) {
+            throw new IllegalStateException("Image is not complete, " + writtenRows + " rows on " + height);
+        }
+        idatStream.finish();
+        deflater.end();
+        writeChunk("IEND", new byte[0], 0, 0);
+        out.flush();
+    }
+
+    /**
+     * Write each deflater output buffer into an IDAT chunk
+     */
+    private class IdatOutputStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if(len > 0) {
+                writeChunk("IDAT", b, off, len);
+            }
+        }
+    }
+}
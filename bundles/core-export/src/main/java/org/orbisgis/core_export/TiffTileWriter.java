@@ -0,0 +1,298 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.core_export;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uncompressed tiled TIFF encoder that receive the image by tiles in row-major order.
+ * Tile sizes are known in advance, then the image directory is written before the tiles and
+ * the tiles are streamed without keeping them in memory. BigTIFF is used when the file exceed 4 GB.
+ * @author Nicolas Fortin
+ */
+class TiffTileWriter implements TiledMapRenderer.TileConsumer {
+    private static final int TAG_IMAGE_WIDTH = 256;
+    private static final int TAG_IMAGE_LENGTH = 257;
+    private static final int TAG_BITS_PER_SAMPLE = 258;
+    private static final int TAG_COMPRESSION = 259;
+    private static final int TAG_PHOTOMETRIC = 262;
+    private static final int TAG_SAMPLES_PER_PIXEL = 277;
+    private static final int TAG_X_RESOLUTION = 282;
+    private static final int TAG_Y_RESOLUTION = 283;
+    private static final int TAG_PLANAR_CONFIGURATION = 284;
+    private static final int TAG_RESOLUTION_UNIT = 296;
+    private static final int TAG_TILE_WIDTH = 322;
+    private static final int TAG_TILE_LENGTH = 323;
+    private static final int TAG_TILE_OFFSETS = 324;
+    private static final int TAG_TILE_BYTE_COUNTS = 325;
+    private static final int TAG_EXTRA_SAMPLES = 338;
+    private static final short TYPE_SHORT = 3;
+    private static final short TYPE_LONG = 4;
+    private static final short TYPE_RATIONAL = 5;
+    private static final short TYPE_LONG8 = 16;
+    /** Classic TIFF offsets are unsigned 32 bits integers */
+    private static final long CLASSIC_TIFF_MAX_SIZE = 0xFFFFFFFFL;
+    private static final int RESOLUTION_DENOMINATOR = 1000;
+    private final OutputStream out;
+    private final int width;
+    private final int tileSize;
+    private final int samplesPerPixel;
+    private final int columnCount;
+    private final int tileCount;
+    private final boolean bigTiff;
+    private final byte[] tileBuffer;
+    private final int[] rowBuffer;
+    private int writtenTiles = 0;
+
+    /**
+     * @param out Output stream, not closed by this writer
+     * @param width Image width
+     * @param height Image height
+     * @param tileSize Tile width and height, must be a multiple of 16
+     * @param dpi Image resolution
+     * @param alpha True to write the alpha channel
+     * @param forceBigTiff Write a BigTIFF file even if the image fit in a classic TIFF file
+     * @throws IOException
+     */
+    TiffTileWriter(OutputStream out, int width, int height, int tileSize, double dpi, boolean alpha,
+                   boolean forceBigTiff) throws IOException {
+        if(tileSize % 16 != 0) {
+            throw new IllegalArgumentException("TIFF tile size must be a multiple of 16");
+        }
+        this.out = out;
+        this.width = width;
+        this.tileSize = tileSize;
+        this.samplesPerPixel = alpha ? 4 : 3;
+        this.columnCount = (width + tileSize - 1) / tileSize;
+        this.tileCount = columnCount * ((height + tileSize - 1) / tileSize);
+        long tileByteCount = (long) tileSize * tileSize * samplesPerPixel;
+        long dataSize = tileByteCount * tileCount;
+        this.bigTiff = forceBigTiff ||
+                getHeader(width, height, tileByteCount, dpi, false).capacity() + dataSize > CLASSIC_TIFF_MAX_SIZE;
+        ByteBuffer header = getHeader(width, height, tileByteCount, dpi, bigTiff);
+        out.write(header.array());
+        tileBuffer = new byte[(int) tileByteCount];
+        rowBuffer = new int[tileSize];
+    }
+
+    /**
+     * @return True if the BigTIFF format is used
+     */
+    public boolean isBigTiff() {
+        return bigTiff;
+    }
+
+    private ByteBuffer getHeader(int width, int height, long tileByteCount, double dpi, boolean big) {
+        List<IfdEntry> entries = new ArrayList<>();
+        entries.add(new IfdEntry(TAG_IMAGE_WIDTH, TYPE_LONG, width));
+        entries.add(new IfdEntry(TAG_IMAGE_LENGTH, TYPE_LONG, height));
+        long[] bitsPerSample = new long[samplesPerPixel];
+        Arrays.fill(bitsPerSample, 8);
+        entries.add(new IfdEntry(TAG_BITS_PER_SAMPLE, TYPE_SHORT, bitsPerSample));
+        entries.add(new IfdEntry(TAG_COMPRESSION, TYPE_SHORT, 1));
+        entries.add(new IfdEntry(TAG_PHOTOMETRIC, TYPE_SHORT, 2)); // RGB
+        entries.add(new IfdEntry(TAG_SAMPLES_PER_PIXEL, TYPE_SHORT, samplesPerPixel));
+        long resolution = Math.round(dpi * RESOLUTION_DENOMINATOR);
+        entries.add(new IfdEntry(TAG_X_RESOLUTION, TYPE_RATIONAL, resolution, RESOLUTION_DENOMINATOR));
+        entries.add(new IfdEntry(TAG_Y_RESOLUTION, TYPE_RATIONAL, resolution, RESOLUTION_DENOMINATOR));
+        entries.add(new IfdEntry(TAG_PLANAR_CONFIGURATION, TYPE_SHORT, 1)); // Chunky
+        entries.add(new IfdEntry(TAG_RESOLUTION_UNIT, TYPE_SHORT, 2)); // Inch
+        entries.add(new IfdEntry(TAG_TILE_WIDTH, TYPE_LONG, tileSize));
+        entries.add(new IfdEntry(TAG_TILE_LENGTH, TYPE_LONG, tileSize));
+        short offsetType = big ? TYPE_LONG8 : TYPE_LONG;
+        IfdEntry tileOffsets = new IfdEntry(TAG_TILE_OFFSETS, offsetType, new long[tileCount]);
+        entries.add(tileOffsets);
+        long[] byteCounts = new long[tileCount];
+        Arrays.fill(byteCounts, tileByteCount);
+        entries.add(new IfdEntry(TAG_TILE_BYTE_COUNTS, offsetType, byteCounts));
+        if(samplesPerPixel == 4) {
+            entries.add(new IfdEntry(TAG_EXTRA_SAMPLES, TYPE_SHORT, 2)); // Unassociated alpha
+        }
+        // Compute the layout: header, image directory, values that do not fit in the directory, tiles
+        int offsetSize = big ? 8 : 4;
+        int headerSize = big ? 16 : 8;
+        int ifdSize = big ? 8 + 20 * entries.size() + 8 : 2 + 12 * entries.size() + 4;
+        int size = headerSize + ifdSize;
+        for(IfdEntry entry : entries) {
+            if(entry.getByteCount() > offsetSize) {
+                size += entry.getByteCount();
+            }
+        }
+        for(int tileId = 0; tileId < tileCount; tileId++) {
+            tileOffsets.values[tileId] = size + tileId * tileByteCount;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 'I').put((byte) 'I');
+        if(big) {
+            buffer.putShort((short) 43).putShort((short) 8).putShort((short) 0).putLong(headerSize);
+            buffer.putLong(entries.size());
+        } else {
+            buffer.putShort((short) 42).putInt(headerSize);
+            buffer.putShort((short) entries.size());
+        }
+        int externalOffset = headerSize + ifdSize;
+        List<IfdEntry> externalEntries = new ArrayList<>();
+        for(IfdEntry entry : entries) {
+            buffer.putShort((short) entry.tag).putShort(entry.type);
+            if(big) {
+                buffer.putLong(entry.getCount());
+            } else {
+                buffer.putInt(entry.getCount());
+            }
+            if(entry.getByteCount() > offsetSize) {
+                if(big) {
+                    buffer.putLong(externalOffset);
+                } else {
+                    buffer.putInt(externalOffset);
+                }
+                externalOffset += entry.getByteCount();
+                externalEntries.add(entry);
+            } else {
+                int valueEnd = buffer.position() + offsetSize;
+                entry.putValues(buffer);
+                // Values are left justified
+                while(buffer.position() < valueEnd) {
+                    buffer.put((byte) 0);
+                }
+            }
+        }
+        // No next image directory
+        if(big) {
+            buffer.putLong(0);
+        } else {
+            buffer.putInt(0);
+        }
+        for(IfdEntry entry : externalEntries) {
+            entry.putValues(buffer);
+        }
+        return buffer;
+    }
+
+    @Override
+    public void consumeTile(Rectangle bounds, BufferedImage tile) throws IOException {
+        if(writtenTiles >= tileCount || bounds.x != (writtenTiles % columnCount) * tileSize ||
+                bounds.y != (writtenTiles / columnCount) * tileSize) {
+            throw new IllegalStateException("Tiles must be provided in row-major order");
+        }
+        // Border tiles are padded with transparent pixels
+        Arrays.fill(tileBuffer, (byte) 0);
+        for(int row = 0; row < bounds.height; row++) {
+            tile.getRGB(0, row, bounds.width, 1, rowBuffer, 0, tileSize);
+            int pos = row * tileSize * samplesPerPixel;
+            for(int x = 0; x < bounds.width; x++) {
+                int argb = rowBuffer[x];
+                tileBuffer[pos++] = (byte) (argb >>> 16);
+                tileBuffer[pos++] = (byte) (argb >>> 8);
+                tileBuffer[pos++] = (byte) argb;
+                if(samplesPerPixel == 4) {
+                    tileBuffer[pos++] = (byte) (argb >>> 24);
+                }
+            }
+        }
+        out.write(tileBuffer);
+        writtenTiles++;
+    }
+
+    /**
+     * Check that all tiles have been written. The output stream is not closed.
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        if(writtenTiles != tileCount) {
+            throw new IllegalStateException("Image is not complete, " + writtenTiles + " tiles on " + tileCount);
+        }
+        out.flush();
+    }
+
+    /**
+     * Image file directory entry
+     */
+    private static class IfdEntry {
+        private final int tag;
+        private final short type;
+        private final long[] values;
+
+        IfdEntry(int tag, short type, long... values) {
+            this.tag = tag;
+            this.type = type;
+            this.values = values;
+        }
+
+        /**
+         * @return Number of values, a rational is one value
+         */
+        int getCount() {
+            return type == TYPE_RATIONAL ? values.length / 2 : values.length;
+        }
+
+        int getByteCount() {
+            switch (type) {
+                case TYPE_SHORT:
+                    return 2 * values.length;
+                case TYPE_LONG:
+                case TYPE_RATIONAL:
+                    return 4 * values.length;
+                default:
+                    return 8 * values.length;
+            }
+        }
+
+        void putValues(ByteBuffer buffer) {
+            for(long value : values) {
+                switch (type) {
+                    case TYPE_SHORT:
+                        buffer.putShort((short) value);
+                        break;
+                    case TYPE_LONG:
+                    case TYPE_RATIONAL:
+                        buffer.putInt((int) value);
+                        break;
+                    default:
+                        buffer.putLong(value);
+                }
+            }
+        }
+    }
+}
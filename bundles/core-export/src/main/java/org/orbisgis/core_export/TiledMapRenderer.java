@@ -0,0 +1,372 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.core_export;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.orbisgis.commons.progress.NullProgressMonitor;
+import org.orbisgis.commons.progress.ProgressMonitor;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.ImageRenderer;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Render a map extent in fixed size tiles, tiles are given in row-major order to a {@link TileConsumer}.
+ * Only a bounded number of tiles is kept in memory, then the exported image size is not limited by the heap.
+ * @author Nicolas Fortin
+ */
+public class TiledMapRenderer {
+    private static final I18n I18N = I18nFactory.getI18n(TiledMapRenderer.class);
+    public static final int DEFAULT_TILE_SIZE = 512;
+    /** Rendered pixels around each tile, symbols of features outside the tile may overlap it */
+    public static final int DEFAULT_MARGIN = 64;
+    private final ILayer rootLayer;
+    private final Envelope adjustedExtent;
+    private final int width;
+    private final int height;
+    private final double dpi;
+    private int tileSize = DEFAULT_TILE_SIZE;
+    private int margin = DEFAULT_MARGIN;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private int imageType = BufferedImage.TYPE_INT_ARGB;
+    private Color backgroundColor;
+
+    /**
+     * @param rootLayer Layer to render
+     * @param extent Map extent
+     * @param width Image width in pixels
+     * @param height Image height in pixels
+     * @param dpi Image resolution, dot per inch
+     * @param adjustExtent If true, the extent is enlarged to keep the aspect ratio of the image, as
+     * {@link MapTransform#setAdjustExtent(boolean)}
+     */
+    public TiledMapRenderer(ILayer rootLayer, Envelope extent, int width, int height, double dpi,
+                            boolean adjustExtent) {
+        this.rootLayer = rootLayer;
+        this.width = width;
+        this.height = height;
+        this.dpi = dpi;
+        Envelope mapExtent = new Envelope(extent);
+        if(mapExtent.getWidth() == 0 || mapExtent.getHeight() == 0) {
+            mapExtent.expandBy(10);
+        }
+        this.adjustedExtent = adjustExtent ? adjustExtent(mapExtent, width, height) : mapExtent;
+    }
+
+    /**
+     * Enlarge the extent to obtain the same ratio than the image, as MapTransform does.
+     */
+    private static Envelope adjustExtent(Envelope extent, int width, int height) {
+        double scaleX = width / extent.getWidth();
+        double scaleY = height / extent.getHeight();
+        double xCenter = extent.getMinX() + extent.getWidth() / 2.0;
+        double yCenter = extent.getMinY() + extent.getHeight() / 2.0;
+        if (scaleX < scaleY) {
+            double newHeight = height / scaleX;
+            double newX = xCenter - (extent.getWidth() / 2.0);
+            double newY = yCenter - (newHeight / 2.0);
+            return new Envelope(newX, newX + extent.getWidth(), newY, newY + newHeight);
+        } else {
+            double newWidth = width / scaleY;
+            double newX = xCenter - (newWidth / 2.0);
+            double newY = yCenter - (extent.getHeight() / 2.0);
+            return new Envelope(newX, newX + newWidth, newY, newY + extent.getHeight());
+        }
+    }
+
+    /**
+     * @return Rendered extent, with the same ratio than the image if the extent is adjusted
+     */
+    public Envelope getAdjustedExtent() {
+        return new Envelope(adjustedExtent);
+    }
+
+    /**
+     * @return Image width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Image height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return Image resolution, dot per inch
+     */
+    public double getDpi() {
+        return dpi;
+    }
+
+    /**
+     * @return Layer to render
+     */
+    public ILayer getRootLayer() {
+        return rootLayer;
+    }
+
+    /**
+     * @return Tile width and height in pixels
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * @param tileSize Tile width and height in pixels
+     */
+    public void setTileSize(int tileSize) {
+        if(tileSize <= 0) {
+            throw new IllegalArgumentException("Tile size must be positive");
+        }
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * @param margin Rendered pixels around each tile, in order to draw symbols of features outside the tile
+     */
+    public void setMargin(int margin) {
+        this.margin = Math.max(0, margin);
+    }
+
+    /**
+     * @param threadCount Maximum number of tiles rendered at the same time
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * @param imageType Type of the rendered tiles, one of the BufferedImage.TYPE_* constants
+     */
+    public void setImageType(int imageType) {
+        this.imageType = imageType;
+    }
+
+    /**
+     * @param backgroundColor Background color of the tiles, null for transparent tiles
+     */
+    public void setBackgroundColor(Color backgroundColor) {
+        this.backgroundColor = backgroundColor;
+    }
+
+    /**
+     * @return Number of tile columns
+     */
+    public int getTileColumnCount() {
+        return (width + tileSize - 1) / tileSize;
+    }
+
+    /**
+     * @return Number of tile rows
+     */
+    public int getTileRowCount() {
+        return (height + tileSize - 1) / tileSize;
+    }
+
+    /**
+     * @param column Tile column
+     * @param row Tile row
+     * @return Pixel bounds of the tile, border tiles are clipped to the image size
+     */
+    public Rectangle getTileBounds(int column, int row) {
+        int x = column * tileSize;
+        int y = row * tileSize;
+        return new Rectangle(x, y, Math.min(tileSize, width - x), Math.min(tileSize, height - y));
+    }
+
+    /**
+     * @param tileBounds Pixel bounds of a tile
+     * @return Rendered pixel bounds of the tile, including the margin
+     */
+    public Rectangle getRenderBounds(Rectangle tileBounds) {
+        return new Rectangle(tileBounds.x - margin, tileBounds.y - margin, tileBounds.width + 2 * margin,
+                tileBounds.height + 2 * margin);
+    }
+
+    /**
+     * Create a transformation that draw the map area of the provided pixel bounds into an image of the same size.
+     * @param pixelBounds Pixel bounds in the exported image
+     * @param image Image of the tile, only its size is used
+     * @return Map transformation of the tile
+     */
+    public MapTransform createTileTransform(Rectangle pixelBounds, BufferedImage image) {
+        double pixelWidth = adjustedExtent.getWidth() / width;
+        double pixelHeight = adjustedExtent.getHeight() / height;
+        double minX = adjustedExtent.getMinX() + pixelBounds.getMinX() * pixelWidth;
+        double maxY = adjustedExtent.getMaxY() - pixelBounds.getMinY() * pixelHeight;
+        MapTransform mt = new MapTransform();
+        mt.setAdjustExtent(false);
+        mt.setDpi(dpi);
+        mt.setImage(image);
+        mt.setExtent(new Envelope(minX, minX + pixelBounds.getWidth() * pixelWidth,
+                maxY - pixelBounds.getHeight() * pixelHeight, maxY));
+        return mt;
+    }
+
+    /**
+     * Create a transformation of the whole map without painted image, for outputs that draw in their own graphics
+     * (e.g. pdf).
+     * @return Map transformation of the whole map
+     */
+    public MapTransform createMapTransform() {
+        MapTransform mt = new MapTransform();
+        mt.setAdjustExtent(false);
+        mt.setDpi(dpi);
+        mt.setImageSize(width, height);
+        mt.setExtent(new Envelope(adjustedExtent));
+        return mt;
+    }
+
+    /**
+     * Tiles are rendered in parallel only if all visible layers are vector layers with a DataSource,
+     * each tile then use its own connection. Stream layers (ex: WMS) are rendered with one request at a time.
+     * @return True if tiles can be rendered in parallel
+     */
+    public boolean isParallelRenderingAllowed() {
+        ILayer[] layers = rootLayer.acceptsChilds() ? rootLayer.getLayersRecursively() : new ILayer[]{rootLayer};
+        for(ILayer layer : layers) {
+            if(layer.isVisible() && !layer.acceptsChilds() && (!layer.isVectorial() || layer.isStream() ||
+                    layer.getDataManager() == null || layer.getDataManager().getDataSource() == null)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Render the tile at the provided pixel bounds.
+     * @param bounds Pixel bounds in the exported image
+     * @return Tile image, of the size of the bounds
+     */
+    public BufferedImage renderTile(Rectangle bounds) {
+        Rectangle renderBounds = getRenderBounds(bounds);
+        BufferedImage image = new BufferedImage(renderBounds.width, renderBounds.height, imageType);
+        MapTransform mt = createTileTransform(renderBounds, image);
+        Graphics2D g2 = image.createGraphics();
+        try {
+            if (backgroundColor != null) {
+                g2.setBackground(backgroundColor);
+                g2.clearRect(0, 0, renderBounds.width, renderBounds.height);
+            }
+            ImageRenderer renderer = new ImageRenderer();
+            renderer.draw(mt, g2, renderBounds.width, renderBounds.height, rootLayer, null);
+        } finally {
+            g2.dispose();
+        }
+        return margin == 0 ? image : image.getSubimage(margin, margin, bounds.width, bounds.height);
+    }
+
+    /**
+     * Render all tiles, the consumer receive the tiles in row-major order from the calling thread.
+     * @param consumer Tile consumer
+     * @param progressMonitor Progress monitor, one step by tile
+     * @throws IOException The consumer failed or the export has been cancelled
+     */
+    public void render(TileConsumer consumer, ProgressMonitor progressMonitor) throws IOException {
+        int columnCount = getTileColumnCount();
+        int tileCount = columnCount * getTileRowCount();
+        ProgressMonitor pm = progressMonitor == null ? new NullProgressMonitor() :
+                progressMonitor.startTask(I18N.tr("Render map tiles"), tileCount);
+        int poolSize = isParallelRenderingAllowed() ? Math.min(threadCount, tileCount) : 1;
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, poolSize));
+        // Rendered tiles waiting for the consumer, in row-major order
+        Deque<Future<BufferedImage>> pendingTiles = new ArrayDeque<>();
+        int submittedTiles = 0;
+        try {
+            for(int tileId = 0; tileId < tileCount; tileId++) {
+                // Keep at most two tiles by thread in memory
+                while(submittedTiles < tileCount && pendingTiles.size() < 2 * poolSize) {
+                    final Rectangle bounds = getTileBounds(submittedTiles % columnCount, submittedTiles / columnCount);
+                    pendingTiles.add(executorService.submit(new Callable<BufferedImage>() {
+                        @Override
+                        public BufferedImage call() throws Exception {
+                            return renderTile(bounds);
+                        }
+                    }));
+                    submittedTiles++;
+                }
+                BufferedImage tile = pendingTiles.poll().get();
+                if(pm.isCancelled()) {
+                    throw new InterruptedIOException(I18N.tr("Map export cancelled"));
+                }
+                consumer.consumeTile(getTileBounds(tileId % columnCount, tileId / columnCount), tile);
+                pm.endTask();
+            }
+        } catch (InterruptedException ex) {
+            throw new InterruptedIOException(I18N.tr("Map export cancelled"));
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        } finally {
+            for(Future<BufferedImage> pendingTile : pendingTiles) {
+                pendingTile.cancel(true);
+            }
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Receive the rendered tiles
+     */
+    public interface TileConsumer {
+        /**
+         * @param bounds Pixel bounds of the tile in the exported image
+         * @param tile Tile image, it must not be kept after the call
+         * @throws IOException The tile cannot be written
+         */
+        void consumeTile(Rectangle bounds, BufferedImage tile) throws IOException;
+    }
+}
@@ -0,0 +1,357 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.core_export;
+
+import com.sun.media.jai.codec.ImageCodec;
+import com.sun.media.jai.codec.ImageDecoder;
+import com.vividsolutions.jts.geom.Envelope;
+import org.h2gis.functions.factory.H2GISDBFactory;
+import org.h2gis.functions.factory.H2GISFunctions;
+import org.h2gis.utilities.SFSUtilities;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orbisgis.commons.progress.NullProgressMonitor;
+import org.orbisgis.commons.progress.RootProgressMonitor;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.internal.DataManagerImpl;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.layerModel.MapContext;
+import org.orbisgis.coremap.layerModel.OwsMapContext;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.ImageRenderer;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.sql.DataSource;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tiled export of maps, including maps that do not fit in the heap as a single image.
+ * The surefire configuration of this module limits the heap size.
+ * @author Nicolas Fortin
+ */
+public class TiledExportTest {
+    private static final int SMALL_WIDTH = 700;
+    private static final int SMALL_HEIGHT = 500;
+    private static final int SMALL_TILE_SIZE = 128;
+    /** Above this size the test would be too long, it is skipped if the heap is larger */
+    private static final int MAX_LARGE_SIDE = 20000;
+    private static Connection connection;
+    private static DataManager dataManager;
+    private static MapContext mapContext;
+
+    @BeforeClass
+    public static void tearUpClass() throws Exception {
+        DataSource dataSource = SFSUtilities.wrapSpatialDataSource(H2GISDBFactory.createDataSource(
+                TiledExportTest.class.getSimpleName(), false));
+        connection = dataSource.getConnection();
+        H2GISFunctions.load(connection);
+        dataManager = new DataManagerImpl(dataSource);
+        mapContext = new OwsMapContext(dataManager);
+        mapContext.open(null);
+        ILayer layer = mapContext.createLayer(TiledExportTest.class.getResource("landcover2000.shp").toURI());
+        mapContext.getLayerModel().addLayer(layer);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        mapContext.close(null);
+        connection.close();
+        dataManager.dispose();
+    }
+
+    private static MapImageWriter createWriter(MapImageWriter.Format format, int width, int height) {
+        MapImageWriter mapImageWriter = new MapImageWriter(mapContext.getLayerModel());
+        mapImageWriter.setFormat(format);
+        mapImageWriter.setWidth(width);
+        mapImageWriter.setHeight(height);
+        mapImageWriter.setBackgroundColor(Color.WHITE);
+        return mapImageWriter;
+    }
+
+    /**
+     * @return The map rendered in a single image, as before the tiled export
+     */
+    private static BufferedImage renderSingleImage(MapImageWriter mapImageWriter) {
+        BufferedImage img = new BufferedImage(mapImageWriter.getWidth(), mapImageWriter.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        MapTransform mt = new MapTransform();
+        mt.setDpi(MapImageWriter.MILLIMETERS_BY_INCH / mapImageWriter.getPixelSize());
+        mt.setImage(img);
+        mt.setExtent(mapImageWriter.getBoundingBox());
+        Graphics2D g2 = img.createGraphics();
+        g2.setBackground(Color.WHITE);
+        g2.clearRect(0, 0, img.getWidth(), img.getHeight());
+        new ImageRenderer().draw(mt, g2, img.getWidth(), img.getHeight(), mapImageWriter.getRootLayer(), null);
+        g2.dispose();
+        return img;
+    }
+
+    /**
+     * Tile borders may have rounding differences, the images must be almost identical.
+     */
+    private static void assertSimilar(BufferedImage expected, RenderedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        Raster raster = actual.getData();
+        int differentPixels = 0;
+        int[] pixel = new int[raster.getNumBands()];
+        for(int y = 0; y < expected.getHeight(); y++) {
+            for(int x = 0; x < expected.getWidth(); x++) {
+                raster.getPixel(x, y, pixel);
+                Color color = new Color(expected.getRGB(x, y), true);
+                if(Math.abs(color.getRed() - pixel[0]) > 2 || Math.abs(color.getGreen() - pixel[1]) > 2 ||
+                        Math.abs(color.getBlue() - pixel[2]) > 2) {
+                    differentPixels++;
+                }
+            }
+        }
+        assertTrue("Too many different pixels " + differentPixels,
+                differentPixels < expected.getWidth() * expected.getHeight() / 100);
+    }
+
+    @Test
+    public void testTiledPngMatchesSingleImage() throws Exception {
+        MapImageWriter mapImageWriter = createWriter(MapImageWriter.Format.PNG, SMALL_WIDTH, SMALL_HEIGHT);
+        mapImageWriter.setTileSize(SMALL_TILE_SIZE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mapImageWriter.write(out, new NullProgressMonitor());
+        BufferedImage png = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertSimilar(renderSingleImage(mapImageWriter), png);
+    }
+
+    @Test
+    public void testTiledTiffMatchesSingleImage() throws Exception {
+        MapImageWriter mapImageWriter = createWriter(MapImageWriter.Format.TIFF, SMALL_WIDTH, SMALL_HEIGHT);
+        mapImageWriter.setTileSize(SMALL_TILE_SIZE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mapImageWriter.write(out, new NullProgressMonitor());
+        ImageDecoder decoder = ImageCodec.createImageDecoder("tiff",
+                new ByteArrayInputStream(out.toByteArray()), null);
+        RenderedImage tiff = decoder.decodeAsRenderedImage();
+        assertEquals(SMALL_TILE_SIZE, tiff.getTileWidth());
+        assertSimilar(renderSingleImage(mapImageWriter), tiff);
+    }
+
+    @Test
+    public void testBigTiffHeader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TiffTileWriter tiffTileWriter = new TiffTileWriter(out, 100, 40, 64, 96, false, true);
+        assertTrue(tiffTileWriter.isBigTiff());
+        BufferedImage tile = new BufferedImage(64, 40, BufferedImage.TYPE_INT_ARGB);
+        tiffTileWriter.consumeTile(new Rectangle(0, 0, 64, 40), tile);
+        tiffTileWriter.consumeTile(new Rectangle(64, 0, 36, 40), tile.getSubimage(0, 0, 36, 40));
+        tiffTileWriter.finish();
+        byte[] data = out.toByteArray();
+        // Little endian BigTIFF magic number, offset size and first directory offset
+        assertArrayEquals(new byte[]{'I', 'I', 43, 0, 8, 0, 0, 0, 16, 0, 0, 0, 0, 0, 0, 0},
+                Arrays.copyOf(data, 16));
+        // 2 padded RGB tiles at the end of the file
+        assertTrue(data.length > 2 * 64 * 64 * 3);
+    }
+
+    /**
+     * @return Side of a square RGBA image that does not fit in the heap
+     */
+    private static int getLargeSide() {
+        long maxMemory = Runtime.getRuntime().maxMemory();
+        int side = (int) Math.ceil(Math.sqrt(maxMemory / 4. * 1.2));
+        Assume.assumeTrue("Heap is too large for this test", side <= MAX_LARGE_SIDE);
+        assertTrue(4L * side * side > maxMemory);
+        return side;
+    }
+
+    @Test
+    public void testLargePngExport() throws Exception {
+        int side = getLargeSide();
+        MapImageWriter mapImageWriter = createWriter(MapImageWriter.Format.PNG, side, side);
+        File pngFile = new File("target/largeMapExportTest.png");
+        mapImageWriter.write(new FileOutputStream(pngFile), new NullProgressMonitor());
+        try {
+            // Read a subsampled image in order to check the content
+            try(ImageInputStream in = ImageIO.createImageInputStream(pngFile)) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+                assertTrue(readers.hasNext());
+                ImageReader reader = readers.next();
+                reader.setInput(in);
+                assertEquals(side, reader.getWidth(0));
+                assertEquals(side, reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subSampling = side / 256;
+                param.setSourceSubsampling(subSampling, subSampling, 0, 0);
+                BufferedImage preview = reader.read(0, param);
+                reader.dispose();
+                // The map is drawn on the whole image
+                int drawnPixels = 0;
+                for (int y = 0; y < preview.getHeight(); y++) {
+                    for (int x = 0; x < preview.getWidth(); x++) {
+                        if (preview.getRGB(x, y) != Color.WHITE.getRGB()) {
+                            drawnPixels++;
+                        }
+                    }
+                }
+                assertTrue(drawnPixels > preview.getWidth() * preview.getHeight() / 10);
+            }
+        } finally {
+            assertTrue(pngFile.delete());
+        }
+    }
+
+    @Test
+    public void testLargeTiffExport() throws Exception {
+        int side = getLargeSide();
+        MapImageWriter mapImageWriter = createWriter(MapImageWriter.Format.TIFF, side, side);
+        CountingOutputStream out = new CountingOutputStream();
+        mapImageWriter.write(out, new NullProgressMonitor());
+        int tilesBySide = (side + mapImageWriter.getTileSize() - 1) / mapImageWriter.getTileSize();
+        long tilesSize = (long) tilesBySide * tilesBySide * mapImageWriter.getTileSize() *
+                mapImageWriter.getTileSize() * 4;
+        assertTrue(out.getCount() > tilesSize);
+        // Header, image directory and tile offsets
+        assertTrue(out.getCount() - tilesSize < 1024 + tilesBySide * tilesBySide * 8);
+        assertTrue(out.isClosed());
+    }
+
+    @Test
+    public void testLargePdfExport() throws Exception {
+        int side = getLargeSide();
+        MapImageWriter mapImageWriter = createWriter(MapImageWriter.Format.PDF, side, side);
+        mapImageWriter.setTileSize(2048);
+        CountingOutputStream out = new CountingOutputStream();
+        mapImageWriter.write(out, new NullProgressMonitor());
+        assertTrue(out.getCount() > 0);
+    }
+
+    @Test
+    public void testCancelExport() throws Exception {
+        MapImageWriter mapImageWriter = createWriter(MapImageWriter.Format.PNG, SMALL_WIDTH, SMALL_HEIGHT);
+        mapImageWriter.setTileSize(SMALL_TILE_SIZE);
+        RootProgressMonitor pm = new RootProgressMonitor(1);
+        pm.setCancelled(true);
+        CountingOutputStream out = new CountingOutputStream();
+        try {
+            mapImageWriter.write(out, pm);
+            fail("Export should be cancelled");
+        } catch (InterruptedIOException ex) {
+            // Expected
+        }
+        assertTrue(out.isClosed());
+    }
+
+    @Test
+    public void testParallelRendering() throws Exception {
+        TiledMapRenderer tiledMapRenderer = new TiledMapRenderer(mapContext.getLayerModel(),
+                mapContext.getLayerModel().getEnvelope(), SMALL_WIDTH, SMALL_HEIGHT, 96, true);
+        assertTrue(tiledMapRenderer.isParallelRenderingAllowed());
+        Envelope extent = tiledMapRenderer.getAdjustedExtent();
+        assertEquals((double) SMALL_WIDTH / SMALL_HEIGHT, extent.getWidth() / extent.getHeight(), 1e-9);
+    }
+
+    @Test
+    public void testMapTransformWithoutImage() throws Exception {
+        TiledMapRenderer tiledMapRenderer = new TiledMapRenderer(mapContext.getLayerModel(),
+                mapContext.getLayerModel().getEnvelope(), SMALL_WIDTH, SMALL_HEIGHT, 96, true);
+        MapTransform mt = tiledMapRenderer.createMapTransform();
+        assertNull(mt.getImage());
+        assertEquals(SMALL_WIDTH, mt.getWidth());
+        assertEquals(SMALL_HEIGHT, mt.getHeight());
+        // Same transformation as the single tile that covers the whole map
+        MapTransform tileMt = tiledMapRenderer.createTileTransform(new Rectangle(0, 0, SMALL_WIDTH, SMALL_HEIGHT),
+                new BufferedImage(SMALL_WIDTH, SMALL_HEIGHT, BufferedImage.TYPE_BYTE_BINARY));
+        double[] expected = new double[6];
+        double[] actual = new double[6];
+        tileMt.getAffineTransform().getMatrix(expected);
+        mt.getAffineTransform().getMatrix(actual);
+        assertArrayEquals(expected, actual, 1e-6);
+    }
+
+    /**
+     * Discard the written bytes
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private long count = 0;
+        private boolean closed = false;
+
+        @Override
+        public void write(int b) throws IOException {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Shared in-memory cache of the database catalog (schemas, tables and columns).
+ * Schemas are loaded on demand, then tables and columns are updated incrementally using the DDL statements
+ * notified through {@link DataManager#fireDatabaseProgression(StateEvent)}.
+ * @author Nicolas Fortin
+ */
+public interface CatalogMetadata {
+
+    /**
+     * @return True if the database is H2
+     */
+    boolean isH2();
+
+    /**
+     * @return Catalog of the connection
+     */
+    String getDefaultCatalog();
+
+    /**
+     * @return Default schema of the connection
+     */
+    String getDefaultSchema();
+
+    /**
+     * @return All schema names
+     * @throws SQLException Error while reading metadata
+     */
+    List<String> getSchemas() throws SQLException;
+
+    /**
+     * Tables of a schema, the schema is read from the database on the first call only.
+     * @param schema Schema name
+     * @return Tables and views of this schema
+     * @throws SQLException Error while reading metadata
+     */
+    List<TableMetadata> getTables(String schema) throws SQLException;
+
+    /**
+     * @return Tables and views of all schemas
+     * @throws SQLException Error while reading metadata
+     */
+    List<TableMetadata> getTables() throws SQLException;
+
+    /**
+     * @param tableReference Table reference [[catalog.]schema.]table
+     * @return Table metadata or null if the table does not exists
+     * @throws SQLException Error while reading metadata
+     */
+    TableMetadata getTable(String tableReference) throws SQLException;
+
+    /**
+     * @param tableReference Table reference [[catalog.]schema.]table
+     * @return Columns of the table in ordinal order, empty if the table does not exists
+     * @throws SQLException Error while reading metadata
+     */
+    List<ColumnMetadata> getColumns(String tableReference) throws SQLException;
+
+    /**
+     * Clear all cached metadata, listeners are notified of a full update.
+     */
+    void refresh();
+
+    /**
+     * Reload the metadata of a single table, listeners are notified of this table update.
+     * @param tableReference Table reference [[catalog.]schema.]table
+     */
+    void refresh(String tableReference);
+
+    /**
+     * @param listener Listener notified when the cached metadata change
+     */
+    void addCatalogMetadataListener(CatalogMetadataListener listener);
+
+    /**
+     * @param listener Listener instance to remove
+     */
+    void removeCatalogMetadataListener(CatalogMetadataListener listener);
+}
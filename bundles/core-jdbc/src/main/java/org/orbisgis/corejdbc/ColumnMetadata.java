@@ -0,0 +1,121 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc;
+
+/**
+ * Immutable column metadata stored in {@link CatalogMetadata}.
+ * @author Nicolas Fortin
+ */
+public class ColumnMetadata {
+    private final String name;
+    private final int dataType;
+    private final String typeName;
+    private final String geometryType;
+    private final int srid;
+    private final int dimension;
+
+    /**
+     * @param name Column name
+     * @param dataType {@link java.sql.Types}
+     * @param typeName Data source dependent type name
+     * @param geometryType Geometry type name, null if this is not a geometry column
+     * @param srid Geometry SRID, 0 if unknown
+     * @param dimension Geometry coordinate dimension, 0 if unknown
+     */
+    public ColumnMetadata(String name, int dataType, String typeName, String geometryType, int srid, int dimension) {
+        this.name = name;
+        this.dataType = dataType;
+        this.typeName = typeName;
+        this.geometryType = geometryType;
+        this.srid = srid;
+        this.dimension = dimension;
+    }
+
+    /**
+     * @return Column name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return {@link java.sql.Types}
+     */
+    public int getDataType() {
+        return dataType;
+    }
+
+    /**
+     * @return Data source dependent type name
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * @return True if this column is registered in geometry_columns
+     */
+    public boolean isSpatial() {
+        return geometryType != null;
+    }
+
+    /**
+     * @return Geometry type name, null if this is not a geometry column
+     */
+    public String getGeometryType() {
+        return geometryType;
+    }
+
+    /**
+     * @return Geometry SRID, 0 if unknown
+     */
+    public int getSrid() {
+        return srid;
+    }
+
+    /**
+     * @return Geometry coordinate dimension, 0 if unknown
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc;
+
+/**
+ * Connection pool usage counters. The DataSource service of OrbisGIS publish this service in order to monitor
+ * the database connections. All the counters are 0 while the connection pool is not opened.
+ * @author Nicolas Fortin
+ */
+public interface ConnectionPoolStatistics {
+    /**
+     * @return Maximum number of physical connections opened at the same time
+     */
+    int getMaximumPoolSize();
+
+    /**
+     * @return Number of connections currently borrowed
+     */
+    int getActiveConnectionCount();
+
+    /**
+     * @return Number of opened connections waiting in the pool
+     */
+    int getIdleConnectionCount();
+
+    /**
+     * @return Number of physical connections opened since the pool creation
+     */
+    long getCreatedConnectionCount();
+
+    /**
+     * @return Number of {@link javax.sql.DataSource#getConnection()} calls
+     */
+    long getBorrowCount();
+
+    /**
+     * @return Average time to obtain a connection, in nanoseconds
+     */
+    long getAverageBorrowTime();
+
+    /**
+     * @return Longest time spent to obtain a connection, in nanoseconds
+     */
+    long getMaximumBorrowTime();
+
+    /**
+     * @return Number of connections held longer than the leak detection threshold
+     */
+    long getLeakCount();
+
+    /**
+     * @return Number of prepared statement found in the statement cache
+     */
+    long getStatementCacheHitCount();
+
+    /**
+     * @return Number of prepared statement not found in the statement cache
+     */
+    long getStatementCacheMissCount();
+
+    /**
+     * @return Statement cache hit rate in the range [0-1]
+     */
+    double getStatementCacheHitRate();
+}
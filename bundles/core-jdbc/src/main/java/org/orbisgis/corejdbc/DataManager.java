@@ -147,4 +147,9 @@ public interface DataManager extends RowSetFactory {
      * @param listener Listener instance
      */
     void removeDatabaseProgressionListener(DatabaseProgressionListener listener);
+
+    /**
+     * @return Persisted statistics of the tables of this DataSource
+     */
+    TableStatisticsStore getTableStatisticsStore();
 }
@@ -39,6 +39,7 @@ package org.orbisgis.corejdbc;
 import org.h2gis.utilities.JDBCUrlParser;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.SFSUtilities;
+import org.orbisgis.corejdbc.internal.ConnectionPool;
 import org.orbisgis.frameworkapi.CoreWorkspace;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -63,11 +64,23 @@ import java.util.Properties;
 
 /**
  * Using CoreWorkspace to declare the DataSource service in Declarative Service framework.
+ * Connections are pooled, the pool can be configured through the component properties {@link #POOL_SIZE},
+ * {@link #POOL_STATEMENT_CACHE_SIZE}, {@link #POOL_LEAK_THRESHOLD} and {@link #POOL_BORROW_TIMEOUT}.
  * @author Nicolas Fortin
  */
 @Component
-public class DataSourceService implements DataSource {
+public class DataSourceService implements DataSource, ConnectionPoolStatistics {
+    /** Maximum number of opened connections */
+    public static final String POOL_SIZE = "pool.size";
+    /** Maximum number of cached prepared statements per connection */
+    public static final String POOL_STATEMENT_CACHE_SIZE = "pool.statementCacheSize";
+    /** Time in milliseconds before reporting a connection that has not been closed */
+    public static final String POOL_LEAK_THRESHOLD = "pool.leakThreshold";
+    /** Maximum time in milliseconds to wait for an available connection */
+    public static final String POOL_BORROW_TIMEOUT = "pool.borrowTimeout";
     private DataSource dataSource;
+    private volatile ConnectionPool connectionPool;
+    private Map<String, ?> properties = new HashMap<>();
     private CoreWorkspace coreWorkspace;
     private Map<String, DataSourceFactory> dataSourceFactories = new HashMap<>();
     private static final Map<String,String> URI_DRIVER_TO_OSGI_DRIVER = new HashMap<>();
@@ -88,16 +101,54 @@ public class DataSourceService implements DataSource {
     }
 
     /**
-     * Create internal datasource using {@link #setCoreWorkspace(org.orbisgis.frameworkapi.CoreWorkspace)} and {@link
+     * Create internal datasource with default pool configuration using
+     * {@link #setCoreWorkspace(org.orbisgis.frameworkapi.CoreWorkspace)} and {@link
      * #addDataSourceFactory(org.osgi.service.jdbc.DataSourceFactory, java.util.Map)}
      * @throws SQLException If the DataSource could not be created
      */
-    @Activate
     public void activate() throws SQLException {
+        activate(null);
+    }
+
+    /**
+     * Create internal datasource
+     * @param properties Component properties, pool configuration
+     * @throws SQLException If the DataSource could not be created
+     */
+    @Activate
+    public void activate(Map<String, ?> properties) throws SQLException {
+        if(properties != null) {
+            this.properties = properties;
+        }
         // Build DataSource
         newDataSource();
     }
 
+    /**
+     * Close the pooled connections without shutting down the database
+     */
+    public void dispose() {
+        ConnectionPool pool = connectionPool;
+        if(pool != null) {
+            connectionPool = null;
+            pool.close();
+        }
+    }
+
+    private long getLongProperty(String key, long defaultValue) {
+        Object value = properties.get(key);
+        if(value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if(value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException ex) {
+                LOGGER.error(I18N.tr("Invalid value {0} for the property {1}", value, key));
+            }
+        }
+        return defaultValue;
+    }
+
     @Deactivate
     public void deactivate() throws SQLException {
         // Wait for H2 close
@@ -107,6 +158,8 @@ public class DataSourceService implements DataSource {
             if(JDBCUtilities.isH2DataBase(metaData) && !metaData.getURL().contains("tcp")) {
                 st.execute("SHUTDOWN");
             }
+        } finally {
+            dispose();
         }
     }
 
@@ -130,7 +183,12 @@ public class DataSourceService implements DataSource {
                     // see https://github.com/orbisgis/orbisgis/issues/793
                     properties.put("DATABASE_EVENT_LISTENER","'org.orbisgis.h2triggers.H2DatabaseEventListener'");
                 }
-                dataSource = SFSUtilities.wrapSpatialDataSource(dataSourceFactory.createDataSource(properties));
+                connectionPool = new ConnectionPool(dataSourceFactory.createDataSource(properties),
+                        (int) getLongProperty(POOL_SIZE, ConnectionPool.DEFAULT_MAXIMUM_POOL_SIZE),
+                        (int) getLongProperty(POOL_STATEMENT_CACHE_SIZE, ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE),
+                        getLongProperty(POOL_LEAK_THRESHOLD, ConnectionPool.DEFAULT_LEAK_THRESHOLD),
+                        getLongProperty(POOL_BORROW_TIMEOUT, ConnectionPool.DEFAULT_BORROW_TIMEOUT));
+                dataSource = SFSUtilities.wrapSpatialDataSource(connectionPool);
                 // Init spatial
                 try(Connection connection = dataSource.getConnection();
                     Statement st = connection.createStatement()) {
@@ -219,4 +277,70 @@ public class DataSourceService implements DataSource {
     public boolean isWrapperFor(Class<?> iface) throws SQLException {
         return dataSource.isWrapperFor(iface);
     }
+
+    @Override
+    public int getMaximumPoolSize() {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getMaximumPoolSize() : 0;
+    }
+
+    @Override
+    public int getActiveConnectionCount() {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getActiveConnectionCount() : 0;
+    }
+
+    @Override
+    public int getIdleConnectionCount() {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getIdleConnectionCount() : 0;
+    }
+
+    @Override
+    public long getCreatedConnectionCount() {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getCreatedConnectionCount() : 0;
+    }
+
+    @Override
+    public long getBorrowCount() {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getBorrowCount() : 0;
+    }
+
+    @Override
+    public long getAverageBorrowTime() {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getAverageBorrowTime() : 0;
+    }
+
+    @Override
+    public long getMaximumBorrowTime() {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getMaximumBorrowTime() : 0;
+    }
+
+    @Override
+    public long getLeakCount() {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getLeakCount() : 0;
+    }
+
+    @Override
+    public long getStatementCacheHitCount() {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getStatementCacheHitCount() : 0;
+    }
+
+    @Override
+    public long getStatementCacheMissCount() {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getStatementCacheMissCount() : 0;
+    }
+
+    @Override
+    public double getStatementCacheHitRate() {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getStatementCacheHitRate() : 0;
+    }
 }
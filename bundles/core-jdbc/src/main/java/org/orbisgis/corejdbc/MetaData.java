@@ -271,6 +271,29 @@ public class MetaData {
         }
     }
 
+    /**
+     * Check if a column is covered by an index. For a geometry column this index is the spatial index used by the
+     * bounding box operator {@code &&}.
+     * @param connection Active connection, not closed by this function
+     * @param table Table identifier [[catalog.]schema.]table
+     * @param columnName Column name
+     * @return True if at least one index contains this column
+     * @throws SQLException
+     */
+    public static boolean isIndexed(Connection connection, String table, String columnName) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        TableLocation tableLocation = TableLocation.parse(table, JDBCUtilities.isH2DataBase(meta));
+        try(ResultSet rs = meta.getIndexInfo(tableLocation.getCatalog(null), tableLocation.getSchema(null),
+                tableLocation.getTable(), false, true)) {
+            while (rs.next()) {
+                if(columnName.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Find the primary key name of the table.
      *
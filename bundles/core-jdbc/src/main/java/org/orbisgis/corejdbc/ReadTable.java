@@ -43,6 +43,7 @@ import org.h2gis.utilities.SFSUtilities;
 import org.h2gis.utilities.SpatialResultSet;
 import org.h2gis.utilities.TableLocation;
 import org.orbisgis.commons.progress.ProgressMonitor;
+import org.orbisgis.commons.progress.NullProgressMonitor;
 import org.orbisgis.corejdbc.common.LongUnion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,6 +63,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
@@ -77,6 +79,9 @@ public class ReadTable {
     protected final static I18n I18N = I18nFactory.getI18n(ReadTable.class, Locale.getDefault(), I18nFactory.FALLBACK);
     private static Logger LOGGER = LoggerFactory.getLogger(ReadTable.class);
     private static final int INSERT_BATCH_SIZE = 30;
+    /** Number of primary keys read before notifying the selection progression */
+    public static final int SELECTION_FETCH_SIZE = 10000;
+    private static final Set<String> UNINDEXED_WARNED = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     public static Collection<Integer> getSortedColumnRowIndex(Connection connection,ReadRowSet originalOrder, String table, String originalColumnName, boolean ascending, ProgressMonitor progressMonitor) throws SQLException {
         String quoteIdentifier = TableLocation.quoteIdentifier(originalColumnName);
@@ -252,6 +257,38 @@ public class ReadTable {
      * @throws SQLException
      */
     public static String resultSetToString(ResultSet rs,int maxFieldLength, int maxPrintedRows, boolean addColumns, boolean alignColumns, ResultSetFilter resultSetFilter) throws SQLException {
+        final StringBuilder lines = new StringBuilder();
+        printResultSet(rs, maxFieldLength, maxPrintedRows, maxPrintedRows, addColumns, alignColumns, resultSetFilter,
+                new ResultSetPrinter() {
+                    @Override
+                    public void print(String chunk) {
+                        lines.append(chunk);
+                    }
+                });
+        if(lines.length() != 0) {
+            return lines.toString();
+        } else {
+            return I18N.tr("No attributes to show");
+        }
+    }
+
+    /**
+     * Print a human readable format of provided result set by chunks of rows. Only one chunk is held in memory, then
+     * the result set can be printed progressively into a log.
+     * @param rs result set to read
+     * @param maxFieldLength Maximum field length to print
+     * @param maxPrintedRows Maximum printed rows
+     * @param chunkRows Maximum number of rows given to the printer in one call
+     * @param addColumns Add column header
+     * @param alignColumns Align columns by using padding
+     * @param resultSetFilter Accept or refuse rows by implementing this interface
+     * @param printer Receive the formatted chunks, the header is sent with the first chunk
+     * @return Number of printed rows
+     * @throws SQLException
+     */
+    public static int printResultSet(ResultSet rs,int maxFieldLength, int maxPrintedRows, int chunkRows,
+                                     boolean addColumns, boolean alignColumns, ResultSetFilter resultSetFilter,
+                                     ResultSetPrinter printer) throws SQLException {
         // Print headers
         ResultSetMetaData metaData = rs.getMetaData();
         int columnCount = metaData.getColumnCount();
@@ -268,15 +305,17 @@ public class ReadTable {
                 formatStringBuilder.append("%s ");
             }
         }
+        String format = formatStringBuilder.toString();
         if(addColumns) {
-            lines.append(String.format(formatStringBuilder.toString(), header));
+            lines.append(String.format(format, header));
             lines.append("\n");
         }
         int shownLines = 0;
+        int chunkLines = 0;
         NumberFormat decimalFormat = NumberFormat.getInstance(Locale.getDefault());
         decimalFormat.setGroupingUsed(false);
         decimalFormat.setMaximumFractionDigits(16);
-        while(rs.next() && shownLines < maxPrintedRows) {
+        while(shownLines < maxPrintedRows && rs.next()) {
             if(resultSetFilter.printRow(rs)) {
                 String[] row = new String[columnCount];
                 for (int idColumn = 1; idColumn <= columnCount; idColumn++) {
@@ -297,15 +336,20 @@ public class ReadTable {
                     row[idColumn - 1] = value;
                 }
                 shownLines++;
-                lines.append(String.format(formatStringBuilder.toString(), row));
+                chunkLines++;
+                lines.append(String.format(format, row));
                 lines.append("\n");
+                if(chunkLines >= chunkRows) {
+                    printer.print(lines.toString());
+                    lines.setLength(0);
+                    chunkLines = 0;
+                }
             }
         }
         if(lines.length() != 0) {
-            return lines.toString();
-        } else {
-            return I18N.tr("No attributes to show");
+            printer.print(lines.toString());
         }
+        return shownLines;
     }
 
     private static class AcceptAllFilter implements ResultSetFilter {
@@ -323,6 +367,13 @@ public class ReadTable {
         boolean printRow(ResultSet rs) throws SQLException;
     }
 
+    public static interface ResultSetPrinter {
+        /**
+         * @param chunk Formatted rows, each row ends with a line feed
+         */
+        void print(String chunk);
+    }
+
     /**
      * Compute numeric stats of the specified table column.
      * @param connection Available connection
@@ -364,6 +415,38 @@ public class ReadTable {
         return stats;
     }
 
+    /**
+     * Fetch the values of a column having the longest text representation. The database do the aggregation, then
+     * the client does not have to read the whole table in order to estimate the column width.
+     * @param connection Available connection
+     * @param tableName Table identifier
+     * @param columnName Column name, not quoted
+     * @param limit Maximum number of returned values
+     * @param pm Progress monitor
+     * @return Values, sorted by descending text length
+     * @throws SQLException
+     */
+    public static List<Object> getLongestValues(Connection connection, String tableName, String columnName,
+                                                int limit, ProgressMonitor pm) throws SQLException {
+        String column = TableLocation.quoteIdentifier(columnName);
+        List<Object> values = new ArrayList<>(limit);
+        try(PreparedStatement st = connection.prepareStatement(String.format("SELECT %1$s FROM %2$s WHERE %1$s" +
+                " IS NOT NULL ORDER BY LENGTH(CAST(%1$s AS VARCHAR)) DESC LIMIT ?", column, tableName))) {
+            st.setInt(1, limit);
+            // Cancel select
+            PropertyChangeListener listener = EventHandler.create(PropertyChangeListener.class, st, "cancel");
+            pm.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL, listener);
+            try(ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    values.add(rs.getObject(1));
+                }
+            } finally {
+                pm.removePropertyChangeListener(listener);
+            }
+        }
+        return values;
+    }
+
     /**
      * Compute numeric stats of the specified table column using a limited input rows. Stats are not done in the sql side.
      * @param connection Available connection
@@ -444,31 +527,116 @@ public class ReadTable {
      */
     public static Set<Long> getTablePkByEnvelope(DataManager dataManager, String table,String geometryColumn,
                                                     Geometry selection, boolean contains) throws SQLException {
-        Set<Long> newSelection = new HashSet<>(50);
+        return getTablePkByEnvelope(dataManager, table, geometryColumn, selection, contains, new NullProgressMonitor(),
+                null);
+    }
+
+    /**
+     * Fetch the primary keys of the rows that intersects or are contained in the selection geometry. Rows are read
+     * by chunks of {@link #SELECTION_FETCH_SIZE} keys and gathered into a compact sorted set.
+     * @param dataManager RowSet factory
+     * @param table Table identifier
+     * @param geometryColumn Name of the geometry column
+     * @param selection Selection polygon
+     * @param contains If true selection is used with contains, else this is intersects.
+     * @param pm Progress monitor, the query is aborted when cancelled
+     * @param chunkListener Receive the keys read so far, may be null
+     * @return Row identifiers, empty if cancelled
+     * @throws SQLException
+     */
+    public static LongUnion getTablePkByEnvelope(DataManager dataManager, String table, String geometryColumn,
+                                                 Geometry selection, boolean contains, ProgressMonitor pm,
+                                                 PkChunkListener chunkListener) throws SQLException {
         TableLocation tableLocation = TableLocation.parse(table);
-        // There is a where condition then system row index can't be used
         try(Connection connection = dataManager.getDataSource().getConnection()) {
             String pkName = MetaData.getPkName(connection, tableLocation.toString(), true);
+            if(pkName.isEmpty()) {
+                throw new SQLException(I18N.tr("Table {0} do not contain any information in order to identify row", table));
+            }
+            if(!MetaData.isIndexed(connection, tableLocation.toString(), geometryColumn) &&
+                    UNINDEXED_WARNED.add(tableLocation.toString())) {
+                LOGGER.warn(I18N.tr("The column {0} of the table {1} has no spatial index, the selection will read " +
+                        "all the rows of the table", geometryColumn, table));
+            }
             boolean isH2 = JDBCUtilities.isH2DataBase(connection.getMetaData());
-            if(!pkName.isEmpty()) {
-                String from = tableLocation.toString();
-                String sqlFunction = contains ? "ST_CONTAINS(?, %s)" : "ST_INTERSECTS(?, %s)";
-                try(PreparedStatement st = connection.prepareStatement(String.format("SELECT %s FROM %s WHERE %s && ? AND " + sqlFunction,
-                        TableLocation.quoteIdentifier(pkName), from,
-                        TableLocation.quoteIdentifier(geometryColumn), TableLocation.quoteIdentifier(geometryColumn)))) {
+            // PostgreSQL stream the rows only inside a transaction
+            boolean autoCommit = connection.getAutoCommit();
+            if(!isH2 && autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            // The bounding box operator use the spatial index, the exact predicate is evaluated only on candidates
+            String sqlFunction = contains ? "ST_CONTAINS(?, %s)" : "ST_INTERSECTS(?, %s)";
+            try(PreparedStatement st = connection.prepareStatement(String.format("SELECT %s FROM %s WHERE %s && ? AND " + sqlFunction,
+                    TableLocation.quoteIdentifier(pkName), tableLocation.toString(),
+                    TableLocation.quoteIdentifier(geometryColumn), TableLocation.quoteIdentifier(geometryColumn)))) {
+                PropertyChangeListener cancelListener = EventHandler.create(PropertyChangeListener.class, st, "cancel");
+                pm.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL, cancelListener);
+                try {
+                    st.setFetchSize(SELECTION_FETCH_SIZE);
                     st.setObject(1, selection);
                     st.setObject(2, selection);
-                    try(SpatialResultSet rs = st.executeQuery().unwrap(SpatialResultSet.class)) {
+                    long[] keys = new long[SELECTION_FETCH_SIZE];
+                    int keyCount = 0;
+                    int chunkStart = 0;
+                    try (ResultSet rs = st.executeQuery()) {
                         while (rs.next()) {
-                            newSelection.add(rs.getLong(1));
+                            if(keyCount == keys.length) {
+                                keys = Arrays.copyOf(keys, keys.length * 2);
+                            }
+                            keys[keyCount++] = rs.getLong(1);
+                            if(keyCount - chunkStart == SELECTION_FETCH_SIZE) {
+                                if(pm.isCancelled()) {
+                                    return new LongUnion();
+                                }
+                                if(chunkListener != null) {
+                                    chunkListener.chunkFetched(sortedUnion(keys, chunkStart, keyCount));
+                                }
+                                chunkStart = keyCount;
+                            }
+                        }
+                    } catch (SQLException ex) {
+                        if(pm.isCancelled()) {
+                            return new LongUnion();
                         }
+                        throw ex;
                     }
+                    if(chunkListener != null && chunkStart < keyCount) {
+                        chunkListener.chunkFetched(sortedUnion(keys, chunkStart, keyCount));
+                    }
+                    return sortedUnion(keys, 0, keyCount);
+                } finally {
+                    pm.removePropertyChangeListener(cancelListener);
+                }
+            } finally {
+                if(!isH2 && autoCommit) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
                 }
-            } else {
-                throw new SQLException(I18N.tr("Table "+table+" do not contain any information in order to identify row"));
             }
         }
-        return newSelection;
+    }
+
+    /**
+     * Sort the keys in place, then aggregate them. Inserting sorted keys in a {@link LongUnion} only append or
+     * extend the last range.
+     */
+    private static LongUnion sortedUnion(long[] keys, int from, int to) {
+        Arrays.sort(keys, from, to);
+        LongUnion union = new LongUnion();
+        for(int i = from; i < to; i++) {
+            union.add(keys[i]);
+        }
+        return union;
+    }
+
+    /**
+     * Receive the primary keys while they are read from the database.
+     */
+    public static interface PkChunkListener {
+        /**
+         * @param chunk Keys read since the last call
+         */
+        void chunkFetched(LongUnion chunk);
     }
 
     public static class FilteredResultSet implements Closeable {
@@ -36,6 +36,9 @@
  */
 package org.orbisgis.corejdbc;
 
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
 /**
  * @author Nicolas Fortin
  */
@@ -45,6 +48,7 @@ public class TableEditEvent extends java.util.EventObject {
     protected Long firstRowPK;
     protected Long lastRowPK;
     protected int type;
+    private Envelope dirtyEnvelope;
 
 
     public TableEditEvent(String tableName, int column, Long firstRowPK, Long lastRowPK, int type) {
@@ -111,4 +115,47 @@ public class TableEditEvent extends java.util.EventObject {
     public int getType() {
         return type;
     }
+
+    /**
+     * @return Envelope of the edited geometries, before and after the edit. Null if the edited area is not known.
+     */
+    public Envelope getDirtyEnvelope() {
+        return dirtyEnvelope;
+    }
+
+    /**
+     * @param dirtyEnvelope Envelope of the edited geometries, before and after the edit. Null if the edited area is
+     *                      not known.
+     */
+    public void setDirtyEnvelope(Envelope dirtyEnvelope) {
+        this.dirtyEnvelope = dirtyEnvelope;
+    }
+
+    /**
+     * Compute the envelope of the geometries found in the provided field values.
+     * @param values Field values, other objects are ignored
+     * @return Envelope of the geometries, or null if there is no geometry
+     */
+    public static Envelope getGeometryEnvelope(Object... values) {
+        Envelope envelope = null;
+        for(Object value : values) {
+            if(value instanceof Object[]) {
+                Envelope rowEnvelope = getGeometryEnvelope((Object[]) value);
+                if(rowEnvelope != null) {
+                    if(envelope == null) {
+                        envelope = new Envelope(rowEnvelope);
+                    } else {
+                        envelope.expandToInclude(rowEnvelope);
+                    }
+                }
+            } else if(value instanceof Geometry && !((Geometry) value).isEmpty()) {
+                if(envelope == null) {
+                    envelope = new Envelope(((Geometry) value).getEnvelopeInternal());
+                } else {
+                    envelope.expandToInclude(((Geometry) value).getEnvelopeInternal());
+                }
+            }
+        }
+        return envelope;
+    }
 }
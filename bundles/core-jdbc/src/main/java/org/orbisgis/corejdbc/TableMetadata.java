@@ -0,0 +1,106 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc;
+
+import org.h2gis.utilities.TableLocation;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable table metadata stored in {@link CatalogMetadata}.
+ * @author Nicolas Fortin
+ */
+public class TableMetadata {
+    private final TableLocation location;
+    private final Map<String, String> attributes;
+    private final String geometryType;
+
+    /**
+     * @param location Table location, the catalog is always set
+     * @param attributes Columns of {@link java.sql.DatabaseMetaData#getTables(String, String, String, String[])} by
+     *                   upper case column label
+     * @param geometryType Geometry type of the first geometry column in geometry_columns, null if the table is not
+     *                     spatial
+     */
+    public TableMetadata(TableLocation location, Map<String, String> attributes, String geometryType) {
+        this.location = location;
+        this.attributes = Collections.unmodifiableMap(attributes);
+        this.geometryType = geometryType;
+    }
+
+    /**
+     * @return Table location, the catalog is always set
+     */
+    public TableLocation getLocation() {
+        return location;
+    }
+
+    /**
+     * @return Columns of {@link java.sql.DatabaseMetaData#getTables(String, String, String, String[])} by upper case
+     * column label (TABLE_TYPE, REMARKS..)
+     */
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * @return Table type ex: TABLE, VIEW, LINKED TABLE
+     */
+    public String getTableType() {
+        return attributes.get("TABLE_TYPE");
+    }
+
+    /**
+     * @return Geometry type name or null if the table does not contain a geometry column
+     */
+    public String getGeometryType() {
+        return geometryType;
+    }
+
+    /**
+     * @return True if the table contains at least one geometry column
+     */
+    public boolean isSpatial() {
+        return geometryType != null;
+    }
+
+    @Override
+    public String toString() {
+        return location.toString();
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable statistics of a table stored in {@link TableStatisticsStore}.
+ * @author Nicolas Fortin
+ */
+public class TableStatistics {
+    private final String tableReference;
+    private final long rowCount;
+    private final Envelope envelope;
+    private final Map<String, Long> geometryTypes;
+    private final Map<String, double[]> columnRanges;
+    private final boolean exact;
+
+    /**
+     * @param tableReference Table identifier
+     * @param rowCount Number of rows
+     * @param envelope Extent of the first geometry column, null envelope if the table is empty or not spatial
+     * @param geometryTypes Number of rows by geometry type name, null geometries are not counted
+     * @param columnRanges Minimum and maximum values by numeric field name, null values are not counted
+     * @param exact False if rows have been updated or deleted since the last full scan of the table
+     */
+    public TableStatistics(String tableReference, long rowCount, Envelope envelope, Map<String, Long> geometryTypes,
+                           Map<String, double[]> columnRanges, boolean exact) {
+        this.tableReference = tableReference;
+        this.rowCount = rowCount;
+        this.envelope = new Envelope(envelope);
+        this.geometryTypes = Collections.unmodifiableMap(new HashMap<>(geometryTypes));
+        this.columnRanges = new HashMap<>(columnRanges.size());
+        for (Map.Entry<String, double[]> range : columnRanges.entrySet()) {
+            this.columnRanges.put(range.getKey(), range.getValue().clone());
+        }
+        this.exact = exact;
+    }
+
+    /**
+     * @return Table identifier
+     */
+    public String getTableReference() {
+        return tableReference;
+    }
+
+    /**
+     * @return Number of rows, may be greater than the real count if the statistics are not exact
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return Copy of the extent of the table. If the statistics are not exact the real extent may be smaller.
+     */
+    public Envelope getEnvelope() {
+        return new Envelope(envelope);
+    }
+
+    /**
+     * @return Number of rows by geometry type name (ex: POINT, MULTIPOLYGON)
+     */
+    public Map<String, Long> getGeometryTypes() {
+        return geometryTypes;
+    }
+
+    /**
+     * @param field Numeric field name
+     * @return Minimum value of the field, null if the field is not numeric or has only null values. If the
+     * statistics are not exact the real minimum may be greater.
+     */
+    public Double getColumnMin(String field) {
+        double[] range = columnRanges.get(field);
+        return range == null ? null : range[0];
+    }
+
+    /**
+     * @param field Numeric field name
+     * @return Maximum value of the field, null if the field is not numeric or has only null values. If the
+     * statistics are not exact the real maximum may be smaller.
+     */
+    public Double getColumnMax(String field) {
+        double[] range = columnRanges.get(field);
+        return range == null ? null : range[1];
+    }
+
+    /**
+     * @return False if rows have been updated or deleted since the last full scan of the table
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    @Override
+    public String toString() {
+        return tableReference + " " + rowCount + " rows " + envelope;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+import java.sql.SQLException;
+
+/**
+ * Statistics of tables (extent, row count, geometry types, range of the numeric columns) persisted in the database.
+ * The statistics are computed with a full scan of the table on the first request only, then they are kept up to date
+ * using the {@link TableEditEvent} of the {@link DataManager} and the DDL statements notified through
+ * {@link DataManager#fireDatabaseProgression(StateEvent)}.
+ * @author Nicolas Fortin
+ */
+public interface TableStatisticsStore {
+
+    /**
+     * Extent of the first geometry column of the table. Inserted and updated rows are merged into the stored
+     * envelope without scanning the whole table, so the returned envelope may be larger than the real one after row
+     * deletion.
+     * @param tableReference Table identifier [[catalog.]schema.]table
+     * @return Copy of the table extent, null envelope if the table is empty or not spatial
+     * @throws SQLException Error while computing the statistics
+     */
+    Envelope getEnvelope(String tableReference) throws SQLException;
+
+    /**
+     * Exact statistics of the table, the table is scanned again if rows have been updated or deleted since the last
+     * scan.
+     * @param tableReference Table identifier [[catalog.]schema.]table
+     * @return Table statistics
+     * @throws SQLException Error while computing the statistics
+     */
+    TableStatistics getStatistics(String tableReference) throws SQLException;
+
+    /**
+     * Remove the stored statistics of this table, they will be computed on the next request.
+     * @param tableReference Table identifier [[catalog.]schema.]table
+     */
+    void invalidate(String tableReference);
+}
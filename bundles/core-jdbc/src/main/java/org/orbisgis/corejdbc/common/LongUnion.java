@@ -408,6 +408,96 @@ public class LongUnion implements NumberUnion<Long> {
         intervals.clear();
     }
 
+    /**
+     * Union of this set with another one, computed by merging the ranges in linear time.
+     * @param other Other set
+     * @return A new set containing values of this set or of the other set
+     */
+    public LongUnion union(LongUnion other) {
+        return combine(this, other, UNION);
+    }
+
+    /**
+     * Difference of this set with another one, computed by merging the ranges in linear time.
+     * @param other Values to remove
+     * @return A new set containing values of this set that are not in the other set
+     */
+    public LongUnion difference(LongUnion other) {
+        return combine(this, other, DIFFERENCE);
+    }
+
+    /**
+     * Symmetric difference of this set with another one, computed by merging the ranges in linear time.
+     * @param other Values to toggle
+     * @return A new set containing values that are only in one of the two sets
+     */
+    public LongUnion symmetricDifference(LongUnion other) {
+        return combine(this, other, SYMMETRIC_DIFFERENCE);
+    }
+
+    private static final int UNION = 0;
+    private static final int DIFFERENCE = 1;
+    private static final int SYMMETRIC_DIFFERENCE = 2;
+
+    /**
+     * @param ranges Intervals
+     * @param index Index in intervals
+     * @return Bound of the half open interval [begin-end+1[
+     */
+    private static long bound(List<Long> ranges, int index) {
+        return index % 2 == 0 ? ranges.get(index) : ranges.get(index) + 1;
+    }
+
+    private static LongUnion combine(LongUnion a, LongUnion b, int operation) {
+        LongUnion result = new LongUnion();
+        List<Long> out = result.intervals;
+        List<Long> rangesA = a.intervals;
+        List<Long> rangesB = b.intervals;
+        int i = 0;
+        int j = 0;
+        boolean inA = false;
+        boolean inB = false;
+        boolean inResult = false;
+        long begin = 0;
+        while (i < rangesA.size() || j < rangesB.size()) {
+            long boundA = i < rangesA.size() ? bound(rangesA, i) : Long.MAX_VALUE;
+            long boundB = j < rangesB.size() ? bound(rangesB, j) : Long.MAX_VALUE;
+            long position = Math.min(boundA, boundB);
+            if (boundA == position) {
+                inA = !inA;
+                i++;
+            }
+            if (boundB == position) {
+                inB = !inB;
+                j++;
+            }
+            boolean in;
+            switch (operation) {
+                case UNION:
+                    in = inA || inB;
+                    break;
+                case DIFFERENCE:
+                    in = inA && !inB;
+                    break;
+                default:
+                    in = inA != inB;
+            }
+            if (in != inResult) {
+                if (in) {
+                    begin = position;
+                } else if (!out.isEmpty() && out.get(out.size() - 1) == begin - 1) {
+                    // Contiguous with the previous range
+                    out.set(out.size() - 1, position - 1);
+                } else {
+                    out.add(begin);
+                    out.add(position - 1);
+                }
+                inResult = in;
+            }
+        }
+        return result;
+    }
+
     /**
      * @return Two direction iterator
      */
@@ -0,0 +1,648 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc.internal;
+
+import org.h2gis.utilities.JDBCUtilities;
+import org.h2gis.utilities.TableLocation;
+import org.orbisgis.corejdbc.CatalogMetadata;
+import org.orbisgis.corejdbc.CatalogMetadataListener;
+import org.orbisgis.corejdbc.ColumnMetadata;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.DatabaseProgressionListener;
+import org.orbisgis.corejdbc.StateEvent;
+import org.orbisgis.corejdbc.TableMetadata;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Implementation of the CatalogMetadata service.
+ * Tables are read by schema on the first request. Then on each DDL statement only the tables named in the statement
+ * are read again. Statements that cannot be linked to tables (ex: DROP SCHEMA) clear the cache.
+ * @author Nicolas Fortin
+ */
+@Component(service = CatalogMetadata.class)
+public class CatalogMetadataImpl implements CatalogMetadata, DatabaseProgressionListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogMetadataImpl.class);
+    private static final I18n I18N = I18nFactory.getI18n(CatalogMetadataImpl.class, Locale.getDefault(), I18nFactory.FALLBACK);
+    private static final String[] SHOWN_TABLE_TYPES = new String[]{"TABLE", "SYSTEM TABLE","LINKED TABLE","VIEW",
+            "EXTERNAL", "TABLE LINK"};
+    private static final String IDENTIFIER = "(?:\"(?:[^\"]|\"\")+\"|[^\\s.,;()\"]+)";
+    private static final String NAME = IDENTIFIER + "(?:\\s*\\.\\s*" + IDENTIFIER + "){0,2}";
+    private static final Pattern NAME_PATTERN = Pattern.compile(NAME);
+    private static final Pattern TABLE_DDL = Pattern.compile("^\\s*(CREATE|ALTER|DROP)\\s+(?:OR\\s+REPLACE\\s+)?" +
+            "(?:(?:CACHED|MEMORY|TEMP|TEMPORARY|GLOBAL|LOCAL|LINKED|EXTERNAL|FORCE|UNLOGGED|MATERIALIZED)\\s+)*" +
+            "(?:TABLE|VIEW)\\s+(?:IF\\s+(?:NOT\\s+)?EXISTS\\s+)?(" + NAME + "(?:\\s*,\\s*" + NAME + ")*)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern RENAME = Pattern.compile("\\bRENAME\\s+TO\\s+(" + NAME + ")", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_INDEX = Pattern.compile("^\\s*CREATE\\s+(?:[A-Z]+\\s+)*INDEX\\b.*?\\bON\\s+(" +
+            NAME + ")", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern INDEX_DDL = Pattern.compile("^\\s*(?:ALTER|DROP)\\s+INDEX\\s+(?:CONCURRENTLY\\s+)?" +
+            "(?:IF\\s+EXISTS\\s+)?(" + NAME + "(?:\\s*,\\s*" + NAME + ")*)", Pattern.CASE_INSENSITIVE);
+    /** DDL statements that do not change tables nor columns */
+    private static final Pattern NO_TABLE_DDL = Pattern.compile("^\\s*(CREATE|ALTER|DROP)\\s+(?:OR\\s+REPLACE\\s+)?" +
+            "(?:FORCE\\s+)?(INDEX|ALIAS|SEQUENCE|USER|ROLE|TRIGGER|CONSTANT|DOMAIN|FUNCTION|AGGREGATE|TYPE)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private DataManager dataManager;
+    private volatile boolean isH2 = true;
+    private volatile String defaultCatalog = "";
+    private volatile String defaultSchema = "PUBLIC";
+    private volatile List<String> schemas = null;
+    /** Loaded schemas, schema name to table name to table metadata */
+    private final ConcurrentMap<String, ConcurrentMap<String, TableMetadata>> schemaTables = new ConcurrentHashMap<>();
+    /** Loaded columns, table location to columns */
+    private final ConcurrentMap<String, List<ColumnMetadata>> tableColumns = new ConcurrentHashMap<>();
+    /** Indexes of the loaded tables, index location to table location */
+    private final ConcurrentMap<String, TableLocation> indexTables = new ConcurrentHashMap<>();
+    /** Incremented on each update, used to discard a loading that overlaps an update */
+    private final AtomicLong modificationCount = new AtomicLong();
+    private final List<CatalogMetadataListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor for OSGi
+     */
+    public CatalogMetadataImpl() {
+    }
+
+    /**
+     * Constructor for unit test
+     * @param dataManager DataManager instance
+     */
+    public CatalogMetadataImpl(DataManager dataManager) {
+        setDataManager(dataManager);
+        activate();
+    }
+
+    @Reference
+    public void setDataManager(DataManager dataManager) {
+        this.dataManager = dataManager;
+    }
+
+    public void unsetDataManager(DataManager dataManager) {
+        this.dataManager = null;
+    }
+
+    @Activate
+    public void activate() {
+        try (Connection connection = dataManager.getDataSource().getConnection()) {
+            isH2 = JDBCUtilities.isH2DataBase(connection.getMetaData());
+            String catalog = connection.getCatalog();
+            defaultCatalog = catalog == null ? "" : catalog;
+            try {
+                if (connection.getSchema() != null) {
+                    defaultSchema = connection.getSchema();
+                }
+            } catch (AbstractMethodError | Exception ex) {
+                // Driver has been compiled with JAVA 6, or is not implemented
+            }
+        } catch (SQLException ex) {
+            LOGGER.error(ex.getLocalizedMessage(), ex);
+        }
+        dataManager.addDatabaseProgressionListener(this, StateEvent.DB_STATES.STATE_STATEMENT_END);
+    }
+
+    @Deactivate
+    public void deactivate() {
+        if (dataManager != null) {
+            dataManager.removeDatabaseProgressionListener(this);
+        }
+        clear();
+    }
+
+    @Override
+    public boolean isH2() {
+        return isH2;
+    }
+
+    @Override
+    public String getDefaultCatalog() {
+        return defaultCatalog;
+    }
+
+    @Override
+    public String getDefaultSchema() {
+        return defaultSchema;
+    }
+
+    @Override
+    public List<String> getSchemas() throws SQLException {
+        List<String> schemaList = schemas;
+        if (schemaList == null) {
+            schemaList = new ArrayList<>();
+            try (Connection connection = dataManager.getDataSource().getConnection();
+                 ResultSet rs = connection.getMetaData().getSchemas()) {
+                while (rs.next()) {
+                    schemaList.add(rs.getString("TABLE_SCHEM"));
+                }
+            }
+            schemaList = Collections.unmodifiableList(schemaList);
+            schemas = schemaList;
+        }
+        return schemaList;
+    }
+
+    @Override
+    public List<TableMetadata> getTables(String schema) throws SQLException {
+        Map<String, TableMetadata> tables = schemaTables.get(schema);
+        if (tables == null) {
+            long version = modificationCount.get();
+            try (Connection connection = dataManager.getDataSource().getConnection()) {
+                Map<String, Map<String, TableMetadata>> read = readTables(connection, schema, null);
+                tables = read.get(schema);
+                if (tables == null) {
+                    tables = new HashMap<>();
+                }
+            }
+            if (version == modificationCount.get()) {
+                schemaTables.putIfAbsent(schema, new ConcurrentHashMap<>(tables));
+            }
+        }
+        return new ArrayList<>(tables.values());
+    }
+
+    @Override
+    public List<TableMetadata> getTables() throws SQLException {
+        List<String> schemaList = getSchemas();
+        boolean allLoaded = true;
+        for (String schema : schemaList) {
+            if (!schemaTables.containsKey(schema)) {
+                allLoaded = false;
+                break;
+            }
+        }
+        if (!allLoaded) {
+            // Read all tables in a single query
+            long version = modificationCount.get();
+            Map<String, Map<String, TableMetadata>> read;
+            try (Connection connection = dataManager.getDataSource().getConnection()) {
+                read = readTables(connection, null, null);
+            }
+            if (version == modificationCount.get()) {
+                for (String schema : schemaList) {
+                    Map<String, TableMetadata> tables = read.get(schema);
+                    schemaTables.putIfAbsent(schema, tables == null ? new ConcurrentHashMap<String, TableMetadata>()
+                            : new ConcurrentHashMap<>(tables));
+                }
+            } else {
+                List<TableMetadata> tables = new ArrayList<>();
+                for (Map<String, TableMetadata> schemaTable : read.values()) {
+                    tables.addAll(schemaTable.values());
+                }
+                return tables;
+            }
+        }
+        List<TableMetadata> tables = new ArrayList<>();
+        for (String schema : schemaList) {
+            Map<String, TableMetadata> schemaTable = schemaTables.get(schema);
+            if (schemaTable != null) {
+                tables.addAll(schemaTable.values());
+            } else {
+                tables.addAll(getTables(schema));
+            }
+        }
+        return tables;
+    }
+
+    @Override
+    public TableMetadata getTable(String tableReference) throws SQLException {
+        TableLocation location = TableLocation.parse(tableReference, isH2);
+        String schema = location.getSchema(defaultSchema);
+        Map<String, TableMetadata> tables = schemaTables.get(schema);
+        if (tables != null) {
+            return tables.get(location.getTable());
+        }
+        try (Connection connection = dataManager.getDataSource().getConnection()) {
+            Map<String, TableMetadata> read = readTables(connection, schema, location.getTable()).get(schema);
+            return read == null ? null : read.get(location.getTable());
+        }
+    }
+
+    @Override
+    public List<ColumnMetadata> getColumns(String tableReference) throws SQLException {
+        TableLocation location = TableLocation.parse(tableReference, isH2);
+        location = new TableLocation(location.getCatalog(defaultCatalog), location.getSchema(defaultSchema),
+                location.getTable());
+        String key = location.toString();
+        List<ColumnMetadata> columns = tableColumns.get(key);
+        if (columns == null) {
+            long version = modificationCount.get();
+            try (Connection connection = dataManager.getDataSource().getConnection()) {
+                columns = Collections.unmodifiableList(readColumns(connection, location));
+            }
+            if (version == modificationCount.get()) {
+                tableColumns.putIfAbsent(key, columns);
+            }
+        }
+        return columns;
+    }
+
+    @Override
+    public void refresh() {
+        clear();
+        fireCatalogChanged(Collections.<TableLocation>emptyList());
+    }
+
+    @Override
+    public void refresh(String tableReference) {
+        refreshTables(Collections.singletonList(TableLocation.parse(tableReference, isH2)));
+    }
+
+    @Override
+    public void addCatalogMetadataListener(CatalogMetadataListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeCatalogMetadataListener(CatalogMetadataListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void progressionUpdate(StateEvent state) {
+        if (state.isUpdateDatabaseStructure()) {
+            List<TableLocation> indexes = parseUpdatedIndexes(state.getName(), isH2);
+            List<TableLocation> tables = indexes == null ? parseUpdatedTables(state.getName(), isH2) :
+                    getIndexTables(indexes);
+            if (tables == null) {
+                refresh();
+            } else if (!tables.isEmpty()) {
+                refreshTables(tables);
+            }
+        }
+    }
+
+    private void clear() {
+        modificationCount.incrementAndGet();
+        schemas = null;
+        schemaTables.clear();
+        tableColumns.clear();
+        indexTables.clear();
+    }
+
+    /**
+     * @param indexes Index locations, schema may be empty
+     * @return The tables that own the provided indexes, null if an index is not known
+     */
+    private List<TableLocation> getIndexTables(List<TableLocation> indexes) {
+        Map<String, TableLocation> tables = new LinkedHashMap<>(indexes.size());
+        for (TableLocation index : indexes) {
+            TableLocation table = indexTables.get(new TableLocation(index.getCatalog(defaultCatalog),
+                    index.getSchema(defaultSchema), index.getTable()).toString());
+            if (table == null) {
+                return null;
+            }
+            tables.put(table.toString(), table);
+        }
+        return new ArrayList<>(tables.values());
+    }
+
+    private void fireCatalogChanged(Collection<TableLocation> updatedTables) {
+        for (CatalogMetadataListener listener : listeners) {
+            try {
+                listener.catalogChanged(updatedTables);
+            } catch (RuntimeException ex) {
+                LOGGER.error(ex.getLocalizedMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Read again the provided tables, then notify listeners.
+     * @param tables Table locations, schema may be empty
+     */
+    private void refreshTables(List<TableLocation> tables) {
+        List<TableLocation> updated = new ArrayList<>(tables.size());
+        try (Connection connection = dataManager.getDataSource().getConnection()) {
+            for (TableLocation table : tables) {
+                TableLocation location = new TableLocation(table.getCatalog(defaultCatalog),
+                        table.getSchema(defaultSchema), table.getTable());
+                modificationCount.incrementAndGet();
+                tableColumns.remove(location.toString());
+                List<String> schemaList = schemas;
+                if (schemaList != null && !schemaList.contains(location.getSchema())) {
+                    // New schema
+                    schemas = null;
+                }
+                ConcurrentMap<String, TableMetadata> schemaTable = schemaTables.get(location.getSchema());
+                if (schemaTable != null) {
+                    Map<String, TableMetadata> read = readTables(connection, location.getSchema(),
+                            location.getTable()).get(location.getSchema());
+                    TableMetadata tableMetadata = read == null ? null : read.get(location.getTable());
+                    if (tableMetadata == null) {
+                        schemaTable.remove(location.getTable());
+                    } else {
+                        schemaTable.put(location.getTable(), tableMetadata);
+                    }
+                }
+                updated.add(location);
+            }
+        } catch (SQLException ex) {
+            LOGGER.error(I18N.tr("Cannot update the table list"), ex);
+            clear();
+            updated.clear();
+        }
+        fireCatalogChanged(updated);
+    }
+
+    /**
+     * Read tables metadata
+     * @param connection Active connection
+     * @param schema Schema name or null for all schemas
+     * @param table Table name or null for all tables
+     * @return Schema name to table name to table metadata
+     * @throws SQLException
+     */
+    private Map<String, Map<String, TableMetadata>> readTables(Connection connection, String schema, String table)
+            throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        // Fetch Geometry tables
+        Map<String, String> tableGeometry = new HashMap<>();
+        StringBuilder query = new StringBuilder("SELECT F_TABLE_SCHEMA, F_TABLE_NAME, TYPE FROM ");
+        query.append(defaultSchema);
+        query.append(".geometry_columns");
+        if (schema != null) {
+            query.append(" WHERE F_TABLE_SCHEMA = ?");
+            if (table != null) {
+                query.append(" AND F_TABLE_NAME = ?");
+            }
+        }
+        try (PreparedStatement st = connection.prepareStatement(query.toString())) {
+            if (schema != null) {
+                st.setString(1, schema);
+                if (table != null) {
+                    st.setString(2, table);
+                }
+            }
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    String key = new TableLocation(rs.getString("F_TABLE_SCHEMA"), rs.getString("F_TABLE_NAME")).toString();
+                    if (!tableGeometry.containsKey(key)) {
+                        tableGeometry.put(key, rs.getString("TYPE"));
+                    }
+                }
+            }
+        } catch (SQLException ex) {
+            LOGGER.warn(I18N.tr("Geometry columns information of tables are not available"), ex);
+        }
+        readIndexes(connection, schema, table);
+        // Fetch tables
+        Map<String, Map<String, TableMetadata>> tables = new HashMap<>();
+        try (ResultSet rs = meta.getTables(null, escapePattern(meta, schema), escapePattern(meta, table),
+                SHOWN_TABLE_TYPES)) {
+            ResultSetMetaData rsMeta = rs.getMetaData();
+            while (rs.next()) {
+                TableLocation location = new TableLocation(rs);
+                if ((schema != null && !schema.equals(location.getSchema())) ||
+                        (table != null && !table.equals(location.getTable()))) {
+                    // Pattern escape not supported
+                    continue;
+                }
+                if (location.getSchema().equals(defaultSchema) &&
+                        (TableStatisticsStoreImpl.STORE_TABLE.equalsIgnoreCase(location.getTable()) ||
+                        TableStatisticsStoreImpl.COLUMN_STORE_TABLE.equalsIgnoreCase(location.getTable()))) {
+                    // Internal table
+                    continue;
+                }
+                if (location.getCatalog().isEmpty()) {
+                    // PostGIS return empty catalog on metadata
+                    location = new TableLocation(defaultCatalog, location.getSchema(), location.getTable());
+                }
+                Map<String, String> attributes = new HashMap<>(rsMeta.getColumnCount());
+                for (int columnId = 1; columnId <= rsMeta.getColumnCount(); columnId++) {
+                    attributes.put(rsMeta.getColumnLabel(columnId).toUpperCase(), rs.getString(columnId));
+                }
+                String geometryType = tableGeometry.get(new TableLocation(location.getSchema(),
+                        location.getTable()).toString());
+                Map<String, TableMetadata> schemaTable = tables.get(location.getSchema());
+                if (schemaTable == null) {
+                    schemaTable = new HashMap<>();
+                    tables.put(location.getSchema(), schemaTable);
+                }
+                schemaTable.put(location.getTable(), new TableMetadata(location, attributes, geometryType));
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Read the owner table of indexes, an index DDL does not name its table.
+     * @param connection Active connection
+     * @param schema Schema name or null for all schemas
+     * @param table Table name or null for all tables
+     */
+    private void readIndexes(Connection connection, String schema, String table) {
+        StringBuilder query = new StringBuilder(isH2 ?
+                "SELECT TABLE_SCHEMA, INDEX_NAME, TABLE_NAME FROM INFORMATION_SCHEMA.INDEXES" :
+                "SELECT schemaname, indexname, tablename FROM pg_catalog.pg_indexes");
+        if (schema != null) {
+            query.append(isH2 ? " WHERE TABLE_SCHEMA = ?" : " WHERE schemaname = ?");
+            if (table != null) {
+                query.append(isH2 ? " AND TABLE_NAME = ?" : " AND tablename = ?");
+            }
+        }
+        try (PreparedStatement st = connection.prepareStatement(query.toString())) {
+            if (schema != null) {
+                st.setString(1, schema);
+                if (table != null) {
+                    st.setString(2, table);
+                }
+            }
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    String indexSchema = rs.getString(1);
+                    indexTables.put(new TableLocation(defaultCatalog, indexSchema, rs.getString(2)).toString(),
+                            new TableLocation(defaultCatalog, indexSchema, rs.getString(3)));
+                }
+            }
+        } catch (SQLException ex) {
+            LOGGER.warn(I18N.tr("Indexes information of tables are not available"), ex);
+        }
+    }
+
+    /**
+     * Read columns metadata
+     * @param connection Active connection
+     * @param location Table location
+     * @return Columns in ordinal order
+     * @throws SQLException
+     */
+    private List<ColumnMetadata> readColumns(Connection connection, TableLocation location) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        Map<String, Object[]> geometryColumns = new HashMap<>();
+        try (PreparedStatement st = connection.prepareStatement("SELECT F_GEOMETRY_COLUMN, TYPE, SRID, " +
+                "COORD_DIMENSION FROM " + defaultSchema + ".geometry_columns WHERE F_TABLE_SCHEMA = ? AND " +
+                "F_TABLE_NAME = ?")) {
+            st.setString(1, location.getSchema());
+            st.setString(2, location.getTable());
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    geometryColumns.put(rs.getString("F_GEOMETRY_COLUMN"), new Object[]{rs.getString("TYPE"),
+                            rs.getInt("SRID"), rs.getInt("COORD_DIMENSION")});
+                }
+            }
+        } catch (SQLException ex) {
+            LOGGER.warn(I18N.tr("Geometry columns information of tables are not available"), ex);
+        }
+        Map<Integer, ColumnMetadata> columns = new LinkedHashMap<>();
+        try (ResultSet rs = meta.getColumns(null, escapePattern(meta, location.getSchema()),
+                escapePattern(meta, location.getTable()), null)) {
+            while (rs.next()) {
+                if (!location.getSchema().equals(rs.getString("TABLE_SCHEM")) ||
+                        !location.getTable().equals(rs.getString("TABLE_NAME"))) {
+                    continue;
+                }
+                String columnName = rs.getString("COLUMN_NAME");
+                Object[] geometry = geometryColumns.get(columnName);
+                ColumnMetadata column;
+                if (geometry != null) {
+                    column = new ColumnMetadata(columnName, rs.getInt("DATA_TYPE"), rs.getString("TYPE_NAME"),
+                            (String) geometry[0], (Integer) geometry[1], (Integer) geometry[2]);
+                } else {
+                    column = new ColumnMetadata(columnName, rs.getInt("DATA_TYPE"), rs.getString("TYPE_NAME"),
+                            null, 0, 0);
+                }
+                columns.put(rs.getInt("ORDINAL_POSITION"), column);
+            }
+        }
+        List<Integer> ordinals = new ArrayList<>(columns.keySet());
+        Collections.sort(ordinals);
+        List<ColumnMetadata> columnList = new ArrayList<>(ordinals.size());
+        for (Integer ordinal : ordinals) {
+            columnList.add(columns.get(ordinal));
+        }
+        return columnList;
+    }
+
+    private static String escapePattern(DatabaseMetaData meta, String name) throws SQLException {
+        if (name == null) {
+            return null;
+        }
+        String escape = meta.getSearchStringEscape();
+        if (escape == null || escape.isEmpty()) {
+            return name;
+        }
+        return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+    }
+
+    /**
+     * Find the indexes altered or dropped by a DDL statement.
+     * @param sql DDL statement
+     * @param isH2 True if H2 identifiers rules are used
+     * @return Index locations, null if the statement does not alter or drop indexes
+     */
+    static List<TableLocation> parseUpdatedIndexes(String sql, boolean isH2) {
+        if (sql == null) {
+            return null;
+        }
+        Matcher matcher = INDEX_DDL.matcher(sql);
+        if (!matcher.find()) {
+            return null;
+        }
+        List<TableLocation> indexes = new ArrayList<>();
+        Matcher nameMatcher = NAME_PATTERN.matcher(matcher.group(1));
+        while (nameMatcher.find()) {
+            indexes.add(TableLocation.parse(nameMatcher.group(), isH2));
+        }
+        return indexes;
+    }
+
+    /**
+     * Find the tables created, altered or dropped by a DDL statement.
+     * @param sql DDL statement
+     * @param isH2 True if H2 identifiers rules are used
+     * @return Table locations, empty if the statement does not update tables, null if the updated tables cannot be
+     * determined.
+     */
+    static List<TableLocation> parseUpdatedTables(String sql, boolean isH2) {
+        if (sql == null) {
+            return null;
+        }
+        Matcher matcher = TABLE_DDL.matcher(sql);
+        if (matcher.find()) {
+            List<TableLocation> tables = new ArrayList<>();
+            Matcher nameMatcher = NAME_PATTERN.matcher(matcher.group(2));
+            while (nameMatcher.find()) {
+                tables.add(TableLocation.parse(nameMatcher.group(), isH2));
+            }
+            if ("ALTER".equalsIgnoreCase(matcher.group(1)) && !tables.isEmpty()) {
+                Matcher renameMatcher = RENAME.matcher(sql.substring(matcher.end()));
+                if (renameMatcher.find()) {
+                    TableLocation newName = TableLocation.parse(renameMatcher.group(1), isH2);
+                    TableLocation oldName = tables.get(0);
+                    tables.add(new TableLocation(newName.getCatalog(oldName.getCatalog()),
+                            newName.getSchema(oldName.getSchema()), newName.getTable()));
+                }
+            }
+            return tables;
+        }
+        matcher = CREATE_INDEX.matcher(sql);
+        if (matcher.find()) {
+            return Collections.singletonList(TableLocation.parse(matcher.group(1), isH2));
+        }
+        if (NO_TABLE_DDL.matcher(sql).find()) {
+            return Collections.emptyList();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,803 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc.internal;
+
+import org.orbisgis.corejdbc.ConnectionPoolStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keep physical connections of a DataSource opened in order to reuse them. Connections returned by
+ * {@link #getConnection()} are released into the pool when closed. Each physical connection keep a cache of
+ * prepared statements, closing a cached prepared statement only release it into the cache. Result sets returned by the
+ * statements give back the borrowed statement and connection, never the physical ones. The session state (auto-commit,
+ * read-only, transaction isolation, catalog and schema) is restored when a connection is released.
+ *
+ * Connections held longer than the leak threshold are reported in the log with the stack trace of the borrower.
+ * @author Nicolas Fortin
+ */
+public class ConnectionPool implements DataSource, ConnectionPoolStatistics {
+    public static final int DEFAULT_MAXIMUM_POOL_SIZE = 32;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    public static final long DEFAULT_LEAK_THRESHOLD = TimeUnit.MINUTES.toMillis(5);
+    public static final long DEFAULT_BORROW_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPool.class);
+    /** Interfaces implemented by the result set proxies, by physical result set class */
+    private static final ConcurrentMap<Class<?>, Class<?>[]> RESULT_SET_INTERFACES = new ConcurrentHashMap<>();
+    private final DataSource dataSource;
+    private final int maximumPoolSize;
+    private final int statementCacheSize;
+    private final long leakThreshold;
+    private final long borrowTimeout;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> activeConnections =
+            Collections.newSetFromMap(new ConcurrentHashMap<PooledConnection, Boolean>());
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowTime = new AtomicLong();
+    private final AtomicLong maxBorrowTime = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong statementHit = new AtomicLong();
+    private final AtomicLong statementMiss = new AtomicLong();
+    private ScheduledExecutorService leakDetector;
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor with default settings
+     * @param dataSource DataSource that open physical connections
+     */
+    public ConnectionPool(DataSource dataSource) {
+        this(dataSource, DEFAULT_MAXIMUM_POOL_SIZE, DEFAULT_STATEMENT_CACHE_SIZE, DEFAULT_LEAK_THRESHOLD,
+                DEFAULT_BORROW_TIMEOUT);
+    }
+
+    /**
+     * @param dataSource DataSource that open physical connections
+     * @param maximumPoolSize Maximum number of physical connections opened at the same time
+     * @param statementCacheSize Maximum number of cached prepared statements per connection, 0 to disable the cache
+     * @param leakThreshold Connection held longer than this time in milliseconds are reported, 0 to disable
+     * @param borrowTimeout Maximum time in milliseconds to wait for an available connection
+     */
+    public ConnectionPool(DataSource dataSource, int maximumPoolSize, int statementCacheSize, long leakThreshold,
+                          long borrowTimeout) {
+        if(maximumPoolSize < 1) {
+            throw new IllegalArgumentException("Pool size must be greater than 0");
+        }
+        this.dataSource = dataSource;
+        this.maximumPoolSize = maximumPoolSize;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.leakThreshold = Math.max(0, leakThreshold);
+        this.borrowTimeout = borrowTimeout;
+        this.permits = new Semaphore(maximumPoolSize, true);
+        if(this.leakThreshold > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ConnectionPool leak detector");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            long period = Math.max(1, this.leakThreshold / 2);
+            leakDetector.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    detectLeaks();
+                }
+            }, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Log connections held longer than the leak threshold. Each borrow is reported only once.
+     */
+    void detectLeaks() {
+        long now = System.nanoTime();
+        for(PooledConnection connection : activeConnections) {
+            ConnectionHandle handle = connection.handle;
+            if(handle != null && !handle.leakReported &&
+                    now - handle.borrowTime > TimeUnit.MILLISECONDS.toNanos(leakThreshold)) {
+                handle.leakReported = true;
+                leakCount.incrementAndGet();
+                LOGGER.warn("Connection held for more than " + leakThreshold + " ms, it may not have been closed",
+                        handle.borrowStack);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if(closed) {
+            throw new SQLException("The connection pool is closed");
+        }
+        long begin = System.nanoTime();
+        try {
+            if(!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("No database connection available after " + borrowTimeout + " ms, " +
+                        activeConnections.size() + " connections are in use");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", ex);
+        }
+        try {
+            PooledConnection connection = idleConnections.pollFirst();
+            while(connection != null && connection.physical.isClosed()) {
+                connection.dispose();
+                connection = idleConnections.pollFirst();
+            }
+            if(connection == null) {
+                connection = new PooledConnection(dataSource.getConnection());
+                createdCount.incrementAndGet();
+            }
+            ConnectionHandle handle = new ConnectionHandle(connection,
+                    leakThreshold > 0 ? new Throwable("Connection borrowed here") : null);
+            connection.handle = handle;
+            activeConnections.add(connection);
+            long elapsed = System.nanoTime() - begin;
+            borrowCount.incrementAndGet();
+            borrowTime.addAndGet(elapsed);
+            long max = maxBorrowTime.get();
+            while(elapsed > max && !maxBorrowTime.compareAndSet(max, elapsed)) {
+                max = maxBorrowTime.get();
+            }
+            return handle.proxy;
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Called when the borrower close the connection
+     * @param connection Pooled connection
+     */
+    private void release(PooledConnection connection) {
+        activeConnections.remove(connection);
+        connection.handle = null;
+        try {
+            if(!closed && connection.reset()) {
+                idleConnections.offerFirst(connection);
+            } else {
+                connection.dispose();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Close idle connections, active connections are closed when released.
+     */
+    public void close() {
+        closed = true;
+        if(leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        PooledConnection connection = idleConnections.pollFirst();
+        while(connection != null) {
+            connection.dispose();
+            connection = idleConnections.pollFirst();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Connections with specific credentials are not pooled
+        return dataSource.getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if(iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || iface.isInstance(dataSource) || dataSource.isWrapperFor(iface);
+    }
+
+    @Override
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    @Override
+    public int getActiveConnectionCount() {
+        return activeConnections.size();
+    }
+
+    @Override
+    public int getIdleConnectionCount() {
+        return idleConnections.size();
+    }
+
+    @Override
+    public long getCreatedConnectionCount() {
+        return createdCount.get();
+    }
+
+    @Override
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    @Override
+    public long getAverageBorrowTime() {
+        long count = borrowCount.get();
+        return count == 0 ? 0 : borrowTime.get() / count;
+    }
+
+    @Override
+    public long getMaximumBorrowTime() {
+        return maxBorrowTime.get();
+    }
+
+    @Override
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    @Override
+    public long getStatementCacheHitCount() {
+        return statementHit.get();
+    }
+
+    @Override
+    public long getStatementCacheMissCount() {
+        return statementMiss.get();
+    }
+
+    @Override
+    public double getStatementCacheHitRate() {
+        long hit = statementHit.get();
+        long total = hit + statementMiss.get();
+        return total == 0 ? 0 : hit / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[active=%d, idle=%d, max=%d]", getActiveConnectionCount(),
+                getIdleConnectionCount(), maximumPoolSize);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * @param connection Physical connection
+     * @return Current schema, null if not supported by the driver
+     */
+    private static String getSchema(Connection connection) {
+        try {
+            return connection.getSchema();
+        } catch (SQLException | AbstractMethodError ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Wrap a result set in order to give back the borrowed statement instead of the physical one.
+     * @param resultSet Physical result set
+     * @param statement Borrowed statement
+     * @return Result set proxy
+     */
+    private static ResultSet wrapResultSet(ResultSet resultSet, Statement statement) {
+        Class<?> type = resultSet.getClass();
+        Class<?>[] interfaces = RESULT_SET_INTERFACES.get(type);
+        if(interfaces == null) {
+            // Keep the driver interfaces (ex: SpatialResultSet) available through the proxy
+            Set<Class<?>> publicInterfaces = new LinkedHashSet<>();
+            publicInterfaces.add(ResultSet.class);
+            for(Class<?> parent = type; parent != null; parent = parent.getSuperclass()) {
+                for(Class<?> parentInterface : parent.getInterfaces()) {
+                    if(Modifier.isPublic(parentInterface.getModifiers())) {
+                        publicInterfaces.add(parentInterface);
+                    }
+                }
+            }
+            interfaces = publicInterfaces.toArray(new Class<?>[publicInterfaces.size()]);
+            RESULT_SET_INTERFACES.put(type, interfaces);
+        }
+        BorrowedResultSet handler = new BorrowedResultSet(resultSet, statement);
+        ClassLoader classLoader = type.getClassLoader() != null ? type.getClassLoader() :
+                ConnectionPool.class.getClassLoader();
+        try {
+            return (ResultSet) Proxy.newProxyInstance(classLoader, interfaces, handler);
+        } catch (IllegalArgumentException ex) {
+            // Some interfaces are not visible from the driver class loader
+            LOGGER.trace(ex.getLocalizedMessage(), ex);
+            RESULT_SET_INTERFACES.put(type, new Class<?>[]{ResultSet.class});
+            return (ResultSet) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, handler);
+        }
+    }
+
+    /**
+     * Physical connection and its prepared statement cache.
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private final Map<String, StatementHandle> statementCache;
+        // Statements that are not cached and still opened
+        private final List<StatementHandle> openedStatements = new ArrayList<>();
+        private volatile ConnectionHandle handle;
+        // Session state of the connection when opened
+        private final boolean defaultAutoCommit;
+        private final boolean defaultReadOnly;
+        private final int defaultTransactionIsolation;
+        private final String defaultCatalog;
+        private final String defaultSchema;
+        // True if the borrower has called a setter of the session state
+        private volatile boolean sessionChanged = false;
+
+        PooledConnection(Connection physical) throws SQLException {
+            this.physical = physical;
+            try {
+                defaultAutoCommit = physical.getAutoCommit();
+                defaultReadOnly = physical.isReadOnly();
+                defaultTransactionIsolation = physical.getTransactionIsolation();
+                defaultCatalog = physical.getCatalog();
+                defaultSchema = getSchema(physical);
+            } catch (SQLException ex) {
+                physical.close();
+                throw ex;
+            }
+            this.statementCache = new LinkedHashMap<String, StatementHandle>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, StatementHandle> eldest) {
+                    if(size() > statementCacheSize && !eldest.getValue().inUse) {
+                        eldest.getValue().closePhysical();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized Statement prepareCached(ConnectionHandle owner, String sql, int resultSetType,
+                                             int resultSetConcurrency) throws SQLException {
+            String key = resultSetType + "," + resultSetConcurrency + ":" + sql;
+            StatementHandle cached = statementCache.get(key);
+            if(cached != null && !cached.inUse) {
+                if(!cached.statement.isClosed()) {
+                    statementHit.incrementAndGet();
+                    return cached.borrow(owner);
+                }
+                statementCache.remove(key);
+                cached = null;
+            }
+            statementMiss.incrementAndGet();
+            PreparedStatement statement = physical.prepareStatement(sql, resultSetType, resultSetConcurrency);
+            if(cached == null && statementCacheSize > 0) {
+                StatementHandle handle = new StatementHandle(this, statement, PreparedStatement.class, true);
+                statementCache.put(key, handle);
+                return handle.borrow(owner);
+            } else {
+                // Same statement already in use by the borrower
+                return track(owner, statement, PreparedStatement.class);
+            }
+        }
+
+        synchronized Statement track(ConnectionHandle owner, Statement statement, Class<? extends Statement> type) {
+            StatementHandle handle = new StatementHandle(this, statement, type, false);
+            openedStatements.add(handle);
+            return handle.borrow(owner);
+        }
+
+        synchronized void untrack(StatementHandle statement) {
+            openedStatements.remove(statement);
+        }
+
+        /**
+         * Restore the connection default state
+         * @return True if the connection can be reused
+         */
+        synchronized boolean reset() {
+            try {
+                for(StatementHandle statement : new ArrayList<>(openedStatements)) {
+                    statement.closePhysical();
+                }
+                openedStatements.clear();
+                for(StatementHandle statement : statementCache.values()) {
+                    if(statement.inUse) {
+                        statement.release();
+                    }
+                }
+                if(physical.isClosed()) {
+                    return false;
+                }
+                if(!physical.getAutoCommit()) {
+                    physical.rollback();
+                }
+                if(physical.getAutoCommit() != defaultAutoCommit) {
+                    physical.setAutoCommit(defaultAutoCommit);
+                }
+                if(sessionChanged) {
+                    if(physical.isReadOnly() != defaultReadOnly) {
+                        physical.setReadOnly(defaultReadOnly);
+                    }
+                    if(physical.getTransactionIsolation() != defaultTransactionIsolation) {
+                        physical.setTransactionIsolation(defaultTransactionIsolation);
+                    }
+                    if(defaultCatalog != null && !defaultCatalog.equals(physical.getCatalog())) {
+                        physical.setCatalog(defaultCatalog);
+                    }
+                    sessionChanged = false;
+                }
+                // The schema can also be changed with SQL commands
+                if(defaultSchema != null && !defaultSchema.equals(getSchema(physical))) {
+                    physical.setSchema(defaultSchema);
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException | AbstractMethodError ex) {
+                LOGGER.debug("Discard pooled connection", ex);
+                return false;
+            }
+        }
+
+        synchronized void dispose() {
+            for(StatementHandle statement : statementCache.values()) {
+                statement.closePhysical();
+            }
+            statementCache.clear();
+            for(StatementHandle statement : openedStatements) {
+                statement.closePhysical();
+            }
+            openedStatements.clear();
+            try {
+                physical.close();
+            } catch (SQLException ex) {
+                LOGGER.debug("Error while closing pooled connection", ex);
+            }
+        }
+    }
+
+    /**
+     * Connection returned to the borrower, closing it release the physical connection into the pool.
+     */
+    private class ConnectionHandle implements InvocationHandler {
+        private final PooledConnection connection;
+        private final Connection proxy;
+        private final long borrowTime = System.nanoTime();
+        private final Throwable borrowStack;
+        private volatile boolean leakReported = false;
+        private volatile boolean handleClosed = false;
+
+        ConnectionHandle(PooledConnection connection, Throwable borrowStack) {
+            this.connection = connection;
+            this.borrowStack = borrowStack;
+            this.proxy = (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class[]{Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled " + connection.physical;
+                case "close":
+                    if(!handleClosed) {
+                        handleClosed = true;
+                        release(connection);
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed || connection.physical.isClosed();
+            }
+            if(handleClosed) {
+                throw new SQLException("Connection is closed");
+            }
+            switch (name) {
+                case "setReadOnly":
+                case "setTransactionIsolation":
+                case "setCatalog":
+                case "setSchema":
+                    connection.sessionChanged = true;
+                    break;
+            }
+            if("prepareStatement".equals(name) && args[0] instanceof String) {
+                Class<?>[] parameters = method.getParameterTypes();
+                if(parameters.length == 1) {
+                    return connection.prepareCached(this, (String) args[0], ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY);
+                } else if(parameters.length == 3 && parameters[1] == int.class && parameters[2] == int.class) {
+                    return connection.prepareCached(this, (String) args[0], (Integer) args[1], (Integer) args[2]);
+                }
+            }
+            Object result = ConnectionPool.invoke(connection.physical, method, args);
+            if(result instanceof CallableStatement) {
+                return connection.track(this, (Statement) result, CallableStatement.class);
+            } else if(result instanceof PreparedStatement) {
+                return connection.track(this, (Statement) result, PreparedStatement.class);
+            } else if(result instanceof Statement) {
+                return connection.track(this, (Statement) result, Statement.class);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Statement returned to the borrower, the physical statement is kept open when it belongs to the cache.
+     */
+    private static class StatementHandle {
+        private final PooledConnection connection;
+        private final Statement statement;
+        private final Class<? extends Statement> type;
+        private final boolean cached;
+        private final int defaultFetchSize;
+        private volatile boolean inUse = false;
+        private volatile Statement proxy;
+        // Last result set opened by the borrower
+        private volatile ResultSet openedResultSet;
+
+        StatementHandle(PooledConnection connection, Statement statement, Class<? extends Statement> type,
+                        boolean cached) {
+            this.connection = connection;
+            this.statement = statement;
+            this.type = type;
+            this.cached = cached;
+            int fetchSize = 0;
+            if(cached) {
+                try {
+                    fetchSize = statement.getFetchSize();
+                } catch (SQLException ex) {
+                    LOGGER.trace(ex.getLocalizedMessage(), ex);
+                }
+            }
+            this.defaultFetchSize = fetchSize;
+        }
+
+        Statement borrow(ConnectionHandle owner) {
+            this.inUse = true;
+            // A new proxy for each borrow, a closed statement must not be used after being borrowed again
+            this.proxy = (Statement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class[]{type}, new BorrowedStatement(this, owner));
+            return proxy;
+        }
+
+        ResultSet wrapResultSet(ResultSet resultSet, Statement borrowedStatement) {
+            openedResultSet = resultSet;
+            return ConnectionPool.wrapResultSet(resultSet, borrowedStatement);
+        }
+
+        /**
+         * Give back the cached statement into the cache
+         */
+        void release() {
+            inUse = false;
+            proxy = null;
+            try {
+                // The next borrower must not inherit an opened cursor
+                ResultSet resultSet = openedResultSet;
+                openedResultSet = null;
+                if(resultSet != null) {
+                    resultSet.close();
+                }
+                clearParameters();
+                statement.clearWarnings();
+                statement.setMaxRows(0);
+                statement.setQueryTimeout(0);
+                statement.setFetchSize(defaultFetchSize);
+            } catch (SQLException ex) {
+                closePhysical();
+            }
+        }
+
+        void closePhysical() {
+            inUse = false;
+            proxy = null;
+            openedResultSet = null;
+            try {
+                statement.close();
+            } catch (SQLException ex) {
+                LOGGER.trace(ex.getLocalizedMessage(), ex);
+            }
+        }
+
+        private void clearParameters() throws SQLException {
+            if(statement instanceof PreparedStatement) {
+                ((PreparedStatement) statement).clearParameters();
+            }
+        }
+    }
+
+    /**
+     * Statement proxy valid until closed.
+     */
+    private static class BorrowedStatement implements InvocationHandler {
+        private final StatementHandle handle;
+        private final ConnectionHandle owner;
+        private boolean statementClosed = false;
+
+        BorrowedStatement(StatementHandle handle, ConnectionHandle owner) {
+            this.handle = handle;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return handle.statement.toString();
+                case "close":
+                    if(!statementClosed) {
+                        statementClosed = true;
+                        synchronized (handle.connection) {
+                            if(handle.proxy == proxy) {
+                                if(handle.cached) {
+                                    handle.release();
+                                } else {
+                                    handle.connection.untrack(handle);
+                                    handle.closePhysical();
+                                }
+                            }
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return statementClosed || handle.proxy != proxy || handle.statement.isClosed();
+            }
+            if(statementClosed || handle.proxy != proxy) {
+                throw new SQLException("Statement is closed");
+            }
+            if("getConnection".equals(name)) {
+                return owner.proxy;
+            }
+            Object result = ConnectionPool.invoke(handle.statement, method, args);
+            if(result instanceof ResultSet) {
+                return handle.wrapResultSet((ResultSet) result, (Statement) proxy);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Result set proxy, give back the borrowed statement.
+     */
+    private static class BorrowedResultSet implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final Statement statement;
+
+        BorrowedResultSet(ResultSet resultSet, Statement statement) {
+            this.resultSet = resultSet;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return resultSet.toString();
+                case "getStatement":
+                    return statement;
+                case "unwrap":
+                    if(((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if(((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+            }
+            return ConnectionPool.invoke(resultSet, method, args);
+        }
+    }
+}
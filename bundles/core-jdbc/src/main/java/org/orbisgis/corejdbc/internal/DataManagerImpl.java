@@ -47,6 +47,7 @@ import org.orbisgis.corejdbc.TableEditListener;
 import org.orbisgis.corejdbc.ReadRowSet;
 import org.orbisgis.corejdbc.ReversibleRowSet;
 import org.orbisgis.corejdbc.StateEvent;
+import org.orbisgis.corejdbc.TableStatisticsStore;
 import org.orbisgis.commons.utils.FileUtils;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
@@ -73,6 +74,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Implementation of the DataManager service.
@@ -85,10 +88,12 @@ public class DataManagerImpl implements DataManager {
     private boolean isH2 = true;
     private boolean isLocalH2Table = true;
     private static final String H2TRIGGER = "org.orbisgis.h2triggers.H2Trigger";
+    private static final String[] H2TRIGGER_TYPES = new String[]{"INSERT", "UPDATE", "DELETE"};
 
     /** ReversibleRowSet fire row updates to their DataManager  */
-    private Map<String, List<TableEditListener>> tableEditionListener = new HashMap<>();
+    private Map<String, List<TableEditListener>> tableEditionListener = new ConcurrentHashMap<>();
     private Map<StateEvent.DB_STATES, ArrayList<DatabaseProgressionListener>> progressionListenerMap = new HashMap<>();
+    private TableStatisticsStoreImpl tableStatisticsStore;
 
     @Override
     public CachedRowSet createCachedRowSet() throws SQLException {
@@ -230,6 +235,15 @@ public class DataManagerImpl implements DataManager {
             isLocalH2Table = connection.getMetaData().getURL().startsWith("jdbc:h2:")
                     && !connection.getMetaData().getURL().startsWith("jdbc:h2:tcp:/");
         }
+        if(tableStatisticsStore != null) {
+            removeDatabaseProgressionListener(tableStatisticsStore);
+        }
+        tableStatisticsStore = new TableStatisticsStoreImpl(this, isH2);
+    }
+
+    @Override
+    public TableStatisticsStore getTableStatisticsStore() {
+        return tableStatisticsStore;
     }
 
     public void unsetDataSource(DataSource dataSource) {
@@ -267,7 +281,8 @@ public class DataManagerImpl implements DataManager {
         String parsedTable = TableLocation.parse(table, isH2).toString(isH2);
         List<TableEditListener> listeners = tableEditionListener.get(parsedTable);
         if(listeners == null) {
-            listeners = new ArrayList<>();
+            // Events are sent more often than listeners are added
+            listeners = new CopyOnWriteArrayList<>();
             tableEditionListener.put(parsedTable, listeners);
         }
         if(!listeners.contains(listener)) {
@@ -277,8 +292,13 @@ public class DataManagerImpl implements DataManager {
             Statement st = connection.createStatement()) {
             // Add trigger
             if(isLocalH2Table && addTrigger) {
-                    String triggerName = getH2TriggerName(table);
-                    st.execute("CREATE FORCE TRIGGER IF NOT EXISTS "+triggerName+" AFTER INSERT, UPDATE, DELETE ON "+table+" CALL \""+H2TRIGGER+"\"");
+                    // Row trigger of a previous version
+                    st.execute("DROP TRIGGER IF EXISTS "+getH2TriggerName(table, ""));
+                    // Statement triggers, one by edit type
+                    for(String editType : H2TRIGGER_TYPES) {
+                        st.execute("CREATE FORCE TRIGGER IF NOT EXISTS "+getH2TriggerName(table, editType)+
+                                " AFTER "+editType+" ON "+table+" CALL \""+H2TRIGGER+"\"");
+                    }
             }
         } catch (SQLException ex) {
             listeners.remove(listener);
@@ -303,10 +323,12 @@ public class DataManagerImpl implements DataManager {
             listeners.remove(listener);
             if(listeners.isEmpty()) {
                 // Remove trigger
-                String triggerName = getH2TriggerName(table);
                 try(Connection connection = dataSource.getConnection();
                     Statement st = connection.createStatement()) {
-                    st.execute("DROP TRIGGER IF EXISTS "+triggerName);
+                    st.execute("DROP TRIGGER IF EXISTS "+getH2TriggerName(table, ""));
+                    for(String editType : H2TRIGGER_TYPES) {
+                        st.execute("DROP TRIGGER IF EXISTS "+getH2TriggerName(table, editType));
+                    }
                 } catch (SQLException ex) {
                     LOGGER.error(ex.getLocalizedMessage(), ex);
                 }
@@ -314,10 +336,10 @@ public class DataManagerImpl implements DataManager {
             }
         }
     }
-    private static String getH2TriggerName(String table) {
+    private static String getH2TriggerName(String table, String editType) {
         TableLocation tableIdentifier = TableLocation.parse(table, true);
         return new TableLocation(tableIdentifier.getCatalog(), tableIdentifier.getSchema(),
-                "DM_"+tableIdentifier.getTable()).toString(true);
+                "DM_"+(editType.isEmpty() ? "" : editType+"_")+tableIdentifier.getTable()).toString(true);
     }
     @Override
     public void fireTableEditHappened(TableEditEvent e) {
@@ -334,7 +356,7 @@ public class DataManagerImpl implements DataManager {
             }
             List<TableEditListener> listeners = tableEditionListener.get(table.toString(true));
             if(listeners != null) {
-                for(TableEditListener listener : new ArrayList<>(listeners)) {
+                for(TableEditListener listener : listeners) {
                     try {
                         listener.tableChange(e);
                     } catch (Exception ex) {
@@ -84,6 +84,7 @@ import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
@@ -138,6 +139,15 @@ public class ReadRowSetImpl extends AbstractRowSet implements JdbcRowSet, DataSo
     
     //Limit the size of the clob to 1000 characters
     private static final int NUMBER_CHARACTERS= 1000;
+    // Flags of compiled batch queries
+    private static final int BATCH_QUERY_DATA = 1;
+    private static final int BATCH_QUERY_PK = 2;
+    private static final int BATCH_QUERY_FIRST_PK = 4;
+    // Compiled batch queries, array index is a combination of BATCH_QUERY_* flags
+    private String[] batchQueries = new String[8];
+    private final Object batchQueriesLock = new Object();
+    private final AtomicLong batchFetchCount = new AtomicLong();
+    private final AtomicLong batchFetchTime = new AtomicLong();
 
 
     /**
@@ -214,11 +224,10 @@ public class ReadRowSetImpl extends AbstractRowSet implements JdbcRowSet, DataSo
                     if(batchPK.isEmpty()) {
                         try (Connection connection = dataSource.getConnection();
                              PreparedStatement st = createBatchQuery(connection, batchFirstPk, false, 0, fetchSize,
-                                     true)) {
-                            try (ResultSet rs = st.executeQuery()) {
-                                while (rs.next()) {
-                                    batchPK.add(rs.getLong(1));
-                                }
+                                     true);
+                             ResultSet rs = executeBatchQuery(st, fetchSize)) {
+                            while (rs.next()) {
+                                batchPK.add(rs.getLong(1));
                             }
                         }
                     }
@@ -251,6 +260,7 @@ public class ReadRowSetImpl extends AbstractRowSet implements JdbcRowSet, DataSo
     }
 
     protected void cacheColumnNames() throws SQLException {
+        clearBatchQueries();
         cachedColumnNames = new DualHashBidiMap<>();
         cachedGeomColumnNames = new DualHashBidiMap<>();
         try(Resource res = resultSetHolder.getResource()) {
@@ -275,11 +285,46 @@ public class ReadRowSetImpl extends AbstractRowSet implements JdbcRowSet, DataSo
     }
 
 
-    private PreparedStatement createBatchQuery(Connection connection, Long firstPk, boolean cacheData, int queryOffset, int limit, boolean queryPk) throws SQLException {
-        StringBuilder command = new StringBuilder();
+    /**
+     * Forget compiled batch queries, they will be compiled again on the next batch fetching.
+     */
+    protected void clearBatchQueries() {
+        synchronized (batchQueriesLock) {
+            batchQueries = new String[8];
+        }
+    }
+
+    /**
+     * @return Number of batch queries executed by this row set
+     */
+    public long getBatchFetchCount() {
+        return batchFetchCount.get();
+    }
+
+    /**
+     * @return Total time spent in batch queries, in nanoseconds
+     */
+    public long getBatchFetchTime() {
+        return batchFetchTime.get();
+    }
+
+    /**
+     * Compile the batch query once for the current command, filter and columns. Limit and offset are parameters.
+     */
+    private String getBatchQuery(boolean cacheData, boolean queryPk, boolean useFirstPk) throws SQLException {
         if(cachedColumnNames == null || cachedGeomColumnNames==null) {
             cacheColumnNames();
         }
+        int queryId = (cacheData ? BATCH_QUERY_DATA : 0) | (queryPk ? BATCH_QUERY_PK : 0) |
+                (useFirstPk ? BATCH_QUERY_FIRST_PK : 0);
+        String query;
+        synchronized (batchQueriesLock) {
+            query = batchQueries[queryId];
+        }
+        if(query != null) {
+            return query;
+        }
+        StringBuilder command = new StringBuilder();
         command.append("SELECT ");
         if (queryPk) {
             command.append(pk_name);
@@ -301,18 +346,18 @@ public class ReadRowSetImpl extends AbstractRowSet implements JdbcRowSet, DataSo
                         allFields.append(TableLocation.quoteIdentifier(map.get(i)));
                     }
                 }
-                fields=fields.replaceAll("\\*", allFields.toString());
+                fields=fields.replaceAll("\\*", Matcher.quoteReplacement(allFields.toString()));
             }
             command.append(fields);
         }
         command.append(" FROM ");
         command.append(getTable());
-        if(firstPk != null || !select_where.isEmpty()) {
+        if(useFirstPk || !select_where.isEmpty()) {
             command.append(" WHERE ");
             if(!select_where.isEmpty()) {
                 command.append(select_where);
             }
-            if (firstPk != null) {
+            if (useFirstPk) {
                 if(!select_where.isEmpty()) {
                     command.append(" AND ");
                 }
@@ -324,27 +369,57 @@ public class ReadRowSetImpl extends AbstractRowSet implements JdbcRowSet, DataSo
             command.append(" ORDER BY ");
             command.append(pk_name);
         }
-        command.append(" LIMIT ");
-        command.append(limit);
-        if(queryOffset > 0) {
-            command.append(" OFFSET ");
-            command.append(queryOffset);
+        command.append(" LIMIT ? OFFSET ?");
+        query = command.toString();
+        synchronized (batchQueriesLock) {
+            batchQueries[queryId] = query;
         }
-        PreparedStatement st = connection.prepareStatement(command.toString());
+        return query;
+    }
+
+    /**
+     * Prepare the compiled batch query. The connection is borrowed for one batch only, a pooled DataSource keeps
+     * the prepared statement in its cache.
+     * @param connection Connection of this batch
+     */
+    private PreparedStatement createBatchQuery(Connection connection, Long firstPk, boolean cacheData, int queryOffset,
+                                               int limit, boolean queryPk) throws SQLException {
+        PreparedStatement st = connection.prepareStatement(getBatchQuery(cacheData, queryPk, firstPk != null));
         for(Map.Entry<Integer, Object> entry : parameters.entrySet()) {
             st.setObject(entry.getKey(), entry.getValue());
         }
+        int parameterIndex = parameters.size() + 1;
         if(firstPk != null) {
             if (isH2 || !pk_name.equals(MetaData.POSTGRE_ROW_IDENTIFIER)) {
-                st.setLong(parameters.size() + 1, firstPk);
+                st.setLong(parameterIndex++, firstPk);
             } else {
                 Ref pkRef = new Tid(firstPk);
-                st.setRef(parameters.size() + 1, pkRef);
+                st.setRef(parameterIndex++, pkRef);
             }
         }
+        st.setInt(parameterIndex++, limit);
+        st.setInt(parameterIndex, Math.max(0, queryOffset));
         return st;
     }
 
+    /**
+     * Execute a batch query and record its duration.
+     */
+    private ResultSet executeBatchQuery(PreparedStatement st, int limit) throws SQLException {
+        long begin = System.nanoTime();
+        try {
+            return st.executeQuery();
+        } finally {
+            long elapsed = System.nanoTime() - begin;
+            batchFetchCount.incrementAndGet();
+            batchFetchTime.addAndGet(elapsed);
+            if(LOGGER.isTraceEnabled()) {
+                LOGGER.trace("Batch of " + limit + " rows of " + getTable() + " fetched in " +
+                        (elapsed / 1e6) + " ms");
+            }
+        }
+    }
+
     /**
      * Fetch a batch that start with firstPk
      *
@@ -363,10 +438,11 @@ public class ReadRowSetImpl extends AbstractRowSet implements JdbcRowSet, DataSo
             cacheColumnNames();
         }
         boolean ignoreFirstColumn = !cachedColumnNames.containsKey(pk_name);
+        int limit = cacheData ? fetchSize + 1 : 1;
         try (Connection connection = dataSource.getConnection();
-             PreparedStatement st = createBatchQuery(connection, firstPk, cacheData, queryOffset, cacheData ?
-                     fetchSize + 1 : 1, ignoreFirstColumn || !cacheData);
-             ResultSet rsBatch = st.executeQuery()) {
+             PreparedStatement st = createBatchQuery(connection, firstPk, cacheData, queryOffset, limit,
+                     ignoreFirstColumn || !cacheData);
+             ResultSet rsBatch = executeBatchQuery(st, limit)) {
 
             int curRow = 1;
             while (rsBatch.next()) {
@@ -576,6 +652,7 @@ public class ReadRowSetImpl extends AbstractRowSet implements JdbcRowSet, DataSo
         try(Connection connection = dataSource.getConnection()) {
             this.pk_name = MetaData.getPkName(connection, location.toString(), true);
         }
+        clearBatchQueries();
     }
 
     @Override
@@ -591,6 +668,7 @@ public class ReadRowSetImpl extends AbstractRowSet implements JdbcRowSet, DataSo
     @Override
     public void setExcludeGeomFields(boolean excludeGeomFields) {
         this.excludeGeomFields = excludeGeomFields;
+        clearBatchQueries();
     }
 
     @Override
@@ -607,6 +685,7 @@ public class ReadRowSetImpl extends AbstractRowSet implements JdbcRowSet, DataSo
     public void initialize(TableLocation location,String pk_name, ProgressMonitor pm) throws SQLException {
         this.location = location;
         this.pk_name = pk_name;
+        clearBatchQueries();
         execute(pm);
     }
 
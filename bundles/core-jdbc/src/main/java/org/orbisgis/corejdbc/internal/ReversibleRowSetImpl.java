@@ -337,9 +337,11 @@ public class ReversibleRowSetImpl extends ReadRowSetImpl implements ReversibleRo
         }
         insertRow.redo(false);
         cachedRowCount++;
-        manager.fireTableEditHappened(new TableEditEvent(location.toString(isH2), insertRow,
+        TableEditEvent insertEvent = new TableEditEvent(location.toString(isH2), insertRow,
                 TableModelEvent.ALL_COLUMNS, insertRow.getPrimaryKey(), insertRow.getPrimaryKey(),
-                TableModelEvent.INSERT));
+                TableModelEvent.INSERT);
+        insertEvent.setDirtyEnvelope(insertRow.getGeometryEnvelope());
+        manager.fireTableEditHappened(insertEvent);
         moveToInsertRow();
     }
 
@@ -354,8 +356,10 @@ public class ReversibleRowSetImpl extends ReadRowSetImpl implements ReversibleRo
                 TableUndoableUpdate update = updateRow[updateColumn];
                 if(update != null && updateColumn != pkColumnId ) {
                     update.redo(false);
-                    manager.fireTableEditHappened(new TableEditEvent(location.toString(isH2), update, updateColumn,
-                            getPk(), getPk(), TableModelEvent.DELETE));
+                    TableEditEvent updateEvent = new TableEditEvent(location.toString(isH2), update, updateColumn,
+                            getPk(), getPk(), TableModelEvent.DELETE);
+                    updateEvent.setDirtyEnvelope(update.getGeometryEnvelope());
+                    manager.fireTableEditHappened(updateEvent);
                 }
             }
             if(updateRow[pkColumnId] != null) {
@@ -385,8 +389,10 @@ public class ReversibleRowSetImpl extends ReadRowSetImpl implements ReversibleRo
         deleteEvt.redo(false);
         cachedRowCount--;
         refreshRow();
-        manager.fireTableEditHappened(new TableEditEvent(location.toString(isH2), deleteEvt, TableModelEvent
-                .ALL_COLUMNS, deleteEvt.getPrimaryKey(), deleteEvt.getPrimaryKey(), TableModelEvent.DELETE));
+        TableEditEvent deleteEvent = new TableEditEvent(location.toString(isH2), deleteEvt, TableModelEvent
+                .ALL_COLUMNS, deleteEvt.getPrimaryKey(), deleteEvt.getPrimaryKey(), TableModelEvent.DELETE);
+        deleteEvent.setDirtyEnvelope(deleteEvt.getGeometryEnvelope());
+        manager.fireTableEditHappened(deleteEvent);
     }
 
     @Override
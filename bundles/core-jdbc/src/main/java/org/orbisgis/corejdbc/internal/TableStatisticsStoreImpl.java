@@ -0,0 +1,624 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc.internal;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.h2gis.utilities.JDBCUtilities;
+import org.h2gis.utilities.SFSUtilities;
+import org.h2gis.utilities.TableLocation;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.DatabaseProgressionListener;
+import org.orbisgis.corejdbc.StateEvent;
+import org.orbisgis.corejdbc.TableEditEvent;
+import org.orbisgis.corejdbc.TableEditListener;
+import org.orbisgis.corejdbc.TableStatistics;
+import org.orbisgis.corejdbc.TableStatisticsStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.event.TableModelEvent;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Table statistics persisted in the {@value #STORE_TABLE} table of the default schema, the minimum and maximum values
+ * of the numeric columns are persisted in the {@value #COLUMN_STORE_TABLE} table.
+ * All stored statistics are loaded in memory on creation. Edited rows are only recorded when the edit event is
+ * received, then they are read on the next request in order to update the statistics.
+ * @author Nicolas Fortin
+ */
+public class TableStatisticsStoreImpl implements TableStatisticsStore, TableEditListener, DatabaseProgressionListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TableStatisticsStoreImpl.class);
+    /** Name of the table that contain the statistics */
+    public static final String STORE_TABLE = "ORBISGIS_TABLE_STATISTICS";
+    /** Name of the table that contain the range of the numeric columns */
+    public static final String COLUMN_STORE_TABLE = "ORBISGIS_COLUMN_STATISTICS";
+    /** Above this number of edited rows, the table is scanned again instead of reading the edited rows */
+    private static final int MAX_PENDING_ROWS = 5000;
+    /** Number of primary key values in the IN clause when reading edited rows */
+    private static final int PK_BATCH_SIZE = 100;
+    private static final char TYPE_SEPARATOR = ';';
+    private static final char COUNT_SEPARATOR = '=';
+
+    private final DataManager dataManager;
+    private final boolean isH2;
+    private String defaultSchema = "PUBLIC";
+    private String storeTable;
+    private String columnStoreTable;
+    private volatile boolean storeCreated = false;
+    /** Loaded statistics by table identifier */
+    private final ConcurrentMap<String, StatisticsEntry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Load the stored statistics and listen to the edition of the stored tables.
+     * @param dataManager DataManager instance
+     * @param isH2 True if the database is H2
+     */
+    public TableStatisticsStoreImpl(DataManager dataManager, boolean isH2) {
+        this.dataManager = dataManager;
+        this.isH2 = isH2;
+        try (Connection connection = dataManager.getDataSource().getConnection()) {
+            try {
+                if (connection.getSchema() != null) {
+                    defaultSchema = connection.getSchema();
+                }
+            } catch (AbstractMethodError | Exception ex) {
+                // Driver has been compiled with JAVA 6, or is not implemented
+            }
+            storeTable = new TableLocation(defaultSchema, isH2 ? STORE_TABLE : STORE_TABLE.toLowerCase()).toString(isH2);
+            columnStoreTable = new TableLocation(defaultSchema, isH2 ? COLUMN_STORE_TABLE :
+                    COLUMN_STORE_TABLE.toLowerCase()).toString(isH2);
+            loadStore(connection);
+        } catch (SQLException ex) {
+            LOGGER.debug(ex.getLocalizedMessage(), ex);
+        }
+        for (String table : entries.keySet()) {
+            listenTable(table);
+        }
+        dataManager.addDatabaseProgressionListener(this, StateEvent.DB_STATES.STATE_STATEMENT_END);
+    }
+
+    /**
+     * @param tableReference Table reference
+     * @return Table identifier used as key, the schema is always set
+     */
+    private String getKey(String tableReference) {
+        TableLocation location = TableLocation.parse(tableReference, isH2);
+        return new TableLocation(location.getSchema(defaultSchema), location.getTable()).toString(isH2);
+    }
+
+    private void loadStore(Connection connection) {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT TABLE_REFERENCE, ROW_COUNT, MIN_X, MIN_Y, MAX_X, MAX_Y," +
+                     " GEOMETRY_TYPES, EXACT FROM " + storeTable)) {
+            storeCreated = true;
+            while (rs.next()) {
+                StatisticsEntry entry = new StatisticsEntry();
+                entry.rowCount = rs.getLong(2);
+                double minX = rs.getDouble(3);
+                if (!rs.wasNull()) {
+                    entry.envelope = new Envelope(minX, rs.getDouble(5), rs.getDouble(4), rs.getDouble(6));
+                }
+                entry.geometryTypes = parseGeometryTypes(rs.getString(7));
+                entry.exact = rs.getBoolean(8);
+                entries.put(rs.getString(1), entry);
+            }
+        } catch (SQLException ex) {
+            // Store table does not exists yet
+            storeCreated = false;
+            return;
+        }
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT TABLE_REFERENCE, COLUMN_NAME, MIN_VALUE, MAX_VALUE FROM " +
+                     columnStoreTable)) {
+            while (rs.next()) {
+                StatisticsEntry entry = entries.get(rs.getString(1));
+                if (entry != null) {
+                    entry.columnRanges.put(rs.getString(2), new double[]{rs.getDouble(3), rs.getDouble(4)});
+                }
+            }
+        } catch (SQLException ex) {
+            // Column store table does not exists yet
+            storeCreated = false;
+        }
+    }
+
+    /**
+     * Listen to the edition of this table. No trigger is created, events come from the row sets of the DataManager
+     * and from the triggers of the other listeners (ex: map layers).
+     * @param key Table identifier
+     */
+    private void listenTable(String key) {
+        TableLocation location = TableLocation.parse(key, isH2);
+        if (location.getSchema().equals(defaultSchema)) {
+            // Same identifier as the DataManager when the schema is not given by the event
+            dataManager.addTableEditListener(new TableLocation(location.getTable()).toString(isH2), this, false);
+        } else {
+            dataManager.addTableEditListener(key, this, false);
+        }
+    }
+
+    @Override
+    public Envelope getEnvelope(String tableReference) throws SQLException {
+        String key = getKey(tableReference);
+        StatisticsEntry entry = getEntry(key);
+        synchronized (entry) {
+            applyEditedRows(key, entry);
+            return new Envelope(entry.envelope);
+        }
+    }
+
+    @Override
+    public TableStatistics getStatistics(String tableReference) throws SQLException {
+        String key = getKey(tableReference);
+        StatisticsEntry entry = getEntry(key);
+        synchronized (entry) {
+            if (!entry.exact) {
+                entry.invalid = true;
+            }
+            applyEditedRows(key, entry);
+            return new TableStatistics(key, entry.rowCount, entry.envelope, entry.geometryTypes, entry.columnRanges,
+                    entry.exact);
+        }
+    }
+
+    @Override
+    public void invalidate(String tableReference) {
+        String key = getKey(tableReference);
+        if (entries.remove(key) != null) {
+            try (Connection connection = dataManager.getDataSource().getConnection()) {
+                deleteStoredEntry(connection, key);
+            } catch (SQLException ex) {
+                LOGGER.error(ex.getLocalizedMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * @param key Table identifier
+     * @return Loaded statistics, or statistics computed with a full scan of the table
+     * @throws SQLException Error while computing statistics
+     */
+    private StatisticsEntry getEntry(String key) throws SQLException {
+        StatisticsEntry entry = entries.get(key);
+        if (entry == null) {
+            entry = new StatisticsEntry();
+            try (Connection connection = dataManager.getDataSource().getConnection()) {
+                scanTable(connection, key, entry);
+                storeEntry(connection, key, entry);
+            }
+            StatisticsEntry previous = entries.putIfAbsent(key, entry);
+            if (previous == null) {
+                listenTable(key);
+            } else {
+                // Computed at the same time by another thread
+                entry = previous;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Compute the statistics using all the rows of the table.
+     */
+    private void scanTable(Connection connection, String key, StatisticsEntry entry) throws SQLException {
+        readFields(connection, key, entry);
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery(getStatisticsQuery(TableLocation.parse(key, isH2), entry,
+                     ""))) {
+            readStatistics(rs, entry, entry.numericFields, true);
+        }
+        entry.exact = true;
+        entry.invalid = false;
+        entry.modified = false;
+        entry.insertedRows.clear();
+        entry.updatedRows.clear();
+    }
+
+    /**
+     * Read the geometry, primary key and numeric fields of the table
+     */
+    private void readFields(Connection connection, String key, StatisticsEntry entry) throws SQLException {
+        TableLocation location = TableLocation.parse(key, isH2);
+        List<String> geometryFields = SFSUtilities.getGeometryFields(connection, location);
+        entry.geometryField = geometryFields.isEmpty() ? null : geometryFields.get(0);
+        int pkIndex = JDBCUtilities.getIntegerPrimaryKey(connection, key);
+        entry.pkField = pkIndex > 0 ? JDBCUtilities.getFieldName(connection.getMetaData(), key, pkIndex) : null;
+        entry.numericFields.clear();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT * FROM " + location.toString(isH2) + " LIMIT 0")) {
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                if (isNumeric(meta.getColumnType(i))) {
+                    entry.numericFields.add(meta.getColumnName(i));
+                }
+            }
+        }
+        entry.fieldsRead = true;
+    }
+
+    private static boolean isNumeric(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Read the rows edited since the last request, then update the stored statistics.
+     * @param key Table identifier
+     * @param entry Statistics, must be locked by the caller
+     */
+    private void applyEditedRows(String key, StatisticsEntry entry) throws SQLException {
+        if (!entry.invalid && !entry.modified) {
+            return;
+        }
+        try (Connection connection = dataManager.getDataSource().getConnection()) {
+            if (!entry.fieldsRead) {
+                readFields(connection, key, entry);
+            }
+            boolean editedRows = !entry.insertedRows.isEmpty() || !entry.updatedRows.isEmpty();
+            if (entry.invalid || (editedRows && entry.pkField == null)) {
+                scanTable(connection, key, entry);
+            } else {
+                TableLocation location = TableLocation.parse(key, isH2);
+                StatisticsEntry inserted = readRows(connection, location, entry, entry.insertedRows);
+                entry.rowCount += inserted.rowCount;
+                entry.envelope.expandToInclude(inserted.envelope);
+                for (Map.Entry<String, Long> type : inserted.geometryTypes.entrySet()) {
+                    Long count = entry.geometryTypes.get(type.getKey());
+                    entry.geometryTypes.put(type.getKey(), count == null ? type.getValue() : count + type.getValue());
+                }
+                expandColumnRanges(entry.columnRanges, inserted.columnRanges);
+                StatisticsEntry updated = readRows(connection, location, entry, entry.updatedRows);
+                entry.envelope.expandToInclude(updated.envelope);
+                expandColumnRanges(entry.columnRanges, updated.columnRanges);
+                entry.insertedRows.clear();
+                entry.updatedRows.clear();
+                entry.modified = false;
+            }
+            storeEntry(connection, key, entry);
+        }
+    }
+
+    private StatisticsEntry readRows(Connection connection, TableLocation location, StatisticsEntry entry,
+                                     Set<Long> rows) throws SQLException {
+        StatisticsEntry rowsStatistics = new StatisticsEntry();
+        Iterator<Long> it = rows.iterator();
+        while (it.hasNext()) {
+            List<Long> batch = new ArrayList<>(PK_BATCH_SIZE);
+            StringBuilder where = new StringBuilder(" WHERE ");
+            where.append(TableLocation.quoteIdentifier(entry.pkField, isH2)).append(" IN (");
+            while (it.hasNext() && batch.size() < PK_BATCH_SIZE) {
+                where.append(batch.isEmpty() ? "?" : ", ?");
+                batch.add(it.next());
+            }
+            where.append(")");
+            try (PreparedStatement st = connection.prepareStatement(getStatisticsQuery(location,
+                    entry, where.toString()))) {
+                for (int i = 0; i < batch.size(); i++) {
+                    st.setLong(i + 1, batch.get(i));
+                }
+                try (ResultSet rs = st.executeQuery()) {
+                    readStatistics(rs, rowsStatistics, entry.numericFields, false);
+                }
+            }
+        }
+        return rowsStatistics;
+    }
+
+    private String getStatisticsQuery(TableLocation location, StatisticsEntry entry, String whereClause) {
+        StringBuilder columns = new StringBuilder();
+        for (String numericField : entry.numericFields) {
+            String field = TableLocation.quoteIdentifier(numericField, isH2);
+            columns.append(", MIN(").append(field).append("), MAX(").append(field).append(")");
+        }
+        if (entry.geometryField == null) {
+            return "SELECT NULL, COUNT(*), NULL, NULL, NULL, NULL" + columns + " FROM " + location.toString(isH2) +
+                    whereClause;
+        } else {
+            String field = TableLocation.quoteIdentifier(entry.geometryField, isH2);
+            return String.format("SELECT ST_GeometryType(%1$s), COUNT(*), MIN(ST_XMin(%1$s)), MIN(ST_YMin(%1$s))," +
+                    " MAX(ST_XMax(%1$s)), MAX(ST_YMax(%1$s))%4$s FROM %2$s%3$s GROUP BY ST_GeometryType(%1$s)",
+                    field, location.toString(isH2), whereClause, columns);
+        }
+    }
+
+    /**
+     * Merge the result of a statistics query into the provided statistics.
+     * @param numericFields Numeric fields of the query, in the same order
+     */
+    private static void readStatistics(ResultSet rs, StatisticsEntry entry, List<String> numericFields,
+                                       boolean reset) throws SQLException {
+        if (reset) {
+            entry.rowCount = 0;
+            entry.envelope = new Envelope();
+            entry.geometryTypes.clear();
+            entry.columnRanges.clear();
+        }
+        while (rs.next()) {
+            String geometryType = rs.getString(1);
+            long count = rs.getLong(2);
+            entry.rowCount += count;
+            if (geometryType != null) {
+                Long typeCount = entry.geometryTypes.get(geometryType);
+                entry.geometryTypes.put(geometryType, typeCount == null ? count : typeCount + count);
+            }
+            double minX = rs.getDouble(3);
+            if (!rs.wasNull()) {
+                entry.envelope.expandToInclude(new Envelope(minX, rs.getDouble(5), rs.getDouble(4), rs.getDouble(6)));
+            }
+            for (int i = 0; i < numericFields.size(); i++) {
+                double min = rs.getDouble(7 + 2 * i);
+                if (!rs.wasNull()) {
+                    expandColumnRange(entry.columnRanges, numericFields.get(i), min, rs.getDouble(8 + 2 * i));
+                }
+            }
+        }
+    }
+
+    private static void expandColumnRanges(Map<String, double[]> columnRanges, Map<String, double[]> other) {
+        for (Map.Entry<String, double[]> range : other.entrySet()) {
+            expandColumnRange(columnRanges, range.getKey(), range.getValue()[0], range.getValue()[1]);
+        }
+    }
+
+    private static void expandColumnRange(Map<String, double[]> columnRanges, String field, double min, double max) {
+        double[] range = columnRanges.get(field);
+        if (range == null) {
+            columnRanges.put(field, new double[]{min, max});
+        } else {
+            range[0] = Math.min(range[0], min);
+            range[1] = Math.max(range[1], max);
+        }
+    }
+
+    private void createStore(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS " + storeTable + " (TABLE_REFERENCE VARCHAR(1024) PRIMARY KEY," +
+                    " ROW_COUNT BIGINT, MIN_X DOUBLE PRECISION, MIN_Y DOUBLE PRECISION, MAX_X DOUBLE PRECISION," +
+                    " MAX_Y DOUBLE PRECISION, GEOMETRY_TYPES VARCHAR, EXACT BOOLEAN)");
+            st.execute("CREATE TABLE IF NOT EXISTS " + columnStoreTable + " (TABLE_REFERENCE VARCHAR(1024)," +
+                    " COLUMN_NAME VARCHAR(1024), MIN_VALUE DOUBLE PRECISION, MAX_VALUE DOUBLE PRECISION," +
+                    " PRIMARY KEY(TABLE_REFERENCE, COLUMN_NAME))");
+        }
+        storeCreated = true;
+    }
+
+    private void deleteStoredEntry(Connection connection, String key) throws SQLException {
+        if (storeCreated) {
+            try (PreparedStatement st = connection.prepareStatement("DELETE FROM " + storeTable +
+                    " WHERE TABLE_REFERENCE = ?")) {
+                st.setString(1, key);
+                st.execute();
+            }
+            try (PreparedStatement st = connection.prepareStatement("DELETE FROM " + columnStoreTable +
+                    " WHERE TABLE_REFERENCE = ?")) {
+                st.setString(1, key);
+                st.execute();
+            }
+        }
+    }
+
+    private void storeEntry(Connection connection, String key, StatisticsEntry entry) {
+        try {
+            if (!storeCreated) {
+                createStore(connection);
+            }
+            deleteStoredEntry(connection, key);
+            try (PreparedStatement st = connection.prepareStatement("INSERT INTO " + storeTable +
+                    " VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                st.setString(1, key);
+                st.setLong(2, entry.rowCount);
+                if (entry.envelope.isNull()) {
+                    for (int i = 3; i <= 6; i++) {
+                        st.setNull(i, Types.DOUBLE);
+                    }
+                } else {
+                    st.setDouble(3, entry.envelope.getMinX());
+                    st.setDouble(4, entry.envelope.getMinY());
+                    st.setDouble(5, entry.envelope.getMaxX());
+                    st.setDouble(6, entry.envelope.getMaxY());
+                }
+                st.setString(7, formatGeometryTypes(entry.geometryTypes));
+                st.setBoolean(8, entry.exact);
+                st.execute();
+            }
+            if (!entry.columnRanges.isEmpty()) {
+                try (PreparedStatement st = connection.prepareStatement("INSERT INTO " + columnStoreTable +
+                        " VALUES (?, ?, ?, ?)")) {
+                    for (Map.Entry<String, double[]> range : entry.columnRanges.entrySet()) {
+                        st.setString(1, key);
+                        st.setString(2, range.getKey());
+                        st.setDouble(3, range.getValue()[0]);
+                        st.setDouble(4, range.getValue()[1]);
+                        st.addBatch();
+                    }
+                    st.executeBatch();
+                }
+            }
+        } catch (SQLException ex) {
+            // Statistics are kept in memory
+            LOGGER.debug(ex.getLocalizedMessage(), ex);
+        }
+    }
+
+    private static String formatGeometryTypes(Map<String, Long> geometryTypes) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> entry : geometryTypes.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(TYPE_SEPARATOR);
+            }
+            sb.append(entry.getKey()).append(COUNT_SEPARATOR).append(entry.getValue());
+        }
+        return sb.toString();
+    }
+
+    private static Map<String, Long> parseGeometryTypes(String geometryTypes) {
+        Map<String, Long> types = new HashMap<>();
+        if (geometryTypes != null && !geometryTypes.isEmpty()) {
+            for (String type : geometryTypes.split(String.valueOf(TYPE_SEPARATOR))) {
+                int separator = type.lastIndexOf(COUNT_SEPARATOR);
+                if (separator > 0) {
+                    types.put(type.substring(0, separator), Long.valueOf(type.substring(separator + 1)));
+                }
+            }
+        }
+        return types;
+    }
+
+    @Override
+    public void tableChange(TableEditEvent event) {
+        StatisticsEntry entry = entries.get(getKey(event.getTableName()));
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            entry.modified = true;
+            Long firstRow = event.getFirstRowPK();
+            Long lastRow = event.getLastRowPK();
+            if (event.getType() == TableModelEvent.DELETE) {
+                // The stored envelope still contains the remaining rows
+                entry.exact = false;
+            } else if (firstRow == null || lastRow == null || lastRow - firstRow +
+                    entry.insertedRows.size() + entry.updatedRows.size() >= MAX_PENDING_ROWS) {
+                // Cannot read the edited rows only
+                entry.invalid = true;
+                entry.insertedRows.clear();
+                entry.updatedRows.clear();
+            } else if (!entry.invalid) {
+                Set<Long> rows = event.getType() == TableModelEvent.INSERT ? entry.insertedRows : entry.updatedRows;
+                for (long pk = firstRow; pk <= lastRow; pk++) {
+                    rows.add(pk);
+                }
+                if (event.getType() == TableModelEvent.UPDATE) {
+                    // The previous geometry type of the row is unknown
+                    entry.exact = false;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void progressionUpdate(StateEvent state) {
+        if (state.isUpdateDatabaseStructure()) {
+            List<TableLocation> tables = CatalogMetadataImpl.parseUpdatedTables(state.getName(), isH2);
+            if (tables == null) {
+                // Unknown statement, drop the statistics of the tables it refers to
+                String sql = state.getName() == null ? "" : state.getName();
+                for (String key : new ArrayList<>(entries.keySet())) {
+                    if (isReferenced(sql, TableLocation.parse(key, isH2))) {
+                        invalidate(key);
+                    }
+                }
+            } else {
+                for (TableLocation table : tables) {
+                    String key = getKey(table.toString(isH2));
+                    if (!key.equals(storeTable) && !key.equals(columnStoreTable)) {
+                        invalidate(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param sql SQL statement
+     * @param location Table identifier
+     * @return True if the table name or its schema name (other than the default one) is found as a word in the
+     * statement
+     */
+    private boolean isReferenced(String sql, TableLocation location) {
+        String schema = location.getSchema().equals(defaultSchema) ? "" : location.getSchema();
+        for (String name : new String[]{location.getTable(), schema}) {
+            if (!name.isEmpty() && Pattern.compile("(?<![\\w$])" + Pattern.quote(name) + "(?![\\w$])",
+                    Pattern.CASE_INSENSITIVE).matcher(sql).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Statistics and edited rows of a table
+     */
+    private static class StatisticsEntry {
+        private long rowCount = 0;
+        private Envelope envelope = new Envelope();
+        private Map<String, Long> geometryTypes = new HashMap<>();
+        /** Minimum and maximum values of the numeric fields */
+        private final Map<String, double[]> columnRanges = new LinkedHashMap<>();
+        private boolean exact = false;
+        /** True if rows must be read again */
+        private boolean invalid = false;
+        /** True if rows have been edited since the last request */
+        private boolean modified = false;
+        /** True if the geometry and primary key fields have been read */
+        private boolean fieldsRead = false;
+        private String geometryField;
+        private String pkField;
+        private final List<String> numericFields = new ArrayList<>();
+        private final Set<Long> insertedRows = new HashSet<>();
+        private final Set<Long> updatedRows = new HashSet<>();
+    }
+}
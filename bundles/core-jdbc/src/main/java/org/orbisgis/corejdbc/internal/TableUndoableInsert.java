@@ -36,6 +36,7 @@
  */
 package org.orbisgis.corejdbc.internal;
 
+import com.vividsolutions.jts.geom.Envelope;
 import org.h2gis.utilities.TableLocation;
 import org.orbisgis.corejdbc.DataManager;
 import org.orbisgis.corejdbc.TableEditEvent;
@@ -81,6 +82,13 @@ public class TableUndoableInsert implements TableUndoableEdit {
         newValues.put(column, value);
     }
 
+    /**
+     * @return Envelope of the geometries of the row, null if the row does not contain geometries
+     */
+    public Envelope getGeometryEnvelope() {
+        return TableEditEvent.getGeometryEnvelope(newValues.values().toArray());
+    }
+
 
     protected void doUndo(boolean callListeners) throws SQLException {
         if(primaryKey != null) {
@@ -91,8 +99,10 @@ public class TableUndoableInsert implements TableUndoableEdit {
                 primaryKey = null;
             }
             if(callListeners) {
-                dataManager.fireTableEditHappened(new TableEditEvent(tableLocation.toString(isH2),
-                        TableModelEvent.ALL_COLUMNS, null, null, TableModelEvent.DELETE));
+                TableEditEvent event = new TableEditEvent(tableLocation.toString(isH2),
+                        TableModelEvent.ALL_COLUMNS, null, null, TableModelEvent.DELETE);
+                event.setDirtyEnvelope(getGeometryEnvelope());
+                dataManager.fireTableEditHappened(event);
             }
         }
     }
@@ -155,8 +165,10 @@ public class TableUndoableInsert implements TableUndoableEdit {
             }
         }
         if(callListeners) {
-            dataManager.fireTableEditHappened(new TableEditEvent(tableLocation.toString(isH2),
-                    TableModelEvent.ALL_COLUMNS, primaryKey, primaryKey, TableModelEvent.INSERT));
+            TableEditEvent event = new TableEditEvent(tableLocation.toString(isH2),
+                    TableModelEvent.ALL_COLUMNS, primaryKey, primaryKey, TableModelEvent.INSERT);
+            event.setDirtyEnvelope(getGeometryEnvelope());
+            dataManager.fireTableEditHappened(event);
         }
     }
 
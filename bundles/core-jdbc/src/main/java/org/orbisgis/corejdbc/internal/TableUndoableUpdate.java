@@ -36,6 +36,7 @@
  */
 package org.orbisgis.corejdbc.internal;
 
+import com.vividsolutions.jts.geom.Envelope;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.orbisgis.corejdbc.DataManager;
@@ -116,7 +117,9 @@ public class TableUndoableUpdate implements TableUndoableEdit {
                     if( columnName.equals(pkName)) {
                         pkToFire = Long.valueOf(value.toString());
                     }
-                    dataManager.fireTableEditHappened(new TableEditEvent(tableLocation.toString(isH2), JDBCUtilities.getFieldIndex(rs.getMetaData(), columnName), pkToFire, pkToFire, TableModelEvent.UPDATE));
+                    TableEditEvent event = new TableEditEvent(tableLocation.toString(isH2), JDBCUtilities.getFieldIndex(rs.getMetaData(), columnName), pkToFire, pkToFire, TableModelEvent.UPDATE);
+                    event.setDirtyEnvelope(getGeometryEnvelope());
+                    dataManager.fireTableEditHappened(event);
                 }
             }
         }
@@ -127,6 +130,13 @@ public class TableUndoableUpdate implements TableUndoableEdit {
         redo(true);
     }
 
+    /**
+     * @return Envelope of the old and new geometries, null if the updated column is not a geometry
+     */
+    public Envelope getGeometryEnvelope() {
+        return TableEditEvent.getGeometryEnvelope(oldValue, newValue);
+    }
+
 
     public void redo(boolean callListeners) throws SQLException {
         doUpdate(rowIdentifier, newValue, callListeners);
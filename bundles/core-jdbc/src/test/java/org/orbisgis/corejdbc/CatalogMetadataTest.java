@@ -0,0 +1,158 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc;
+
+import org.h2gis.functions.factory.H2GISDBFactory;
+import org.h2gis.utilities.SFSUtilities;
+import org.h2gis.utilities.TableLocation;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orbisgis.corejdbc.internal.CatalogMetadataImpl;
+import org.orbisgis.corejdbc.internal.DataManagerImpl;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test of {@link CatalogMetadataImpl}
+ * @author Nicolas Fortin
+ */
+public class CatalogMetadataTest {
+    private static DataManager dataManager;
+    private static Connection connection;
+
+    @BeforeClass
+    public static void tearUp() throws Exception {
+        DataSource dataSource = SFSUtilities.wrapSpatialDataSource(H2GISDBFactory.createDataSource(
+                CatalogMetadataTest.class.getSimpleName(), true));
+        connection = dataSource.getConnection();
+        dataManager = new DataManagerImpl(dataSource);
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        if(connection != null) {
+            connection.close();
+        }
+    }
+
+    private static void fireStatement(String sql) {
+        dataManager.fireDatabaseProgression(new StateEvent(StateEvent.DB_STATES.STATE_STATEMENT_END, sql, 0, 0));
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws SQLException {
+        CatalogMetadataImpl catalogMetadata = new CatalogMetadataImpl(dataManager);
+        final List<Collection<TableLocation>> events = new ArrayList<>();
+        catalogMetadata.addCatalogMetadataListener(new CatalogMetadataListener() {
+            @Override
+            public void catalogChanged(Collection<TableLocation> updatedTables) {
+                events.add(updatedTables);
+            }
+        });
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS CATPTS, CATATTR, CATRENAMED");
+            st.execute("CREATE TABLE CATATTR(ID INT PRIMARY KEY, NAME VARCHAR)");
+            try {
+                int tableCount = catalogMetadata.getTables().size();
+                TableMetadata attr = catalogMetadata.getTable("CATATTR");
+                assertNotNull(attr);
+                assertFalse(attr.isSpatial());
+                assertEquals("TABLE", attr.getTableType());
+                // Table created without notification is not visible
+                st.execute("CREATE TABLE CATPTS(ID INT PRIMARY KEY, THE_GEOM GEOMETRY(POINT))");
+                assertNull(catalogMetadata.getTable("CATPTS"));
+                // Notify the creation
+                fireStatement("CREATE TABLE CATPTS(ID INT PRIMARY KEY, THE_GEOM GEOMETRY(POINT))");
+                assertEquals(1, events.size());
+                assertEquals("CATPTS", events.get(0).iterator().next().getTable());
+                TableMetadata pts = catalogMetadata.getTable("CATPTS");
+                assertNotNull(pts);
+                assertTrue(pts.isSpatial());
+                assertEquals(tableCount + 1, catalogMetadata.getTables().size());
+                List<ColumnMetadata> columns = catalogMetadata.getColumns("CATPTS");
+                assertEquals(2, columns.size());
+                assertEquals("ID", columns.get(0).getName());
+                assertFalse(columns.get(0).isSpatial());
+                assertEquals("THE_GEOM", columns.get(1).getName());
+                assertTrue(columns.get(1).isSpatial());
+                // Alter and rename
+                st.execute("ALTER TABLE CATATTR ADD COLUMN VAL DOUBLE");
+                st.execute("ALTER TABLE CATATTR RENAME TO CATRENAMED");
+                fireStatement("ALTER TABLE CATATTR RENAME TO CATRENAMED");
+                assertNull(catalogMetadata.getTable("CATATTR"));
+                assertNotNull(catalogMetadata.getTable("catrenamed"));
+                assertEquals(3, catalogMetadata.getColumns("CATRENAMED").size());
+                // Drop
+                st.execute("DROP TABLE CATPTS");
+                fireStatement("DROP TABLE CATPTS");
+                assertNull(catalogMetadata.getTable("CATPTS"));
+                assertEquals(tableCount, catalogMetadata.getTables().size());
+                // Index drop, refresh the owning table
+                st.execute("CREATE INDEX CATRENAMED_VAL ON CATRENAMED(VAL)");
+                fireStatement("CREATE INDEX CATRENAMED_VAL ON CATRENAMED(VAL)");
+                events.clear();
+                st.execute("DROP INDEX CATRENAMED_VAL");
+                fireStatement("DROP INDEX CATRENAMED_VAL");
+                assertEquals(1, events.size());
+                assertEquals(1, events.get(0).size());
+                assertEquals("CATRENAMED", events.get(0).iterator().next().getTable());
+                // Unknown target, full refresh
+                events.clear();
+                fireStatement("DROP SCHEMA IF EXISTS CATSCHEMA");
+                assertEquals(1, events.size());
+                assertTrue(events.get(0).isEmpty());
+                assertNotNull(catalogMetadata.getTable("CATRENAMED"));
+            } finally {
+                catalogMetadata.deactivate();
+                st.execute("DROP TABLE IF EXISTS CATPTS, CATATTR, CATRENAMED");
+            }
+        }
+    }
+}
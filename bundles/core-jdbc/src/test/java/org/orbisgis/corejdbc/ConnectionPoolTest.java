@@ -0,0 +1,264 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc;
+
+import org.h2gis.functions.factory.H2GISDBFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orbisgis.corejdbc.internal.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test of {@link ConnectionPool}
+ * @author Nicolas Fortin
+ */
+public class ConnectionPoolTest {
+    private static ConnectionPool connectionPool;
+
+    @BeforeClass
+    public static void tearUp() throws Exception {
+        connectionPool = new ConnectionPool(H2GISDBFactory.createDataSource(ConnectionPoolTest.class.getSimpleName(),
+                false), 2, 4, 0, 500);
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        connectionPool.close();
+    }
+
+    @Test
+    public void testConnectionReuse() throws SQLException {
+        long created = connectionPool.getCreatedConnectionCount();
+        for(int i = 0; i < 10; i++) {
+            try(Connection connection = connectionPool.getConnection()) {
+                assertFalse(connection.isClosed());
+                assertEquals(1, connectionPool.getActiveConnectionCount());
+            }
+        }
+        assertTrue(connectionPool.getCreatedConnectionCount() - created <= 1);
+        assertEquals(0, connectionPool.getActiveConnectionCount());
+        assertTrue(connectionPool.getIdleConnectionCount() >= 1);
+    }
+
+    @Test
+    public void testStatementCache() throws SQLException {
+        try(Connection connection = connectionPool.getConnection();
+            Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS POOLTEST");
+            st.execute("CREATE TABLE POOLTEST(id integer primary key, val varchar)");
+            st.execute("INSERT INTO POOLTEST VALUES (1, 'a'), (2, 'b')");
+        }
+        long hit = connectionPool.getStatementCacheHitCount();
+        for(int i = 1; i <= 2; i++) {
+            try(Connection connection = connectionPool.getConnection();
+                PreparedStatement st = connection.prepareStatement("SELECT val FROM POOLTEST WHERE id = ?")) {
+                st.setInt(1, i);
+                try(ResultSet rs = st.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals(i == 1 ? "a" : "b", rs.getString(1));
+                }
+                assertTrue(st.getConnection() == connection);
+            }
+        }
+        assertEquals(hit + 1, connectionPool.getStatementCacheHitCount());
+        assertTrue(connectionPool.getStatementCacheHitRate() > 0);
+        try(Connection connection = connectionPool.getConnection();
+            Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE POOLTEST");
+        }
+    }
+
+    @Test
+    public void testSameStatementInUse() throws SQLException {
+        try(Connection connection = connectionPool.getConnection();
+            PreparedStatement st = connection.prepareStatement("SELECT 1");
+            PreparedStatement st2 = connection.prepareStatement("SELECT 1")) {
+            assertNotSame(st, st2);
+            try(ResultSet rs = st.executeQuery(); ResultSet rs2 = st2.executeQuery()) {
+                assertTrue(rs.next());
+                assertTrue(rs2.next());
+            }
+        }
+    }
+
+    @Test
+    public void testClosedHandle() throws SQLException {
+        Connection connection = connectionPool.getConnection();
+        PreparedStatement st = connection.prepareStatement("SELECT 1");
+        connection.close();
+        assertTrue(connection.isClosed());
+        assertTrue(st.isClosed());
+        try {
+            connection.createStatement();
+            assertTrue("Closed connection must not be used", false);
+        } catch (SQLException ex) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testTransactionReset() throws SQLException {
+        try(Connection connection = connectionPool.getConnection();
+            Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS POOLTX");
+            st.execute("CREATE TABLE POOLTX(id integer)");
+        }
+        Connection connection = connectionPool.getConnection();
+        connection.setAutoCommit(false);
+        try(Statement st = connection.createStatement()) {
+            st.execute("INSERT INTO POOLTX VALUES (1)");
+        }
+        // Not committed
+        connection.close();
+        try(Connection connection2 = connectionPool.getConnection();
+            Statement st = connection2.createStatement()) {
+            assertTrue(connection2.getAutoCommit());
+            try(ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM POOLTX")) {
+                assertTrue(rs.next());
+                assertEquals(0, rs.getInt(1));
+            }
+            st.execute("DROP TABLE POOLTX");
+        }
+    }
+
+    @Test
+    public void testResultSetStatement() throws SQLException {
+        try(Connection connection = connectionPool.getConnection();
+            Statement st = connection.createStatement();
+            PreparedStatement pst = connection.prepareStatement("SELECT 1")) {
+            try(ResultSet rs = st.executeQuery("SELECT 1")) {
+                assertSame(st, rs.getStatement());
+                assertSame(connection, rs.getStatement().getConnection());
+                assertSame(rs, rs.unwrap(ResultSet.class));
+            }
+            try(ResultSet rs = pst.executeQuery()) {
+                assertSame(pst, rs.getStatement());
+                assertSame(connection, rs.getStatement().getConnection());
+            }
+        }
+    }
+
+    @Test
+    public void testCachedStatementResultSetClosed() throws SQLException {
+        ResultSet rs;
+        try(Connection connection = connectionPool.getConnection()) {
+            PreparedStatement st = connection.prepareStatement("SELECT X FROM SYSTEM_RANGE(1, 10)");
+            rs = st.executeQuery();
+            assertTrue(rs.next());
+            // The result set is not closed by the borrower
+            st.close();
+            assertTrue(rs.isClosed());
+        }
+        try(Connection connection = connectionPool.getConnection();
+            PreparedStatement st = connection.prepareStatement("SELECT X FROM SYSTEM_RANGE(1, 10)");
+            ResultSet rs2 = st.executeQuery()) {
+            assertTrue(rs2.next());
+            assertEquals(1, rs2.getInt(1));
+        }
+    }
+
+    @Test
+    public void testSessionReset() throws SQLException {
+        int isolation;
+        String schema;
+        try(Connection connection = connectionPool.getConnection();
+            Statement st = connection.createStatement()) {
+            isolation = connection.getTransactionIsolation();
+            schema = connection.getSchema();
+            st.execute("CREATE SCHEMA IF NOT EXISTS POOLSCHEMA");
+        }
+        try(Connection connection = connectionPool.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(isolation == Connection.TRANSACTION_SERIALIZABLE ?
+                    Connection.TRANSACTION_READ_COMMITTED : Connection.TRANSACTION_SERIALIZABLE);
+            try(Statement st = connection.createStatement()) {
+                st.execute("SET SCHEMA POOLSCHEMA");
+            }
+            assertEquals("POOLSCHEMA", connection.getSchema());
+        }
+        try(Connection connection = connectionPool.getConnection();
+            Statement st = connection.createStatement()) {
+            assertTrue(connection.getAutoCommit());
+            assertEquals(isolation, connection.getTransactionIsolation());
+            assertEquals(schema, connection.getSchema());
+            st.execute("DROP SCHEMA POOLSCHEMA");
+        }
+    }
+
+    @Test
+    public void testStatisticsWithoutPool() {
+        ConnectionPoolStatistics statistics = new DataSourceService();
+        assertEquals(0, statistics.getMaximumPoolSize());
+        assertEquals(0, statistics.getActiveConnectionCount());
+        assertEquals(0, statistics.getIdleConnectionCount());
+        assertEquals(0, statistics.getCreatedConnectionCount());
+        assertEquals(0, statistics.getBorrowCount());
+        assertEquals(0, statistics.getAverageBorrowTime());
+        assertEquals(0, statistics.getMaximumBorrowTime());
+        assertEquals(0, statistics.getLeakCount());
+        assertEquals(0, statistics.getStatementCacheHitCount());
+        assertEquals(0, statistics.getStatementCacheMissCount());
+        assertEquals(0, statistics.getStatementCacheHitRate(), 0);
+    }
+
+    @Test
+    public void testPoolExhausted() throws SQLException {
+        try(Connection connection = connectionPool.getConnection();
+            Connection connection2 = connectionPool.getConnection()) {
+            try {
+                connectionPool.getConnection();
+                assertTrue("Pool size must be respected", false);
+            } catch (SQLException ex) {
+                // Expected
+            }
+        }
+        // Connection available again
+        connectionPool.getConnection().close();
+    }
+}
@@ -61,6 +61,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.orbisgis.corejdbc.common.LongUnion;
 import org.orbisgis.corejdbc.internal.DataManagerImpl;
+import org.orbisgis.corejdbc.internal.ReadRowSetImpl;
 import org.orbisgis.commons.progress.NullProgressMonitor;
 
 /**
@@ -235,6 +236,51 @@ public class JDBCUtilityTest {
         }
     }
 
+    @Test
+    public void testLongestValues() throws SQLException {
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS LONGEST");
+            st.execute("CREATE TABLE LONGEST(ID INT PRIMARY KEY, \"label\" VARCHAR, VAL DOUBLE)");
+            st.execute("INSERT INTO LONGEST VALUES (1, 'a', 1), (2, 'abcd', 1234.5), (3, NULL, NULL), (4, 'abc', 12)");
+            List<Object> values = ReadTable.getLongestValues(connection, "LONGEST", "label", 2,
+                    new NullProgressMonitor());
+            assertEquals(Arrays.<Object>asList("abcd", "abc"), values);
+            values = ReadTable.getLongestValues(connection, "LONGEST", "VAL", 10, new NullProgressMonitor());
+            assertEquals(3, values.size());
+            assertEquals(1234.5, (Double) values.get(0), 1e-12);
+            st.execute("DROP TABLE LONGEST");
+        }
+    }
+
+    /**
+     * The database aggregation used by the table editor optimal width must find the longest value of all rows.
+     */
+    @Test
+    public void testLongestValuesMatchRowScan() throws SQLException {
+        final int rowCount = 1000;
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS LONGEST_SCAN");
+            st.execute("CREATE TABLE LONGEST_SCAN(ID INT PRIMARY KEY, TXT VARCHAR) AS SELECT X, REPEAT('a', " +
+                    "MOD(X * 7919, 97)) FROM SYSTEM_RANGE(1, " + rowCount + ")");
+            List<Object> values = ReadTable.getLongestValues(connection, "LONGEST_SCAN", "TXT", 20,
+                    new NullProgressMonitor());
+            int maxLength = 0;
+            try (ReadRowSetImpl rs = new ReadRowSetImpl(dataSource)) {
+                rs.initialize("LONGEST_SCAN", "ID", new NullProgressMonitor());
+                for(int row = 1; row <= rowCount; row++) {
+                    rs.absolute(row);
+                    String value = rs.getString(2);
+                    if(value != null) {
+                        maxLength = Math.max(maxLength, value.length());
+                    }
+                }
+            }
+            assertEquals(20, values.size());
+            assertEquals(maxLength, ((String) values.get(0)).length());
+            st.execute("DROP TABLE LONGEST_SCAN");
+        }
+    }
+
     private static SortedSet<Integer> getSortedSet(int begin,int end) {
         SortedSet<Integer> set = new TreeSet<>();
         for(int i = begin; i < end; i++) {
@@ -264,6 +310,67 @@ public class JDBCUtilityTest {
         }
     }
 
+    @Test
+    public void testSelectionChunks() throws SQLException {
+        DataManager dataManager = new DataManagerImpl(dataSource);
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS TESTPTS");
+            st.execute("CREATE TABLE TESTPTS(gid bigint primary key, geom POINT)");
+            st.execute("INSERT INTO TESTPTS SELECT X, ST_MAKEPOINT(X, X) FROM SYSTEM_RANGE(1, 25000)");
+            assertFalse(MetaData.isIndexed(connection, "TESTPTS", "GEOM"));
+            st.execute("CREATE SPATIAL INDEX ON TESTPTS(GEOM)");
+            assertTrue(MetaData.isIndexed(connection, "TESTPTS", "GEOM"));
+            final List<LongUnion> chunks = new ArrayList<>();
+            LongUnion selection = ReadTable.getTablePkByEnvelope(dataManager, "TESTPTS", "GEOM",
+                    new GeometryFactory().toGeometry(new Envelope(100.5, 22000.5, 0, 30000)), false,
+                    new NullProgressMonitor(), new ReadTable.PkChunkListener() {
+                        @Override
+                        public void chunkFetched(LongUnion chunk) {
+                            chunks.add(chunk);
+                        }
+                    });
+            // Contiguous keys are stored as a single range
+            assertEquals(Arrays.asList(101L, 22000L), selection.getValueRanges());
+            assertEquals(3, chunks.size());
+            LongUnion merged = new LongUnion();
+            for(LongUnion chunk : chunks) {
+                merged = merged.union(chunk);
+            }
+            assertEquals(selection, merged);
+        }
+    }
+
+    @Test
+    public void testSelectionCancel() throws SQLException {
+        DataManager dataManager = new DataManagerImpl(dataSource);
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS TESTPTSCANCEL");
+            st.execute("CREATE TABLE TESTPTSCANCEL(gid bigint primary key, geom POINT)");
+            st.execute("INSERT INTO TESTPTSCANCEL SELECT X, ST_MAKEPOINT(X, X) FROM SYSTEM_RANGE(1, 25000)");
+            final NullProgressMonitor pm = new NullProgressMonitor() {
+                private boolean cancelled = false;
+                @Override
+                public boolean isCancelled() {
+                    return cancelled;
+                }
+
+                @Override
+                public void setCancelled(boolean cancelled) {
+                    this.cancelled = cancelled;
+                }
+            };
+            LongUnion selection = ReadTable.getTablePkByEnvelope(dataManager, "TESTPTSCANCEL", "GEOM",
+                    new GeometryFactory().toGeometry(new Envelope(0, 30000, 0, 30000)), true,
+                    pm, new ReadTable.PkChunkListener() {
+                        @Override
+                        public void chunkFetched(LongUnion chunk) {
+                            pm.setCancelled(true);
+                        }
+                    });
+            assertTrue(selection.isEmpty());
+        }
+    }
+
     @Test
     public void testColumnInfos() throws SQLException {
         Locale oldLocale = Locale.getDefault();
@@ -417,4 +524,46 @@ public class JDBCUtilityTest {
             assertFalse(JDBCUtilities.tableExists(connection, "BV_SAP_2"));
         }
     }
+
+    @Test
+    public void printResultSetByChunkTest() throws SQLException {
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS CHUNKTABLE");
+            try {
+                st.execute("CREATE TABLE CHUNKTABLE AS SELECT X ID FROM SYSTEM_RANGE(1, 25)");
+                final List<String> chunks = new ArrayList<>();
+                try(ResultSet rs = st.executeQuery("SELECT * FROM CHUNKTABLE ORDER BY ID")) {
+                    int printed = ReadTable.printResultSet(rs, 30, 22, 10, true, true, new ReadTable.ResultSetFilter() {
+                        @Override
+                        public boolean printRow(ResultSet rs) {
+                            return true;
+                        }
+                    }, new ReadTable.ResultSetPrinter() {
+                        @Override
+                        public void print(String chunk) {
+                            chunks.add(chunk);
+                        }
+                    });
+                    assertEquals(22, printed);
+                    // The maximum printed rows must not consume the next row
+                    assertTrue(rs.next());
+                    assertEquals(23, rs.getInt(1));
+                }
+                assertEquals(3, chunks.size());
+                // Header and 10 rows
+                assertEquals(11, chunks.get(0).split("\n").length);
+                assertEquals(10, chunks.get(1).split("\n").length);
+                assertEquals(2, chunks.get(2).split("\n").length);
+                try(ResultSet rs = st.executeQuery("SELECT * FROM CHUNKTABLE ORDER BY ID")) {
+                    StringBuilder sb = new StringBuilder();
+                    for(String chunk : chunks) {
+                        sb.append(chunk);
+                    }
+                    assertEquals(sb.toString(), ReadTable.resultSetToString(rs, 30, 22, true, true));
+                }
+            } finally {
+                st.execute("DROP TABLE IF EXISTS CHUNKTABLE");
+            }
+        }
+    }
 }
@@ -39,6 +39,8 @@ package org.orbisgis.corejdbc;
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
 import org.apache.commons.collections4.map.LRUMap;
 import org.h2gis.functions.factory.H2GISDBFactory;
 import org.h2gis.functions.factory.H2GISFunctions;
@@ -68,6 +70,7 @@ import java.util.TreeSet;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -286,6 +289,36 @@ public class RowSetTest {
         }
     }
 
+    @Test
+    public void testBatchQueryReuse() throws SQLException {
+        try (
+                Connection connection = dataSource.getConnection();
+                Statement st = connection.createStatement()) {
+            st.execute("drop table if exists test");
+            st.execute("create table test (id integer primary key, y float) as select X, SQRT(X::float) SQ from SYSTEM_RANGE(1, 500)");
+        }
+        try (ReadRowSetImpl rs = new ReadRowSetImpl(dataSource)) {
+            rs.setCommand("SELECT * FROM TEST");
+            rs.setFetchSize(50);
+            rs.execute();
+            for(int i =0; i < 500; i++) {
+                assertTrue(rs.next());
+                assertEquals(i+1, rs.getInt("ID"));
+            }
+            assertFalse(rs.next());
+            // One query per batch, the compiled query is executed with different pk and limit
+            assertTrue(rs.getBatchFetchCount() >= 10);
+            assertTrue(rs.getBatchFetchTime() > 0);
+            // Random access, use the pk probe query
+            for(int i : Arrays.asList(450, 20, 260)) {
+                assertTrue(rs.absolute(i));
+                assertEquals(i, rs.getInt("ID"));
+            }
+            assertEquals(new TreeSet<>(Arrays.asList(5, 321)), rs.getRowNumberFromRowPk(new TreeSet<>(Arrays
+                    .asList(5l, 321l))));
+        }
+    }
+
     /**
      * @throws SQLException
      */
@@ -637,6 +670,37 @@ public class RowSetTest {
         }
     }
 
+    @Test
+    public void testGeometryEditDirtyEnvelope() throws SQLException, ParseException {
+        DataManager factory = new DataManagerImpl(dataSource);
+        ReversibleRowSet rs = factory.createReversibleRowSet();
+        try (
+                Connection connection = dataSource.getConnection();
+                Statement st = connection.createStatement()) {
+            st.execute("drop table if exists test");
+            st.execute("create table test (id integer primary key, the_geom GEOMETRY, str varchar(30))");
+            ListenerList listenerList = new ListenerList();
+            factory.addTableEditListener("TEST", listenerList, false);
+            st.execute("insert into test values (1, 'POINT(1 2)', 'a')");
+            rs.setCommand("SELECT * FROM TEST");
+            rs.execute();
+            assertTrue(rs.next());
+            rs.updateObject("the_geom", new WKTReader().read("POINT(10 20)"));
+            rs.updateRow();
+            assertEquals(1, listenerList.eventList.size());
+            // The old and the new location have to be redrawn
+            assertEquals(new Envelope(1, 10, 2, 20), listenerList.eventList.get(0).getDirtyEnvelope());
+            // Attribute update, the location is not known
+            rs.execute();
+            assertTrue(rs.next());
+            rs.updateString("str", "b");
+            rs.updateRow();
+            assertEquals(2, listenerList.eventList.size());
+            assertNull(listenerList.eventList.get(1).getDirtyEnvelope());
+            rs.close();
+        }
+    }
+
     @Test
     public void testDeleteRow() throws SQLException {
 
@@ -0,0 +1,163 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.h2gis.functions.factory.H2GISDBFactory;
+import org.h2gis.utilities.SFSUtilities;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orbisgis.corejdbc.internal.DataManagerImpl;
+import org.orbisgis.corejdbc.internal.TableStatisticsStoreImpl;
+
+import javax.sql.DataSource;
+import javax.swing.event.TableModelEvent;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test of {@link TableStatisticsStoreImpl}
+ * @author Nicolas Fortin
+ */
+public class TableStatisticsStoreTest {
+    private static DataSource dataSource;
+    private static Connection connection;
+
+    @BeforeClass
+    public static void tearUp() throws Exception {
+        dataSource = SFSUtilities.wrapSpatialDataSource(H2GISDBFactory.createDataSource(
+                TableStatisticsStoreTest.class.getSimpleName(), true));
+        connection = dataSource.getConnection();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        if(connection != null) {
+            connection.close();
+        }
+    }
+
+    private static long getStoredRows(String tableReference) throws SQLException {
+        try(Statement st = connection.createStatement();
+            ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + TableStatisticsStoreImpl.STORE_TABLE +
+                    " WHERE TABLE_REFERENCE = '" + tableReference + "'")) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    public void testIncrementalStatistics() throws SQLException {
+        DataManager dataManager = new DataManagerImpl(dataSource);
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS TEST_STATS");
+            st.execute("CREATE TABLE TEST_STATS(PK SERIAL PRIMARY KEY, THE_GEOM GEOMETRY, VAL DOUBLE, NAME VARCHAR)");
+            st.execute("INSERT INTO TEST_STATS(THE_GEOM, VAL) VALUES ('POINT(0 0)', 1.5), ('POINT(10 10)', -2)," +
+                    " ('LINESTRING(0 0, 5 20)', NULL)");
+            // Full scan
+            TableStatistics statistics = dataManager.getTableStatisticsStore().getStatistics("TEST_STATS");
+            assertTrue(statistics.isExact());
+            assertEquals(3, statistics.getRowCount());
+            assertEquals(new Envelope(0, 10, 0, 20), statistics.getEnvelope());
+            assertEquals(2L, statistics.getGeometryTypes().get("POINT").longValue());
+            assertEquals(1L, statistics.getGeometryTypes().get("LINESTRING").longValue());
+            assertEquals(-2, statistics.getColumnMin("VAL"), 1e-12);
+            assertEquals(1.5, statistics.getColumnMax("VAL"), 1e-12);
+            assertEquals(3, statistics.getColumnMax("PK"), 1e-12);
+            assertNull(statistics.getColumnMin("NAME"));
+            assertEquals(1, getStoredRows("PUBLIC.TEST_STATS"));
+            // Only the inserted row is read
+            st.execute("INSERT INTO TEST_STATS(PK, THE_GEOM, VAL) VALUES (4, 'POINT(100 -5)', 7)");
+            dataManager.fireTableEditHappened(new TableEditEvent("TEST_STATS", TableModelEvent.ALL_COLUMNS, 4L, 4L,
+                    TableModelEvent.INSERT));
+            assertEquals(new Envelope(0, 100, -5, 20), dataManager.getTableStatisticsStore().getEnvelope("TEST_STATS"));
+            statistics = dataManager.getTableStatisticsStore().getStatistics("PUBLIC.TEST_STATS");
+            assertEquals(4, statistics.getRowCount());
+            assertEquals(3L, statistics.getGeometryTypes().get("POINT").longValue());
+            assertEquals(7, statistics.getColumnMax("VAL"), 1e-12);
+            // Edition without event is not seen by the persisted statistics
+            st.execute("INSERT INTO TEST_STATS(PK, THE_GEOM) VALUES (5, 'POINT(200 200)')");
+            DataManager otherDataManager = new DataManagerImpl(dataSource);
+            statistics = otherDataManager.getTableStatisticsStore().getStatistics("TEST_STATS");
+            assertEquals(4, statistics.getRowCount());
+            assertEquals(new Envelope(0, 100, -5, 20), statistics.getEnvelope());
+            assertEquals(-2, statistics.getColumnMin("VAL"), 1e-12);
+            assertEquals(7, statistics.getColumnMax("VAL"), 1e-12);
+            // Deletion, the envelope is kept but the statistics are computed again on request
+            otherDataManager.fireTableEditHappened(new TableEditEvent("TEST_STATS", TableModelEvent.ALL_COLUMNS, null,
+                    null, TableModelEvent.DELETE));
+            assertEquals(new Envelope(0, 100, -5, 20), otherDataManager.getTableStatisticsStore().getEnvelope(
+                    "TEST_STATS"));
+            statistics = otherDataManager.getTableStatisticsStore().getStatistics("TEST_STATS");
+            assertTrue(statistics.isExact());
+            assertEquals(5, statistics.getRowCount());
+            assertEquals(new Envelope(0, 200, -5, 200), statistics.getEnvelope());
+            // DDL remove the statistics
+            st.execute("DROP TABLE TEST_STATS");
+            otherDataManager.fireDatabaseProgression(new StateEvent(StateEvent.DB_STATES.STATE_STATEMENT_END,
+                    "DROP TABLE TEST_STATS", 0, 0));
+            assertEquals(0, getStoredRows("PUBLIC.TEST_STATS"));
+        }
+    }
+
+    @Test
+    public void testUnknownStatement() throws SQLException {
+        DataManager dataManager = new DataManagerImpl(dataSource);
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS TEST_STATS_A, TEST_STATS_B");
+            st.execute("CREATE TABLE TEST_STATS_A(PK SERIAL PRIMARY KEY, THE_GEOM GEOMETRY)");
+            st.execute("CREATE TABLE TEST_STATS_B(PK SERIAL PRIMARY KEY, THE_GEOM GEOMETRY)");
+            st.execute("INSERT INTO TEST_STATS_A(THE_GEOM) VALUES ('POINT(0 0)')");
+            st.execute("INSERT INTO TEST_STATS_B(THE_GEOM) VALUES ('POINT(0 0)')");
+            assertEquals(1, dataManager.getTableStatisticsStore().getStatistics("TEST_STATS_A").getRowCount());
+            assertEquals(1, dataManager.getTableStatisticsStore().getStatistics("TEST_STATS_B").getRowCount());
+            // Statement not parsed by the store, only the statistics of the referenced table are dropped
+            dataManager.fireDatabaseProgression(new StateEvent(StateEvent.DB_STATES.STATE_STATEMENT_END,
+                    "CREATE SYNONYM TEST_STATS_SYNONYM FOR TEST_STATS_A", 0, 0));
+            assertEquals(0, getStoredRows("PUBLIC.TEST_STATS_A"));
+            assertEquals(1, getStoredRows("PUBLIC.TEST_STATS_B"));
+            st.execute("DROP TABLE TEST_STATS_A, TEST_STATS_B");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.corejdbc.common;
+
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test of LongUnion set algebra
+ * @author Nicolas Fortin
+ */
+public class LongUnionTest {
+
+    @Test
+    public void testUnion() {
+        LongUnion union = new LongUnion(0, 10).union(new LongUnion(new long[]{11, 20, 5}));
+        assertEquals(new LongUnion(new long[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 20}), union);
+        assertEquals("[0-12[ [20-21[", union.toString().trim());
+    }
+
+    @Test
+    public void testDifference() {
+        LongUnion diff = new LongUnion(0, 10).difference(new LongUnion(new long[]{0, 5, 10, 15}));
+        assertEquals(new LongUnion(new long[]{1, 2, 3, 4, 6, 7, 8, 9}), diff);
+        assertTrue(new LongUnion(0, 10).difference(new LongUnion(0, 10)).isEmpty());
+    }
+
+    @Test
+    public void testSymmetricDifference() {
+        LongUnion xor = new LongUnion(0, 5).symmetricDifference(new LongUnion(3, 8));
+        assertEquals(new LongUnion(new long[]{0, 1, 2, 6, 7, 8}), xor);
+        xor = new LongUnion(0, 2).symmetricDifference(new LongUnion(3, 4));
+        assertEquals(new LongUnion(0, 4), xor);
+    }
+
+    @Test
+    public void testRandomAgainstTreeSet() {
+        Random random = new Random(42);
+        for (int test = 0; test < 50; test++) {
+            TreeSet<Long> a = new TreeSet<>();
+            TreeSet<Long> b = new TreeSet<>();
+            for (int i = 0; i < 200; i++) {
+                a.add((long) random.nextInt(300));
+                b.add((long) random.nextInt(300));
+            }
+            TreeSet<Long> union = new TreeSet<>(a);
+            union.addAll(b);
+            TreeSet<Long> difference = new TreeSet<>(a);
+            difference.removeAll(b);
+            TreeSet<Long> xor = new TreeSet<>(union);
+            TreeSet<Long> intersection = new TreeSet<>(a);
+            intersection.retainAll(b);
+            xor.removeAll(intersection);
+            LongUnion unionA = new LongUnion(a);
+            LongUnion unionB = new LongUnion(b);
+            assertEquals(new LongUnion(union), unionA.union(unionB));
+            assertEquals(new LongUnion(difference), unionA.difference(unionB));
+            assertEquals(new LongUnion(xor), unionA.symmetricDifference(unionB));
+        }
+    }
+}
@@ -51,7 +51,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import javax.swing.SwingWorker;
-import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.SFSUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.h2gis.utilities.URIUtilities;
@@ -67,11 +66,12 @@ public class Layer extends BeanLayer {
     // When dataURI is not specified, this layer use the tableReference instead of external URI
     private static final String JDBC_REFERENCE_SCHEME = "WORKSPACE";
 
-    private String tableReference = "";
+    // Set by open(), that may run in background
+    private volatile String tableReference = "";
     private URI dataURI;
     private DataManager dataManager;
     private Envelope envelope = new Envelope();
-    private GeoStream stream;    
+    private volatile GeoStream stream;
     private ExecutorService executorService = null;
 
     public Layer(String name, String tableReference, DataManager dataManager) {
@@ -162,7 +162,13 @@ public class Layer extends BeanLayer {
 
     @Override
     public void clearCache() {
+        // Only the local copy, the persisted statistics of the table follow the table edits
         envelope = new Envelope();
+        // The envelope of the parent collection depends on this layer envelope
+        ILayer parent = getParent();
+        if (parent != null) {
+            parent.clearCache();
+        }
     }
 
     @Override
@@ -173,12 +179,9 @@ public class Layer extends BeanLayer {
                 if (isStream()) {
                     return stream.getEnvelope();
                 } else {
-                    try (Connection connection = dataManager.getDataSource().getConnection()) {
-                        // Check if the table exists
-                        if (!JDBCUtilities.tableExists(connection, tableReference)) {
-                            LOGGER.info(I18N.tr("Cannot draw {0} the table does not exists", tableReference));
-                        }
-                        cachedEnvelope = SFSUtilities.getTableEnvelope(connection, TableLocation.parse(tableReference), "");
+                    try {
+                        // Read the persisted envelope, the table is scanned only if it has never been done
+                        cachedEnvelope = dataManager.getTableStatisticsStore().getEnvelope(tableReference);
                         envelope = cachedEnvelope;
                     } catch (SQLException ex) {
                         LOGGER.error(I18N.tr("Cannot compute layer envelope:\n") + ex.getLocalizedMessage());
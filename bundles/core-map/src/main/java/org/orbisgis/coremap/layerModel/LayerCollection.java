@@ -51,6 +51,8 @@ import org.orbisgis.coremap.renderer.se.Style;
 
 public class LayerCollection extends BeanLayer {
 	private List<ILayer> layerCollection;
+        /** Union of the leaves envelope, null if not computed */
+        private volatile Envelope envelope = null;
 
         public LayerCollection(String layerName) {
                 super(layerName);
@@ -219,13 +221,30 @@ public class LayerCollection extends BeanLayer {
          */
         @Override
 	public Envelope getEnvelope() {
-		final GetEnvelopeLayerAction tmp = new GetEnvelopeLayerAction();
-		processLayersLeaves(this, tmp);
-		return tmp.getGlobalEnvelope();
+                Envelope cachedEnvelope = envelope;
+                if (cachedEnvelope == null) {
+                        final GetEnvelopeLayerAction tmp = new GetEnvelopeLayerAction();
+                        processLayersLeaves(this, tmp);
+                        cachedEnvelope = tmp.getGlobalEnvelope();
+                        if (cachedEnvelope == null) {
+                                // No leaves
+                                return null;
+                        }
+                        envelope = cachedEnvelope;
+                }
+                return new Envelope(cachedEnvelope);
 	}
 
+    /**
+     * Clear the cached envelope of this collection and of its parents.
+     */
     @Override
     public void clearCache() {
+        envelope = null;
+        ILayer parent = getParent();
+        if (parent != null) {
+            parent.clearCache();
+        }
     }
 
     @Override
@@ -306,6 +325,7 @@ public class LayerCollection extends BeanLayer {
 		if (layerCollection.contains(layer)) {
 			if (isMoving) {
 				if (layerCollection.remove(layer)) {
+					clearCache();
 					return layer;
 				} else {
 					return null;
@@ -314,6 +334,7 @@ public class LayerCollection extends BeanLayer {
 				ILayer[] toRemove = new ILayer[] { layer };
 				if (fireLayerRemovingEvent(toRemove)) {
 					if (layerCollection.remove(layer)) {
+						clearCache();
 						fireLayerRemovedEvent(toRemove);
 						return layer;
 					} else {
@@ -336,6 +357,7 @@ public class LayerCollection extends BeanLayer {
                         setNamesRecursively(layer, getRoot().getAllLayersNames());
                         layerCollection.add(i, layer);
                         layer.setParent(this);
+                        clearCache();
                         if(!isMoving){
                                 fireLayerAddedEvent(new ILayer[] { layer });
                         }
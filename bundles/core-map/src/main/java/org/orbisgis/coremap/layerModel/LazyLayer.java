@@ -0,0 +1,296 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.layerModel;
+
+import com.vividsolutions.jts.geom.Envelope;
+import net.opengis.ows_context.LayerType;
+import net.opengis.ows_context.SLDType;
+import net.opengis.ows_context.StyleListType;
+import net.opengis.ows_context.StyleType;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
+import org.orbisgis.coremap.renderer.se.Style;
+import org.orbisgis.coremap.stream.GeoStream;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Layer read from an OWS context document. The styles are created on the first access, the data source is opened
+ * in background when the layer becomes visible, or when the source is queried. Until the data source is opened
+ * the table reference may be empty, {@link #PROP_SOURCE_URI} is fired once it is known. If the styles cannot be
+ * created the layer keeps its persisted styles.
+ * @author Nicolas Fortin
+ */
+final class LazyLayer extends Layer {
+    private final LayerType layerType;
+    private final Map<SLDType, String> styleFragments;
+    private final ExecutorService layerOpener;
+    private final Object styleLock = new Object();
+    private final Object dataLock = new Object();
+    private final Object scheduleLock = new Object();
+    private volatile boolean stylesLoaded = false;
+    private volatile boolean stylesFailed = false;
+    private volatile boolean dataOpened = false;
+    private Future<?> scheduledOpen;
+
+    /**
+     * @param name Layer name
+     * @param dataURI Data source
+     * @param dataManager Data manager
+     * @param layerType Persisted layer
+     * @param styleFragments Styles that have not been unmarshalled
+     * @param layerOpener Executor of the background opening, null to open only on query
+     */
+    LazyLayer(String name, URI dataURI, DataManager dataManager, LayerType layerType,
+              Map<SLDType, String> styleFragments, ExecutorService layerOpener) {
+        super(name, dataURI, dataManager);
+        this.layerType = layerType;
+        this.styleFragments = styleFragments;
+        this.layerOpener = layerOpener;
+    }
+
+    /**
+     * @return True if the data source has been opened
+     */
+    boolean isDataOpened() {
+        return dataOpened;
+    }
+
+    /**
+     * @return True if the styles have been created from the persisted styles
+     */
+    boolean isStylesLoaded() {
+        return stylesLoaded && !stylesFailed;
+    }
+
+    /**
+     * @return The persisted styles of this layer, null if there is none
+     * @throws JAXBException A persisted style cannot be read
+     */
+    StyleListType getPersistedStyleList() throws JAXBException {
+        synchronized (styleLock) {
+            if (layerType.isSetStyleList()) {
+                OwsContextReader.resolveStyles(layerType.getStyleList(), styleFragments);
+            }
+            return layerType.getStyleList();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadStyles() {
+        if (stylesLoaded || Thread.holdsLock(styleLock)) {
+            return;
+        }
+        synchronized (styleLock) {
+            if (stylesLoaded) {
+                return;
+            }
+            try {
+                List<Style> styles = new ArrayList<>();
+                if (layerType.isSetStyleList()) {
+                    OwsContextReader.resolveStyles(layerType.getStyleList(), styleFragments);
+                    for (StyleType st : layerType.getStyleList().getStyle()) {
+                        if (st.isSetSLD() && st.getSLD().isSetAbstractStyle()) {
+                            styles.add(new Style((JAXBElement<net.opengis.se._2_0.core.StyleType>)
+                                    st.getSLD().getAbstractStyle(), this));
+                        }
+                    }
+                }
+                // Listeners are not notified, the styles were already there for them
+                for (Style style : styles) {
+                    addStyleListener(style);
+                }
+                styleList.addAll(styles);
+            } catch (JAXBException | InvalidStyle ex) {
+                stylesFailed = true;
+                LOGGER.error(I18N.tr("Unable to load the description of the layer {0}", getName()), ex);
+            } finally {
+                stylesLoaded = true;
+            }
+        }
+    }
+
+    private void openData() {
+        if (dataOpened || Thread.holdsLock(dataLock)) {
+            return;
+        }
+        synchronized (dataLock) {
+            if (dataOpened) {
+                return;
+            }
+            loadStyles();
+            try {
+                super.open();
+            } catch (LayerException ex) {
+                LOGGER.error(I18N.tr("Cannot open layer : {0} ", getName()), ex);
+            } finally {
+                dataOpened = true;
+            }
+        }
+        // The table reference is known
+        propertyChangeSupport.firePropertyChange(PROP_SOURCE_URI, null, getDataUri());
+    }
+
+    /**
+     * Open the data source in background if the layer is visible.
+     */
+    private void scheduleOpen() {
+        if (dataOpened || layerOpener == null || !isVisible()) {
+            return;
+        }
+        synchronized (scheduleLock) {
+            if (scheduledOpen == null && !dataOpened) {
+                try {
+                    scheduledOpen = layerOpener.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            openData();
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    // The map context is closed, the data source will be opened on query
+                }
+            }
+        }
+    }
+
+    /**
+     * The data source is not opened now, it is opened in background if the layer is visible.
+     */
+    @Override
+    public void open() throws LayerException {
+        scheduleOpen();
+    }
+
+    @Override
+    public void close() throws LayerException {
+        Future<?> open;
+        synchronized (scheduleLock) {
+            open = scheduledOpen;
+        }
+        if (open != null) {
+            open.cancel(false);
+        }
+        super.close();
+    }
+
+    @Override
+    public void setVisible(boolean visible) throws LayerException {
+        super.setVisible(visible);
+        scheduleOpen();
+    }
+
+    @Override
+    public Envelope getEnvelope() {
+        openData();
+        return super.getEnvelope();
+    }
+
+    @Override
+    public boolean isVectorial() throws LayerException {
+        openData();
+        return super.isVectorial();
+    }
+
+    @Override
+    public boolean isStream() throws LayerException {
+        openData();
+        return super.isStream();
+    }
+
+    @Override
+    public GeoStream getStream() throws LayerException {
+        openData();
+        return super.getStream();
+    }
+
+    @Override
+    public List<Style> getStyles() {
+        loadStyles();
+        return super.getStyles();
+    }
+
+    @Override
+    public void setStyles(List<Style> fts) {
+        loadStyles();
+        super.setStyles(fts);
+    }
+
+    @Override
+    public Style getStyle(int i) {
+        loadStyles();
+        return super.getStyle(i);
+    }
+
+    @Override
+    public void setStyle(int i, Style s) {
+        loadStyles();
+        super.setStyle(i, s);
+    }
+
+    @Override
+    public void addStyle(Style s) {
+        loadStyles();
+        super.addStyle(s);
+    }
+
+    @Override
+    public void addStyle(int i, Style s) {
+        loadStyles();
+        super.addStyle(i, s);
+    }
+
+    @Override
+    public void removeStyle(Style s) {
+        loadStyles();
+        super.removeStyle(s);
+    }
+
+    @Override
+    public int indexOf(Style s) {
+        loadStyles();
+        return super.indexOf(s);
+    }
+}
@@ -0,0 +1,295 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.layerModel;
+
+import net.opengis.ows_context.LayerType;
+import net.opengis.ows_context.OWSContextType;
+import net.opengis.ows_context.SLDType;
+import net.opengis.ows_context.StyleListType;
+import net.opengis.ows_context.StyleType;
+import org.orbisgis.coremap.map.JaxbContainer;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.transform.stream.StreamSource;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming reader of OWS context documents. The document is read through StAX, the symbology encoding styles
+ * of the layers are not unmarshalled but kept as XML fragments. A style is unmarshalled only when the layer is
+ * opened or when the document is written.
+ * @author Nicolas Fortin
+ */
+final class OwsContextReader {
+    static final String OWS_CONTEXT_NAMESPACE = "http://www.opengis.net/ows-context";
+    static final String SLD_ELEMENT = "SLD";
+    private final Map<SLDType, String> styleFragments = new IdentityHashMap<>();
+
+    /**
+     * @return The style XML fragment of each SLD element read by this reader
+     */
+    Map<SLDType, String> getStyleFragments() {
+        return styleFragments;
+    }
+
+    /**
+     * Read an OWS context document, the SLD elements are read without their style.
+     * @param in Document stream
+     * @return Map context persistent form
+     * @throws XMLStreamException The document is not well formed
+     * @throws JAXBException The document is not an OWS context
+     */
+    @SuppressWarnings("unchecked")
+    OWSContextType read(InputStream in) throws XMLStreamException, JAXBException {
+        XMLStreamReader xmlReader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+        try {
+            final StyleCapturingReader reader = new StyleCapturingReader(xmlReader);
+            Unmarshaller unmarshaller = JaxbContainer.JAXBCONTEXT.createUnmarshaller();
+            unmarshaller.setListener(new Unmarshaller.Listener() {
+                @Override
+                public void afterUnmarshal(Object target, Object parent) {
+                    if (target instanceof SLDType) {
+                        String fragment = reader.takeFragment();
+                        if (fragment != null) {
+                            styleFragments.put((SLDType) target, fragment);
+                        }
+                    }
+                }
+            });
+            return ((JAXBElement<OWSContextType>) unmarshaller.unmarshal(reader)).getValue();
+        } finally {
+            xmlReader.close();
+        }
+    }
+
+    /**
+     * Unmarshal the styles of the style list that have been read as XML fragments.
+     * @param styleList Style list of a layer
+     * @param styleFragments Style XML fragment of SLD elements
+     * @throws JAXBException A fragment is not a valid style
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static void resolveStyles(StyleListType styleList, Map<SLDType, String> styleFragments) throws JAXBException {
+        Unmarshaller unmarshaller = null;
+        for (StyleType st : styleList.getStyle()) {
+            if (st.isSetSLD() && !st.getSLD().isSetAbstractStyle()) {
+                String fragment = styleFragments.get(st.getSLD());
+                if (fragment != null) {
+                    if (unmarshaller == null) {
+                        unmarshaller = JaxbContainer.JAXBCONTEXT.createUnmarshaller();
+                    }
+                    st.getSLD().setAbstractStyle((JAXBElement) unmarshaller.unmarshal(
+                            new StreamSource(new StringReader(fragment))));
+                }
+            }
+        }
+    }
+
+    /**
+     * Unmarshal the styles of the layer tree that have been read as XML fragments.
+     * @param layers Layer tree
+     * @param styleFragments Style XML fragment of SLD elements
+     * @throws JAXBException A fragment is not a valid style
+     */
+    static void resolveStyles(List<LayerType> layers, Map<SLDType, String> styleFragments) throws JAXBException {
+        for (LayerType layerType : layers) {
+            if (layerType.isSetStyleList()) {
+                resolveStyles(layerType.getStyleList(), styleFragments);
+            }
+            resolveStyles(layerType.getLayer(), styleFragments);
+        }
+    }
+
+    /**
+     * Hide the children of the SLD elements from the unmarshaller and copy them into XML fragments.
+     */
+    private static class StyleCapturingReader extends StreamReaderDelegate {
+        // In scope namespace declarations, prefix and URI
+        private final List<String[]> namespaces = new ArrayList<>();
+        private final List<Integer> namespaceCounts = new ArrayList<>();
+        private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+        private boolean inSLD = false;
+        private String fragment;
+
+        private StyleCapturingReader(XMLStreamReader reader) {
+            super(reader);
+        }
+
+        /**
+         * @return The last captured fragment, null if none
+         */
+        String takeFragment() {
+            String last = fragment;
+            fragment = null;
+            return last;
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            int event = super.next();
+            while (event == XMLStreamConstants.START_ELEMENT && inSLD &&
+                    !OWS_CONTEXT_NAMESPACE.equals(getNamespaceURI())) {
+                fragment = copyElement();
+                event = super.next();
+            }
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                namespaceCounts.add(getNamespaceCount());
+                for (int i = 0; i < getNamespaceCount(); i++) {
+                    namespaces.add(new String[]{getNamespacePrefix(i), getNamespaceURI(i)});
+                }
+                if (isSLD()) {
+                    inSLD = true;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                int count = namespaceCounts.remove(namespaceCounts.size() - 1);
+                namespaces.subList(namespaces.size() - count, namespaces.size()).clear();
+                if (isSLD()) {
+                    inSLD = false;
+                }
+            }
+            return event;
+        }
+
+        @Override
+        public int nextTag() throws XMLStreamException {
+            int event = next();
+            while ((event == XMLStreamConstants.CHARACTERS && isWhiteSpace()) ||
+                    event == XMLStreamConstants.SPACE || event == XMLStreamConstants.COMMENT ||
+                    event == XMLStreamConstants.PROCESSING_INSTRUCTION) {
+                event = next();
+            }
+            if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+                throw new XMLStreamException("Expected start or end tag", getLocation());
+            }
+            return event;
+        }
+
+        private boolean isSLD() {
+            return SLD_ELEMENT.equals(getLocalName()) && OWS_CONTEXT_NAMESPACE.equals(getNamespaceURI());
+        }
+
+        /**
+         * Copy the current element and its content, the reader is left on the end of the element.
+         * @return The element as a standalone XML document
+         */
+        private String copyElement() throws XMLStreamException {
+            StringWriter out = new StringWriter();
+            XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out);
+            int depth = 0;
+            int event = getEventType();
+            while (true) {
+                switch (event) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        writer.writeStartElement(nonNull(getPrefix()), getLocalName(), nonNull(getNamespaceURI()));
+                        // The fragment root declares all the namespaces in scope
+                        Map<String, String> declarations = new LinkedHashMap<>();
+                        if (depth == 0) {
+                            for (String[] namespace : namespaces) {
+                                declarations.put(nonNull(namespace[0]), nonNull(namespace[1]));
+                            }
+                        }
+                        for (int i = 0; i < getNamespaceCount(); i++) {
+                            declarations.put(nonNull(getNamespacePrefix(i)), nonNull(getNamespaceURI(i)));
+                        }
+                        for (Map.Entry<String, String> declaration : declarations.entrySet()) {
+                            if (declaration.getKey().isEmpty()) {
+                                writer.writeDefaultNamespace(declaration.getValue());
+                            } else {
+                                writer.writeNamespace(declaration.getKey(), declaration.getValue());
+                            }
+                        }
+                        for (int i = 0; i < getAttributeCount(); i++) {
+                            String attributeNamespace = getAttributeNamespace(i);
+                            if (attributeNamespace == null || attributeNamespace.isEmpty()) {
+                                writer.writeAttribute(getAttributeLocalName(i), getAttributeValue(i));
+                            } else {
+                                writer.writeAttribute(nonNull(getAttributePrefix(i)), attributeNamespace,
+                                        getAttributeLocalName(i), getAttributeValue(i));
+                            }
+                        }
+                        depth++;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        writer.writeEndElement();
+                        depth--;
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                        writer.writeCharacters(getText());
+                        break;
+                    case XMLStreamConstants.CDATA:
+                        writer.writeCData(getText());
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                        writer.writeComment(getText());
+                        break;
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        writer.writeProcessingInstruction(getPITarget(), getPIData());
+                        break;
+                    default:
+                        break;
+                }
+                if (depth == 0) {
+                    break;
+                }
+                event = super.next();
+            }
+            writer.close();
+            return out.toString();
+        }
+
+        private static String nonNull(String value) {
+            return value == null ? XMLConstants.NULL_NS_URI : value;
+        }
+    }
+}
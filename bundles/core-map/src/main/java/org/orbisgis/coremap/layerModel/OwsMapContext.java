@@ -49,14 +49,18 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
 import net.opengis.ows._2.BoundingBoxType;
 import net.opengis.ows._2.LanguageStringType;
 import net.opengis.ows_context.LayerType;
@@ -100,6 +104,10 @@ public final class OwsMapContext extends BeanMapContext {
         private OpenerListener openerListener;
         private boolean open = false;
         private OWSContextType jaxbMapContext = null; //Persistent form of the MapContext
+        // Styles of the persistent form that have not been unmarshalled
+        private Map<SLDType, String> styleFragments = new IdentityHashMap<SLDType, String>();
+        // Open the visible layers in background, set while the map is open
+        private ExecutorService layerOpener;
         private long idTime;
         private DataManager dataManager;
 
@@ -147,17 +155,27 @@ public final class OwsMapContext extends BeanMapContext {
             return new Layer(layerName, source, dataManager);
         }
 
-        @Override
-        public ILayer createLayer(URI source) throws LayerException {
+        /**
+         * @param source Data source URI
+         * @return Canonical URI if the source is relative
+         * @throws LayerException The canonical path cannot be computed
+         */
+        private URI getAbsoluteURI(URI source) throws LayerException {
             if(!source.isAbsolute()) {
                 // If URI is not absolute ex URI.create("../folder/myfile.shp"), then create a canonical URI
                 try {
-                    source = new File(location != null ? new File(location) : new File("./"),
+                    return new File(location != null ? new File(location) : new File("./"),
                             source.toString()).getCanonicalFile().toURI();
                 } catch (IOException ex) {
                     throw new LayerException(ex);
                 }
             }
+            return source;
+        }
+
+        @Override
+        public ILayer createLayer(URI source) throws LayerException {
+            source = getAbsoluteURI(source);
             String layerName;
             try {
                 layerName = FileUtils.getNameFromURI(source);
@@ -454,7 +472,14 @@ public final class OwsMapContext extends BeanMapContext {
                 }
             }
             // If not a Layer Collection
-            if(!(layer instanceof LayerCollection) && layer.getStyles()!=null) {
+            if(layer instanceof LazyLayer && !((LazyLayer) layer).isStylesLoaded()) {
+                // The styles have not been read, keep the persisted ones
+                try {
+                    layerType.setStyleList(((LazyLayer) layer).getPersistedStyleList());
+                } catch (JAXBException ex) {
+                    LOGGER.error(I18N.tr("Unable to save the styles of the layer {0}", layer.getName()), ex);
+                }
+            } else if(!(layer instanceof LayerCollection) && layer.getStyles()!=null) {
                 StyleListType slt = ows_context_factory.createStyleListType();
                 layerType.setStyleList(slt);
                 for(Style style : layer.getStyles()) {
@@ -493,10 +518,10 @@ public final class OwsMapContext extends BeanMapContext {
         @Override
         public void read(InputStream in) throws IllegalArgumentException {
                 try {
-                        Unmarshaller unMarsh = org.orbisgis.coremap.map.JaxbContainer.JAXBCONTEXT.createUnmarshaller();
-                        JAXBElement<OWSContextType> importedOwsContextType = (JAXBElement<OWSContextType>) unMarsh.unmarshal(in);
-                        setJAXBObject(importedOwsContextType.getValue());
-                } catch (JAXBException ex) {
+                        OwsContextReader reader = new OwsContextReader();
+                        setJAXBObject(reader.read(in));
+                        styleFragments = reader.getStyleFragments();
+                } catch (JAXBException | XMLStreamException ex) {
                         throw new IllegalArgumentException(I18N.tr("Unable to read the provided map context"), ex);
                 }
         }
@@ -522,6 +547,14 @@ public final class OwsMapContext extends BeanMapContext {
                 if (jaxbMapContext == null) {
                         return createJaxbMapContext();
                 }
+                if (!styleFragments.isEmpty() && jaxbMapContext.getResourceList() != null) {
+                        try {
+                                OwsContextReader.resolveStyles(jaxbMapContext.getResourceList().getLayer(), styleFragments);
+                        } catch (JAXBException ex) {
+                                throw new IllegalArgumentException(I18N.tr("Unable to read the provided map context"), ex);
+                        }
+                        styleFragments = new IdentityHashMap<SLDType, String>();
+                }
                 return jaxbMapContext;
         }
 
@@ -558,6 +591,8 @@ public final class OwsMapContext extends BeanMapContext {
                         }
                 }
                 layerModel.removeLayerListenerRecursively(openerListener);
+                layerOpener.shutdown();
+                layerOpener = null;
                 this.open = false;
         }
 
@@ -589,20 +624,11 @@ public final class OwsMapContext extends BeanMapContext {
                                                 LOGGER.warn("Error while trying to find an absolute path for an external resource", ex);
                                             }
                                         }
-                                        //Get table name
-                                        ILayer leafLayer = createLayer(layerURI);
+                                        // The styles and the data source are loaded on demand
+                                        ILayer leafLayer = new LazyLayer(resType.getHref(), getAbsoluteURI(layerURI),
+                                                dataManager, lt, styleFragments, layerOpener);
                                         leafLayer.setDescription(new Description(lt));
                                         leafLayer.setVisible(!lt.isHidden());
-                                        //Parse styles
-                                        if(lt.isSetStyleList()) {
-                                                for(StyleType st : lt.getStyleList().getStyle()) {
-                                                        if(st.isSetSLD()) {
-                                                                if(st.getSLD().isSetAbstractStyle()) {
-                                                                        leafLayer.addStyle(new Style((JAXBElement<net.opengis.se._2_0.core.StyleType>)st.getSLD().getAbstractStyle(), leafLayer));
-                                                                }
-                                                        }
-                                                }
-                                        }
                                         parentLayer.addLayer(leafLayer);
                                 } catch (URISyntaxException ex) {
                                     throw new LayerException(I18N.tr("Unable to parse the href URI {0}.", resType.getHref()), ex);
@@ -695,9 +721,18 @@ public final class OwsMapContext extends BeanMapContext {
                 //Read the specified jaxbMapContext
                 setSelectedLayers(new ILayer[0]);
                 setSelectedStyles(new Style[0]);
-                
+                layerOpener = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                                Thread thread = new Thread(r, "Map context layer opener");
+                                thread.setDaemon(true);
+                                return thread;
+                        }
+                });
                 loadOwsContext();
                 jaxbMapContext = null;
+                // Loaded layers keep the styles they need
+                styleFragments = new IdentityHashMap<SLDType, String>();
         }
 
         @Override
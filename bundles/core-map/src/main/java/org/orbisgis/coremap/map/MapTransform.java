@@ -69,6 +69,8 @@ public class MapTransform implements PointTransformation {
         private static RenderingHints screenHints;
         private boolean adjustExtent;
         private BufferedImage image = null;
+        private int imageWidth = 0;
+        private int imageHeight = 0;
         private Envelope adjustedExtent = new Envelope();
         private AffineTransform trans = new AffineTransform();
         private AffineTransform transInv = new AffineTransform();
@@ -125,6 +127,20 @@ public class MapTransform implements PointTransformation {
                 calculateAffineTransform();
         }
 
+        /**
+         * Sets the size of the drawn area without allocating the painted image. Used by outputs that draw in their
+         * own graphics (e.g. pdf), the painted image is then null.
+         *
+         * @param width The width of the drawn area
+         * @param height The height of the drawn area
+         */
+        public void setImageSize(int width, int height) {
+                image = null;
+                imageWidth = width;
+                imageHeight = height;
+                calculateAffineTransform();
+        }
+
         /**
          * Gets the current {@code RenderingHints}
          * @return the current {@link RenderingHints}
@@ -174,7 +190,7 @@ public class MapTransform implements PointTransformation {
         private void calculateAffineTransform() {
                 if (extent == null) {
                         return;
-                } else if (image == null || getWidth() == 0 || getHeight() == 0) {
+                } else if (getWidth() == 0 || getHeight() == 0) {
                         return;
                 }
 
@@ -234,7 +250,7 @@ public class MapTransform implements PointTransformation {
          */
         public int getHeight() {
                 if (image == null) {
-                        return 0;
+                        return imageHeight;
                 } else {
                         return image.getHeight();
                 }
@@ -247,7 +263,7 @@ public class MapTransform implements PointTransformation {
          */
         public int getWidth() {
                 if (image == null) {
-                        return 0;
+                        return imageWidth;
                 } else {
                         return image.getWidth();
                 }
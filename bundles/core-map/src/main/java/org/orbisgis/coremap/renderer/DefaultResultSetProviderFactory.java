@@ -107,13 +107,19 @@ public class DefaultResultSetProviderFactory implements ResultSetProviderFactory
 
         @Override
         public SpatialResultSet execute(ProgressMonitor pm, Envelope extent, Set<String> fields) throws SQLException {
+            return execute(pm, extent, fields, null);
+        }
+
+        @Override
+        public SpatialResultSet execute(ProgressMonitor pm, Envelope extent, Set<String> fields, String filter)
+                throws SQLException {
             this.pm = pm;
             connection = dataSource.getConnection();
             List<String> geometryFields = SFSUtilities.getGeometryFields(connection, TableLocation.parse(layer.getTableReference()));
             if(geometryFields.isEmpty()) {
                 throw new SQLException(I18N.tr("Table {0} does not contains geometry fields",layer.getTableReference()));
             }
-            st = createStatement(connection, geometryFields.get(0), layer.getTableReference(), fields);
+            st = createStatement(connection, geometryFields.get(0), layer.getTableReference(), fields, filter);
             st.setFetchSize(FETCH_SIZE);
             st.setFetchDirection(ResultSet.FETCH_FORWARD);
             connection.setAutoCommit(false);
@@ -132,21 +138,23 @@ public class DefaultResultSetProviderFactory implements ResultSetProviderFactory
          * @param geometryField the first geometryfield
          * @param tableReference the name of the input table
          * @param fields a list of columns
+         * @param filter SQL predicate, null or empty to fetch all rows
          * @return
          * @throws SQLException 
          */
         private PreparedStatement createStatement(Connection connection,String geometryField,String tableReference,
-                                                  Set<String> fields) throws SQLException {
+                                                  Set<String> fields, String filter) throws SQLException {
+            String filterCondition = filter == null || filter.isEmpty() ? "" : " and (" + filter + ")";
             if(fields.isEmpty()){
                 if(pkName != null && !pkName.isEmpty()) {
                     return connection.prepareStatement(
-                            String.format("select " + pkName + ",%s from %s where %s && ?", geometryField,
-                            tableReference, geometryField),ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                            String.format("select " + pkName + ",%s from %s where %s && ?%s", geometryField,
+                            tableReference, geometryField, filterCondition),ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
                 }
                 else{
                     return connection.prepareStatement(
-                            String.format("select %s from %s where %s && ?", geometryField, tableReference,
-                            geometryField),ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                            String.format("select %s from %s where %s && ?%s", geometryField, tableReference,
+                            geometryField, filterCondition),ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
                 }
             }
             else{
@@ -165,6 +173,7 @@ public class DefaultResultSetProviderFactory implements ResultSetProviderFactory
                 else{
                 sb.append(geometryField).append(" from ").append(tableReference).append(" where ").append(geometryField).append(" && ?");
                 }
+                sb.append(filterCondition);
                 return connection.prepareStatement(sb.toString());
             }
         }
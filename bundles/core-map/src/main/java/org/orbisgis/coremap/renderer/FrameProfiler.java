@@ -0,0 +1,315 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.se.Rule;
+import org.orbisgis.coremap.renderer.se.Symbolizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregate the rendering events of a frame by layer. This profiler is filled by the rendering thread, it must be
+ * read once the frame is done.
+ * @author Nicolas Fortin
+ */
+public class FrameProfiler implements RenderingListener {
+    private static final int WKB_HEADER = 5;
+    private static final int WKB_COUNT = 4;
+    private static final int WKB_COORDINATE = 16;
+    private static final double NANO_TO_MS = 1e-6;
+    private final List<LayerProfile> layerProfiles = new ArrayList<>();
+    private LayerProfile currentLayer;
+    private long frameTime = 0;
+
+    /**
+     * @return Profile of each drawn layer, in the drawing order
+     */
+    public List<LayerProfile> getLayerProfiles() {
+        return Collections.unmodifiableList(layerProfiles);
+    }
+
+    /**
+     * @return Total time of the frame in nanoseconds
+     */
+    public long getFrameTime() {
+        return frameTime;
+    }
+
+    @Override
+    public void beginFrame(MapTransform mt) {
+        layerProfiles.clear();
+        frameTime = 0;
+    }
+
+    @Override
+    public void beginLayer(ILayer layer) {
+        currentLayer = new LayerProfile(layer.getName());
+        layerProfiles.add(currentLayer);
+    }
+
+    @Override
+    public void beginRule(Rule rule) {
+    }
+
+    @Override
+    public void queryExecuted(long nanos) {
+        currentLayer.queryTime += nanos;
+    }
+
+    @Override
+    public void rowFetched(Geometry geometry, long nanos) {
+        currentLayer.rowCount++;
+        currentLayer.fetchTime += nanos;
+        if(geometry != null) {
+            currentLayer.geometryBytes += getWKBSize(geometry);
+        }
+    }
+
+    @Override
+    public void beginSymbolizer(Symbolizer symbolizer) {
+    }
+
+    @Override
+    public void endSymbolizer(Symbolizer symbolizer, boolean drawn, long nanos) {
+        currentLayer.drawTime += nanos;
+        SymbolizerProfile symbolizerProfile = currentLayer.symbolizerProfiles.get(symbolizer);
+        if(symbolizerProfile == null) {
+            symbolizerProfile = new SymbolizerProfile(symbolizer.getName());
+            currentLayer.symbolizerProfiles.put(symbolizer, symbolizerProfile);
+        }
+        if(drawn) {
+            symbolizerProfile.drawCount++;
+        }
+        symbolizerProfile.time += nanos;
+    }
+
+    @Override
+    public void endRule(Rule rule, long featureCount, long nanos) {
+        currentLayer.featureCount += featureCount;
+    }
+
+    @Override
+    public void endLayer(ILayer layer, long nanos) {
+        currentLayer.totalTime = nanos;
+        currentLayer = null;
+    }
+
+    @Override
+    public void endFrame(long nanos) {
+        frameTime = nanos;
+    }
+
+    /**
+     * @param geometry Geometry
+     * @return Size in bytes of the 2D WKB representation of this geometry
+     */
+    public static long getWKBSize(Geometry geometry) {
+        if(geometry instanceof Point) {
+            return WKB_HEADER + WKB_COORDINATE;
+        } else if(geometry instanceof LineString) {
+            return WKB_HEADER + WKB_COUNT + WKB_COORDINATE * geometry.getNumPoints();
+        } else if(geometry instanceof Polygon) {
+            Polygon polygon = (Polygon) geometry;
+            long size = WKB_HEADER + WKB_COUNT + WKB_COUNT + WKB_COORDINATE * polygon.getExteriorRing().getNumPoints();
+            for(int i = 0; i < polygon.getNumInteriorRing(); i++) {
+                size += WKB_COUNT + WKB_COORDINATE * polygon.getInteriorRingN(i).getNumPoints();
+            }
+            return size;
+        } else if(geometry instanceof GeometryCollection) {
+            long size = WKB_HEADER + WKB_COUNT;
+            for(int i = 0; i < geometry.getNumGeometries(); i++) {
+                size += getWKBSize(geometry.getGeometryN(i));
+            }
+            return size;
+        } else {
+            return 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("Frame %.1f ms", frameTime * NANO_TO_MS));
+        for(LayerProfile layerProfile : layerProfiles) {
+            sb.append("\n").append(layerProfile);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Counters of a layer, times are in nanoseconds
+     */
+    public static class LayerProfile {
+        private final String layerName;
+        private final Map<Symbolizer, SymbolizerProfile> symbolizerProfiles = new LinkedHashMap<>();
+        private long totalTime = 0;
+        private long queryTime = 0;
+        private long fetchTime = 0;
+        private long drawTime = 0;
+        private long rowCount = 0;
+        private long featureCount = 0;
+        private long geometryBytes = 0;
+
+        private LayerProfile(String layerName) {
+            this.layerName = layerName;
+        }
+
+        /**
+         * @return Layer name
+         */
+        public String getLayerName() {
+            return layerName;
+        }
+
+        /**
+         * @return Total time spent in the layer
+         */
+        public long getTotalTime() {
+            return totalTime;
+        }
+
+        /**
+         * @return Time spent to create and execute the queries
+         */
+        public long getQueryTime() {
+            return queryTime;
+        }
+
+        /**
+         * @return Time spent to fetch the rows and decode the geometries
+         */
+        public long getFetchTime() {
+            return fetchTime;
+        }
+
+        /**
+         * @return Time spent in the symbolizers
+         */
+        public long getDrawTime() {
+            return drawTime;
+        }
+
+        /**
+         * @return Number of rows fetched by all the rules
+         */
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * @return Number of features drawn by all the rules
+         */
+        public long getFeatureCount() {
+            return featureCount;
+        }
+
+        /**
+         * @return Size of the decoded geometries in WKB bytes
+         */
+        public long getGeometryBytes() {
+            return geometryBytes;
+        }
+
+        /**
+         * @return Counters of each symbolizer
+         */
+        public Map<Symbolizer, SymbolizerProfile> getSymbolizerProfiles() {
+            return Collections.unmodifiableMap(symbolizerProfiles);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format(
+                    "%s %.1f ms (query %.1f, fetch %.1f, draw %.1f) rows=%d features=%d geometries=%d kB",
+                    layerName, totalTime * NANO_TO_MS, queryTime * NANO_TO_MS, fetchTime * NANO_TO_MS,
+                    drawTime * NANO_TO_MS, rowCount, featureCount, geometryBytes / 1024));
+            for(SymbolizerProfile symbolizerProfile : symbolizerProfiles.values()) {
+                sb.append("\n  ").append(symbolizerProfile);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Counters of a symbolizer
+     */
+    public static class SymbolizerProfile {
+        private final String symbolizerName;
+        private long drawCount = 0;
+        private long time = 0;
+
+        private SymbolizerProfile(String symbolizerName) {
+            this.symbolizerName = symbolizerName;
+        }
+
+        /**
+         * @return Symbolizer name
+         */
+        public String getSymbolizerName() {
+            return symbolizerName;
+        }
+
+        /**
+         * @return Number of drawn features
+         */
+        public long getDrawCount() {
+            return drawCount;
+        }
+
+        /**
+         * @return Time spent in the symbolizer in nanoseconds
+         */
+        public long getTime() {
+            return time;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %.1f ms features=%d", symbolizerName, time * NANO_TO_MS, drawCount);
+        }
+    }
+}
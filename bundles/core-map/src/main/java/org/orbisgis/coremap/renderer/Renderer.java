@@ -44,8 +44,10 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.h2gis.utilities.SpatialResultSet;
 import org.h2gis.utilities.SpatialResultSetMetaData;
@@ -76,9 +78,25 @@ import org.xnap.commons.i18n.I18nFactory;
 public abstract class Renderer {
 
         static final int BATCH_SIZE = 1000;
+        /**
+         * Rendering hint set to {@code Boolean.TRUE} on the graphics of vector outputs (e.g. pdf). Symbols are then
+         * drawn as vectors instead of being painted with rasterized tiles.
+         */
+        public static final RenderingHints.Key KEY_VECTOR_OUTPUT = new RenderingHints.Key(0) {
+            @Override
+            public boolean isCompatibleValue(Object val) {
+                return val instanceof Boolean;
+            }
+
+            @Override
+            public String toString() {
+                return "Vector output";
+            }
+        };
         private static final Logger LOGGER = LoggerFactory.getLogger(Renderer.class);
         private static final I18n I18N = I18nFactory.getI18n(Renderer.class);
         private ResultSetProviderFactory rsProvider = null;
+        private RenderingListener renderingListener = null;
 
         /**
          * Change the way this renderer gather the table content of a layer.
@@ -88,6 +106,20 @@ public abstract class Renderer {
             this.rsProvider = rsProvider;
         }
 
+        /**
+         * @param renderingListener Instrumentation of the rendering, null to disable it
+         */
+        public void setRenderingListener(RenderingListener renderingListener) {
+            this.renderingListener = renderingListener;
+        }
+
+        /**
+         * @return Instrumentation of the rendering, null if disabled
+         */
+        public RenderingListener getRenderingListener() {
+            return renderingListener;
+        }
+
     /**
          * This method shall returns a graphics2D for each symbolizers in the list.
          * This is useful to make the diff bw pdf purpose and image purpose
@@ -187,63 +219,35 @@ public abstract class Renderer {
                 // And now, features will be rendered
                 // Get a graphics for each symbolizer
                 initGraphics2D(symbs, g2, mt);
-                ProgressMonitor rulesProgress = pm.startTask(rList.size());
-                for (Rule r : rList) {                    
-                    beginLayer(r.getName());
-                    FeaturesVisitor fv  = new FeaturesVisitor();
-                    fv.visitSymbolizerNode(r);
-                    Set<String> fields = fv.getResult();
-                    try(ResultSetProviderFactory.ResultSetProvider resultSetProvider = layerDataFactory.getResultSetProvider(layer, rulesProgress)) {
-                        try(SpatialResultSet rs = resultSetProvider.execute(rulesProgress, extent, fields)) {
-                            //Workaround because H2 linked table doesn't contains PK or _ROWID_
-                            String pkName = resultSetProvider.getPkName();
-                            int pkColumn = -1;
-                            if(pkName != null && !pkName.isEmpty()) {
-                                pkColumn = rs.findColumn(resultSetProvider.getPkName());
-                            }
-                            //End workaround
-                            int fieldID = rs.getMetaData().unwrap(SpatialResultSetMetaData.class).getFirstGeometryFieldIndex();
-                            ProgressMonitor rowSetProgress;
-                            // Read row count for progress monitor
-                            if(rs instanceof ReadRowSet) {
-                                rowSetProgress = rulesProgress.startTask("Drawing " + layer.getName() + " (Rule " + r.getName() + ")", ((ReadRowSet) rs).getRowCount());
-                            } else {
-                                rowSetProgress = rulesProgress.startTask("Drawing " + layer.getName() + " (Rule " + r.getName() + ")", 1);
-                            }
-                            while (rs.next()) {
-                                if (rulesProgress.isCancelled()) {
-                                    break;
-                                }
-                                Geometry theGeom = null;
-                                // If there is only one geometry, it is fetched now, otherwise, it up to symbolizers
-                                // to retrieve the correct geometry (through the Geometry attribute)
-                                if (fieldID >= 0) {
-                                    theGeom = rs.getGeometry(fieldID);
-                                }
-                                // Do not display the geometry when the envelope
-                                //doesn't intersect the current mapcontext area.
-                                if (theGeom == null || theGeom.getEnvelopeInternal().intersects(extent)) {
-                                    //Workaround because H2 linked table doesn't contains PK or _ROWID_
-                                    long row = -1;
-                                    if(pkColumn != -1){
-                                        row = rs.getLong(pkColumn);
-                                    }
-                                    //End workaround
-                                    boolean selected = selectedRows.contains(row);
-
-                                    beginFeature(row, rs);
-
-                                    List<Symbolizer> sl = r.getCompositeSymbolizer().getSymbolizerList();
-                                    for (Symbolizer s : sl) {
-                                        boolean res = drawFeature(s, theGeom, rs, row,
-                                                extent, selected, mt);
-                                    }
-                                    endFeature(row, rs);
-                                }
-                                rowSetProgress.endTask();
-                            }
-                            endLayer(r.getName());
+                // Rule filters are pushed into the layer query
+                Map<Rule, String> ruleFilters = new LinkedHashMap<Rule, String>();
+                for (Rule r : rList) {
+                    String filter = RuleFilterCompiler.compile(r);
+                    if(filter == null) {
+                        LOGGER.warn(I18N.tr("The filter of the rule {0} cannot be applied, all features are drawn",
+                                r.getName()));
+                        filter = "";
+                    }
+                    ruleFilters.put(r, filter);
+                }
+                if(!fRList.isEmpty()) {
+                    String elseFilter = RuleFilterCompiler.compileElseFilter(rList);
+                    if(elseFilter == null) {
+                        LOGGER.warn(I18N.tr("The else filter rules of the layer {0} cannot be applied", layer.getName()));
+                    } else if(!RuleFilterCompiler.MATCH_NONE.equals(elseFilter)) {
+                        for (Rule r : fRList) {
+                            ruleFilters.put(r, elseFilter);
                         }
+                    }
+                }
+                ProgressMonitor rulesProgress = pm.startTask(ruleFilters.size());
+                for (Map.Entry<Rule, String> ruleFilter : ruleFilters.entrySet()) {
+                    Rule r = ruleFilter.getKey();
+                    beginLayer(r.getName());
+                    try {
+                        layerCount += drawRule(r, ruleFilter.getValue(), layerDataFactory, layer, selectedRows, mt,
+                                extent, rulesProgress);
+                        endLayer(r.getName());
                     } catch (SQLException ex) {
                         if(!rulesProgress.isCancelled()) {
                             printEx(ex, layer, g2);
@@ -260,6 +264,98 @@ public abstract class Renderer {
             return layerCount;
         }
 
+        /**
+         * @return the number of drawn features
+         */
+        private int drawRule(Rule r, String filter, ResultSetProviderFactory layerDataFactory, ILayer layer,
+                              Set<Long> selectedRows, MapTransform mt, Envelope extent, ProgressMonitor rulesProgress)
+                throws SQLException, ParameterException, IOException {
+            RenderingListener listener = renderingListener;
+            long ruleStart = 0;
+            int featureCount = 0;
+            if(listener != null) {
+                listener.beginRule(r);
+                ruleStart = System.nanoTime();
+            }
+            FeaturesVisitor fv  = new FeaturesVisitor();
+            fv.visitSymbolizerNode(r);
+            Set<String> fields = fv.getResult();
+            try(ResultSetProviderFactory.ResultSetProvider resultSetProvider = layerDataFactory.getResultSetProvider(layer, rulesProgress)) {
+                try(SpatialResultSet rs = resultSetProvider.execute(rulesProgress, extent, fields, filter)) {
+                    long fetchStart = 0;
+                    if(listener != null) {
+                        fetchStart = System.nanoTime();
+                        listener.queryExecuted(fetchStart - ruleStart);
+                    }
+                    //Workaround because H2 linked table doesn't contains PK or _ROWID_
+                    String pkName = resultSetProvider.getPkName();
+                    int pkColumn = -1;
+                    if(pkName != null && !pkName.isEmpty()) {
+                        pkColumn = rs.findColumn(resultSetProvider.getPkName());
+                    }
+                    //End workaround
+                    int fieldID = rs.getMetaData().unwrap(SpatialResultSetMetaData.class).getFirstGeometryFieldIndex();
+                    ProgressMonitor rowSetProgress;
+                    // Read row count for progress monitor
+                    if(rs instanceof ReadRowSet) {
+                        rowSetProgress = rulesProgress.startTask("Drawing " + layer.getName() + " (Rule " + r.getName() + ")", ((ReadRowSet) rs).getRowCount());
+                    } else {
+                        rowSetProgress = rulesProgress.startTask("Drawing " + layer.getName() + " (Rule " + r.getName() + ")", 1);
+                    }
+                    while (rs.next()) {
+                        if (rulesProgress.isCancelled()) {
+                            break;
+                        }
+                        Geometry theGeom = null;
+                        // If there is only one geometry, it is fetched now, otherwise, it up to symbolizers
+                        // to retrieve the correct geometry (through the Geometry attribute)
+                        if (fieldID >= 0) {
+                            theGeom = rs.getGeometry(fieldID);
+                        }
+                        if(listener != null) {
+                            listener.rowFetched(theGeom, System.nanoTime() - fetchStart);
+                        }
+                        // Do not display the geometry when the envelope
+                        //doesn't intersect the current mapcontext area.
+                        if (theGeom == null || theGeom.getEnvelopeInternal().intersects(extent)) {
+                            //Workaround because H2 linked table doesn't contains PK or _ROWID_
+                            long row = -1;
+                            if(pkColumn != -1){
+                                row = rs.getLong(pkColumn);
+                            }
+                            //End workaround
+                            boolean selected = selectedRows.contains(row);
+
+                            beginFeature(row, rs);
+
+                            List<Symbolizer> sl = r.getCompositeSymbolizer().getSymbolizerList();
+                            for (Symbolizer s : sl) {
+                                if(listener == null) {
+                                    drawFeature(s, theGeom, rs, row, extent, selected, mt);
+                                } else {
+                                    listener.beginSymbolizer(s);
+                                    long symbolizerStart = System.nanoTime();
+                                    boolean drawn = drawFeature(s, theGeom, rs, row, extent, selected, mt);
+                                    listener.endSymbolizer(s, drawn, System.nanoTime() - symbolizerStart);
+                                }
+                            }
+                            endFeature(row, rs);
+                            featureCount++;
+                        }
+                        rowSetProgress.endTask();
+                        if(listener != null) {
+                            fetchStart = System.nanoTime();
+                        }
+                    }
+                }
+            } finally {
+                if(listener != null) {
+                    listener.endRule(r, featureCount, System.nanoTime() - ruleStart);
+                }
+            }
+            return featureCount;
+        }
+
         private boolean drawFeature(Symbolizer s, Geometry geom, ResultSet rs,
                         long rowIdentifier, Envelope extent, boolean selected,
                         MapTransform mt) throws ParameterException,
@@ -353,7 +449,12 @@ public abstract class Renderer {
                         layers = new ILayer[]{lay};
                 }
 
-                // long total1 = System.currentTimeMillis();
+                RenderingListener listener = renderingListener;
+                long frameStart = 0;
+                if(listener != null) {
+                        listener.beginFrame(mt);
+                        frameStart = System.nanoTime();
+                }
                 int numLayers = layers.length;
                 ProgressMonitor pm;
                 if (progressMonitor == null) {
@@ -366,7 +467,13 @@ public abstract class Renderer {
                                 break;
                         } else {
                                 ILayer layer = layers[i];
-                                if (layer.isVisible() && extent.intersects(layer.getEnvelope())) {
+                                // Collections are not drawn, their envelope would open all the leaves
+                                if (!layer.acceptsChilds() && layer.isVisible() && extent.intersects(layer.getEnvelope())) {
+                                        long layerStart = 0;
+                                        if(listener != null) {
+                                                listener.beginLayer(layer);
+                                                layerStart = System.nanoTime();
+                                        }
                                         try {
                                                 if (layer.isStream()) {
                                                     drawStreamLayer(g2, layer, width, height, extent, pm);
@@ -378,11 +485,18 @@ public abstract class Renderer {
                                                 // this.drawRaster(g2, mt, layer,width,height, pm, perm);
                                         } catch (SQLException | LayerException e) {
                                                 LOGGER.error(I18N.tr("Layer {0} not drawn",layer.getName()), e);
+                                        } finally {
+                                                if(listener != null) {
+                                                        listener.endLayer(layer, System.nanoTime() - layerStart);
+                                                }
                                         }
                                 }
                         }
                         pm.endTask();
                 }
+                if(listener != null) {
+                        listener.endFrame(System.nanoTime() - frameStart);
+                }
         }
 
         private void drawStreamLayer(Graphics2D g2, ILayer layer, int width, int height, Envelope extent, ProgressMonitor pm) {
@@ -0,0 +1,112 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import com.vividsolutions.jts.geom.Geometry;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.se.Rule;
+import org.orbisgis.coremap.renderer.se.Symbolizer;
+
+import java.util.EventListener;
+
+/**
+ * Instrumentation of the {@link Renderer}. Events are fired in the rendering thread, in this order:
+ * beginFrame, then for each drawn layer beginLayer, for each rule beginRule, queryExecuted, for each row rowFetched
+ * followed by beginSymbolizer/endSymbolizer for each symbolizer of the rule if the row is in the extent, then endRule,
+ * endLayer and at last endFrame. Durations are given in nanoseconds.
+ * The renderer does not measure anything while no listener is set.
+ * @author Nicolas Fortin
+ */
+public interface RenderingListener extends EventListener {
+    /**
+     * The rendering of the layers starts
+     * @param mt Drawing parameters
+     */
+    void beginFrame(MapTransform mt);
+
+    /**
+     * @param layer Visible layer in the drawn extent
+     */
+    void beginLayer(ILayer layer);
+
+    /**
+     * @param rule Rule of the layer style
+     */
+    void beginRule(Rule rule);
+
+    /**
+     * @param nanos Time spent to create and execute the rule query
+     */
+    void queryExecuted(long nanos);
+
+    /**
+     * @param geometry Decoded geometry, null if symbolizers fetch their own geometry
+     * @param nanos Time spent to fetch the row and decode the geometry
+     */
+    void rowFetched(Geometry geometry, long nanos);
+
+    /**
+     * @param symbolizer Symbolizer that will draw the current feature
+     */
+    void beginSymbolizer(Symbolizer symbolizer);
+
+    /**
+     * @param symbolizer Symbolizer of the current feature
+     * @param drawn False if the symbolizer has no geometry to draw
+     * @param nanos Time spent in the symbolizer
+     */
+    void endSymbolizer(Symbolizer symbolizer, boolean drawn, long nanos);
+
+    /**
+     * @param rule Rule of the layer style
+     * @param featureCount Number of features drawn with this rule
+     * @param nanos Total time spent in the rule
+     */
+    void endRule(Rule rule, long featureCount, long nanos);
+
+    /**
+     * @param layer Drawn layer
+     * @param nanos Total time spent in the layer
+     */
+    void endLayer(ILayer layer, long nanos);
+
+    /**
+     * @param nanos Total time spent in the frame
+     */
+    void endFrame(long nanos);
+}
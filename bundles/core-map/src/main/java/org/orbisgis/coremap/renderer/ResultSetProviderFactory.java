@@ -78,6 +78,19 @@ public interface ResultSetProviderFactory {
          */
         SpatialResultSet execute(ProgressMonitor pm, Envelope extent, Set<String> fields) throws SQLException;
 
+        /**
+         * Same as {@link #execute(ProgressMonitor, Envelope, Set)} but only the rows matching the given predicate
+         * are returned.
+         * @param pm ProgressMonitor allows to display the process and cancel it.
+         * @param extent filter entities by this envelope
+         * @param fields a list of column names to keep in the select... from
+         * @param filter SQL predicate on the table columns, null or empty to fetch all rows
+         * @return The content of the table
+         * @throws java.sql.SQLException
+         */
+        SpatialResultSet execute(ProgressMonitor pm, Envelope extent, Set<String> fields, String filter)
+                throws SQLException;
+
         /**
          * @return The primary key column name, empty if there is no such thing.
          */
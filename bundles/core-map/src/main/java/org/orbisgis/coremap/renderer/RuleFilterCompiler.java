@@ -0,0 +1,142 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import org.orbisgis.coremap.renderer.se.Rule;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Translate the rule filters into SQL predicates that can be appended to the layer query, then the rows that do not
+ * match a rule are never fetched.
+ * @author Nicolas Fortin
+ */
+final class RuleFilterCompiler {
+    /** Predicate rejecting all rows */
+    static final String MATCH_NONE = "FALSE";
+    private static final Pattern WHERE_KEYWORD = Pattern.compile("^\\s*where\\s+", Pattern.CASE_INSENSITIVE);
+
+    private RuleFilterCompiler() {
+    }
+
+    /**
+     * @param rule Standard rule
+     * @return SQL predicate of the rule, empty if the rule accepts all features, null if the where clause cannot be
+     * pushed into the layer query.
+     */
+    static String compile(Rule rule) {
+        String where = rule.getWhere();
+        if(where == null) {
+            return "";
+        }
+        where = WHERE_KEYWORD.matcher(where).replaceFirst("").trim();
+        if(where.isEmpty()) {
+            return "";
+        }
+        return isStandalonePredicate(where) ? "(" + where + ")" : null;
+    }
+
+    /**
+     * The else filter accepts the features rejected by all other rules.
+     * @param rules Standard rules drawn with the fallback rules
+     * @return SQL predicate, empty if there is no other rule, {@link #MATCH_NONE} if a rule accepts all features,
+     * null if a rule filter cannot be pushed into the layer query.
+     */
+    static String compileElseFilter(List<Rule> rules) {
+        StringBuilder sb = new StringBuilder();
+        for(Rule rule : rules) {
+            String filter = compile(rule);
+            if(filter == null) {
+                return null;
+            } else if(filter.isEmpty()) {
+                return MATCH_NONE;
+            }
+            if(sb.length() > 0) {
+                sb.append(" AND ");
+            }
+            // A row is not accepted by a rule if its predicate is unknown (null)
+            sb.append("NOT COALESCE(").append(filter).append(", FALSE)");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Check that the where clause cannot alter the query it is appended to.
+     * @param where SQL where clause
+     * @return True if the clause is a single expression: balanced parenthesis and quotes, no statement separator and
+     * no comment.
+     */
+    static boolean isStandalonePredicate(String where) {
+        int depth = 0;
+        char quote = 0;
+        for(int i = 0; i < where.length(); i++) {
+            char c = where.charAt(i);
+            if(quote != 0) {
+                // Doubled quotes are escaped quotes, they close then reopen the literal
+                if(c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            switch (c) {
+                case '\'':
+                case '"':
+                    quote = c;
+                    break;
+                case '(':
+                    depth++;
+                    break;
+                case ')':
+                    if(--depth < 0) {
+                        return false;
+                    }
+                    break;
+                case ';':
+                    return false;
+                case '-':
+                case '/':
+                    if(i + 1 < where.length() && where.charAt(i + 1) == (c == '-' ? '-' : '*')) {
+                        return false;
+                    }
+                    break;
+                default:
+            }
+        }
+        return depth == 0 && quote == 0;
+    }
+}
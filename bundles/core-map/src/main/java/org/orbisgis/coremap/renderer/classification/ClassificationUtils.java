@@ -44,6 +44,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
 import org.orbisgis.coremap.renderer.se.parameter.real.RealParameter;
@@ -55,6 +56,7 @@ import org.orbisgis.coremap.renderer.se.parameter.real.RealParameter;
  * @author Erwan Bocher
  */
 public class ClassificationUtils {
+    private static final int FETCH_SIZE = 1000;
 
     private ClassificationUtils() {
     }
@@ -69,7 +71,9 @@ public class ClassificationUtils {
      * @return
      * @throws SQLException
      * @throws ParameterException
+     * @deprecated Loads the whole column in memory, use {@link #getQuantileSketch(Connection, String, String, int)}
      */
+    @Deprecated
     public static List<Double> getSortedValues(Connection connection, String table, RealParameter value)
             throws SQLException, ParameterException {
         List<Double> values = new ArrayList<>();
@@ -82,6 +86,42 @@ public class ClassificationUtils {
         return Collections.unmodifiableList(values);
     }
 
+    /**
+     * Read the non-null values of a numeric field into a bounded, uniform sample.
+     *
+     * @param connection SQL Connection
+     * @param table      Table identifier
+     * @param field      Name of the column
+     * @param sampleSize Maximum number of values kept in memory
+     * @return Sketch of the values, exact if the field does not have more than sampleSize values
+     * @throws SQLException
+     */
+    public static QuantileSketch getQuantileSketch(Connection connection, String table, String field, int sampleSize)
+            throws SQLException {
+        QuantileSketch sketch = new QuantileSketch(sampleSize);
+        boolean autoCommit = connection.getAutoCommit();
+        try (Statement st = connection.createStatement()) {
+            // Fetch the rows by pages, instead of loading the whole column
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            st.setFetchSize(FETCH_SIZE);
+            String column = TableLocation.quoteIdentifier(field,
+                    JDBCUtilities.isH2DataBase(connection.getMetaData()));
+            try (ResultSet rs = st.executeQuery("SELECT " + column + " FROM " + table + " WHERE " + column +
+                    " IS NOT NULL")) {
+                while (rs.next()) {
+                    sketch.offer(rs.getDouble(1));
+                }
+            }
+        } finally {
+            if (autoCommit) {
+                connection.setAutoCommit(true);
+            }
+        }
+        return sketch;
+    }
+
     /**
      * Gets the minimum and maximum values of {@code table} from {@code value}.
      *
@@ -0,0 +1,201 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.classification;
+
+/**
+ * HyperLogLog sketch, estimates the number of distinct values of a stream using a fixed amount of memory
+ * (2^precision bytes). The relative standard error of the estimation is about 1.04 / sqrt(2^precision).
+ * @author Nicolas Fortin
+ */
+public class HyperLogLog {
+    /** Default precision, 16384 registers for a standard error of about 0.8% */
+    public static final int DEFAULT_PRECISION = 14;
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Sketch with the default precision
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision Number of bits used to index the registers, in [{@link #MIN_PRECISION},
+     * {@link #MAX_PRECISION}]
+     */
+    public HyperLogLog(int precision) {
+        if(precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be in [" + MIN_PRECISION + "-" + MAX_PRECISION + "]");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * @return Number of bits used to index the registers
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * @param value Value to count
+     */
+    public void offer(String value) {
+        offerHash(hash(value));
+    }
+
+    /**
+     * @param value Value to count
+     */
+    public void offer(double value) {
+        // 0.0 and -0.0 are the same value
+        offerHash(mix(Double.doubleToLongBits(value == 0 ? 0 : value)));
+    }
+
+    /**
+     * @param hash Well distributed 64 bits hash of the value to count
+     */
+    public void offerHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // The guard bit limits the rank to the number of remaining bits + 1
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if(rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Merge the registers of another sketch into this one. This sketch then estimates the cardinality of the union
+     * of both streams.
+     * @param other Sketch with the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if(other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of different precisions");
+        }
+        for(int i = 0; i < registers.length; i++) {
+            if(other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Improved estimator of O. Ertl, "New cardinality estimation algorithms for HyperLogLog sketches", 2017. It does
+     * not need the bias correction of the original estimator around the switch to linear counting.
+     * @return Estimated number of distinct values
+     */
+    public long cardinality() {
+        int m = registers.length;
+        int maxRank = 64 - precision + 1;
+        int[] histogram = new int[maxRank + 1];
+        for(byte register : registers) {
+            histogram[register]++;
+        }
+        if(histogram[0] == m) {
+            return 0;
+        }
+        double z = m * tau(1 - (double) histogram[maxRank] / m);
+        for(int k = maxRank - 1; k >= 1; k--) {
+            z = 0.5 * (z + histogram[k]);
+        }
+        z += m * sigma((double) histogram[0] / m);
+        return Math.round(m * m / (2 * Math.log(2) * z));
+    }
+
+    private static double sigma(double x) {
+        double y = 1;
+        double z = x;
+        double zPrevious;
+        do {
+            x *= x;
+            zPrevious = z;
+            z += x * y;
+            y += y;
+        } while(z != zPrevious);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if(x == 0 || x == 1) {
+            return 0;
+        }
+        double y = 1;
+        double z = 1 - x;
+        double zPrevious;
+        do {
+            x = Math.sqrt(x);
+            zPrevious = z;
+            y *= 0.5;
+            z -= Math.pow(1 - x, 2) * y;
+        } while(z != zPrevious);
+        return z / 3;
+    }
+
+    /**
+     * 64 bits hash of a String, FNV-1a followed by the finalizer of MurmurHash3.
+     * @param value String value
+     * @return Hash code
+     */
+    public static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Finalizer of MurmurHash3, spread the bits of the given value.
+     * @param value Value
+     * @return Mixed value
+     */
+    public static long mix(long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
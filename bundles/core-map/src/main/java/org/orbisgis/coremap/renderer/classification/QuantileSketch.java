@@ -0,0 +1,179 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.classification;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Approximate quantiles of a numeric stream, computed on a uniform random sample (reservoir sampling) of bounded size.
+ * The quantiles are exact while the number of values does not exceed the capacity, otherwise the rank error is
+ * about 1 / sqrt(capacity). Count, minimum, maximum and mean are always exact.
+ * @author Nicolas Fortin
+ */
+public class QuantileSketch {
+    /** Default sample size, rank error about 1% */
+    public static final int DEFAULT_CAPACITY = 10000;
+    private final double[] sample;
+    private final Random random;
+    private long count = 0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double sum = 0;
+    private double[] sorted;
+
+    /**
+     * Sketch with the default capacity
+     */
+    public QuantileSketch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Maximum number of kept values
+     */
+    public QuantileSketch(int capacity) {
+        this(capacity, new Random());
+    }
+
+    /**
+     * @param capacity Maximum number of kept values
+     * @param random Random generator used to select the kept values
+     */
+    public QuantileSketch(int capacity, Random random) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        this.sample = new double[capacity];
+        this.random = random;
+    }
+
+    /**
+     * @param value Value to add, NaN values are ignored
+     */
+    public void offer(double value) {
+        if(Double.isNaN(value)) {
+            return;
+        }
+        sorted = null;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+        if(count < sample.length) {
+            sample[(int) count] = value;
+        } else {
+            // Keep the new value with a probability of capacity / (count + 1)
+            long index = (long) (random.nextDouble() * (count + 1));
+            if(index < sample.length) {
+                sample[(int) index] = value;
+            }
+        }
+        count++;
+    }
+
+    /**
+     * @return Number of added values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return True if all the added values are kept, then the quantiles are exact
+     */
+    public boolean isExact() {
+        return count <= sample.length;
+    }
+
+    /**
+     * @return Minimum value, +Infinity if empty
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return Maximum value, -Infinity if empty
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return Mean value, NaN if empty
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /**
+     * @return The kept values, in ascending order
+     */
+    public double[] getSortedSample() {
+        if(sorted == null) {
+            sorted = Arrays.copyOf(sample, (int) Math.min(count, sample.length));
+            Arrays.sort(sorted);
+        }
+        return sorted.clone();
+    }
+
+    /**
+     * @param quantile Quantile in [0-1], 0.5 is the median
+     * @return The estimated value of the quantile, linearly interpolated between the kept values. NaN if empty.
+     */
+    public double getQuantile(double quantile) {
+        if(quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be in [0-1]");
+        }
+        if(count == 0) {
+            return Double.NaN;
+        }
+        if(quantile == 0) {
+            return min;
+        }
+        if(quantile == 1) {
+            return max;
+        }
+        if(sorted == null) {
+            getSortedSample();
+        }
+        double position = quantile * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+}
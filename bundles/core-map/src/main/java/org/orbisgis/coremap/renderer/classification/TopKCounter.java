@@ -0,0 +1,203 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.classification;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Find the most frequent values of a stream with the Space-Saving algorithm, using a bounded number of counters.
+ * Any value whose frequency is greater than total / capacity is guaranteed to be tracked, and the count of a tracked
+ * value over-estimates its frequency by at most {@link ValueCount#getError()}.
+ * @author Nicolas Fortin
+ */
+public class TopKCounter {
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+    /** Counters by ascending count, the first one is replaced when a new value does not fit */
+    private final TreeSet<Counter> byCount = new TreeSet<>(new Comparator<Counter>() {
+        @Override
+        public int compare(Counter o1, Counter o2) {
+            int comp = Long.compare(o1.count, o2.count);
+            return comp != 0 ? comp : Long.compare(o1.id, o2.id);
+        }
+    });
+    private long total = 0;
+    private long nextId = 0;
+    private boolean exact = true;
+
+    /**
+     * @param capacity Maximum number of tracked values
+     */
+    public TopKCounter(int capacity) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return Maximum number of tracked values
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param value Value to count
+     */
+    public void offer(String value) {
+        offer(value, 1);
+    }
+
+    /**
+     * @param value Value to count
+     * @param increment Number of occurrences
+     */
+    public void offer(String value, long increment) {
+        total += increment;
+        Counter counter = counters.get(value);
+        if(counter != null) {
+            byCount.remove(counter);
+            counter.count += increment;
+        } else if(counters.size() < capacity) {
+            counter = new Counter(value, increment, 0, nextId++);
+            counters.put(value, counter);
+        } else {
+            // Replace the least frequent value, the new value may have been seen as many times
+            Counter min = byCount.pollFirst();
+            counters.remove(min.value);
+            counter = new Counter(value, min.count + increment, min.count, nextId++);
+            counters.put(value, counter);
+            exact = false;
+        }
+        byCount.add(counter);
+    }
+
+    /**
+     * @return Number of counted occurrences
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return True if all the distinct values fit in the counters, then the counts are exact
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * @param k Maximum number of values
+     * @return The k most frequent values, by descending count
+     */
+    public List<ValueCount> getTopK(int k) {
+        List<ValueCount> top = new ArrayList<>(Math.min(k, counters.size()));
+        Iterator<Counter> it = byCount.descendingIterator();
+        while(it.hasNext() && top.size() < k) {
+            Counter counter = it.next();
+            top.add(new ValueCount(counter.value, counter.count, counter.error));
+        }
+        return top;
+    }
+
+    private static class Counter {
+        private final String value;
+        private long count;
+        private final long error;
+        private final long id;
+
+        private Counter(String value, long count, long error, long id) {
+            this.value = value;
+            this.count = count;
+            this.error = error;
+            this.id = id;
+        }
+    }
+
+    /**
+     * A value and its estimated number of occurrences
+     */
+    public static class ValueCount {
+        private final String value;
+        private final long count;
+        private final long error;
+
+        /**
+         * @param value Value
+         * @param count Estimated number of occurrences
+         * @param error Maximum over-estimation of count
+         */
+        public ValueCount(String value, long count, long error) {
+            this.value = value;
+            this.count = count;
+            this.error = error;
+        }
+
+        /**
+         * @return Value
+         */
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * @return Estimated number of occurrences, never lower than the exact one
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return Maximum over-estimation of the count, the exact number of occurrences is in [count - error, count]
+         */
+        public long getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return value + "=" + count;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.classification;
+
+import org.h2gis.utilities.JDBCUtilities;
+import org.h2gis.utilities.TableLocation;
+import org.orbisgis.commons.progress.ProgressMonitor;
+import org.orbisgis.corejdbc.ReadTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
+
+import java.beans.EventHandler;
+import java.beans.PropertyChangeListener;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Discover the values of a field in a single pass and bounded memory. The distinct values are kept only while their
+ * number does not exceed the value limit. In any case the cardinality is estimated with a {@link HyperLogLog}, the most
+ * frequent values are found with a {@link TopKCounter} and, for numeric fields, the quantiles are estimated with a
+ * {@link QuantileSketch}.
+ * @author Nicolas Fortin
+ */
+public class UniqueValueDiscovery {
+    /** Maximum number of distinct values kept in memory */
+    public static final int DEFAULT_VALUE_LIMIT = 1000;
+    /** Number of most frequent values returned */
+    public static final int DEFAULT_TOP_K = 100;
+    /** The top-k counter tracks this factor times k values, to be accurate on the k first ones */
+    private static final int TOP_K_CAPACITY_FACTOR = 10;
+    private static final int FETCH_SIZE = 1000;
+    private static final Logger LOGGER = LoggerFactory.getLogger(UniqueValueDiscovery.class);
+    private static final I18n I18N = I18nFactory.getI18n(UniqueValueDiscovery.class);
+    private int valueLimit = DEFAULT_VALUE_LIMIT;
+    private int topK = DEFAULT_TOP_K;
+    private int sampleSize = QuantileSketch.DEFAULT_CAPACITY;
+    private long warningThreshold = Long.MAX_VALUE;
+    private CardinalityWarning cardinalityWarning;
+
+    /**
+     * @return Maximum number of distinct values kept in memory
+     */
+    public int getValueLimit() {
+        return valueLimit;
+    }
+
+    /**
+     * @param valueLimit Maximum number of distinct values kept in memory
+     */
+    public void setValueLimit(int valueLimit) {
+        this.valueLimit = valueLimit;
+    }
+
+    /**
+     * @return Number of most frequent values returned
+     */
+    public int getTopK() {
+        return topK;
+    }
+
+    /**
+     * @param topK Number of most frequent values returned
+     */
+    public void setTopK(int topK) {
+        if(topK < 1) {
+            throw new IllegalArgumentException("Top k must be greater than 0");
+        }
+        this.topK = topK;
+    }
+
+    /**
+     * @return Number of values kept to estimate the quantiles of numeric fields
+     */
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * @param sampleSize Number of values kept to estimate the quantiles of numeric fields
+     */
+    public void setSampleSize(int sampleSize) {
+        if(sampleSize < 1) {
+            throw new IllegalArgumentException("Sample size must be greater than 0");
+        }
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * @param warningThreshold The warning is asked once, when the number of distinct values exceeds this threshold
+     * @param cardinalityWarning Asked during the scan, null to never stop the scan
+     */
+    public void setCardinalityWarning(long warningThreshold, CardinalityWarning cardinalityWarning) {
+        this.warningThreshold = warningThreshold;
+        this.cardinalityWarning = cardinalityWarning;
+    }
+
+    /**
+     * Read the non-null values of a field.
+     * @param connection Active connection
+     * @param table Table identifier
+     * @param field Field name
+     * @param pm Progress monitor, cancelling it cancels the query
+     * @return The discovered values, null if cancelled or refused by the {@link CardinalityWarning}
+     * @throws SQLException Error while reading the table
+     */
+    public Result discover(Connection connection, String table, String field, ProgressMonitor pm)
+            throws SQLException {
+        ProgressMonitor rowsPm = pm.startTask(I18N.tr("Discovering the values of {0}", field),
+                ReadTable.getRowCount(connection, table));
+        HyperLogLog cardinality = new HyperLogLog();
+        TopKCounter topValues = new TopKCounter(topK * TOP_K_CAPACITY_FACTOR);
+        Set<String> distinctValues = new HashSet<>();
+        QuantileSketch quantiles = null;
+        CardinalityWarning warning = cardinalityWarning;
+        long readRows = 0;
+        boolean autoCommit = connection.getAutoCommit();
+        try(Statement st = connection.createStatement()) {
+            // Fetch the rows by pages, instead of loading the whole column
+            if(autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            st.setFetchSize(FETCH_SIZE);
+            PropertyChangeListener cancelListener = EventHandler.create(PropertyChangeListener.class, st, "cancel");
+            pm.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL, cancelListener);
+            String column = TableLocation.quoteIdentifier(field,
+                    JDBCUtilities.isH2DataBase(connection.getMetaData()));
+            try(ResultSet rs = st.executeQuery("SELECT " + column + " FROM " + table + " WHERE " + column +
+                    " IS NOT NULL")) {
+                if(isNumeric(rs.getMetaData().getColumnType(1))) {
+                    quantiles = new QuantileSketch(sampleSize);
+                }
+                while(rs.next()) {
+                    String value = rs.getString(1);
+                    cardinality.offer(value);
+                    topValues.offer(value);
+                    if(distinctValues != null && distinctValues.add(value) && distinctValues.size() > valueLimit) {
+                        LOGGER.warn(I18N.tr("The field {0} has more than {1} distinct values, only the {2} most " +
+                                "frequent values are kept", field, valueLimit, topK));
+                        distinctValues = null;
+                    }
+                    if(quantiles != null) {
+                        quantiles.offer(rs.getDouble(1));
+                    }
+                    readRows++;
+                    if(warning != null) {
+                        // The estimation is not read on each row, it walks through all the registers
+                        long distinctCount = distinctValues != null ? distinctValues.size() :
+                                readRows % FETCH_SIZE == 0 ? cardinality.cardinality() : 0;
+                        if(distinctCount > warningThreshold) {
+                            if(!warning.continueScan(distinctCount)) {
+                                return null;
+                            }
+                            warning = null;
+                        }
+                    }
+                    rowsPm.endTask();
+                    if(pm.isCancelled()) {
+                        return null;
+                    }
+                }
+            } catch (SQLException ex) {
+                if(pm.isCancelled()) {
+                    return null;
+                }
+                throw ex;
+            } finally {
+                pm.removePropertyChangeListener(cancelListener);
+            }
+        } finally {
+            if(autoCommit) {
+                connection.setAutoCommit(true);
+            }
+        }
+        return new Result(topValues.getTotal(), distinctValues != null ? distinctValues.size() :
+                cardinality.cardinality(), distinctValues, topValues.getTopK(topK), quantiles);
+    }
+
+    /**
+     * Asked during the scan when the number of distinct values exceeds a threshold, in order to stop the scan
+     * without reading the whole table.
+     */
+    public interface CardinalityWarning {
+        /**
+         * @param distinctCount Number of distinct values already found, exact or estimated
+         * @return True to continue the scan, false to cancel it
+         */
+        boolean continueScan(long distinctCount);
+    }
+
+    private static boolean isNumeric(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Values discovered in a field
+     */
+    public static class Result {
+        private final long rowCount;
+        private final long cardinality;
+        private final Set<String> distinctValues;
+        private final List<TopKCounter.ValueCount> topValues;
+        private final QuantileSketch quantiles;
+
+        /**
+         * @param rowCount Number of non-null values
+         * @param cardinality Exact or estimated number of distinct values
+         * @param distinctValues All the distinct values, null if capped
+         * @param topValues Most frequent values
+         * @param quantiles Quantiles of a numeric field, null otherwise
+         */
+        public Result(long rowCount, long cardinality, Set<String> distinctValues,
+                      List<TopKCounter.ValueCount> topValues, QuantileSketch quantiles) {
+            this.rowCount = rowCount;
+            this.cardinality = cardinality;
+            this.distinctValues = distinctValues == null ? null : Collections.unmodifiableSet(distinctValues);
+            this.topValues = Collections.unmodifiableList(topValues);
+            this.quantiles = quantiles;
+        }
+
+        /**
+         * @return Number of non-null values
+         */
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * @return Number of distinct values, exact if the values are not capped, estimated otherwise
+         */
+        public long getCardinality() {
+            return cardinality;
+        }
+
+        /**
+         * @return True if there is more distinct values than the value limit
+         */
+        public boolean isCapped() {
+            return distinctValues == null;
+        }
+
+        /**
+         * @return All the distinct values, null if capped
+         */
+        public Set<String> getDistinctValues() {
+            return distinctValues;
+        }
+
+        /**
+         * @return The most frequent values, by descending count
+         */
+        public List<TopKCounter.ValueCount> getTopValues() {
+            return topValues;
+        }
+
+        /**
+         * @return Quantiles of a numeric field, null otherwise
+         */
+        public QuantileSketch getQuantiles() {
+            return quantiles;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.common;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@code Shape} flattened once into vertex arrays indexed by their
+ * cumulative length along the line.
+ *
+ * Positions along the line are found by binary search and sub-lines are views
+ * sharing the same arrays, so walking a long line (graphic strokes, dashes,
+ * labels) no longer re-flattens the source shape for each queried point.
+ *
+ * As in {@link ShapeHelper}, the shape is measured as a single polyline: a
+ * move inside the path counts as a segment and a closing segment goes back to
+ * the first point of the path.
+ *
+ * A flattened path does not hold any perpendicular offset, it measures the
+ * shape it has been built from. An offset of the whole line has to be applied
+ * with {@link ShapeHelper#perpendicularOffset(Shape, double)} before
+ * flattening, and the resulting lines flattened. An offset relative to each
+ * segment is applied to the views returned by the split methods, they iterate
+ * as plain polylines and give the same offset lines as the generic segments.
+ * @author Nicolas Fortin
+ */
+public final class FlattenedPath implements Shape {
+    private static final int INITIAL_CAPACITY = 16;
+    private final Shape source;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] lengths;
+    private final int vertexCount;
+    // Bounds of this view, in distance from the beginning of the flattened shape
+    private final double from;
+    private final double to;
+
+    private FlattenedPath(Shape source, double[] xs, double[] ys, double[] lengths, int vertexCount, double from, double to) {
+        this.source = source;
+        this.xs = xs;
+        this.ys = ys;
+        this.lengths = lengths;
+        this.vertexCount = vertexCount;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Flatten the given shape. If the shape is already a flattened path it is returned as is.
+     * @param shape Shape to flatten
+     * @return Flattened path covering the whole shape
+     */
+    public static FlattenedPath of(Shape shape) {
+        if (shape instanceof FlattenedPath) {
+            return (FlattenedPath) shape;
+        }
+        double[] xs = new double[INITIAL_CAPACITY];
+        double[] ys = new double[INITIAL_CAPACITY];
+        double[] lengths = new double[INITIAL_CAPACITY];
+        int count = 0;
+        double coords[] = new double[6];
+        PathIterator it = shape.getPathIterator(null, ShapeHelper.FLATNESS);
+        while (!it.isDone()) {
+            int type = it.currentSegment(coords);
+            double x;
+            double y;
+            if (type == PathIterator.SEG_CLOSE) {
+                if (count == 0) {
+                    it.next();
+                    continue;
+                }
+                x = xs[0];
+                y = ys[0];
+            } else {
+                x = coords[0];
+                y = coords[1];
+            }
+            if (count == xs.length) {
+                int capacity = count * 2;
+                xs = copyOf(xs, count, capacity);
+                ys = copyOf(ys, count, capacity);
+                lengths = copyOf(lengths, count, capacity);
+            }
+            xs[count] = x;
+            ys[count] = y;
+            if (count > 0) {
+                double dx = x - xs[count - 1];
+                double dy = y - ys[count - 1];
+                lengths[count] = lengths[count - 1] + Math.sqrt(dx * dx + dy * dy);
+            }
+            count++;
+            it.next();
+        }
+        double length = count > 0 ? lengths[count - 1] : 0;
+        return new FlattenedPath(shape, xs, ys, lengths, count, 0, length);
+    }
+
+    private static double[] copyOf(double[] array, int count, int capacity) {
+        double[] copy = new double[capacity];
+        System.arraycopy(array, 0, copy, 0, count);
+        return copy;
+    }
+
+    /**
+     * @return The length of this line
+     */
+    public double getLength() {
+        return to - from;
+    }
+
+    /**
+     * Return the point at the specified distance from the beginning of this line.
+     * A negative distance returns the first point, a distance greater than the
+     * line length is extrapolated along the last segment.
+     * @param distance Distance from the beginning of the line
+     * @return The point
+     */
+    public Point2D.Double getPointAt(double distance) {
+        if (vertexCount == 0) {
+            return new Point2D.Double();
+        }
+        if (distance < 0) {
+            return pointAt(from);
+        }
+        return pointAt(from + distance);
+    }
+
+    /**
+     * Return the part of this line between the two given distances. The
+     * returned path shares the vertices of this one.
+     * @param start Distance of the beginning of the sub line
+     * @param end Distance of the end of the sub line
+     * @return The sub line, clipped to this line bounds
+     */
+    public FlattenedPath subPath(double start, double end) {
+        double subFrom = Math.min(to, from + Math.max(0, start));
+        double subTo = Math.max(subFrom, Math.min(to, from + end));
+        return new FlattenedPath(null, xs, ys, lengths, vertexCount, subFrom, subTo);
+    }
+
+    /**
+     * Split this line into two lines, the first one having the given length.
+     * If this line is not longer than firstLineLength it is returned alone.
+     * @param firstLineLength Expected length of the first line
+     * @return Generated lines
+     */
+    public List<Shape> split(double firstLineLength) {
+        List<Shape> shapes = new ArrayList<Shape>(2);
+        double length = getLength();
+        if (length <= firstLineLength) {
+            shapes.add(this);
+        } else {
+            shapes.add(subPath(0, firstLineLength));
+            shapes.add(subPath(firstLineLength, length));
+        }
+        return shapes;
+    }
+
+    /**
+     * Split this line in parts of the given length, the last one may be shorter.
+     * @param segLength Length of the parts
+     * @return Generated lines
+     */
+    public List<Shape> splitInSegments(double segLength) {
+        double length = getLength();
+        if (segLength <= 0 || segLength >= length) {
+            List<Shape> shapes = new ArrayList<Shape>(1);
+            shapes.add(this);
+            return shapes;
+        }
+        List<Shape> shapes = new ArrayList<Shape>((int) Math.min(Integer.MAX_VALUE - 1, length / segLength) + 1);
+        double start = 0;
+        while (start + segLength < length) {
+            shapes.add(subPath(start, start + segLength));
+            start += segLength;
+        }
+        shapes.add(subPath(start, length));
+        return shapes;
+    }
+
+    /**
+     * Split this line in the given number of parts of the same length.
+     * @param nbPart Number of parts
+     * @return Generated lines
+     */
+    public List<Shape> splitInParts(int nbPart) {
+        if (nbPart <= 1) {
+            List<Shape> shapes = new ArrayList<Shape>(1);
+            shapes.add(this);
+            return shapes;
+        }
+        double length = getLength();
+        List<Shape> shapes = new ArrayList<Shape>(nbPart);
+        for (int i = 0; i < nbPart; i++) {
+            shapes.add(subPath(length * i / nbPart, i == nbPart - 1 ? length : length * (i + 1) / nbPart));
+        }
+        return shapes;
+    }
+
+    /**
+     * @param distance Distance from the beginning of the flattened shape
+     * @return Index of the segment [i, i+1] holding the given distance
+     */
+    private int segmentAt(double distance) {
+        // Last vertex whose cumulative length is lower or equal to the distance
+        int low = 0;
+        int high = vertexCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (lengths[mid] <= distance) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int segment = Math.min(low, vertexCount - 2);
+        // Past the end, extrapolate along the last non-empty segment
+        while (segment > 0 && lengths[segment + 1] == lengths[segment]) {
+            segment--;
+        }
+        return segment;
+    }
+
+    private Point2D.Double pointAt(double distance) {
+        if (vertexCount == 1) {
+            return new Point2D.Double(xs[0], ys[0]);
+        }
+        int segment = segmentAt(distance);
+        double segLength = lengths[segment + 1] - lengths[segment];
+        if (segLength <= 0) {
+            return new Point2D.Double(xs[segment], ys[segment]);
+        }
+        double ratio = (distance - lengths[segment]) / segLength;
+        return new Point2D.Double(xs[segment] + ratio * (xs[segment + 1] - xs[segment]),
+                ys[segment] + ratio * (ys[segment + 1] - ys[segment]));
+    }
+
+    private Path2D toPath2D() {
+        Path2D.Double path = new Path2D.Double();
+        path.append(getPathIterator(null), false);
+        return path;
+    }
+
+    @Override
+    public PathIterator getPathIterator(AffineTransform at) {
+        if (source != null) {
+            return source.getPathIterator(at);
+        }
+        return new ViewIterator(at);
+    }
+
+    @Override
+    public PathIterator getPathIterator(AffineTransform at, double flatness) {
+        if (source != null) {
+            return source.getPathIterator(at, flatness);
+        }
+        // Already flat
+        return new ViewIterator(at);
+    }
+
+    @Override
+    public Rectangle getBounds() {
+        return getBounds2D().getBounds();
+    }
+
+    @Override
+    public Rectangle2D getBounds2D() {
+        if (source != null) {
+            return source.getBounds2D();
+        }
+        if (vertexCount == 0) {
+            return new Rectangle2D.Double();
+        }
+        Point2D.Double start = pointAt(from);
+        Point2D.Double end = pointAt(to);
+        double minX = Math.min(start.x, end.x);
+        double minY = Math.min(start.y, end.y);
+        double maxX = Math.max(start.x, end.x);
+        double maxY = Math.max(start.y, end.y);
+        for (int i = firstInnerVertex(); i < vertexCount && lengths[i] < to; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    /**
+     * @return Index of the first vertex strictly after the beginning of this view
+     */
+    private int firstInnerVertex() {
+        return vertexCount > 1 ? segmentAt(from) + 1 : vertexCount;
+    }
+
+    @Override
+    public boolean contains(double x, double y) {
+        return source != null ? source.contains(x, y) : toPath2D().contains(x, y);
+    }
+
+    @Override
+    public boolean contains(Point2D p) {
+        return contains(p.getX(), p.getY());
+    }
+
+    @Override
+    public boolean intersects(double x, double y, double w, double h) {
+        return source != null ? source.intersects(x, y, w, h) : toPath2D().intersects(x, y, w, h);
+    }
+
+    @Override
+    public boolean intersects(Rectangle2D r) {
+        return intersects(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+    }
+
+    @Override
+    public boolean contains(double x, double y, double w, double h) {
+        return source != null ? source.contains(x, y, w, h) : toPath2D().contains(x, y, w, h);
+    }
+
+    @Override
+    public boolean contains(Rectangle2D r) {
+        return contains(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+    }
+
+    /**
+     * Iterates over the start point, the inner vertices and the end point of a view.
+     */
+    private class ViewIterator implements PathIterator {
+        private final AffineTransform at;
+        private final int lastInnerVertex;
+        // -1 for the start point, then inner vertex indexes, then lastInnerVertex + 1 for the end point
+        private final int firstInnerVertex;
+        private int current = -1;
+
+        ViewIterator(AffineTransform at) {
+            this.at = at;
+            firstInnerVertex = firstInnerVertex();
+            int last = firstInnerVertex - 1;
+            while (last + 1 < vertexCount && lengths[last + 1] < to) {
+                last++;
+            }
+            lastInnerVertex = last;
+        }
+
+        @Override
+        public int getWindingRule() {
+            return WIND_NON_ZERO;
+        }
+
+        @Override
+        public boolean isDone() {
+            return current > lastInnerVertex + 1 || vertexCount == 0;
+        }
+
+        @Override
+        public void next() {
+            if (current == -1) {
+                current = firstInnerVertex;
+            } else {
+                current++;
+            }
+        }
+
+        private int fill(double x, double y, double[] coords, int type) {
+            coords[0] = x;
+            coords[1] = y;
+            return type;
+        }
+
+        private int segment(double[] coords) {
+            int type;
+            if (current == -1) {
+                Point2D.Double start = pointAt(from);
+                type = fill(start.x, start.y, coords, SEG_MOVETO);
+            } else if (current > lastInnerVertex) {
+                Point2D.Double end = pointAt(to);
+                type = fill(end.x, end.y, coords, SEG_LINETO);
+            } else {
+                type = fill(xs[current], ys[current], coords, SEG_LINETO);
+            }
+            if (at != null) {
+                at.transform(coords, 0, coords, 0, 1);
+            }
+            return type;
+        }
+
+        @Override
+        public int currentSegment(float[] coords) {
+            double[] dCoords = new double[2];
+            int type = segment(dCoords);
+            coords[0] = (float) dCoords[0];
+            coords[1] = (float) dCoords[1];
+            return type;
+        }
+
+        @Override
+        public int currentSegment(double[] coords) {
+            return segment(coords);
+        }
+    }
+}
@@ -56,7 +56,7 @@ public final class ShapeHelper {
 
     public static final double ONE_DEG_IN_RAD = Math.PI / 180.0;
     private static final boolean ENABLE_QUAD = true;
-    private static final double FLATNESS = 1e-5;
+    static final double FLATNESS = 1e-5;
     private static final Logger LOGGER = LoggerFactory.getLogger(ShapeHelper.class);
     private static final I18n I18N = I18nFactory.getI18n(ShapeHelper.class);
     
@@ -70,6 +70,9 @@ public final class ShapeHelper {
      * @return
      */
     public static double getAreaPerimeterLength(Shape area) {
+        if (area instanceof FlattenedPath) {
+            return ((FlattenedPath) area).getLength();
+        }
         PathIterator it = area.getPathIterator(null, FLATNESS);
 
         double coords[] = new double[6];
@@ -171,6 +174,9 @@ public final class ShapeHelper {
      * @return Generated lines.
      */
     public static List<Shape> splitLine(Shape line, double firstLineLength) {
+        if (line instanceof FlattenedPath) {
+            return ((FlattenedPath) line).split(firstLineLength);
+        }
 
         ArrayList<Shape> shapes = new ArrayList<Shape>();
 
@@ -261,6 +267,9 @@ public final class ShapeHelper {
      * @return list of equal-length segment
      */
     public static List<Shape> splitLineInSeg(Shape line, double segLength) {
+        if (line instanceof FlattenedPath) {
+            return ((FlattenedPath) line).splitInSegments(segLength);
+        }
         List<Shape> shapes = new ArrayList<Shape>();
         double totalLength = ShapeHelper.getLineLength(line);
         if (segLength <= 0.0 || segLength >= totalLength) {
@@ -347,6 +356,9 @@ public final class ShapeHelper {
      * @return list of equal-length segment
      */
     public static List<Shape> splitLine(Shape line, int nbPart) {
+        if (line instanceof FlattenedPath) {
+            return ((FlattenedPath) line).splitInParts(nbPart);
+        }
         ArrayList<Shape> shapes = new ArrayList<Shape>();
         double perimeter = getLineLength(line);
 
@@ -449,6 +461,9 @@ public final class ShapeHelper {
      * @return point representing the point at the linear length distance
      */
     public static Point2D.Double getPointAt(Shape shp, double distance) {
+        if (shp instanceof FlattenedPath) {
+            return ((FlattenedPath) shp).getPointAt(distance);
+        }
         PathIterator it = shp.getPathIterator(null, FLATNESS);
 
         double coords[] = new double[6];
@@ -36,6 +36,11 @@
  */
 package org.orbisgis.coremap.renderer.se.fill;
 
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.triangulate.ConformingDelaunayTriangulationBuilder;
 import net.opengis.se._2_0.thematic.DotMapFillType;
 import net.opengis.se._2_0.thematic.ObjectFactory;
 import org.slf4j.*;
@@ -56,10 +61,12 @@ import javax.xml.bind.JAXBElement;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
+import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -79,6 +86,11 @@ public final class DotMapFill extends Fill implements GraphicNode {
     private static final I18n I18N = I18nFactory.getI18n(DotMapFill.class);
     
     static final int MAX_ATTEMPT = 100;
+    /**
+     * Flatness used to read the shape rings, in pixels.
+     */
+    private static final double FLATNESS = 0.1;
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
 
     private GraphicCollection mark;
     private RealParameter quantityPerMark;
@@ -209,18 +221,123 @@ public final class DotMapFill extends Fill implements GraphicNode {
 
         // setting the seed to the scale denom will ensure that mark will not move when panning
         rand.setSeed((long) mt.getScaleDenominator());
-        for (int i = 0; i < nb; i++) {
-            Point2D.Double pos = findMarkPosition(area);
-            if (pos != null) {
+        double[] triangles = nb > 0 ? triangulate(area) : null;
+        if (triangles != null) {
+            double[] cumulatedAreas = cumulateAreas(triangles);
+            for (int i = 0; i < nb; i++) {
+                Point2D.Double pos = findMarkPosition(triangles, cumulatedAreas);
                 mark.draw(g2, map, selected, mt, AffineTransform.getTranslateInstance(pos.x, pos.y));
-            } else {
-                LOGGER.error(I18N.tr("Could not find position for mark within area"));
             }
+        } else {
+            for (int i = 0; i < nb; i++) {
+                Point2D.Double pos = findMarkPosition(area);
+                if (pos != null) {
+                    mark.draw(g2, map, selected, mt, AffineTransform.getTranslateInstance(pos.x, pos.y));
+                } else {
+                    LOGGER.error(I18N.tr("Could not find position for mark within area"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Split the area into triangles, so that every random position picked in
+     * a triangle stands within the area.
+     * @param area
+     * @return Triangle coordinates, six values per triangle, or null if the area cannot be triangulated
+     */
+    private static double[] triangulate(Area area) {
+        List<LineString> rings = new ArrayList<LineString>();
+        List<Coordinate> ring = new ArrayList<Coordinate>();
+        double coords[] = new double[6];
+        for (PathIterator it = area.getPathIterator(null, FLATNESS); !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_CLOSE) {
+                addRing(rings, ring);
+                ring.clear();
+            }
+            if (type != PathIterator.SEG_CLOSE) {
+                ring.add(new Coordinate(coords[0], coords[1]));
+            }
+        }
+        addRing(rings, ring);
+        if (rings.isEmpty()) {
+            return null;
+        }
+        Geometry triangles;
+        try {
+            ConformingDelaunayTriangulationBuilder builder = new ConformingDelaunayTriangulationBuilder();
+            Geometry constraints = GEOMETRY_FACTORY.createMultiLineString(rings.toArray(new LineString[rings.size()]));
+            builder.setSites(constraints);
+            builder.setConstraints(constraints);
+            triangles = builder.getTriangles(GEOMETRY_FACTORY);
+        } catch (RuntimeException ex) {
+            LOGGER.debug("Could not triangulate the area, fall back to random positions", ex);
+            return null;
+        }
+        double[] result = new double[triangles.getNumGeometries() * 6];
+        int size = 0;
+        for (int i = 0; i < triangles.getNumGeometries(); i++) {
+            Coordinate[] vertices = triangles.getGeometryN(i).getCoordinates();
+            // The triangulation covers the convex hull, keep the triangles inside the area
+            if (vertices.length >= 3 && area.contains((vertices[0].x + vertices[1].x + vertices[2].x) / 3,
+                    (vertices[0].y + vertices[1].y + vertices[2].y) / 3)) {
+                for (int j = 0; j < 3; j++) {
+                    result[size++] = vertices[j].x;
+                    result[size++] = vertices[j].y;
+                }
+            }
+        }
+        return size > 0 ? Arrays.copyOf(result, size) : null;
+    }
+
+    private static void addRing(List<LineString> rings, List<Coordinate> ring) {
+        if (ring.size() > 2) {
+            List<Coordinate> closed = new ArrayList<Coordinate>(ring);
+            if (!ring.get(0).equals2D(ring.get(ring.size() - 1))) {
+                closed.add(new Coordinate(ring.get(0)));
+            }
+            rings.add(GEOMETRY_FACTORY.createLineString(closed.toArray(new Coordinate[closed.size()])));
+        }
+    }
+
+    private static double[] cumulateAreas(double[] triangles) {
+        double[] cumulatedAreas = new double[triangles.length / 6];
+        double sum = 0;
+        for (int i = 0; i < cumulatedAreas.length; i++) {
+            int t = i * 6;
+            sum += Math.abs((triangles[t + 2] - triangles[t]) * (triangles[t + 5] - triangles[t + 1])
+                    - (triangles[t + 4] - triangles[t]) * (triangles[t + 3] - triangles[t + 1])) / 2;
+            cumulatedAreas[i] = sum;
+        }
+        return cumulatedAreas;
+    }
+
+    /**
+     * Find a random point within the triangles, each triangle being chosen according to its area.
+     * @param triangles Triangle coordinates
+     * @param cumulatedAreas Cumulated area of the triangles
+     * @return A random point in the triangles
+     */
+    private Point2D.Double findMarkPosition(double[] triangles, double[] cumulatedAreas) {
+        double pick = rand.nextDouble() * cumulatedAreas[cumulatedAreas.length - 1];
+        int index = Arrays.binarySearch(cumulatedAreas, pick);
+        if (index < 0) {
+            index = -index - 1;
         }
+        int t = Math.min(index, cumulatedAreas.length - 1) * 6;
+        // Uniform distribution in the triangle
+        double r1 = Math.sqrt(rand.nextDouble());
+        double r2 = rand.nextDouble();
+        double a = 1 - r1;
+        double b = r1 * (1 - r2);
+        double c = r1 * r2;
+        return new Point2D.Double(a * triangles[t] + b * triangles[t + 2] + c * triangles[t + 4],
+                a * triangles[t + 1] + b * triangles[t + 3] + c * triangles[t + 5]);
     }
 
     /**
-     * Ugly version to find a random point which stand within the area
+     * Find a random point which stand within the area, used when the area cannot be triangulated
      * @param area
      * @return
      */
@@ -79,6 +79,10 @@ public final class GraphicFill extends Fill {
      * Distance between two graphics in the fill, in Y direction.
      */
     private RealParameter gapY;
+    /**
+     * Tiles rendered for the last used parameters.
+     */
+    private final TileCache tileCache = new TileCache();
 
     /**
      * Creates a new GraphicFill, with the gap's measures set to null.
@@ -179,6 +183,12 @@ public final class GraphicFill extends Fill {
         return gapY;
     }
 
+    @Override
+    public void update() {
+        tileCache.clear();
+        super.update();
+    }
+
     /**
      * see Fill
      */
@@ -225,7 +235,49 @@ public final class GraphicFill extends Fill {
         gX = Uom.toPixel(gX, getUom(), mt.getDpi(), mt.getScaleDenominator(), bounds.getWidth());
         gY = Uom.toPixel(gY, getUom(), mt.getDpi(), mt.getScaleDenominator(), bounds.getHeight());
 
-        return getPaint(map, selected, mt, graphic, gX, gY, bounds);
+        if (bounds == null) {
+            return null;
+        }
+        List<Object> key = tileCache.createKey(this, map, selected, getUom(), mt.getScaleDenominator(), mt.getDpi(),
+                mt.getRenderingHints(), gX, gY, bounds);
+        BufferedImage tile = tileCache.get(key);
+        if (tile == null) {
+            tile = createTile(map, selected, mt, graphic, gX, gY, bounds);
+            tileCache.put(key, tile);
+        }
+        Point2D.Double geoRef = new Point2D.Double(0, 0);
+        Point2D ref = mt.getAffineTransform().transform(geoRef, null);
+        // The cached tile is anchored on the map reference point
+        return new TexturePaint(tile, new Rectangle2D.Double(tileOffset(ref.getX(), tile.getWidth()),
+                tileOffset(ref.getY(), tile.getHeight()), tile.getWidth(), tile.getHeight()));
+    }
+
+    private static int tileOffset(double ref, int tileSize) {
+        return (int) (ref - Math.ceil(ref / tileSize) * tileSize);
+    }
+
+    /**
+     * Render a tile of the graphic, the tile origin is the map reference point.
+     */
+    private static BufferedImage createTile(Map<String,Object> map, boolean selected,
+            MapTransform mt, GraphicCollection graphic, double gX, double gY, Rectangle2D bounds)
+            throws ParameterException, IOException {
+        int tWidth = (int) (bounds.getWidth() + gX);
+        int tHeight = (int) (bounds.getHeight() + gY);
+        BufferedImage i = new BufferedImage(tWidth, tHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D tile = i.createGraphics();
+        tile.setRenderingHints(mt.getRenderingHints());
+        // Draw the neighbour graphics too, for the parts that overlap the tile border
+        for (int ix = -1; ix < 2; ix++) {
+            for (int iy = -1; iy < 2; iy++) {
+                graphic.draw(tile, map, selected, mt,
+                        AffineTransform.getTranslateInstance(
+                        -bounds.getMinX() + gX / 2.0 + tWidth * ix,
+                        -bounds.getMinY() + gY / 2.0 + tHeight * iy));
+            }
+        }
+        tile.dispose();
+        return i;
     }
 
     public static Paint getPaint(Map<String,Object> map, boolean selected,
@@ -40,6 +40,7 @@ import net.opengis.se._2_0.core.FillType;
 import net.opengis.se._2_0.core.HatchedFillType;
 import net.opengis.se._2_0.core.ObjectFactory;
 import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.Renderer;
 import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
 import org.orbisgis.coremap.renderer.se.StrokeNode;
 import org.orbisgis.coremap.renderer.se.SymbolizerNode;
@@ -50,12 +51,15 @@ import org.orbisgis.coremap.renderer.se.parameter.real.RealParameter;
 import org.orbisgis.coremap.renderer.se.parameter.real.RealParameterContext;
 import org.orbisgis.coremap.renderer.se.stroke.PenStroke;
 import org.orbisgis.coremap.renderer.se.stroke.Stroke;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.xml.bind.JAXBElement;
 import java.awt.*;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -76,6 +80,8 @@ import java.util.Map;
  */
 public final class HatchedFill extends Fill implements StrokeNode {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(HatchedFill.class);
+
     //Useful constants.
     private static final double EPSILON = 0.01; // todo Eval, and use an external EPSILON value.
     private static final double TWO_PI_DEG = 360.0;
@@ -96,6 +102,10 @@ public final class HatchedFill extends Fill implements StrokeNode {
     private RealParameter distance;
     private RealParameter offset;
     private Stroke stroke;
+    /**
+     * Hatch tiles rendered for the last used parameters.
+     */
+    private final TileCache tileCache = new TileCache();
 
 
     /**
@@ -151,11 +161,18 @@ public final class HatchedFill extends Fill implements StrokeNode {
                     hOffset = Uom.toPixel(this.offset.getValue(map), this.getUom(), mt.getDpi(), mt.getScaleDenominator(), null);
                 }
 
-                drawHatch(g2, map, shp, selected, mt, alpha, pDist, stroke, hOffset);
-                
+                // Vector outputs keep the hatches as lines
+                Paint hatches = Boolean.TRUE.equals(g2.getRenderingHint(Renderer.KEY_VECTOR_OUTPUT)) ? null :
+                        getHatchPaint(map, selected, mt, alpha, pDist, hOffset);
+                if (hatches != null) {
+                    g2.setPaint(hatches);
+                    g2.fill(shp);
+                } else {
+                    drawHatch(g2, map, shp, selected, mt, alpha, pDist, stroke, hOffset);
+                }
+
             } catch (RuntimeException eee) {
-                System.out.println("Error " + eee);
-                eee.printStackTrace(System.out);
+                LOGGER.error(eee.getLocalizedMessage(), eee);
             }
         }
 
@@ -163,6 +180,96 @@ public final class HatchedFill extends Fill implements StrokeNode {
     }
 
 
+    @Override
+    public void update() {
+        tileCache.clear();
+        super.update();
+    }
+
+    /**
+     * Hatches drawn with a plain pen stroke are periodic: they are painted with
+     * a cached tile anchored on the reference hatch, instead of stroking each
+     * hatch of each shape.
+     * @return The hatch paint, or null if the hatches have to be drawn one by one
+     */
+    private Paint getHatchPaint(Map<String,Object> map, boolean selected, MapTransform mt, double alph,
+            double pDist, double hOffset) throws ParameterException, IOException {
+        if (!(stroke instanceof PenStroke) || pDist <= 0) {
+            return null;
+        }
+        PenStroke penStroke = (PenStroke) stroke;
+        if (penStroke.getDashArray() != null && !penStroke.getDashArray().getValue(map).trim().isEmpty()) {
+            // Dashes depend on the beginning of each hatch
+            return null;
+        }
+        double alpha = toRadian(alph);
+        double cosAlpha = Math.cos(alpha);
+        double sinAlpha = Math.sin(alpha);
+        if (Math.abs(sinAlpha) < EPSILON) {
+            sinAlpha = 0.0;
+        }
+        if (Math.abs(cosAlpha) < EPSILON) {
+            cosAlpha = 0.0;
+        }
+        // The hatches repeat every pDist / sin(alpha) on x and every pDist / cos(alpha) on y
+        double tileWidth = sinAlpha == 0 ? pDist : Math.abs(pDist / sinAlpha);
+        double tileHeight = cosAlpha == 0 ? pDist : Math.abs(pDist / cosAlpha);
+        int width = (int) Math.max(1, Math.ceil(tileWidth));
+        int height = (int) Math.max(1, Math.ceil(tileHeight));
+        if ((long) width * height > TileCache.MAX_TILE_PIXELS) {
+            return null;
+        }
+        List<Object> key = tileCache.createKey(this, map, selected, getUom(), mt.getScaleDenominator(), mt.getDpi(),
+                mt.getRenderingHints(), alph, pDist);
+        BufferedImage tile = tileCache.get(key);
+        if (tile == null) {
+            tile = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2 = tile.createGraphics();
+            g2.setRenderingHints(mt.getRenderingHints());
+            // Pixels are stretched back to the exact hatch period by the texture anchor
+            g2.scale(width / tileWidth, height / tileHeight);
+            // Hatches are the lines at k * pDist from the reference hatch, which goes through the tile origin
+            double normalX = -sinAlpha;
+            double normalY = cosAlpha;
+            double centerX = tileWidth / 2;
+            double centerY = tileHeight / 2;
+            double centerDistance = centerX * normalX + centerY * normalY;
+            double halfLength = Math.hypot(tileWidth, tileHeight) / 2 + penStroke.getWidthInPixel(map, mt);
+            Line2D.Double hatch = new Line2D.Double();
+            long first = (long) Math.floor((centerDistance - halfLength) / pDist);
+            long last = (long) Math.ceil((centerDistance + halfLength) / pDist);
+            for (long k = first; k <= last; k++) {
+                double shift = k * pDist - centerDistance;
+                double x = centerX + shift * normalX;
+                double y = centerY + shift * normalY;
+                hatch.setLine(x - halfLength * cosAlpha, y - halfLength * sinAlpha,
+                        x + halfLength * cosAlpha, y + halfLength * sinAlpha);
+                stroke.draw(g2, map, hatch, selected, mt, 0.0);
+            }
+            g2.dispose();
+            tileCache.put(key, tile);
+        }
+        Point2D ref = mt.getAffineTransform().transform(new Point2D.Double(0, 0), null);
+        double beta = Math.PI / 2.0 + alpha;
+        return new TexturePaint(tile, new Rectangle2D.Double(ref.getX() + Math.cos(beta) * hOffset,
+                ref.getY() + Math.sin(beta) * hOffset, tileWidth, tileHeight));
+    }
+
+    /**
+     * @param alph Angle in degree
+     * @return The angle in radian, in [0, 2PI]
+     */
+    private static double toRadian(double alph) {
+        double alpha = alph;
+        while (alpha < 0.0) {
+            alpha += TWO_PI_DEG;
+        }   // Make sure alpha is > 0
+        while (alpha > TWO_PI_DEG) {
+            alpha -= TWO_PI_DEG;
+        } // and < 360.0
+        return alpha * Math.PI / PI_DEG; // and finally convert in radian
+    }
+
     /**
      * Static method that draw hatches within provided shp
      * 
@@ -182,14 +289,7 @@ public final class HatchedFill extends Fill implements StrokeNode {
     public static void drawHatch(Graphics2D g2, Map<String,Object> map, Shape shp,
             boolean selected, MapTransform mt, double alph, double pDist, Stroke stroke,
             double hOffset) throws ParameterException, IOException {
-        double alpha = alph;
-        while (alpha < 0.0) {
-            alpha += TWO_PI_DEG;
-        }   // Make sure alpha is > 0
-        while (alpha > TWO_PI_DEG) {
-            alpha -= TWO_PI_DEG;
-        } // and < 360.0
-        alpha = alpha * Math.PI / PI_DEG; // and finally convert in radian
+        double alpha = toRadian(alph);
         double beta = Math.PI / 2.0 + alpha;
         double deltaOx = Math.cos(beta) * hOffset;
         double deltaOy = Math.sin(beta) * hOffset;
@@ -0,0 +1,117 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.fill;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.orbisgis.coremap.renderer.se.SymbolizerNode;
+import org.orbisgis.coremap.renderer.se.visitors.FeaturesVisitor;
+
+/**
+ * Keep the last rendered tiles of a fill, so that all the features sharing
+ * the same symbol parameters are painted with the same tile.
+ * The key of a tile holds the values of the fields used by the fill and the
+ * rendering parameters (scale, dpi..) given by the fill.
+ * @author Nicolas Fortin
+ */
+final class TileCache {
+    private static final int MAX_TILES = 16;
+    /**
+     * Tiles bigger than this number of pixels are not kept.
+     */
+    static final int MAX_TILE_PIXELS = 512 * 512;
+    private final Map<List<Object>, BufferedImage> tiles =
+            new LinkedHashMap<List<Object>, BufferedImage>(MAX_TILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, BufferedImage> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+    private List<String> fields;
+
+    /**
+     * Create the key of the tile.
+     * @param node Fill that paint the tile
+     * @param map Feature values
+     * @param parameters Rendering parameters
+     * @return The tile key
+     */
+    synchronized List<Object> createKey(SymbolizerNode node, Map<String, Object> map, Object... parameters) {
+        if (fields == null) {
+            FeaturesVisitor visitor = new FeaturesVisitor();
+            node.acceptVisitor(visitor);
+            fields = new ArrayList<String>(visitor.getResult());
+        }
+        List<Object> key = new ArrayList<Object>(fields.size() + parameters.length);
+        for (String field : fields) {
+            key.add(map != null ? map.get(field) : null);
+        }
+        key.addAll(Arrays.asList(parameters));
+        return key;
+    }
+
+    /**
+     * @param key Tile key
+     * @return The tile or null if it is not in the cache
+     */
+    synchronized BufferedImage get(List<Object> key) {
+        return tiles.get(key);
+    }
+
+    /**
+     * Keep the tile, if it is not too big.
+     * @param key Tile key
+     * @param tile Rendered tile
+     */
+    synchronized void put(List<Object> key, BufferedImage tile) {
+        if ((long) tile.getWidth() * tile.getHeight() <= MAX_TILE_PIXELS) {
+            tiles.put(key, tile);
+        }
+    }
+
+    /**
+     * Forget all tiles, called when the style changes.
+     */
+    synchronized void clear() {
+        tiles.clear();
+        fields = null;
+    }
+}
@@ -52,8 +52,8 @@ import net.opengis.se._2_0.core.ObjectFactory;
 import org.orbisgis.coremap.map.MapTransform;
 import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
 import org.orbisgis.coremap.renderer.se.SymbolizerNode;
+import org.orbisgis.coremap.renderer.se.common.FlattenedPath;
 import org.orbisgis.coremap.renderer.se.common.RelativeOrientation;
-import org.orbisgis.coremap.renderer.se.common.ShapeHelper;
 import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
 
 /**
@@ -167,7 +167,9 @@ public class LineLabel extends Label {
         if(ra == null) {
             ra= RelativeOrientation.NORMAL_UP;
         }
-        double lineLength = ShapeHelper.getLineLength(shp);
+        // Two points are looked up for each glyph, flatten the line once
+        FlattenedPath line = FlattenedPath.of(shp);
+        double lineLength = line.getLength();
         double startAt;
         double stopAt;
         switch (hA) {
@@ -192,8 +194,8 @@ public class LineLabel extends Label {
         if (stopAt > lineLength){
             stopAt = lineLength;
         }
-        Point2D.Double ptStart = ShapeHelper.getPointAt(shp, startAt);
-        Point2D.Double ptStop = ShapeHelper.getPointAt(shp, stopAt);
+        Point2D.Double ptStart = line.getPointAt(startAt);
+        Point2D.Double ptStop = line.getPointAt(stopAt);
         int way = 1;
         // Do not laid out the label upside-down !
                 if (ptStart.x > ptStop.x){
@@ -215,8 +217,8 @@ public class LineLabel extends Label {
                 Rectangle2D gBounds = getLabel().getBounds(g2, glyph, map, mt);
 
                 glyphWidth = gBounds.getWidth()*way;
-                Point2D.Double pAt = ShapeHelper.getPointAt(shp, currentPos);
-                Point2D.Double pAfter = ShapeHelper.getPointAt(shp, currentPos + glyphWidth);
+                Point2D.Double pAt = line.getPointAt(currentPos);
+                Point2D.Double pAfter = line.getPointAt(currentPos + glyphWidth);
                 //We compute the angle we must use to rotate our glyph.
                 double theta = Math.atan2(pAfter.y - pAt.y, pAfter.x - pAt.x);
                 //We compute the place where we will draw the chatacter, and
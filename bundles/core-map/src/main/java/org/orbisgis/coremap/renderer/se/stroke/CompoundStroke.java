@@ -50,6 +50,7 @@ import org.orbisgis.coremap.map.MapTransform;
 import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
 import org.orbisgis.coremap.renderer.se.SymbolizerNode;
 import org.orbisgis.coremap.renderer.se.UomNode;
+import org.orbisgis.coremap.renderer.se.common.FlattenedPath;
 import org.orbisgis.coremap.renderer.se.common.ShapeHelper;
 import org.orbisgis.coremap.renderer.se.common.Uom;
 import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
@@ -228,7 +229,9 @@ public final class CompoundStroke extends Stroke implements UomNode {
 
         //ShapeHelper.printvertices(shape);
 
-        for (Shape shp : shapes) {
+        for (Shape line : shapes) {
+            // Flatten once, gaps and elements are views on the same vertices
+            Shape shp = FlattenedPath.of(line);
 
             if (preGap != null) {
                 initGap = Uom.toPixel(preGap.getValue(map), getUom(), mt.getDpi(), mt.getScaleDenominator(), null);
@@ -54,6 +54,7 @@ import org.orbisgis.coremap.renderer.se.GraphicNode;
 import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
 import org.orbisgis.coremap.renderer.se.SymbolizerNode;
 import org.orbisgis.coremap.renderer.se.UomNode;
+import org.orbisgis.coremap.renderer.se.common.FlattenedPath;
 import org.orbisgis.coremap.renderer.se.common.RelativeOrientation;
 import org.orbisgis.coremap.renderer.se.common.ShapeHelper;
 import org.orbisgis.coremap.renderer.se.common.Uom;
@@ -263,7 +264,9 @@ public final class GraphicStroke extends Stroke implements GraphicNode, UomNode
 
 
         double gWidth = getGraphicWidth(map, mt);
-        for (Shape shp : shapes) {
+        for (Shape line : shapes) {
+            // Flatten once, segments are views on the same vertices
+            Shape shp = FlattenedPath.of(line);
             double segLength = getNaturalLength(map, shp, mt);
             double lineLength = ShapeHelper.getLineLength(shp);
 
@@ -305,9 +308,10 @@ public final class GraphicStroke extends Stroke implements GraphicNode, UomNode
                         oSegs.add(seg);
                     }
 
-                    for (Shape oSeg : oSegs) {
-                        if (oSeg != null) {
-                            double realSegLength = ShapeHelper.getLineLength(oSeg);
+                    for (Shape offsetSeg : oSegs) {
+                        if (offsetSeg != null) {
+                            FlattenedPath oSeg = FlattenedPath.of(offsetSeg);
+                            double realSegLength = oSeg.getLength();
                             // Is there enough space on the real segment ?  otherwise is the graphic part of a compound stroke ?
                             if (realSegLength > 0.9 * segLength || (getParent() instanceof StrokeElement && segLength == 0.0)) {
                                 Point2D.Double pt;
@@ -318,10 +322,10 @@ public final class GraphicStroke extends Stroke implements GraphicNode, UomNode
                                 }
 
                                 if (segLength < MIN_LENGTH) {
-                                    pt = ShapeHelper.getPointAt(oSeg, 0);
+                                    pt = oSeg.getPointAt(0);
                                 } else {
                                     // TODO Replace with relative position !
-                                    pt = ShapeHelper.getPointAt(oSeg, realSegLength * relativePos);
+                                    pt = oSeg.getPointAt(realSegLength * relativePos);
                                 }
                                 AffineTransform at = AffineTransform.getTranslateInstance(pt.x, pt.y);
 
@@ -331,10 +335,10 @@ public final class GraphicStroke extends Stroke implements GraphicNode, UomNode
 
                                     if (segLength < MIN_LENGTH) {
                                         ptA = pt;
-                                        ptB = ShapeHelper.getPointAt(oSeg, gWidth);
+                                        ptB = oSeg.getPointAt(gWidth);
                                     } else {
-                                        ptA = ShapeHelper.getPointAt(oSeg, relativePos * realSegLength - (gWidth*0.5));
-                                        ptB = ShapeHelper.getPointAt(oSeg, relativePos * realSegLength + (gWidth*0.5));
+                                        ptA = oSeg.getPointAt(relativePos * realSegLength - (gWidth*0.5));
+                                        ptB = oSeg.getPointAt(relativePos * realSegLength + (gWidth*0.5));
                                     }
 
                                     double theta = Math.atan2(ptB.y - ptA.y, ptB.x - ptA.x);
@@ -52,6 +52,7 @@ import org.orbisgis.coremap.map.MapTransform;
 import org.orbisgis.coremap.renderer.se.FillNode;
 import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
 import org.orbisgis.coremap.renderer.se.SymbolizerNode;
+import org.orbisgis.coremap.renderer.se.common.FlattenedPath;
 import org.orbisgis.coremap.renderer.se.common.ShapeHelper;
 import org.orbisgis.coremap.renderer.se.common.Uom;
 import org.orbisgis.coremap.renderer.se.fill.Fill;
@@ -550,7 +551,8 @@ public final class PenStroke extends Stroke implements FillNode {
                 if (this.dashArray != null && !this.dashArray.getValue(map).isEmpty() && Math.abs(offset) > 0.0) {
                     String value = dashArray.getValue(map);
                     String[] split = value.split("\\s+");
-                    Shape chute = shp;
+                    // Dashes are views on the vertices of the flattened line
+                    Shape chute = FlattenedPath.of(shp);
                     List<Shape> fragments = new ArrayList<Shape>();
                     BasicStroke bs = createBasicStroke(map, shp, mt, null, false);
 
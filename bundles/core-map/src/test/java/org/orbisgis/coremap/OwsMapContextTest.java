@@ -41,11 +41,14 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URI;
 import java.sql.Connection;
 import java.sql.Statement;
 import java.util.Locale;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import org.h2gis.functions.io.shp.SHPDriverFunction;
@@ -194,6 +197,75 @@ public class OwsMapContextTest  {
         newMapContext.open(new NullProgressMonitor());
         assertEquals(1, newMapContext.getLayers().length);
         assertTrue(newMapContext.getLayers()[0].getDataUri().toString().contains("table=LANDCOVER2000"));
+        // The data source of the layer is opened on query
+        newMapContext.getLayers()[0].getEnvelope();
         assertEquals(TableLocation.parse("LANDCOVER2000").getTable(), TableLocation.parse(newMapContext.getLayers()[0].getTableReference()).getTable());
     }
+
+    /**
+     * Read, open and write a map context document.
+     * @param location Map context location
+     * @param document Map context document
+     * @param open True to open the map context and its layers
+     * @return Written document
+     */
+    private String rewrite(URI location, InputStream document, boolean open) throws Exception {
+        MapContext mc = new OwsMapContext(getDataManager());
+        mc.setLocation(location);
+        mc.read(document);
+        if(open) {
+            mc.open(new NullProgressMonitor());
+            for(ILayer layer : mc.getLayers()) {
+                // Open the data source and the styles
+                layer.getEnvelope();
+            }
+            mc.close(new NullProgressMonitor());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mc.write(out);
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void testRoundTripUnchanged() throws Exception {
+        URI owsFile = OwsMapContextTest.class.getResource("../../../data/landcover2000.ows").toURI();
+        String document;
+        try(InputStream in = new FileInputStream(new File(owsFile))) {
+            document = rewrite(owsFile, in, true);
+        }
+        // The styles are written back without being read
+        assertEquals(document, rewrite(owsFile, new ByteArrayInputStream(document.getBytes("UTF-8")), false));
+        // The styles are read and written back
+        assertEquals(document, rewrite(owsFile, new ByteArrayInputStream(document.getBytes("UTF-8")), true));
+    }
+
+    @Test
+    public void testLayerFailureIsolated() throws Exception {
+        URI owsFile = OwsMapContextTest.class.getResource("../../../data/landcover2000.ows").toURI();
+        String document;
+        try(InputStream in = new FileInputStream(new File(owsFile))) {
+            document = rewrite(owsFile, in, false);
+        }
+        // Add a copy of the layer with a missing data source
+        int layerStart = document.indexOf("<ns3:Layer");
+        int layerEnd = document.indexOf("</ns3:Layer>") + "</ns3:Layer>".length();
+        String missingLayer = document.substring(layerStart, layerEnd).replace("landcover2000.shp", "missing.shp");
+        document = document.substring(0, layerEnd) + missingLayer + document.substring(layerEnd);
+        MapContext mc = new OwsMapContext(getDataManager());
+        mc.setLocation(owsFile);
+        mc.read(new ByteArrayInputStream(document.getBytes("UTF-8")));
+        mc.open(new NullProgressMonitor());
+        ILayer[] layers = mc.getLayers();
+        assertEquals(2, layers.length);
+        assertFalse(layers[0].getEnvelope().isNull());
+        assertFalse(layers[0].getTableReference().isEmpty());
+        assertTrue(layers[1].getEnvelope().isNull());
+        assertTrue(layers[1].getTableReference().isEmpty());
+        // The failed layer is kept with its styles
+        assertEquals(1, layers[1].getStyles().size());
+        mc.close(new NullProgressMonitor());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mc.write(out);
+        assertTrue(out.toString("UTF-8").contains("missing.shp"));
+    }
 }
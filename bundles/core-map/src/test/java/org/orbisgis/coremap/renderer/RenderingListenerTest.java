@@ -0,0 +1,229 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.WKTReader;
+import org.h2gis.functions.factory.H2GISDBFactory;
+import org.h2gis.functions.factory.H2GISFunctions;
+import org.h2gis.utilities.SFSUtilities;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orbisgis.commons.progress.NullProgressMonitor;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.internal.DataManagerImpl;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.layerModel.Layer;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.se.AreaSymbolizer;
+import org.orbisgis.coremap.renderer.se.Rule;
+import org.orbisgis.coremap.renderer.se.Style;
+import org.orbisgis.coremap.renderer.se.Symbolizer;
+import org.orbisgis.coremap.renderer.se.fill.SolidFill;
+
+import javax.sql.DataSource;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Rendering events and frame profile of a known map.
+ * @author Nicolas Fortin
+ */
+public class RenderingListenerTest {
+    private static Connection connection;
+    private static DataManager dataManager;
+
+    @BeforeClass
+    public static void tearUpClass() throws Exception {
+        DataSource dataSource = SFSUtilities.wrapSpatialDataSource(H2GISDBFactory.createDataSource(RenderingListenerTest.class.getSimpleName(), false));
+        connection = dataSource.getConnection();
+        H2GISFunctions.load(connection);
+        dataManager = new DataManagerImpl(dataSource);
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS SQUARES");
+            st.execute("CREATE TABLE SQUARES(PK INT PRIMARY KEY, THE_GEOM POLYGON, TYPE INT)");
+            // Two squares in the extent, the last one is out of the extent
+            st.execute("INSERT INTO SQUARES VALUES (1, 'POLYGON((0 0,10 0,10 10,0 10,0 0))', 1)," +
+                    "(2, 'POLYGON((10 0,20 0,20 10,10 10,10 0))', 2)," +
+                    "(3, 'POLYGON((100 0,110 0,110 10,100 10,100 0))', 1)");
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        connection.close();
+        dataManager.dispose();
+    }
+
+    private static Rule createRule(String name, String where, Color color) {
+        Rule rule = new Rule();
+        rule.setName(name);
+        rule.setWhere(where);
+        AreaSymbolizer areaSymbolizer = new AreaSymbolizer();
+        areaSymbolizer.setName(name + " area");
+        areaSymbolizer.setFill(new SolidFill(color, 1.0));
+        areaSymbolizer.setStroke(null);
+        rule.getCompositeSymbolizer().addSymbolizer(areaSymbolizer);
+        return rule;
+    }
+
+    private static ILayer createLayer() {
+        ILayer layer = new Layer("squares", "SQUARES", dataManager);
+        Style style = new Style(layer, false);
+        style.addRule(createRule("type1", "TYPE = 1", Color.RED));
+        style.addRule(createRule("type2", "TYPE = 2", Color.GREEN));
+        layer.addStyle(style);
+        return layer;
+    }
+
+    private static void draw(ILayer layer, RenderingListener listener) {
+        MapTransform mt = new MapTransform();
+        mt.setImage(new BufferedImage(300, 100, BufferedImage.TYPE_INT_ARGB));
+        mt.setExtent(new Envelope(0, 30, 0, 10));
+        Renderer renderer = new ImageRenderer();
+        renderer.setRenderingListener(listener);
+        renderer.draw(mt, layer, new NullProgressMonitor());
+    }
+
+    @Test
+    public void testEventSequence() throws Exception {
+        EventRecorder recorder = new EventRecorder();
+        draw(createLayer(), recorder);
+        assertEquals(Arrays.asList("beginFrame",
+                "beginLayer squares",
+                "beginRule type1", "queryExecuted",
+                "rowFetched Polygon", "beginSymbolizer type1 area", "endSymbolizer type1 area true",
+                "endRule type1 1",
+                "beginRule type2", "queryExecuted",
+                "rowFetched Polygon", "beginSymbolizer type2 area", "endSymbolizer type2 area true",
+                "endRule type2 1",
+                "endLayer squares",
+                "endFrame"), recorder.events);
+    }
+
+    @Test
+    public void testFrameProfiler() throws Exception {
+        FrameProfiler profiler = new FrameProfiler();
+        draw(createLayer(), profiler);
+        assertEquals(1, profiler.getLayerProfiles().size());
+        FrameProfiler.LayerProfile layerProfile = profiler.getLayerProfiles().get(0);
+        assertEquals("squares", layerProfile.getLayerName());
+        assertEquals(2, layerProfile.getRowCount());
+        assertEquals(2, layerProfile.getFeatureCount());
+        // Polygon with 5 points: 9 bytes header and ring count, 4 bytes point count and 16 bytes per point
+        assertEquals(2 * 93, layerProfile.getGeometryBytes());
+        assertEquals(2, layerProfile.getSymbolizerProfiles().size());
+        for(FrameProfiler.SymbolizerProfile symbolizerProfile : layerProfile.getSymbolizerProfiles().values()) {
+            assertEquals(1, symbolizerProfile.getDrawCount());
+        }
+        // The profiler is reset at each frame
+        draw(createLayer(), profiler);
+        assertEquals(1, profiler.getLayerProfiles().size());
+        assertEquals(2, profiler.getLayerProfiles().get(0).getRowCount());
+    }
+
+    @Test
+    public void testWKBSize() throws Exception {
+        WKTReader wktReader = new WKTReader();
+        assertEquals(21, FrameProfiler.getWKBSize(wktReader.read("POINT(1 2)")));
+        assertEquals(41, FrameProfiler.getWKBSize(wktReader.read("LINESTRING(1 2, 3 4)")));
+        assertEquals(9 + 2 * 21, FrameProfiler.getWKBSize(wktReader.read("MULTIPOINT((1 2), (3 4))")));
+    }
+
+    private static class EventRecorder implements RenderingListener {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void beginFrame(MapTransform mt) {
+            events.add("beginFrame");
+        }
+
+        @Override
+        public void beginLayer(ILayer layer) {
+            events.add("beginLayer " + layer.getName());
+        }
+
+        @Override
+        public void beginRule(Rule rule) {
+            events.add("beginRule " + rule.getName());
+        }
+
+        @Override
+        public void queryExecuted(long nanos) {
+            events.add("queryExecuted");
+        }
+
+        @Override
+        public void rowFetched(Geometry geometry, long nanos) {
+            events.add("rowFetched " + geometry.getGeometryType());
+        }
+
+        @Override
+        public void beginSymbolizer(Symbolizer symbolizer) {
+            events.add("beginSymbolizer " + symbolizer.getName());
+        }
+
+        @Override
+        public void endSymbolizer(Symbolizer symbolizer, boolean drawn, long nanos) {
+            events.add("endSymbolizer " + symbolizer.getName() + " " + drawn);
+        }
+
+        @Override
+        public void endRule(Rule rule, long featureCount, long nanos) {
+            events.add("endRule " + rule.getName() + " " + featureCount);
+        }
+
+        @Override
+        public void endLayer(ILayer layer, long nanos) {
+            events.add("endLayer " + layer.getName());
+        }
+
+        @Override
+        public void endFrame(long nanos) {
+            events.add("endFrame");
+        }
+    }
+}
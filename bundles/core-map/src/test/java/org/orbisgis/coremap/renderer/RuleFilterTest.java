@@ -0,0 +1,199 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.h2gis.functions.factory.H2GISDBFactory;
+import org.h2gis.functions.factory.H2GISFunctions;
+import org.h2gis.utilities.SFSUtilities;
+import org.h2gis.utilities.SpatialResultSet;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orbisgis.commons.progress.NullProgressMonitor;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.internal.DataManagerImpl;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.layerModel.Layer;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.se.AreaSymbolizer;
+import org.orbisgis.coremap.renderer.se.Rule;
+import org.orbisgis.coremap.renderer.se.Style;
+import org.orbisgis.coremap.renderer.se.fill.SolidFill;
+
+import javax.sql.DataSource;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rule filters pushed into the layer query.
+ * @author Nicolas Fortin
+ */
+public class RuleFilterTest {
+    private static Connection connection;
+    private static DataManager dataManager;
+
+    @BeforeClass
+    public static void tearUpClass() throws Exception {
+        DataSource dataSource = SFSUtilities.wrapSpatialDataSource(H2GISDBFactory.createDataSource(RuleFilterTest.class.getSimpleName(), false));
+        connection = dataSource.getConnection();
+        H2GISFunctions.load(connection);
+        dataManager = new DataManagerImpl(dataSource);
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS SQUARES");
+            st.execute("CREATE TABLE SQUARES(PK INT PRIMARY KEY, THE_GEOM POLYGON, TYPE INT)");
+            // Three squares side by side, the last one has no type
+            st.execute("INSERT INTO SQUARES VALUES (1, 'POLYGON((0 0,10 0,10 10,0 10,0 0))', 1)," +
+                    "(2, 'POLYGON((10 0,20 0,20 10,10 10,10 0))', 2)," +
+                    "(3, 'POLYGON((20 0,30 0,30 10,20 10,20 0))', NULL)");
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        connection.close();
+        dataManager.dispose();
+    }
+
+    private static Rule createRule(String where, Color color) {
+        Rule rule = new Rule();
+        rule.setWhere(where);
+        AreaSymbolizer areaSymbolizer = new AreaSymbolizer();
+        areaSymbolizer.setFill(new SolidFill(color, 1.0));
+        areaSymbolizer.setStroke(null);
+        rule.getCompositeSymbolizer().addSymbolizer(areaSymbolizer);
+        return rule;
+    }
+
+    @Test
+    public void testCompile() {
+        assertEquals("", RuleFilterCompiler.compile(createRule(null, Color.RED)));
+        assertEquals("", RuleFilterCompiler.compile(createRule("  ", Color.RED)));
+        assertEquals("(TYPE = 1)", RuleFilterCompiler.compile(createRule("TYPE = 1", Color.RED)));
+        assertEquals("(TYPE = 1)", RuleFilterCompiler.compile(createRule("where TYPE = 1", Color.RED)));
+        assertEquals("(NAME = 'it''s; -- (')", RuleFilterCompiler.compile(createRule("NAME = 'it''s; -- ('",
+                Color.RED)));
+        assertNull(RuleFilterCompiler.compile(createRule("TYPE = 1; DROP TABLE SQUARES", Color.RED)));
+        assertNull(RuleFilterCompiler.compile(createRule("TYPE = 1) OR (1 = 1", Color.RED)));
+        assertNull(RuleFilterCompiler.compile(createRule("TYPE = 1 -- comment", Color.RED)));
+        assertNull(RuleFilterCompiler.compile(createRule("TYPE = 1 /* comment */", Color.RED)));
+        assertNull(RuleFilterCompiler.compile(createRule("NAME = 'a", Color.RED)));
+    }
+
+    @Test
+    public void testCompileElseFilter() {
+        assertEquals("", RuleFilterCompiler.compileElseFilter(Collections.<Rule>emptyList()));
+        assertEquals("NOT COALESCE((TYPE = 1), FALSE) AND NOT COALESCE((TYPE = 2), FALSE)",
+                RuleFilterCompiler.compileElseFilter(Arrays.asList(createRule("TYPE = 1", Color.RED),
+                        createRule("TYPE = 2", Color.GREEN))));
+        assertEquals(RuleFilterCompiler.MATCH_NONE, RuleFilterCompiler.compileElseFilter(Arrays.asList(
+                createRule("TYPE = 1", Color.RED), createRule(null, Color.GREEN))));
+        assertNull(RuleFilterCompiler.compileElseFilter(Arrays.asList(createRule("TYPE = 1;", Color.RED))));
+    }
+
+    private static int countFeatures(ILayer layer, String filter) throws Exception {
+        int count = 0;
+        try(ResultSetProviderFactory.ResultSetProvider provider = new DefaultResultSetProviderFactory()
+                .getResultSetProvider(layer, new NullProgressMonitor());
+            SpatialResultSet rs = provider.execute(new NullProgressMonitor(), new Envelope(0, 30, 0, 10),
+                    new HashSet<String>(), filter)) {
+            while (rs.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testFeatureCount() throws Exception {
+        ILayer layer = new Layer("squares", "SQUARES", dataManager);
+        assertEquals(3, countFeatures(layer, null));
+        assertEquals(3, countFeatures(layer, ""));
+        Rule type1 = createRule("TYPE = 1", Color.RED);
+        assertEquals(1, countFeatures(layer, RuleFilterCompiler.compile(type1)));
+        String elseFilter = RuleFilterCompiler.compileElseFilter(Arrays.asList(type1));
+        // The feature without type is accepted by the else filter
+        assertEquals(2, countFeatures(layer, elseFilter));
+    }
+
+    @Test
+    public void testDrawElseRule() throws Exception {
+        ILayer layer = new Layer("squares", "SQUARES", dataManager);
+        Style style = new Style(layer, false);
+        style.addRule(createRule("TYPE = 1", Color.RED));
+        style.addRule(createRule("TYPE = 2", Color.GREEN));
+        Rule elseRule = createRule(null, Color.BLUE);
+        elseRule.setFallbackRule(true);
+        style.addRule(elseRule);
+        layer.addStyle(style);
+        MapTransform mt = new MapTransform();
+        BufferedImage image = new BufferedImage(300, 100, BufferedImage.TYPE_INT_ARGB);
+        mt.setImage(image);
+        mt.setExtent(new Envelope(0, 30, 0, 10));
+        new ImageRenderer().draw(mt, layer, new NullProgressMonitor());
+        assertEquals(Color.RED.getRGB(), image.getRGB(50, 50));
+        assertEquals(Color.GREEN.getRGB(), image.getRGB(150, 50));
+        assertEquals(Color.BLUE.getRGB(), image.getRGB(250, 50));
+    }
+
+    @Test
+    public void testUnsafeFilterDrawAllFeatures() throws Exception {
+        ILayer layer = new Layer("squares", "SQUARES", dataManager);
+        Style style = new Style(layer, false);
+        style.addRule(createRule("TYPE = 1;", Color.RED));
+        layer.addStyle(style);
+        MapTransform mt = new MapTransform();
+        BufferedImage image = new BufferedImage(300, 100, BufferedImage.TYPE_INT_ARGB);
+        mt.setImage(image);
+        mt.setExtent(new Envelope(0, 30, 0, 10));
+        new ImageRenderer().draw(mt, layer, new NullProgressMonitor());
+        assertTrue(RuleFilterCompiler.isStandalonePredicate("TYPE = 1"));
+        assertFalse(RuleFilterCompiler.isStandalonePredicate("TYPE = 1;"));
+        assertEquals(Color.RED.getRGB(), image.getRGB(50, 50));
+        assertEquals(Color.RED.getRGB(), image.getRGB(250, 50));
+    }
+}
@@ -0,0 +1,358 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.classification;
+
+import org.h2gis.functions.factory.H2GISDBFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orbisgis.commons.progress.NullProgressMonitor;
+import org.orbisgis.commons.progress.ProgressMonitor;
+import org.orbisgis.commons.progress.RootProgressMonitor;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Accuracy of the value discovery sketches, compared to exact results.
+ * @author Nicolas Fortin
+ */
+public class UniqueValueDiscoveryTest {
+    /** Allowed relative error of the cardinality, about 3.5 times the standard error of the default precision */
+    private static final double CARDINALITY_TOLERANCE = 0.03;
+    private static final double RANK_TOLERANCE = 0.03;
+    private static final int ROW_COUNT = 50000;
+    private static Connection connection;
+
+    @BeforeClass
+    public static void tearUpClass() throws Exception {
+        DataSource dataSource = H2GISDBFactory.createDataSource(UniqueValueDiscoveryTest.class.getSimpleName(), false);
+        connection = dataSource.getConnection();
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS DISCOVERY");
+            // ID: unique values, MODULO: 20 values, SKEWED: value k is found about ROW_COUNT / (k * (k + 1)) times
+            st.execute("CREATE TABLE DISCOVERY AS SELECT X ID, MOD(X, 20) MODULO, " +
+                    "CONCAT('v', " + ROW_COUNT + " / X) SKEWED FROM SYSTEM_RANGE(1, " + ROW_COUNT + ")");
+            st.execute("INSERT INTO DISCOVERY VALUES (NULL, NULL, NULL)");
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS DISCOVERY");
+        }
+        connection.close();
+    }
+
+    private static long exactLong(String query) throws SQLException {
+        try(Statement st = connection.createStatement();
+            ResultSet rs = st.executeQuery(query)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    public void testHyperLogLogAccuracy() {
+        assertEquals(0, new HyperLogLog().cardinality());
+        for(int n : new int[]{1, 100, 10000, 40000, 100000, 500000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for(int i = 0; i < n; i++) {
+                sketch.offer("value" + i);
+                // Duplicates do not change the estimation
+                sketch.offer("value" + i);
+            }
+            assertEquals("Cardinality of " + n, n, sketch.cardinality(), n * CARDINALITY_TOLERANCE);
+        }
+    }
+
+    @Test
+    public void testHyperLogLogNumeric() {
+        HyperLogLog sketch = new HyperLogLog();
+        for(int i = 0; i < 100000; i++) {
+            sketch.offer(i * 0.5);
+        }
+        sketch.offer(-0.0);
+        assertEquals(100000, sketch.cardinality(), 100000 * CARDINALITY_TOLERANCE);
+    }
+
+    @Test
+    public void testHyperLogLogMerge() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for(int i = 0; i < 60000; i++) {
+            first.offer("value" + i);
+            second.offer("value" + (i + 30000));
+        }
+        first.merge(second);
+        assertEquals(90000, first.cardinality(), 90000 * CARDINALITY_TOLERANCE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHyperLogLogMergePrecision() {
+        new HyperLogLog(10).merge(new HyperLogLog(12));
+    }
+
+    @Test
+    public void testTopKAgainstExact() {
+        // Skewed stream, value k is found 20000 / (k + 1) times
+        List<String> stream = new ArrayList<>();
+        for(int k = 0; k < 5000; k++) {
+            for(int i = 0; i < 20000 / (k + 1); i++) {
+                stream.add("v" + k);
+            }
+        }
+        Collections.shuffle(stream, new Random(42));
+        Map<String, Long> exact = new HashMap<>();
+        TopKCounter counter = new TopKCounter(1000);
+        for(String value : stream) {
+            counter.offer(value);
+            Long count = exact.get(value);
+            exact.put(value, count == null ? 1 : count + 1);
+        }
+        assertFalse(counter.isExact());
+        assertEquals(stream.size(), counter.getTotal());
+        List<TopKCounter.ValueCount> top = counter.getTopK(50);
+        assertEquals(50, top.size());
+        for(int k = 0; k < 10; k++) {
+            assertEquals("v" + k, top.get(k).getValue());
+        }
+        for(TopKCounter.ValueCount valueCount : top) {
+            long exactCount = exact.get(valueCount.getValue());
+            assertTrue(valueCount.toString(), exactCount <= valueCount.getCount());
+            assertTrue(valueCount.toString(), exactCount >= valueCount.getCount() - valueCount.getError());
+        }
+    }
+
+    @Test
+    public void testTopKExact() {
+        TopKCounter counter = new TopKCounter(10);
+        for(String value : Arrays.asList("a", "b", "a", "c", "a", "b")) {
+            counter.offer(value);
+        }
+        assertTrue(counter.isExact());
+        List<TopKCounter.ValueCount> top = counter.getTopK(2);
+        assertEquals(2, top.size());
+        assertEquals("a", top.get(0).getValue());
+        assertEquals(3, top.get(0).getCount());
+        assertEquals(0, top.get(0).getError());
+        assertEquals("b", top.get(1).getValue());
+        assertEquals(2, top.get(1).getCount());
+    }
+
+    @Test
+    public void testQuantileAccuracy() {
+        Random random = new Random(7);
+        int n = 200000;
+        double[] values = new double[n];
+        QuantileSketch sketch = new QuantileSketch(QuantileSketch.DEFAULT_CAPACITY, new Random(11));
+        double sum = 0;
+        for(int i = 0; i < n; i++) {
+            values[i] = Math.exp(random.nextGaussian());
+            sum += values[i];
+            sketch.offer(values[i]);
+        }
+        sketch.offer(Double.NaN);
+        Arrays.sort(values);
+        assertFalse(sketch.isExact());
+        assertEquals(n, sketch.getCount());
+        assertEquals(values[0], sketch.getMin(), 0);
+        assertEquals(values[n - 1], sketch.getMax(), 0);
+        assertEquals(values[0], sketch.getQuantile(0), 0);
+        assertEquals(values[n - 1], sketch.getQuantile(1), 0);
+        assertEquals(sum / n, sketch.getMean(), 1e-9);
+        assertEquals(QuantileSketch.DEFAULT_CAPACITY, sketch.getSortedSample().length);
+        for(int percent = 5; percent < 100; percent += 5) {
+            double quantile = percent / 100.;
+            int rank = Arrays.binarySearch(values, sketch.getQuantile(quantile));
+            rank = rank < 0 ? -rank - 1 : rank;
+            assertEquals("Quantile " + quantile, quantile, rank / (double) n, RANK_TOLERANCE);
+        }
+    }
+
+    @Test
+    public void testQuantileExact() {
+        QuantileSketch sketch = new QuantileSketch(10);
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        for(double value : new double[]{5, 1, 4, 2, 3}) {
+            sketch.offer(value);
+        }
+        assertTrue(sketch.isExact());
+        assertEquals(3, sketch.getQuantile(0.5), 0);
+        assertEquals(1.5, sketch.getQuantile(0.125), 1e-12);
+        assertArrayEquals(new double[]{1, 2, 3, 4, 5}, sketch.getSortedSample(), 0);
+    }
+
+    @Test
+    public void testQuantileSketchQuery() throws SQLException {
+        assertTrue(connection.getAutoCommit());
+        QuantileSketch sketch = ClassificationUtils.getQuantileSketch(connection, "DISCOVERY", "ID", 100);
+        // The rows are fetched by pages in a transaction, then the connection state is restored
+        assertTrue(connection.getAutoCommit());
+        assertFalse(sketch.isExact());
+        assertEquals(ROW_COUNT, sketch.getCount());
+        // Exact extrema and mean of the whole field
+        assertEquals(1, sketch.getMin(), 0);
+        assertEquals(ROW_COUNT, sketch.getMax(), 0);
+        assertEquals((ROW_COUNT + 1) / 2., sketch.getMean(), 1e-9);
+    }
+
+    @Test
+    public void testDiscoveryLowCardinality() throws SQLException {
+        UniqueValueDiscovery.Result result = new UniqueValueDiscovery().discover(connection, "DISCOVERY", "MODULO",
+                new NullProgressMonitor());
+        assertFalse(result.isCapped());
+        assertEquals(ROW_COUNT, result.getRowCount());
+        Set<String> exact = new HashSet<>();
+        try(Statement st = connection.createStatement();
+            ResultSet rs = st.executeQuery("SELECT DISTINCT MODULO FROM DISCOVERY WHERE MODULO IS NOT NULL")) {
+            while(rs.next()) {
+                exact.add(rs.getString(1));
+            }
+        }
+        assertEquals(exact, result.getDistinctValues());
+        assertEquals(exact.size(), result.getCardinality());
+        assertEquals(20, result.getTopValues().size());
+        assertEquals(ROW_COUNT / 20, result.getTopValues().get(0).getCount());
+        assertEquals(ROW_COUNT, result.getQuantiles().getCount());
+        assertEquals(19, result.getQuantiles().getMax(), 0);
+    }
+
+    @Test
+    public void testDiscoveryHighCardinality() throws SQLException {
+        UniqueValueDiscovery discovery = new UniqueValueDiscovery();
+        discovery.setTopK(10);
+        UniqueValueDiscovery.Result result = discovery.discover(connection, "DISCOVERY", "ID",
+                new NullProgressMonitor());
+        assertTrue(result.isCapped());
+        assertNull(result.getDistinctValues());
+        long exactCardinality = exactLong("SELECT COUNT(DISTINCT ID) FROM DISCOVERY");
+        assertEquals(exactCardinality, result.getCardinality(), exactCardinality * CARDINALITY_TOLERANCE);
+        assertEquals(10, result.getTopValues().size());
+        // Numeric field, quantiles of the values
+        QuantileSketch quantiles = result.getQuantiles();
+        assertEquals(ROW_COUNT, quantiles.getCount());
+        assertEquals(1, quantiles.getMin(), 0);
+        assertEquals(ROW_COUNT, quantiles.getMax(), 0);
+        assertEquals(exactLong("SELECT MEDIAN(ID) FROM DISCOVERY"), quantiles.getQuantile(0.5),
+                ROW_COUNT * RANK_TOLERANCE);
+    }
+
+    @Test
+    public void testDiscoveryTopValues() throws SQLException {
+        UniqueValueDiscovery discovery = new UniqueValueDiscovery();
+        discovery.setValueLimit(100);
+        discovery.setTopK(10);
+        UniqueValueDiscovery.Result result = discovery.discover(connection, "DISCOVERY", "SKEWED",
+                new NullProgressMonitor());
+        assertTrue(result.isCapped());
+        assertNull(result.getQuantiles());
+        long exactCardinality = exactLong("SELECT COUNT(DISTINCT SKEWED) FROM DISCOVERY");
+        assertEquals(exactCardinality, result.getCardinality(), exactCardinality * CARDINALITY_TOLERANCE);
+        List<String> exactTop = new ArrayList<>();
+        List<Long> exactCounts = new ArrayList<>();
+        try(Statement st = connection.createStatement();
+            ResultSet rs = st.executeQuery("SELECT SKEWED, COUNT(*) CPT FROM DISCOVERY WHERE SKEWED IS NOT NULL " +
+                    "GROUP BY SKEWED ORDER BY CPT DESC LIMIT 10")) {
+            while(rs.next()) {
+                exactTop.add(rs.getString(1));
+                exactCounts.add(rs.getLong(2));
+            }
+        }
+        List<TopKCounter.ValueCount> top = result.getTopValues();
+        assertEquals(exactTop.size(), top.size());
+        for(int i = 0; i < top.size(); i++) {
+            TopKCounter.ValueCount valueCount = top.get(i);
+            assertEquals(exactTop.get(i), valueCount.getValue());
+            assertTrue(valueCount.toString(), exactCounts.get(i) <= valueCount.getCount());
+            assertTrue(valueCount.toString(), exactCounts.get(i) >= valueCount.getCount() - valueCount.getError());
+        }
+    }
+
+    @Test
+    public void testDiscoveryCardinalityWarning() throws SQLException {
+        UniqueValueDiscovery discovery = new UniqueValueDiscovery();
+        final List<Long> warnings = new ArrayList<>();
+        discovery.setCardinalityWarning(100, new UniqueValueDiscovery.CardinalityWarning() {
+            @Override
+            public boolean continueScan(long distinctCount) {
+                warnings.add(distinctCount);
+                return false;
+            }
+        });
+        // Refused as soon as the threshold is exceeded
+        assertNull(discovery.discover(connection, "DISCOVERY", "ID", new NullProgressMonitor()));
+        assertEquals(Collections.singletonList(101L), warnings);
+        warnings.clear();
+        // Asked once, beyond the value limit the cardinality is estimated
+        discovery.setCardinalityWarning(2000, new UniqueValueDiscovery.CardinalityWarning() {
+            @Override
+            public boolean continueScan(long distinctCount) {
+                warnings.add(distinctCount);
+                return true;
+            }
+        });
+        UniqueValueDiscovery.Result result = discovery.discover(connection, "DISCOVERY", "ID",
+                new NullProgressMonitor());
+        assertNotNull(result);
+        assertEquals(1, warnings.size());
+        assertTrue(warnings.get(0) > 2000);
+        assertEquals(ROW_COUNT, result.getRowCount());
+    }
+
+    @Test
+    public void testDiscoveryCancel() throws SQLException {
+        ProgressMonitor pm = new RootProgressMonitor(1);
+        pm.setCancelled(true);
+        assertNull(new UniqueValueDiscovery().discover(connection, "DISCOVERY", "ID", pm));
+    }
+}
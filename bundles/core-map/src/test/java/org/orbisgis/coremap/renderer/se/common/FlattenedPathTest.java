@@ -0,0 +1,184 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.common;
+
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Check that {@link FlattenedPath} gives the same results as the generic {@link ShapeHelper} methods.
+ * @author Nicolas Fortin
+ */
+public class FlattenedPathTest {
+    private static final double EPSILON = 1e-9;
+
+    private static Path2D zigZag() {
+        Path2D.Double line = new Path2D.Double();
+        line.moveTo(0, 0);
+        line.lineTo(10, 10);
+        line.lineTo(0, 20);
+        line.lineTo(10, 30);
+        line.lineTo(0, 40);
+        return line;
+    }
+
+    private static void assertPointEquals(Point2D expected, Point2D actual) {
+        assertEquals(expected.getX(), actual.getX(), EPSILON);
+        assertEquals(expected.getY(), actual.getY(), EPSILON);
+    }
+
+    @Test
+    public void testGetPointAt() {
+        Path2D line = zigZag();
+        FlattenedPath path = FlattenedPath.of(line);
+        assertEquals(ShapeHelper.getLineLength(line), path.getLength(), EPSILON);
+        double length = path.getLength();
+        for (double distance = -5; distance < length + 10; distance += 0.7) {
+            assertPointEquals(ShapeHelper.getPointAt(line, distance), path.getPointAt(distance));
+        }
+        assertPointEquals(new Point2D.Double(0, 40), path.getPointAt(length));
+    }
+
+    @Test
+    public void testClosedShape() {
+        Rectangle2D.Double square = new Rectangle2D.Double(0, 0, 10, 10);
+        FlattenedPath path = FlattenedPath.of(square);
+        assertEquals(40, path.getLength(), EPSILON);
+        assertPointEquals(new Point2D.Double(0, 5), path.getPointAt(35));
+        // The whole path is drawn like the source shape
+        assertEquals(square.getBounds2D(), path.getBounds2D());
+    }
+
+    @Test
+    public void testSplitLine() {
+        Path2D line = zigZag();
+        FlattenedPath path = FlattenedPath.of(line);
+        List<Shape> parts = ShapeHelper.splitLine(path, 20.0);
+        assertEquals(2, parts.size());
+        assertEquals(20, ShapeHelper.getLineLength(parts.get(0)), EPSILON);
+        assertEquals(path.getLength() - 20, ShapeHelper.getLineLength(parts.get(1)), EPSILON);
+        assertPointEquals(ShapeHelper.getPointAt(line, 20), ShapeHelper.getPointAt(parts.get(1), 0));
+        // The second part keeps the vertices of the source line
+        assertEquals(4, countVertices(parts.get(1)));
+        assertEquals(1, ShapeHelper.splitLine(path, 70.0).size());
+    }
+
+    @Test
+    public void testSplitLineInSeg() {
+        Path2D line = zigZag();
+        FlattenedPath path = FlattenedPath.of(line);
+        List<Shape> parts = ShapeHelper.splitLineInSeg(path, 10);
+        List<Shape> expected = ShapeHelper.splitLineInSeg(line, 10);
+        assertEquals(expected.size(), parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            assertEquals(ShapeHelper.getLineLength(expected.get(i)), ShapeHelper.getLineLength(parts.get(i)), 1e-6);
+            assertPointEquals(ShapeHelper.getPointAt(expected.get(i), 0), ShapeHelper.getPointAt(parts.get(i), 0));
+        }
+        List<Shape> halves = ShapeHelper.splitLine(path, 2);
+        assertEquals(2, halves.size());
+        assertPointEquals(new Point2D.Double(10, 10), ShapeHelper.getPointAt(halves.get(0), path.getLength() / 4));
+        // A view can be split again
+        FlattenedPath view = path.subPath(5, 35);
+        assertEquals(30, view.getLength(), EPSILON);
+        assertPointEquals(path.getPointAt(25), view.getPointAt(20));
+        assertPointEquals(path.getPointAt(33), view.subPath(20, 30).getPointAt(8));
+    }
+
+    @Test
+    public void testPerpendicularOffset() {
+        Path2D.Double line = new Path2D.Double();
+        line.moveTo(0, 0);
+        line.lineTo(100, 0);
+        FlattenedPath view = FlattenedPath.of(line).subPath(20, 60);
+        List<Shape> offset = ShapeHelper.perpendicularOffset(view, 5);
+        assertEquals(1, offset.size());
+        Rectangle2D bounds = offset.get(0).getBounds2D();
+        assertEquals(20, bounds.getMinX(), EPSILON);
+        assertEquals(60, bounds.getMaxX(), EPSILON);
+        assertEquals(5, Math.abs(bounds.getMinY()), EPSILON);
+    }
+
+    @Test
+    public void testPerpendicularOffsetOfSegments() {
+        // Offset relative to segments: each view is offset like the equivalent generic segment
+        Path2D line = zigZag();
+        List<Shape> parts = ShapeHelper.splitLineInSeg(FlattenedPath.of(line), 10);
+        List<Shape> expected = ShapeHelper.splitLineInSeg(line, 10);
+        assertEquals(expected.size(), parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            List<Shape> offset = ShapeHelper.perpendicularOffset(parts.get(i), 3);
+            List<Shape> expectedOffset = ShapeHelper.perpendicularOffset(expected.get(i), 3);
+            assertEquals(expectedOffset.size(), offset.size());
+            for (int j = 0; j < offset.size(); j++) {
+                assertEquals(ShapeHelper.getLineLength(expectedOffset.get(j)),
+                        ShapeHelper.getLineLength(offset.get(j)), 1e-6);
+                assertPointEquals(ShapeHelper.getPointAt(expectedOffset.get(j), 0),
+                        ShapeHelper.getPointAt(offset.get(j), 0));
+            }
+        }
+    }
+
+    @Test
+    public void testFlattenOffsetLine() {
+        // Offset of the whole line: the offset line is flattened and indexed
+        Path2D line = zigZag();
+        List<Shape> offset = ShapeHelper.perpendicularOffset(line, 3);
+        assertEquals(1, offset.size());
+        Shape offsetLine = offset.get(0);
+        FlattenedPath path = FlattenedPath.of(offsetLine);
+        assertEquals(ShapeHelper.getLineLength(offsetLine), path.getLength(), EPSILON);
+        for (double distance = 0; distance < path.getLength(); distance += 1.3) {
+            assertPointEquals(ShapeHelper.getPointAt(offsetLine, distance), path.getPointAt(distance));
+        }
+    }
+
+    private static int countVertices(Shape shape) {
+        int count = 0;
+        double coords[] = new double[6];
+        for (PathIterator it = shape.getPathIterator(null); !it.isDone(); it.next()) {
+            it.currentSegment(coords);
+            count++;
+        }
+        return count;
+    }
+}
@@ -42,6 +42,8 @@ import java.awt.Color;
 import java.awt.Container;
 import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -49,16 +51,20 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.Renderer;
 import org.orbisgis.coremap.renderer.se.PointSymbolizer;
 import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
 import org.orbisgis.coremap.renderer.se.Style;
 import org.orbisgis.coremap.renderer.se.common.Uom;
 import org.orbisgis.coremap.renderer.se.graphic.GraphicCollection;
+import org.orbisgis.coremap.renderer.se.graphic.MarkGraphic;
 import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
 import org.orbisgis.coremap.renderer.se.parameter.real.RealLiteral;
+import org.orbisgis.coremap.renderer.se.stroke.PenStroke;
 
 /**
  *
@@ -78,6 +84,102 @@ public class FillTest  {
 
     }
 
+    private static int countPaintedPixels(BufferedImage img, int minX, int minY, int maxX, int maxY) {
+        int count = 0;
+        for (int x = minX; x < maxX; x++) {
+            for (int y = minY; y < maxY; y++) {
+                if ((img.getRGB(x, y) >>> 24) != 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testHatchedFillTile() throws ParameterException, IOException {
+        MapTransform mt = new MapTransform();
+        HatchedFill hf = new HatchedFill();
+        hf.setUom(Uom.PX);
+        hf.setDistance(new RealLiteral(10));
+        hf.setAngle(new RealLiteral(30));
+        PenStroke stroke = (PenStroke) hf.getStroke();
+        stroke.setUom(Uom.PX);
+        stroke.setWidth(new RealLiteral(2));
+        Rectangle2D.Double square = new Rectangle2D.Double(10, 10, 200, 200);
+        // Hatches painted with the cached tile
+        BufferedImage tiled = new BufferedImage(220, 220, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = tiled.createGraphics();
+        g2.setRenderingHints(mt.getRenderingHints());
+        hf.draw(g2, null, square, false, mt);
+        hf.draw(g2, null, square, false, mt);
+        g2.dispose();
+        // Hatches drawn line by line
+        BufferedImage lines = new BufferedImage(220, 220, BufferedImage.TYPE_INT_ARGB);
+        g2 = lines.createGraphics();
+        g2.setRenderingHints(mt.getRenderingHints());
+        HatchedFill.drawHatch(g2, null, square, false, mt, 30, 10, stroke, 0);
+        g2.dispose();
+        int tiledCount = countPaintedPixels(tiled, 0, 0, 220, 220);
+        int linesCount = countPaintedPixels(lines, 0, 0, 220, 220);
+        assertTrue(linesCount > 0);
+        assertEquals(1.0, (double) tiledCount / linesCount, 0.2);
+        // Nothing painted outside of the shape
+        assertEquals(0, countPaintedPixels(tiled, 0, 0, 220, 9));
+    }
+
+    @Test
+    public void testHatchedFillVectorOutput() throws ParameterException, IOException {
+        MapTransform mt = new MapTransform();
+        HatchedFill hf = new HatchedFill();
+        hf.setUom(Uom.PX);
+        hf.setDistance(new RealLiteral(10));
+        hf.setAngle(new RealLiteral(30));
+        PenStroke stroke = (PenStroke) hf.getStroke();
+        stroke.setUom(Uom.PX);
+        stroke.setWidth(new RealLiteral(2));
+        Rectangle2D.Double square = new Rectangle2D.Double(10, 10, 200, 200);
+        // Vector output, the hatches are not painted with a tile
+        BufferedImage vector = new BufferedImage(220, 220, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = vector.createGraphics();
+        g2.setRenderingHints(mt.getRenderingHints());
+        g2.setRenderingHint(Renderer.KEY_VECTOR_OUTPUT, Boolean.TRUE);
+        hf.draw(g2, null, square, false, mt);
+        g2.dispose();
+        BufferedImage lines = new BufferedImage(220, 220, BufferedImage.TYPE_INT_ARGB);
+        g2 = lines.createGraphics();
+        g2.setRenderingHints(mt.getRenderingHints());
+        HatchedFill.drawHatch(g2, null, square, false, mt, 30, 10, stroke, 0);
+        g2.dispose();
+        for (int x = 0; x < 220; x++) {
+            for (int y = 0; y < 220; y++) {
+                assertEquals(lines.getRGB(x, y), vector.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testDotMapFillInArea() throws ParameterException, IOException {
+        MapTransform mt = new MapTransform();
+        DotMapFill dmf = new DotMapFill();
+        GraphicCollection collection = new GraphicCollection();
+        collection.addGraphic(new MarkGraphic());
+        dmf.setGraphicCollection(collection);
+        dmf.setQuantityPerMark(new RealLiteral(1));
+        dmf.setTotalQuantity(new RealLiteral(300));
+        Area area = new Area(new Rectangle2D.Double(0, 0, 400, 400));
+        area.subtract(new Area(new Rectangle2D.Double(100, 100, 200, 200)));
+        BufferedImage img = new BufferedImage(400, 400, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = img.createGraphics();
+        dmf.draw(g2, null, area, false, mt);
+        g2.dispose();
+        assertTrue(countPaintedPixels(img, 0, 0, 400, 400) > 0);
+        // Marks are 3mm wide circles, none of them is placed in the hole
+        double markRadius = Uom.toPixel(MarkGraphic.DEFAULT_SIZE, Uom.MM, mt.getDpi(), null, null) / 2;
+        int margin = (int) Math.ceil(markRadius) + 2;
+        assertEquals(0, countPaintedPixels(img, 100 + margin, 100 + margin, 300 - margin, 300 - margin));
+    }
+
     public void drawGraphic() throws IOException, ParameterException, InvalidStyle {
         JFrame frame = new JFrame();
         frame.setTitle("Test GraphicCollection");
@@ -49,6 +49,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -77,9 +78,9 @@ import org.h2gis.api.DriverFunction;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.jooq.impl.DSL;
+import org.orbisgis.corejdbc.CatalogMetadata;
+import org.orbisgis.corejdbc.CatalogMetadataListener;
 import org.orbisgis.corejdbc.DataManager;
-import org.orbisgis.corejdbc.DatabaseProgressionListener;
-import org.orbisgis.corejdbc.StateEvent;
 import org.orbisgis.dbjobs.api.DatabaseView;
 import org.orbisgis.dbjobs.api.DriverFunctionContainer;
 import org.orbisgis.dbjobs.jobs.DropTable;
@@ -121,7 +122,7 @@ import org.xnap.commons.i18n.I18nFactory;
  * @author Erwan Bocher
  */
 @Component(service = DockingPanel.class)
-public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpandListener, DatabaseView, DatabaseProgressionListener, PopupTarget {
+public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpandListener, DatabaseView, CatalogMetadataListener, PopupTarget {
     private final JTree dbTree = new JTree(new String[0]);
     private DefaultTreeModel defaultTreeModel;
     private DockingPanelParameters dockingParameters = new DockingPanelParameters();
@@ -130,6 +131,7 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
     private ActionCommands dockingActions = new ActionCommands();
     private ActionCommands popupActions = new ActionCommands();
     private DataManager dataManager;
+    private CatalogMetadata catalogMetadata;
     private Map<String, Set<TreeNodeFactory>> treeNodeFactories = new HashMap<>();
     private TreeNodeFactoryImpl defaultTreeNodeFactory;
     private AtomicBoolean loadingNodeChildren = new AtomicBoolean(false);
@@ -197,7 +199,7 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
     }
 
     public void init() {
-        defaultTreeNodeFactory = new TreeNodeFactoryImpl(dataManager);
+        defaultTreeNodeFactory = new TreeNodeFactoryImpl(dataManager, catalogMetadata);
         addTreeNodeFactory(defaultTreeNodeFactory);
         dbTree.addMouseListener(EventHandler.create(MouseListener.class, this,
                 "onMouseActionOnSourceList", "")); //This method ask the event data as argument
@@ -561,10 +563,40 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
     }
 
     @Override
-    public void progressionUpdate(StateEvent state) {
-        // Refresh root node
-        if(state.isUpdateDatabaseStructure() && loadingNodeChildren.compareAndSet(false, true)) {
-            execute(new ReadDB(this, (GeoCatalogTreeNode) defaultTreeModel.getRoot(), loadingNodeChildren));
+    public void catalogChanged(final Collection<TableLocation> updatedTables) {
+        if(!SwingUtilities.isEventDispatchThread()) {
+            // The catalog is read in a background thread, the tree is walked in the swing thread
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    catalogChanged(updatedTables);
+                }
+            });
+            return;
+        }
+        if(updatedTables.isEmpty()) {
+            // Refresh root node
+            if(loadingNodeChildren.compareAndSet(false, true)) {
+                execute(new ReadDB(this, (GeoCatalogTreeNode) defaultTreeModel.getRoot(), loadingNodeChildren));
+            }
+        } else {
+            // Refresh only the loaded schemas that contain the updated tables
+            Set<String> schemas = new HashSet<>();
+            for(TableLocation table : updatedTables) {
+                schemas.add(table.getSchema());
+            }
+            List<GeoCatalogTreeNode> nodeToUpdate = new ArrayList<>();
+            Enumeration<TreePath> paths = dbTree.getExpandedDescendants(new TreePath(defaultTreeModel.getRoot()));
+            while(paths != null && paths.hasMoreElements()) {
+                GeoCatalogTreeNode node = (GeoCatalogTreeNode)paths.nextElement().getLastPathComponent();
+                if(node != null && GeoCatalogTreeNode.NODE_SCHEMA.equals(node.getNodeType()) &&
+                        schemas.contains(node.getNodeIdentifier())) {
+                    nodeToUpdate.add(node);
+                }
+            }
+            if(!nodeToUpdate.isEmpty() && loadingNodeChildren.compareAndSet(false, true)) {
+                execute(new ReadDB(this, nodeToUpdate, loadingNodeChildren));
+            }
         }
     }
 
@@ -572,6 +604,8 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
     public void refreshSourceList() {
         if(loadingNodeChildren.compareAndSet(false, true)) {
             if (!dbTree.isSelectionEmpty()) {
+                // Drop cached metadata, catalogChanged is ignored while the selected nodes are loading
+                catalogMetadata.refresh();
                 List<GeoCatalogTreeNode> nodeToRefresh = new ArrayList<>(dbTree.getSelectionCount());
                 for (GeoCatalogTreeNode treeNode : new TreeSelectionIterable<>(dbTree.getSelectionPaths(), GeoCatalogTreeNode.class)) {
                     nodeToRefresh.add(treeNode);
@@ -582,8 +616,9 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
                     execute(new ReadDB(this, nodeToRefresh, loadingNodeChildren));
                 }
             } else {
-                // Refresh root node
-                execute(new ReadDB(this, (GeoCatalogTreeNode) defaultTreeModel.getRoot(), loadingNodeChildren));
+                // Read again the catalog, then the root node is refreshed by catalogChanged
+                loadingNodeChildren.set(false);
+                catalogMetadata.refresh();
             }
         }
     }
@@ -636,10 +671,19 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
     }
 
     public void unsetDataManager(DataManager dataManager) {
-        dataManager.removeDatabaseProgressionListener(this);
         this.dataManager = null;
     }
 
+    @Reference
+    public void setCatalogMetadata(CatalogMetadata catalogMetadata) {
+        this.catalogMetadata = catalogMetadata;
+    }
+
+    public void unsetCatalogMetadata(CatalogMetadata catalogMetadata) {
+        catalogMetadata.removeCatalogMetadataListener(this);
+        this.catalogMetadata = null;
+    }
+
     @Activate
     public void activate() {
         init();
@@ -656,7 +700,7 @@ public class CatalogPanel extends JPanel implements DockingPanel, TreeWillExpand
             dbTree.expandPath(new TreePath(defaultTreeModel.getRoot()));
             updateNode((GeoCatalogTreeNode) defaultTreeModel.getRoot());
             dbTree.addTreeWillExpandListener(this);
-            dataManager.addDatabaseProgressionListener(this, StateEvent.DB_STATES.STATE_STATEMENT_END);
+            catalogMetadata.addCatalogMetadataListener(this);
             popupActions.setAccelerators(this);
             dbTree.setDragEnabled(true);
             dbTree.setTransferHandler(new DBTreeTranferHandler(dbTree));
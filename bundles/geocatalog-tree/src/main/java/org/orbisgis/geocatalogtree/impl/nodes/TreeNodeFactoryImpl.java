@@ -36,8 +36,6 @@
  */
 package org.orbisgis.geocatalogtree.impl.nodes;
 
-import org.h2gis.utilities.JDBCUtilities;
-import org.h2gis.utilities.SFSUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.jooq.Catalog;
 import org.jooq.DataType;
@@ -49,7 +47,10 @@ import org.jooq.Table;
 import org.jooq.TableField;
 import org.jooq.UniqueKey;
 import org.jooq.impl.DSL;
+import org.orbisgis.corejdbc.CatalogMetadata;
+import org.orbisgis.corejdbc.ColumnMetadata;
 import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.TableMetadata;
 import org.orbisgis.editorjdbc.TransferableSource;
 import org.orbisgis.geocatalogtree.api.GeoCatalogTreeNode;
 import org.orbisgis.geocatalogtree.api.GeoCatalogTreeNodeImpl;
@@ -77,6 +78,7 @@ import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -92,23 +94,19 @@ public class TreeNodeFactoryImpl implements TreeNodeFactory {
     private static Logger LOGGER = LoggerFactory.getLogger(TreeNodeFactoryImpl.class);
     private static I18n I18N = I18nFactory.getI18n(TreeNodeFactoryImpl.class);
     private DataManager dataManager;
+    private CatalogMetadata catalogMetadata;
     private boolean isH2 = false;
     private String defaultSchema = "PUBLIC";
 
-    public TreeNodeFactoryImpl(DataManager dataManager) {
+    /**
+     * @param dataManager DataManager instance
+     * @param catalogMetadata Shared catalog, used to find spatial tables and columns without querying the database
+     */
+    public TreeNodeFactoryImpl(DataManager dataManager, CatalogMetadata catalogMetadata) {
         this.dataManager = dataManager;
-        try(Connection connection = dataManager.getDataSource().getConnection()) {
-            isH2 = JDBCUtilities.isH2DataBase(connection.getMetaData());
-            try {
-                if (connection.getSchema() != null) {
-                    defaultSchema = connection.getSchema();
-                }
-            } catch (AbstractMethodError | Exception ex) {
-                // Driver has been compiled with JAVA 6, or is not implemented
-            }
-        } catch (SQLException ex) {
-            // Ignore
-        }
+        this.catalogMetadata = catalogMetadata;
+        isH2 = catalogMetadata.isH2();
+        defaultSchema = catalogMetadata.getDefaultSchema();
     }
 
     @Override
@@ -305,11 +303,17 @@ public class TreeNodeFactoryImpl implements TreeNodeFactory {
 
     private void loadTable(Schema schema, List<GeoCatalogTreeNodeImpl> nodes, List<QueryPart> nodesQueryPart, Connection connection) throws SQLException {
         if(schema != null) {
+            // Spatial tables of this schema, read from the shared catalog
+            Map<String, TableMetadata> schemaTables = new HashMap<>();
+            for (TableMetadata tableMetadata : catalogMetadata.getTables(schema.getName())) {
+                schemaTables.put(tableMetadata.getLocation().getTable(), tableMetadata);
+            }
             for (Table table : schema.getTables()) {
                 // Check if the table is a geo table
                 TableLocation identifier = new TableLocation(null, schema
                         .getName(), table.getName());
-                boolean hasGeoField = !SFSUtilities.getGeometryFields(connection, identifier).isEmpty();
+                TableMetadata tableMetadata = schemaTables.get(table.getName());
+                boolean hasGeoField = tableMetadata != null && tableMetadata.isSpatial();
                 if (hasGeoField) {
                     nodes.add(new GeoCatalogTreeNodeImpl(this, NODE_TABLE, identifier.toString(isH2), GeocatalogIcon
                             .getIcon("geofile"), GeocatalogIcon.getIcon("geofile")).setLabel(table.getName()).set
@@ -335,8 +339,8 @@ public class TreeNodeFactoryImpl implements TreeNodeFactory {
                 }
             }
             // Fetch geometry fields
-            Set<String> spatialFields = new HashSet<>(SFSUtilities.getGeometryFields(connection, new TableLocation
-                    (table.getSchema().getName(), table.getName())));
+            Set<String> spatialFields = getSpatialFields(new TableLocation(table.getSchema().getName(),
+                    table.getName()));
             for(Field field : table.fields()) {
                 GeoCatalogTreeNodeImpl fieldNode;
                 if(pkFieldNames.contains(field.getName())) {
@@ -368,12 +372,26 @@ public class TreeNodeFactoryImpl implements TreeNodeFactory {
         }
     }
 
+    /**
+     * @param tableLocation Table location
+     * @return Geometry column names, read from the shared catalog
+     */
+    private Set<String> getSpatialFields(TableLocation tableLocation) throws SQLException {
+        Set<String> spatialFields = new HashSet<>();
+        for (ColumnMetadata column : catalogMetadata.getColumns(tableLocation.toString(isH2))) {
+            if (column.isSpatial()) {
+                spatialFields.add(column.getName());
+            }
+        }
+        return spatialFields;
+    }
+
     private void loadIndexes(Table table, List<GeoCatalogTreeNodeImpl> nodes, List<QueryPart> nodesQueryPart,
                              Connection connection) throws SQLException {
         if (table != null) {
             // Fetch all index
             TableLocation tableLocation = new TableLocation(table.getSchema().getName(), table.getName());
-            List<String> spatialFields = SFSUtilities.getGeometryFields(connection, tableLocation);
+            Set<String> spatialFields = getSpatialFields(tableLocation);
             // Fetch
             DatabaseMetaData databaseMetaData = connection.getMetaData();
             try(ResultSet rs = databaseMetaData.getIndexInfo(tableLocation.getCatalog(), tableLocation.getSchema(), tableLocation.getTable(), false, true)) {
@@ -39,6 +39,7 @@ package org.orbisgis.geocatalog.impl;
 import org.h2gis.api.DriverFunction;
 import org.h2gis.utilities.JDBCUtilities;
 import org.orbisgis.commons.utils.CollectionUtils;
+import org.orbisgis.corejdbc.CatalogMetadata;
 import org.orbisgis.corejdbc.DataManager;
 import org.orbisgis.dbjobs.api.DatabaseView;
 import org.orbisgis.dbjobs.api.DriverFunctionContainer;
@@ -111,6 +112,7 @@ public class Catalog extends JPanel implements DockingPanel, TitleActionBar, Pop
         private ActionCommands popupActions = new ActionCommands();
         private DriverFunctionContainer driverFunctionContainer;
         private DataManager dataManager;
+        private CatalogMetadata catalogMetadata;
         private ExecutorService executorService = null;
 
         /**
@@ -156,6 +158,15 @@ public class Catalog extends JPanel implements DockingPanel, TitleActionBar, Pop
             this.dataManager = null;
         }
 
+        @Reference
+        public void setCatalogMetadata(CatalogMetadata catalogMetadata) {
+            this.catalogMetadata = catalogMetadata;
+        }
+
+        public void unsetCatalogMetadata(CatalogMetadata catalogMetadata) {
+            this.catalogMetadata = null;
+        }
+
         /**
          * Initialise panel
          */
@@ -477,13 +488,30 @@ public class Catalog extends JPanel implements DockingPanel, TitleActionBar, Pop
         }
 
         @Override
-        public void onDatabaseUpdate(String entity, String... identifier) {
-            refreshSourceList();
+        public void onDatabaseUpdate(String entity, final String... identifier) {
+            if(DB_ENTITY.TABLE.name().equals(entity) && identifier.length > 0) {
+                // Read only the updated tables
+                Runnable refreshTables = new Runnable() {
+                    @Override
+                    public void run() {
+                        for(String table : identifier) {
+                            catalogMetadata.refresh(table);
+                        }
+                    }
+                };
+                if(executorService != null) {
+                    executorService.execute(refreshTables);
+                } else {
+                    refreshTables.run();
+                }
+            } else {
+                refreshSourceList();
+            }
         }
 
         @Override
         public void refreshSourceList() {
-            sourceListContent.onDataManagerChange();
+            catalogMetadata.refresh();
         }
 
         /**
@@ -499,7 +527,7 @@ public class Catalog extends JPanel implements DockingPanel, TitleActionBar, Pop
                         "onMouseActionOnSourceList",
                         "")); //This method ask the event data as argument
                 //Create the list content manager
-                sourceListContent = new SourceListModel(dataManager);
+                sourceListContent = new SourceListModel(catalogMetadata);
                 //Replace the default model by the GeoCatalog model
                 sourceList.setModel(sourceListContent);
                 SourceListTransferHandler transferHandler = new SourceListTransferHandler(dataManager);
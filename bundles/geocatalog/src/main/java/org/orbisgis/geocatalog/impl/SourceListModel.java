@@ -36,12 +36,9 @@
  */
 package org.orbisgis.geocatalog.impl;
 
-import java.sql.Connection;
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -49,13 +46,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
-import javax.sql.DataSource;
 import javax.swing.*;
 
-import org.h2gis.utilities.JDBCUtilities;
-import org.orbisgis.corejdbc.DataManager;
-import org.orbisgis.corejdbc.DatabaseProgressionListener;
-import org.orbisgis.corejdbc.StateEvent;
+import org.orbisgis.corejdbc.CatalogMetadata;
+import org.orbisgis.corejdbc.CatalogMetadataListener;
+import org.orbisgis.corejdbc.TableMetadata;
 import org.orbisgis.geocatalog.impl.filters.IFilter;
 import org.orbisgis.geocatalog.impl.filters.TableSystemFilter;
 import org.orbisgis.sif.common.ContainerItemProperties;
@@ -72,12 +67,10 @@ import static org.apache.commons.collections.ComparatorUtils.NATURAL_COMPARATOR;
  * SourceListModel is a swing component that update the content of the geocatalog
  * according to the SourceManager content and the filter loaded.
  */
-public class SourceListModel extends AbstractListModel<ContainerItemProperties> implements DatabaseProgressionListener {
+public class SourceListModel extends AbstractListModel<ContainerItemProperties> implements CatalogMetadataListener {
     private static final I18n I18N = I18nFactory.getI18n(SourceListModel.class);
     private static final Logger LOGGER = LoggerFactory.getLogger(SourceListModel.class);
     private static final long serialVersionUID = 1L;
-    private static final String[] SHOWN_TABLE_TYPES = new String[]{"TABLE", "SYSTEM TABLE","LINKED TABLE","VIEW",
-            "EXTERNAL", "TABLE LINK"};
     /** Non filtered tables */
     private List<Map<IFilter.ATTRIBUTES, String>> allTables = new ArrayList<>();
     /** Filtered tables */
@@ -87,10 +80,9 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
     private AtomicBoolean awaitingRefresh=new AtomicBoolean(false); /*!< If true a swing runnable
          * is pending to refresh the content of SourceListModel*/
     private boolean updateWhileAwaitingRefresh = false;
-    private DataSource dataSource;
+    private CatalogMetadata catalogMetadata;
     private CatalogComparator catalogComparator = new CatalogComparator();
     private boolean isH2;
-    private Map<String, Integer> columnMap = new HashMap<>();
 
     /**
      * Read filters components and generate filter instances
@@ -102,27 +94,21 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
 
     /**
      * Constructor
-     * @param dataManager
+     * @param catalogMetadata Shared database catalog
      * @note Do not forget to call dispose()
      */
-    public SourceListModel(DataManager dataManager) {
-        this.dataSource = dataManager.getDataSource();
-        try(Connection connection = dataSource.getConnection()) {
-            isH2 = JDBCUtilities.isH2DataBase(connection.getMetaData());
-        } catch (SQLException ex) {
-            LOGGER.error(ex.getLocalizedMessage(), ex);
-        }
-        //Install database listeners
-        dataManager.addDatabaseProgressionListener(this, StateEvent.DB_STATES.STATE_STATEMENT_END);
+    public SourceListModel(CatalogMetadata catalogMetadata) {
+        this.catalogMetadata = catalogMetadata;
+        isH2 = catalogMetadata.isH2();
+        //Install catalog listeners
+        catalogMetadata.addCatalogMetadataListener(this);
         //Call readDatabase when a SourceManager fire an event
         onDataManagerChange();
     }
 
     @Override
-    public void progressionUpdate(StateEvent state) {
-        if (state.isUpdateDatabaseStructure()) {
-            onDataManagerChange();
-        }
+    public void catalogChanged(Collection<TableLocation> updatedTables) {
+        onDataManagerChange();
     }
 
     /**
@@ -176,10 +162,10 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
     }
 
     /**
-     * TODO stop timers
+     * Remove catalog listener
      */
     public void dispose() {
-
+        catalogMetadata.removeCatalogMetadataListener(this);
     }
 
     /**
@@ -246,75 +232,53 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
     }
 
     /**
-     * Read the table list in the database
+     * Read the table list in the shared catalog, only the tables updated since the last call are read in the database
      */
     protected void readDatabase() {
-        List<Map<IFilter.ATTRIBUTES, String>> newTables = new ArrayList<>(allTables.size());
-        try (Connection connection = dataSource.getConnection()) {
-            final String defaultCatalog = connection.getCatalog();
-            String defaultSchema = "PUBLIC";
-            try {
-                if (connection.getSchema() != null) {
-                    defaultSchema = connection.getSchema();
-                }
-            } catch (AbstractMethodError | Exception ex) {
-                // Driver has been compiled with JAVA 6, or is not implemented
-            }
+        try {
+            List<TableMetadata> tables = catalogMetadata.getTables();
+            List<Map<IFilter.ATTRIBUTES, String>> newTables = new ArrayList<>(tables.size());
+            final String defaultCatalog = catalogMetadata.getDefaultCatalog();
+            final String defaultSchema = catalogMetadata.getDefaultSchema();
             catalogComparator.setDefaultSchema(defaultSchema);
-            // Fetch Geometry tables
-            Map<String,String> tableGeometry = new HashMap<>();
-            try(Statement st = connection.createStatement();
-                ResultSet rs = st.executeQuery("SELECT * FROM "+defaultSchema+".geometry_columns")) {
-                    while(rs.next()) {
-                        tableGeometry.put(new TableLocation(rs.getString("F_TABLE_CATALOG"),
-                                rs.getString("F_TABLE_SCHEMA"), rs.getString("F_TABLE_NAME")).toString(), rs.getString("TYPE"));
-                    }
-            } catch (SQLException ex) {
-                LOGGER.warn(I18N.tr("Geometry columns information of tables are not available"), ex);
-            }
-            // Fetch all tables
-            try(ResultSet rs = connection.getMetaData().getTables(null, null, null, SHOWN_TABLE_TYPES)) {
-                while(rs.next()) {
-                    Map<IFilter.ATTRIBUTES, String> tableAttr = new HashMap<>(IFilter.ATTRIBUTES.values().length);
-                    TableLocation location = new TableLocation(rs);
-                    if(location.getCatalog().isEmpty()) {
-                        // PostGIS return empty catalog on metadata
-                        location = new TableLocation(defaultCatalog, location.getSchema(), location.getTable());
-                    }
-                    // Make Label
-                    StringBuilder label = new StringBuilder(addQuotesIfNecessary(location.getTable()));
-                    if(!location.getSchema().isEmpty() && !location.getSchema().equalsIgnoreCase(defaultSchema)) {
-                        label.insert(0, ".");
-                        label.insert(0, addQuotesIfNecessary(location.getSchema()));
-                    }
-                    if(!location.getCatalog().isEmpty() && !location.getCatalog().equalsIgnoreCase(defaultCatalog)) {
-                        label.insert(0, ".");
-                        label.insert(0, addQuotesIfNecessary(location.getCatalog()));
-                    }
-                    // Shortcut location for H2 database
-                    TableLocation shortLocation;
-                    if(isH2) {
-                        shortLocation = new TableLocation("",
-                                location.getSchema().equals(defaultSchema) ? "" : location.getSchema(),
-                                location.getTable());
-                    } else {
-                        shortLocation = new TableLocation(location.getCatalog().equalsIgnoreCase(defaultCatalog) ?
-                                "" : location.getCatalog(),
-                                location.getCatalog().equalsIgnoreCase(defaultCatalog) &&
-                                        location.getSchema().equalsIgnoreCase(defaultSchema) ? "" : location.getSchema(),
-                                location.getTable());
-                    }
-                    tableAttr.put(IFilter.ATTRIBUTES.LOCATION, shortLocation.toString(isH2));
-                    tableAttr.put(IFilter.ATTRIBUTES.LABEL, label.toString());
-                    for(IFilter.ATTRIBUTES attribute : IFilter.ATTRIBUTES.values()) {
-                        putAttribute(tableAttr, attribute, rs);
-                    }
-                    String type = tableGeometry.get(location.toString());
-                    if(type != null) {
-                        tableAttr.put(IFilter.ATTRIBUTES.GEOMETRY_TYPE, type);
+            for(TableMetadata table : tables) {
+                Map<IFilter.ATTRIBUTES, String> tableAttr = new HashMap<>(IFilter.ATTRIBUTES.values().length);
+                TableLocation location = table.getLocation();
+                // Make Label
+                StringBuilder label = new StringBuilder(addQuotesIfNecessary(location.getTable()));
+                if(!location.getSchema().isEmpty() && !location.getSchema().equalsIgnoreCase(defaultSchema)) {
+                    label.insert(0, ".");
+                    label.insert(0, addQuotesIfNecessary(location.getSchema()));
+                }
+                if(!location.getCatalog().isEmpty() && !location.getCatalog().equalsIgnoreCase(defaultCatalog)) {
+                    label.insert(0, ".");
+                    label.insert(0, addQuotesIfNecessary(location.getCatalog()));
+                }
+                // Shortcut location for H2 database
+                TableLocation shortLocation;
+                if(isH2) {
+                    shortLocation = new TableLocation("",
+                            location.getSchema().equals(defaultSchema) ? "" : location.getSchema(),
+                            location.getTable());
+                } else {
+                    shortLocation = new TableLocation(location.getCatalog().equalsIgnoreCase(defaultCatalog) ?
+                            "" : location.getCatalog(),
+                            location.getCatalog().equalsIgnoreCase(defaultCatalog) &&
+                                    location.getSchema().equalsIgnoreCase(defaultSchema) ? "" : location.getSchema(),
+                            location.getTable());
+                }
+                for(IFilter.ATTRIBUTES attribute : IFilter.ATTRIBUTES.values()) {
+                    String value = table.getAttributes().get(attribute.name());
+                    if(value != null) {
+                        tableAttr.put(attribute, value);
                     }
-                    newTables.add(tableAttr);
                 }
+                tableAttr.put(IFilter.ATTRIBUTES.LOCATION, shortLocation.toString(isH2));
+                tableAttr.put(IFilter.ATTRIBUTES.LABEL, label.toString());
+                if(table.isSpatial()) {
+                    tableAttr.put(IFilter.ATTRIBUTES.GEOMETRY_TYPE, table.getGeometryType());
+                }
+                newTables.add(tableAttr);
             }
             allTables = newTables;
         } catch (SQLException ex) {
@@ -322,29 +286,6 @@ public class SourceListModel extends AbstractListModel<ContainerItemProperties>
         }
     }
 
-    private void putAttribute(Map<IFilter.ATTRIBUTES, String> tableAttr, IFilter.ATTRIBUTES attribute, ResultSet rs) {
-        try {
-            String columnName = attribute.toString().toLowerCase();
-            Integer columnId = columnMap.get(columnName);
-            if(columnId == null) {
-                ResultSetMetaData meta = rs.getMetaData();
-                columnMap.put(columnName, 0);
-                for(int i=1; i<=meta.getColumnCount(); i++) {
-                    if(columnName.equals(meta.getCatalogName(i).toLowerCase())) {
-                        columnMap.put(columnName, i);
-                        columnId = i;
-                        break;
-                    }
-                }
-            }
-            if(columnId != null && columnId > 0) {
-                tableAttr.put(attribute, rs.getString(columnId));
-            }
-        } catch (SQLException ex) {
-            // Ignore
-        }
-    }
-
     /**
      *
      * @param index The item index @see getSize()
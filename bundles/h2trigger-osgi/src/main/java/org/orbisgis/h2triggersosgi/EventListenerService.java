@@ -41,6 +41,7 @@ import org.h2.api.DatabaseEventListener;
 import org.h2.api.Trigger;
 import org.h2.jdbcx.JdbcDataSource;
 import org.h2gis.utilities.JDBCUtilities;
+import org.h2gis.utilities.TableLocation;
 import org.orbisgis.corejdbc.DataManager;
 import org.orbisgis.corejdbc.StateEvent;
 import org.orbisgis.h2triggers.H2DatabaseEventListener;
@@ -59,6 +60,8 @@ import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -72,6 +75,8 @@ public class EventListenerService implements DatabaseEventListener, TriggerFacto
     private Logger logger = LoggerFactory.getLogger(EventListenerService.class);
     private Queue<StateEvent> eventStack = new LinkedBlockingQueue<>();
     private AtomicBoolean eventProcessRunning = new AtomicBoolean(false);
+    // The statement triggers of a table share the same edits, in order to keep the order of the events
+    private ConcurrentMap<String, TableEditAggregator> aggregators = new ConcurrentHashMap<>();
 
     private static boolean isLocalH2DataBase(DatabaseMetaData meta) throws SQLException {
         return JDBCUtilities.isH2DataBase(meta)
@@ -170,7 +175,16 @@ public class EventListenerService implements DatabaseEventListener, TriggerFacto
     @Override
     public Trigger createTrigger(Connection conn, String schemaName, String triggerName, String tableName, boolean before, int type) throws SQLException {
         if(dataManager != null) {
-            TableTrigger trigger = new TableTrigger(dataManager);
+            String tableIdentifier = new TableLocation(schemaName, tableName).toString(true);
+            TableEditAggregator aggregator = aggregators.get(tableIdentifier);
+            if(aggregator == null) {
+                aggregator = new TableEditAggregator(tableIdentifier);
+                TableEditAggregator previous = aggregators.putIfAbsent(tableIdentifier, aggregator);
+                if(previous != null) {
+                    aggregator = previous;
+                }
+            }
+            TableTrigger trigger = new TableTrigger(dataManager, aggregator);
             trigger.init(conn, schemaName, triggerName, tableName, before, type);
             return trigger;
         } else {
@@ -0,0 +1,223 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.h2triggersosgi;
+
+import org.orbisgis.corejdbc.TableEditEvent;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gather the statement edits of a table between two flushes. The statement triggers of a table (one by edit type)
+ * share the same aggregator. Consecutive edits of the same type are merged, one {@link TableEditEvent} is sent by
+ * contiguous primary key range, or a single whole table event if the edited rows are not known. Events are built in
+ * the order of the edits, then a row inserted and deleted in the same flush window is seen deleted by the listeners.
+ * When a flush window contains too many disjoint ranges the edits are saturated: the ranges are dropped and a whole
+ * table event is sent by edit type instead, in order to keep a bounded memory.
+ * This class is thread safe.
+ * @author Nicolas Fortin
+ */
+class TableEditAggregator {
+    /** Maximum number of primary key ranges kept before sending whole table events */
+    static final int MAX_RANGES = Integer.getInteger("h2trigger.event.maxranges", 4096);
+    // Edit types in the order of the whole table events
+    private static final int[] TYPES = new int[]{TableModelEvent.DELETE, TableModelEvent.UPDATE,
+            TableModelEvent.INSERT};
+    private final String tableIdentifier;
+    // Edit sets in the order of the edits
+    private final List<EditSet> editSets = new ArrayList<>();
+    // Primary key ranges of all the edit sets
+    private int rangeCount = 0;
+    // Edit types gathered into whole table events
+    private final boolean[] saturatedTypes = new boolean[TYPES.length];
+    private boolean saturated = false;
+    private long editCount = 0;
+    /** True while a flush process is running for this table */
+    final AtomicBoolean flushing = new AtomicBoolean(false);
+    /** Lock of the table state read by the statement triggers */
+    final Object statementLock = new Object();
+    /** Row count after the last statement, -1 if unknown. Guarded by statementLock */
+    long rowCount = -1;
+    /** Greatest primary key after the last statement. Guarded by statementLock */
+    long maxPk = 0;
+
+    /**
+     * @param tableIdentifier Table identifier of the events
+     */
+    TableEditAggregator(String tableIdentifier) {
+        this.tableIdentifier = tableIdentifier;
+    }
+
+    private static int typeIndex(int type) {
+        switch (type) {
+            case TableModelEvent.DELETE:
+                return 0;
+            case TableModelEvent.UPDATE:
+                return 1;
+            default:
+                return 2;
+        }
+    }
+
+    /**
+     * Add the edit of a primary key range. Keys of the range may not exist in the table.
+     * @param type Edit type {@link TableModelEvent#INSERT}, {@link TableModelEvent#UPDATE} or
+     * {@link TableModelEvent#DELETE}
+     * @param firstPk First primary key of the range
+     * @param lastPk Last primary key of the range, inclusive
+     */
+    synchronized void addRange(int type, long firstPk, long lastPk) {
+        editCount++;
+        if(saturated) {
+            saturate(type);
+            return;
+        }
+        EditSet editSet = getEditSet(type);
+        if(editSet.all) {
+            // Already covered by the whole table edit
+            return;
+        }
+        long[] last = editSet.ranges.isEmpty() ? null : editSet.ranges.get(editSet.ranges.size() - 1);
+        if(last != null && firstPk <= last[1] + 1 && lastPk >= last[0] - 1) {
+            // Usual case of the successive inserts, the range follow the previous one
+            last[0] = Math.min(last[0], firstPk);
+            last[1] = Math.max(last[1], lastPk);
+        } else {
+            editSet.ranges.add(new long[]{firstPk, lastPk});
+            if(++rangeCount > MAX_RANGES) {
+                saturate(type);
+            }
+        }
+    }
+
+    /**
+     * Add a whole table edit
+     * @param type Edit type {@link TableModelEvent#INSERT}, {@link TableModelEvent#UPDATE} or
+     * {@link TableModelEvent#DELETE}
+     */
+    synchronized void addAll(int type) {
+        editCount++;
+        if(saturated) {
+            saturate(type);
+            return;
+        }
+        EditSet editSet = getEditSet(type);
+        rangeCount -= editSet.ranges.size();
+        editSet.ranges.clear();
+        editSet.all = true;
+    }
+
+    /**
+     * @param type Edit type
+     * @return The last edit set if it has the same type, a new edit set otherwise
+     */
+    private EditSet getEditSet(int type) {
+        EditSet last = editSets.isEmpty() ? null : editSets.get(editSets.size() - 1);
+        if(last != null && last.type == type) {
+            return last;
+        }
+        EditSet editSet = new EditSet(type);
+        editSets.add(editSet);
+        return editSet;
+    }
+
+    private void saturate(int type) {
+        saturated = true;
+        saturatedTypes[typeIndex(type)] = true;
+        for(EditSet editSet : editSets) {
+            saturatedTypes[typeIndex(editSet.type)] = true;
+        }
+        editSets.clear();
+        rangeCount = 0;
+    }
+
+    /**
+     * @return True if there is no pending edit
+     */
+    synchronized boolean isEmpty() {
+        return editCount == 0;
+    }
+
+    /**
+     * Build the events of the pending edits and reset this aggregator.
+     * @return The events in the order of the edits, or one whole table event by edit type if the edits are
+     * saturated
+     */
+    synchronized List<TableEditEvent> drain() {
+        List<TableEditEvent> events = new ArrayList<>(Math.max(editSets.size(), TYPES.length));
+        if(saturated) {
+            for(int i = 0; i < TYPES.length; i++) {
+                if(saturatedTypes[i]) {
+                    events.add(new TableEditEvent(tableIdentifier, TableModelEvent.ALL_COLUMNS, null, null,
+                            TYPES[i]));
+                    saturatedTypes[i] = false;
+                }
+            }
+        } else {
+            for(EditSet editSet : editSets) {
+                if(editSet.all) {
+                    events.add(new TableEditEvent(tableIdentifier, TableModelEvent.ALL_COLUMNS, null, null,
+                            editSet.type));
+                } else {
+                    for(long[] range : editSet.ranges) {
+                        events.add(new TableEditEvent(tableIdentifier, TableModelEvent.ALL_COLUMNS, range[0],
+                                range[1], editSet.type));
+                    }
+                }
+            }
+        }
+        editSets.clear();
+        rangeCount = 0;
+        saturated = false;
+        editCount = 0;
+        return events;
+    }
+
+    private static class EditSet {
+        private final int type;
+        // Disjoint primary key ranges [first, last], in the order of the edits
+        private final List<long[]> ranges = new ArrayList<>();
+        // True if the rows are not known
+        private boolean all = false;
+
+        private EditSet(int type) {
+            this.type = type;
+        }
+    }
+}
@@ -40,37 +40,48 @@ import org.h2.api.Trigger;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.orbisgis.corejdbc.DataManager;
-import org.orbisgis.corejdbc.StateEvent;
 import org.orbisgis.corejdbc.TableEditEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
 import javax.swing.event.TableModelEvent;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Trigger attached to H2 Database
+ * Statement trigger attached to H2 Database, one trigger is created by edit type.
+ * The edited rows are not read one by one. After an insert the trigger compare the row count and the greatest
+ * primary key with the values read after the previous statement, both are read on the primary key index. The
+ * inserted rows are sent as a single primary key range when all of them are after the previous greatest key,
+ * otherwise (updates, deletes, concurrent edits, table without integer primary key) a whole table event is sent.
+ * Edits are gathered by a {@link TableEditAggregator} shared by the triggers of the table then sent by batch after
+ * a flush window.
  * @author Nicolas Fortin
  */
 public class TableTrigger implements Trigger {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TableTrigger.class);
     private DataManager dataManager;
     private String tableIdentifier;
-    private boolean update;
-    private final Queue<TableEditEvent> editStack = new ConcurrentLinkedQueue<>();
-    private final AtomicBoolean stateEventProcessing = new AtomicBoolean(false);
-    private int pkColumn = -1;
+    private int triggerType;
+    private final TableEditAggregator aggregator;
+    // Quoted primary key field, null if the table does not have an integer primary key
+    private String pkField;
 
-    public TableTrigger(DataManager dataManager) {
+    /**
+     * @param dataManager DataManager instance
+     * @param aggregator Edits of the table, shared by all the triggers of this table
+     */
+    TableTrigger(DataManager dataManager, TableEditAggregator aggregator) {
         this.dataManager = dataManager;
+        this.aggregator = aggregator;
     }
 
     @Override
     public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before, int type) throws SQLException {
-        this.update = type == UPDATE;
+        this.triggerType = type;
         this.tableIdentifier = new TableLocation(schemaName, tableName).toString(true);
         if(!dataManager.hasTableEditListener(tableIdentifier)) {
             try(Statement st = conn.createStatement()) {
@@ -79,7 +90,30 @@ public class TableTrigger implements Trigger {
             throw new SQLException("This trigger does not exists");
         } else {
             // Fetch primary key column
-            pkColumn = JDBCUtilities.getIntegerPrimaryKey(conn, tableIdentifier);
+            int pkColumn = JDBCUtilities.getIntegerPrimaryKey(conn, tableIdentifier);
+            if(pkColumn > 0) {
+                pkField = TableLocation.quoteIdentifier(JDBCUtilities.getFieldName(conn.getMetaData(),
+                        tableIdentifier, pkColumn));
+                synchronized (aggregator.statementLock) {
+                    readTableState(conn);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the row count and the greatest primary key. H2 answer both queries with the primary key index
+     * without reading the rows.
+     * @param conn Connection of the edit statement
+     */
+    private void readTableState(Connection conn) throws SQLException {
+        aggregator.rowCount = -1;
+        try(Statement st = conn.createStatement();
+            ResultSet rs = st.executeQuery("SELECT COUNT(*), MAX("+pkField+") FROM "+tableIdentifier)) {
+            if(rs.next()) {
+                aggregator.maxPk = rs.getLong(2);
+                aggregator.rowCount = rs.getLong(1);
+            }
         }
     }
 
@@ -87,17 +121,70 @@ public class TableTrigger implements Trigger {
     public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
         // Do not fire the event in the H2 thread in order to not raise
         // org.h2.jdbc.JdbcSQLException: Timeout trying to lock table XXX
-        int type = TableModelEvent.DELETE;
-        if(oldRow == null && newRow != null) {
-            type = TableModelEvent.INSERT;
-        } else if(oldRow != null && newRow != null) {
-            type = TableModelEvent.UPDATE;
+        switch (triggerType) {
+            case INSERT:
+                fireInsert(conn);
+                break;
+            case UPDATE:
+                aggregator.addAll(TableModelEvent.UPDATE);
+                updateTableState(conn);
+                break;
+            default:
+                // Deletion, or a trigger of several edit types created by a previous version
+                aggregator.addAll(TableModelEvent.DELETE);
+                if(triggerType == DELETE) {
+                    updateTableState(conn);
+                }
+        }
+        flush();
+    }
+
+    private void fireInsert(Connection conn) {
+        if(pkField == null) {
+            aggregator.addAll(TableModelEvent.INSERT);
+            return;
+        }
+        synchronized (aggregator.statementLock) {
+            long previousCount = aggregator.rowCount;
+            long previousMaxPk = aggregator.maxPk;
+            try {
+                readTableState(conn);
+                if(previousCount >= 0 && aggregator.rowCount >= 0) {
+                    long inserted = aggregator.rowCount - previousCount;
+                    long insertedAfter = 0;
+                    if(aggregator.maxPk > previousMaxPk) {
+                        try(Statement st = conn.createStatement();
+                            ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + tableIdentifier + " WHERE " +
+                                    pkField + " > " + previousMaxPk)) {
+                            insertedAfter = rs.next() ? rs.getLong(1) : -1;
+                        }
+                    }
+                    if(inserted == insertedAfter) {
+                        if(inserted > 0) {
+                            aggregator.addRange(TableModelEvent.INSERT, previousMaxPk + 1, aggregator.maxPk);
+                        }
+                        return;
+                    }
+                }
+            } catch (SQLException ex) {
+                LOGGER.debug(ex.getLocalizedMessage(), ex);
+                aggregator.rowCount = -1;
+            }
         }
-        Long pk = null;
-        if(pkColumn != -1 && newRow != null && newRow.length > pkColumn - 1 && newRow[pkColumn - 1] instanceof Long) {
-            pk = (Long)newRow[pkColumn - 1];
+        // Some inserted rows are not after the previous greatest key, or the table has been edited concurrently
+        aggregator.addAll(TableModelEvent.INSERT);
+    }
+
+    private void updateTableState(Connection conn) {
+        if(pkField != null) {
+            synchronized (aggregator.statementLock) {
+                try {
+                    readTableState(conn);
+                } catch (SQLException ex) {
+                    LOGGER.debug(ex.getLocalizedMessage(), ex);
+                }
+            }
         }
-        fireEvent(new TableEditEvent(tableIdentifier, TableModelEvent.ALL_COLUMNS, pk, pk, type));
     }
 
     @Override
@@ -109,51 +196,53 @@ public class TableTrigger implements Trigger {
     public void remove() throws SQLException {
         // Do not fire the event in the H2 thread in order to not raise
         // org.h2.jdbc.JdbcSQLException: Timeout trying to lock table XXX
-        fireEvent(new TableEditEvent(tableIdentifier, TableModelEvent.ALL_COLUMNS, null, null, TableModelEvent.DELETE));
+        aggregator.addAll(TableModelEvent.DELETE);
+        flush();
     }
 
-    private void fireEvent(TableEditEvent evt) {
-        editStack.add(evt);
-        if(!stateEventProcessing.getAndSet(true)) {
-            new TableEditEventProcess(dataManager, editStack, stateEventProcessing).execute();
+    private void flush() {
+        if(!aggregator.flushing.getAndSet(true)) {
+            new TableEditEventProcess(dataManager, aggregator).execute();
         }
-
     }
 
     private static class TableEditEventProcess extends SwingWorker {
         private final DataManager dataManager;
-        private final Queue<TableEditEvent> editStack;
-        private final AtomicBoolean stateEventProcessing;
+        private final TableEditAggregator aggregator;
         private static final int TIME_MAX_THREAD_ALIVE = 5000;
-        private static final int SLEEP_TIME = 500;
+        /** Edits done in this time window are sent together */
+        private static final int FLUSH_WINDOW = Integer.getInteger("h2trigger.event.flushwindow", 200);
 
-        private TableEditEventProcess(DataManager dataManager, Queue<TableEditEvent> editStack, AtomicBoolean stateEventProcessing) {
+        private TableEditEventProcess(DataManager dataManager, TableEditAggregator aggregator) {
             this.dataManager = dataManager;
-            this.editStack = editStack;
-            this.stateEventProcessing = stateEventProcessing;
+            this.aggregator = aggregator;
         }
 
         @Override
         public String toString() {
-            return "TableEditEventProcess editStack="+editStack.size();
+            return "TableEditEventProcess empty="+aggregator.isEmpty();
         }
 
         @Override
         protected Object doInBackground() throws Exception {
             long begin = System.currentTimeMillis();
             try {
-                while (!editStack.isEmpty() || System.currentTimeMillis() - begin < TIME_MAX_THREAD_ALIVE) {
-                    while (!editStack.isEmpty()) {
-                        dataManager.fireTableEditHappened(editStack.remove());
-                    }
+                while (!aggregator.isEmpty() || System.currentTimeMillis() - begin < TIME_MAX_THREAD_ALIVE) {
                     try {
-                        Thread.sleep(SLEEP_TIME);
+                        Thread.sleep(FLUSH_WINDOW);
                     } catch (InterruptedException ex) {
                         break;
                     }
+                    for(TableEditEvent event : aggregator.drain()) {
+                        dataManager.fireTableEditHappened(event);
+                    }
                 }
             } finally {
-                stateEventProcessing.set(false);
+                aggregator.flushing.set(false);
+            }
+            // Edits done after the last flush
+            if(!aggregator.isEmpty() && !aggregator.flushing.getAndSet(true)) {
+                new TableEditEventProcess(dataManager, aggregator).execute();
             }
             return null;
         }
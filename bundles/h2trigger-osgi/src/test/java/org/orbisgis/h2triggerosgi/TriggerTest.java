@@ -49,8 +49,10 @@ import org.orbisgis.corejdbc.internal.DataManagerImpl;
 import org.orbisgis.h2triggersosgi.EventListenerService;
 
 import javax.sql.DataSource;
+import javax.swing.event.TableModelEvent;
 import java.sql.Connection;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -63,7 +65,8 @@ import static org.junit.Assert.assertTrue;
  * @author Nicolas Fortin
  */
 public class TriggerTest {
-
+    // Maximum wait of the events sent by the trigger thread
+    private static final long EVENT_TIMEOUT = 10000;
     private static DataSource dataSource;
 
 
@@ -88,9 +91,9 @@ public class TriggerTest {
             Statement st = connection.createStatement()) {
             String query = "select * from GEOMETRY_COLUMNS";
             st.execute(query);
-            Thread.sleep(1000);
-            assertNotNull(local.getLastState());
-            assertEquals(query, local.getLastState().getName());
+            StateEvent state = local.awaitState(query, EVENT_TIMEOUT);
+            assertNotNull(state);
+            assertEquals(query, state.getName());
         }
         dataManager.removeDatabaseProgressionListener(local);
         evtServ.disable();
@@ -112,8 +115,7 @@ public class TriggerTest {
             dataManager.addTableEditListener("TEST", tableEvents);
             assertTrue(tableEvents.getEvents().isEmpty());
             st.execute("INSERT INTO TEST VALUES (1)");
-            Thread.sleep(1000);
-            List<TableEditEvent> evts = tableEvents.getEvents();
+            List<TableEditEvent> evts = tableEvents.awaitEvents(1, EVENT_TIMEOUT);
             assertEquals(1, evts.size());
             assertNull(evts.get(0).getUndoableEdit());
             assertEquals("PUBLIC.TEST", evts.get(0).getTableName());
@@ -124,6 +126,81 @@ public class TriggerTest {
         evtServ.unsetDataManager(dataManager);
     }
 
+    @Test
+    public void testTableTriggerBatch() throws Exception {
+        DataManager dataManager = new DataManagerImpl(dataSource);
+        EventListenerService evtServ = new EventListenerService();
+        evtServ.setDataManager(dataManager);
+        EventStack tableEvents = new EventStack();
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS TESTBATCH");
+            st.execute("CREATE TABLE TESTBATCH(ID INT PRIMARY KEY, THE_GEOM POINT)");
+            dataManager.addTableEditListener("TESTBATCH", tableEvents);
+            st.execute("INSERT INTO TESTBATCH SELECT X, ST_MAKEPOINT(X, X) FROM SYSTEM_RANGE(1, 1000)");
+            List<TableEditEvent> evts = tableEvents.awaitEvents(1, EVENT_TIMEOUT);
+            // All the inserted rows are sent in a single event
+            assertEquals(1, evts.size());
+            TableEditEvent evt = evts.get(0);
+            assertEquals(TableModelEvent.INSERT, evt.getType());
+            assertEquals(1L, evt.getFirstRowPK().longValue());
+            assertEquals(1000L, evt.getLastRowPK().longValue());
+            tableEvents.clear();
+            st.execute("INSERT INTO TESTBATCH SELECT X, ST_MAKEPOINT(X, X) FROM SYSTEM_RANGE(1001, 1010)");
+            evts = tableEvents.awaitEvents(1, EVENT_TIMEOUT);
+            assertEquals(1, evts.size());
+            assertEquals(1001L, evts.get(0).getFirstRowPK().longValue());
+            assertEquals(1010L, evts.get(0).getLastRowPK().longValue());
+            tableEvents.clear();
+            // Inserted before the greatest key, the range is not known
+            st.execute("INSERT INTO TESTBATCH VALUES (0, ST_MAKEPOINT(0, 0))");
+            evts = tableEvents.awaitEvents(1, EVENT_TIMEOUT);
+            assertEquals(1, evts.size());
+            assertEquals(TableModelEvent.INSERT, evts.get(0).getType());
+            assertNull(evts.get(0).getFirstRowPK());
+            tableEvents.clear();
+            // Updated rows are not known by the statement trigger
+            st.execute("UPDATE TESTBATCH SET THE_GEOM = ST_MAKEPOINT(-X(THE_GEOM), Y(THE_GEOM)) WHERE MOD(ID, 2) = 0");
+            evts = tableEvents.awaitEvents(1, EVENT_TIMEOUT);
+            assertEquals(1, evts.size());
+            evt = evts.get(0);
+            assertEquals(TableModelEvent.UPDATE, evt.getType());
+            assertNull(evt.getFirstRowPK());
+        } finally {
+            dataManager.removeTableEditListener("TESTBATCH", tableEvents);
+        }
+        evtServ.disable();
+        evtServ.unsetDataManager(dataManager);
+    }
+
+    @Test
+    public void testTableTriggerOrder() throws Exception {
+        DataManager dataManager = new DataManagerImpl(dataSource);
+        EventListenerService evtServ = new EventListenerService();
+        evtServ.setDataManager(dataManager);
+        EventStack tableEvents = new EventStack();
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS TESTORDER");
+            st.execute("CREATE TABLE TESTORDER(ID INT PRIMARY KEY)");
+            dataManager.addTableEditListener("TESTORDER", tableEvents);
+            // Edits of the same flush window or of successive windows must be received in the same order
+            st.execute("INSERT INTO TESTORDER VALUES (1), (2)");
+            st.execute("DELETE FROM TESTORDER WHERE ID = 1");
+            List<TableEditEvent> evts = tableEvents.awaitEvents(2, EVENT_TIMEOUT);
+            assertEquals(2, evts.size());
+            assertEquals(TableModelEvent.INSERT, evts.get(0).getType());
+            assertEquals(1L, evts.get(0).getFirstRowPK().longValue());
+            assertEquals(2L, evts.get(0).getLastRowPK().longValue());
+            assertEquals(TableModelEvent.DELETE, evts.get(1).getType());
+            assertNull(evts.get(1).getFirstRowPK());
+        } finally {
+            dataManager.removeTableEditListener("TESTORDER", tableEvents);
+        }
+        evtServ.disable();
+        evtServ.unsetDataManager(dataManager);
+    }
+
     @Test
     public void testListenerWithWrapper() throws Exception {
         testListenerInternal(SFSUtilities.wrapSpatialDataSource(dataSource));
@@ -133,27 +210,55 @@ public class TriggerTest {
         private StateEvent lastState;
 
         @Override
-        public void progressionUpdate(StateEvent state) {
+        public synchronized void progressionUpdate(StateEvent state) {
             lastState = state;
+            notifyAll();
         }
 
-        public StateEvent getLastState() {
-            return lastState;
+        /**
+         * @param name Expected state name
+         * @param timeout Maximum wait in milliseconds
+         * @return The last state, or null if the expected state has not been received
+         */
+        public synchronized StateEvent awaitState(String name, long timeout) throws InterruptedException {
+            long end = System.currentTimeMillis() + timeout;
+            while ((lastState == null || !name.equals(lastState.getName())) && System.currentTimeMillis() < end) {
+                wait(Math.max(1, end - System.currentTimeMillis()));
+            }
+            return lastState != null && name.equals(lastState.getName()) ? lastState : null;
         }
     }
 
     private static class EventStack implements TableEditListener {
-        List<TableEditEvent> events = new LinkedList<>();
+        private final List<TableEditEvent> events = new LinkedList<>();
         @Override
-        public void tableChange(TableEditEvent event) {
+        public synchronized void tableChange(TableEditEvent event) {
             events.add(event);
+            notifyAll();
         }
 
         /**
          * @return List of events
          */
-        public List<TableEditEvent> getEvents() {
-            return events;
+        public synchronized List<TableEditEvent> getEvents() {
+            return new ArrayList<>(events);
+        }
+
+        public synchronized void clear() {
+            events.clear();
+        }
+
+        /**
+         * @param count Expected number of events
+         * @param timeout Maximum wait in milliseconds
+         * @return List of events, may contain less than count events if the timeout is reached
+         */
+        public synchronized List<TableEditEvent> awaitEvents(int count, long timeout) throws InterruptedException {
+            long end = System.currentTimeMillis() + timeout;
+            while (events.size() < count && System.currentTimeMillis() < end) {
+                wait(Math.max(1, end - System.currentTimeMillis()));
+            }
+            return getEvents();
         }
     }
     private static class DummyRunnable implements Runnable {
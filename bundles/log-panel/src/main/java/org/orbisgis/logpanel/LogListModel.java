@@ -0,0 +1,301 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.logpanel;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import javax.swing.AbstractListModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lines shown by the log panel, only used by the swing thread.
+ * The lines are kept in a bounded ring, the oldest lines are written in a
+ * temporary file when they leave the ring. The model exposes the lines of the
+ * ring that match the level filter, changing the filter only rebuilds the index
+ * of visible lines.
+ * Changes are fired once per batch of added lines, see {@link #fireChanges()}.
+ * @author Nicolas Fortin
+ */
+final class LogListModel extends AbstractListModel<LogLine> {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogListModel.class);
+    private static final String TAB_REPLACEMENT = "    ";
+    private LogLine[] lines;
+    // Count of lines ever added, the ring holds lines [addedLines - size, addedLines[
+    private long addedLines = 0;
+    private int size = 0;
+    // Ring of the visible line numbers
+    private long[] visible;
+    private int visibleHead = 0;
+    private int visibleSize = 0;
+    private int minLevel = Integer.MIN_VALUE;
+    private int maxLevel = Integer.MAX_VALUE;
+    private int longestLine = 0;
+    // Visible size before the batch and visible lines removed from the head during the batch
+    private int batchStartSize = 0;
+    private int batchRemoved = 0;
+    private File spillFile;
+    private Writer spillWriter;
+
+    /**
+     * @param maxLines Maximum count of lines kept in memory
+     */
+    LogListModel(int maxLines) {
+        lines = new LogLine[Math.max(1, maxLines)];
+        visible = new long[lines.length];
+    }
+
+    /**
+     * @return Maximum count of lines kept in memory
+     */
+    int getMaxLines() {
+        return lines.length;
+    }
+
+    /**
+     * Change the count of lines kept in memory, the oldest lines are spilled.
+     * @param maxLines Maximum count of lines kept in memory
+     */
+    void setMaxLines(int maxLines) {
+        LogLine[] retained = new LogLine[Math.max(1, maxLines)];
+        long first = Math.max(addedLines - size, addedLines - retained.length);
+        for (long line = addedLines - size; line < first; line++) {
+            spill(lines[(int) (line % lines.length)]);
+        }
+        for (long line = first; line < addedLines; line++) {
+            retained[(int) (line % retained.length)] = lines[(int) (line % lines.length)];
+        }
+        lines = retained;
+        size = (int) (addedLines - first);
+        visible = new long[retained.length];
+        rebuildVisible();
+    }
+
+    /**
+     * Show only the lines within the given levels. Lines without level are always shown.
+     * @param minLevel Included minimum LogService level
+     * @param maxLevel Included maximum LogService level
+     */
+    void setLevelFilter(int minLevel, int maxLevel) {
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+        rebuildVisible();
+    }
+
+    private boolean isVisible(LogLine line) {
+        return line.getLevel() == LogLine.NO_LEVEL || (line.getLevel() >= minLevel && line.getLevel() <= maxLevel);
+    }
+
+    private void rebuildVisible() {
+        int oldSize = visibleSize;
+        visibleHead = 0;
+        visibleSize = 0;
+        for (long line = addedLines - size; line < addedLines; line++) {
+            if (isVisible(lines[(int) (line % lines.length)])) {
+                visible[visibleSize++] = line;
+            }
+        }
+        batchStartSize = visibleSize;
+        batchRemoved = 0;
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        if (visibleSize > 0) {
+            fireIntervalAdded(this, 0, visibleSize - 1);
+        }
+    }
+
+    /**
+     * Add a message, split in lines. No event is fired until {@link #fireChanges()}.
+     * @param message Message read from the ring buffer
+     */
+    void add(LogLine message) {
+        String[] textLines = message.getText().split("\n", -1);
+        int last = textLines.length;
+        // The message may begin or end with a line separator
+        if (last > 1 && textLines[last - 1].isEmpty()) {
+            last--;
+        }
+        for (int i = 0; i < last; i++) {
+            if (i == 0 && last > 1 && textLines[0].isEmpty()) {
+                continue;
+            }
+            String text = textLines[i].replace("\r", "").replace("\t", TAB_REPLACEMENT);
+            addLine(new LogLine(message.getSequence(), text, message.getColor(), message.getLevel()));
+        }
+    }
+
+    private void addLine(LogLine line) {
+        int position = (int) (addedLines % lines.length);
+        if (size == lines.length) {
+            long evicted = addedLines - size;
+            spill(lines[position]);
+            if (visibleSize > 0 && visible[visibleHead] == evicted) {
+                visibleHead = (visibleHead + 1) % visible.length;
+                visibleSize--;
+                batchRemoved++;
+            }
+        } else {
+            size++;
+        }
+        lines[position] = line;
+        if (isVisible(line)) {
+            visible[(visibleHead + visibleSize) % visible.length] = addedLines;
+            visibleSize++;
+        }
+        addedLines++;
+        longestLine = Math.max(longestLine, line.getText().length());
+    }
+
+    /**
+     * Fire the changes done since the last call.
+     */
+    void fireChanges() {
+        int removed = Math.min(batchRemoved, batchStartSize);
+        if (removed > 0) {
+            fireIntervalRemoved(this, 0, removed - 1);
+            batchStartSize -= removed;
+        }
+        if (visibleSize > batchStartSize) {
+            fireIntervalAdded(this, batchStartSize, visibleSize - 1);
+        } else if (visibleSize < batchStartSize) {
+            fireIntervalRemoved(this, visibleSize, batchStartSize - 1);
+        }
+        batchStartSize = visibleSize;
+        batchRemoved = 0;
+    }
+
+    /**
+     * @return Length of the longest line, in characters
+     */
+    int getLongestLine() {
+        return longestLine;
+    }
+
+    @Override
+    public int getSize() {
+        return visibleSize;
+    }
+
+    @Override
+    public LogLine getElementAt(int index) {
+        long line = visible[(visibleHead + index) % visible.length];
+        return lines[(int) (line % lines.length)];
+    }
+
+    /**
+     * Remove all lines, including spilled lines.
+     */
+    void clear() {
+        int oldSize = visibleSize;
+        lines = new LogLine[lines.length];
+        size = 0;
+        visibleHead = 0;
+        visibleSize = 0;
+        batchStartSize = 0;
+        batchRemoved = 0;
+        longestLine = 0;
+        closeSpill();
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+    }
+
+    /**
+     * Write all the lines, the spilled ones then the ones in memory, whatever the level filter.
+     * @param writer Destination
+     * @throws IOException
+     */
+    void writeTo(Writer writer) throws IOException {
+        if (spillWriter != null) {
+            spillWriter.flush();
+            try (Reader reader = new InputStreamReader(new FileInputStream(spillFile), StandardCharsets.UTF_8)) {
+                char[] buffer = new char[8192];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    writer.write(buffer, 0, read);
+                }
+            }
+        }
+        for (long line = addedLines - size; line < addedLines; line++) {
+            writer.write(lines[(int) (line % lines.length)].getText());
+            writer.write("\n");
+        }
+    }
+
+    private void spill(LogLine line) {
+        try {
+            if (spillWriter == null) {
+                spillFile = File.createTempFile("orbisgis_log", ".txt");
+                spillFile.deleteOnExit();
+                spillWriter = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(spillFile), StandardCharsets.UTF_8));
+            }
+            spillWriter.write(line.getText());
+            spillWriter.write("\n");
+        } catch (IOException ex) {
+            LOGGER.debug("Cannot keep the oldest log lines", ex);
+        }
+    }
+
+    /**
+     * Delete the file of spilled lines.
+     */
+    void closeSpill() {
+        if (spillWriter != null) {
+            try {
+                spillWriter.close();
+            } catch (IOException ex) {
+                LOGGER.debug("Cannot close the log spill file", ex);
+            }
+            if (!spillFile.delete()) {
+                LOGGER.debug("Cannot delete the log spill file");
+            }
+            spillWriter = null;
+            spillFile = null;
+        }
+    }
+}
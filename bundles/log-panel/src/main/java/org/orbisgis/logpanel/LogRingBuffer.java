@@ -0,0 +1,96 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.logpanel;
+
+import java.awt.Color;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded buffer of log messages. Any thread can add a message without
+ * locking, a single reader fetches the messages by increasing sequence. If the
+ * reader is late the oldest messages are overwritten.
+ * @author Nicolas Fortin
+ */
+final class LogRingBuffer {
+    private final AtomicReferenceArray<LogLine> slots;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final int mask;
+
+    /**
+     * @param capacity Maximum count of messages not read yet, rounded up to a power of two
+     */
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * @return Maximum count of messages not read yet
+     */
+    int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Add a message, may be called by any thread.
+     * @param text Message
+     * @param color Message color
+     * @param level LogService level
+     */
+    void add(String text, Color color, int level) {
+        long sequence = nextSequence.getAndIncrement();
+        slots.set((int) (sequence & mask), new LogLine(sequence, text, color, level));
+    }
+
+    /**
+     * @return The sequence of the next added message
+     */
+    long getNextSequence() {
+        return nextSequence.get();
+    }
+
+    /**
+     * @param sequence Message sequence
+     * @return The message stored at this place of the ring, it may be an older
+     * message if the writer has not published it yet, or a newer one if it has been overwritten.
+     */
+    LogLine get(long sequence) {
+        return slots.get((int) (sequence & mask));
+    }
+}
@@ -39,11 +39,12 @@ package org.orbisgis.logpanel;
 import java.awt.BorderLayout;
 import java.awt.event.ActionListener;
 import java.beans.EventHandler;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.JComponent;
 import javax.swing.JPanel;
 import javax.swing.JTabbedPane;
-import javax.swing.JTextPane;
 
 import org.orbisgis.logpanel.api.MainLogFrame;
 import org.orbisgis.logpanel.api.MainLogMenuService;
@@ -159,8 +160,8 @@ public class MainOutputPanel extends JPanel implements MainLogFrame {
     }
 
     @Override
-    public JTextPane getLogTextPane(int index) {
-        return ((OutputPanel)tabbedPane.getTabComponentAt(index)).getTextPane();
+    public void writeLog(int index, Writer writer) throws IOException {
+        ((OutputPanel)tabbedPane.getComponentAt(index)).writeLog(writer);
     }
 
     @Override
@@ -124,7 +124,7 @@ public class OutputManager implements DockingPanel {
         }
 
         public void onNewLogMessage(ShowMessageEventData evtMsg) {
-            allPanel.print(evtMsg.getMessage(), evtMsg.getMessageColor());
+            allPanel.print(evtMsg.getMessage(), evtMsg.getMessageColor(), evtMsg.getLevel());
         }
         /**
          * Make the Error Output panel
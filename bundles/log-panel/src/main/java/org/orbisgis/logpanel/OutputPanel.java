@@ -37,66 +37,87 @@
 package org.orbisgis.logpanel;
 
 import java.awt.*;
+import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionListener;
 import java.beans.EventHandler;
 import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
 import javax.swing.*;
-import javax.swing.text.*;
 import org.orbisgis.sif.common.MenuCommonFunctions;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
+/**
+ * Show log messages. Messages can be printed from any thread, they are stored
+ * in a ring buffer and moved to the list by the swing thread at a fixed rate.
+ * Only the visible lines are rendered.
+ */
 public class OutputPanel extends JPanel {
-        //Root logger, for gui logger error
-        private static final Logger LOGGER = LoggerFactory.getLogger(OutputPanel.class);
         private static final I18n I18N = I18nFactory.getI18n(OutputPanel.class);
         private static final long serialVersionUID = 1L;
-        private static final int DEFAULT_MAX_CHARACTERS = 200000;
-	    private int maxCharacters = DEFAULT_MAX_CHARACTERS;
-        private JTextPane textPane;
-        private Color defaultColor=Color.black;
-        
-        //Current text Attribute for insertion, change whith style update        
-        private AttributeSet aset;
-        private Color lastColor = defaultColor;
+        private static final int DEFAULT_MAX_LINES = 20000;
+        /** Count of messages that can be printed between two refresh of the panel */
+        private static final int PENDING_MESSAGES = 8192;
+        /** Delay between two refresh of the panel, in ms */
+        private static final int FLUSH_INTERVAL = 100;
+        private final LogRingBuffer pendingMessages = new LogRingBuffer(PENDING_MESSAGES);
+        // Next message to read in pendingMessages
+        private long readSequence = 0;
+        private final LogListModel model;
+        private JList<LogLine> list;
+        private Timer flushTimer;
+        private volatile Color defaultColor = Color.black;
         
         /**
-         * Constructor with maxChar parameters
-         * @param viewName
-         * @param viewLabel
-         * @param maxCharacters 
+         * Constructor with maxLines parameters
+         * @param maxLines Maximum count of lines kept in memory, older lines are written in a temporary file
          */
-        public OutputPanel(int maxCharacters) {
-            this();
-            this.maxCharacters = maxCharacters;
-        }
-
-        public OutputPanel() {
-                changeAttribute(lastColor); //Init attribute
+        public OutputPanel(int maxLines) {
+                model = new LogListModel(maxLines);
                 this.setLayout(new BorderLayout());
-                textPane = new JTextPane();
-                textPane.setEditable(false);
-                textPane.setComponentPopupMenu(makePopupMenu());
-                this.add(new JScrollPane(textPane), BorderLayout.CENTER);
+                list = new JList<>(model);
+                list.setCellRenderer(new LogLineRenderer());
+                list.setComponentPopupMenu(makePopupMenu());
+                this.add(new JScrollPane(list), BorderLayout.CENTER);
+                resetFont();
+                flushTimer = new Timer(FLUSH_INTERVAL, EventHandler.create(ActionListener.class, this, "flush"));
+                flushTimer.setCoalesce(true);
+                flushTimer.start();
 
                 this.addPropertyChangeListener("UI",
                         EventHandler.create(PropertyChangeListener.class, this, "resetFont"));
         }
 
+        public OutputPanel() {
+                this(DEFAULT_MAX_LINES);
+        }
 
         public void resetFont() {
-            final Font currFont = textPane.getFont();
-            textPane.setFont(new Font(Font.MONOSPACED, currFont.getStyle(), currFont.getSize()));
+            if(list != null) {
+                final Font currFont = list.getFont();
+                list.setFont(new Font(Font.MONOSPACED, currFont.getStyle(), currFont.getSize()));
+                // All lines have the same height, the list does not have to measure each line
+                list.setFixedCellHeight(list.getFontMetrics(list.getFont()).getHeight());
+                updateCellWidth();
+            }
+        }
+
+        private void updateCellWidth() {
+            FontMetrics metrics = list.getFontMetrics(list.getFont());
+            int width = metrics.charWidth('m') * model.getLongestLine() + metrics.getHeight();
+            if(width > list.getFixedCellWidth()) {
+                list.setFixedCellWidth(width);
+            }
         }
 
-    /**
-         * Get the internal text pane
-         * @return internal text pane
+        /**
+         * Get the list that show log lines
+         * @return internal list
          */
-        public JTextPane getTextPane() {
-                return textPane;
+        public JList<?> getList() {
+                return list;
         }
 
         /**
@@ -123,7 +144,14 @@ public class OutputPanel extends JPanel {
          * The user click on copy menu item
          */
         public void onMenuCopy() {
-            textPane.copy();
+            List<LogLine> selected = list.getSelectedValuesList();
+            if(!selected.isEmpty()) {
+                StringBuilder text = new StringBuilder();
+                for(LogLine line : selected) {
+                    text.append(line.getText()).append("\n");
+                }
+                Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(text.toString()), null);
+            }
         }
         /**
          * Update the color used by print functions
@@ -135,29 +163,44 @@ public class OutputPanel extends JPanel {
         
         /**
          * 
-         * @return The maximum characters shown in the document
+         * @return The maximum count of lines kept in memory
          */
-        public int getMaxCharacters() {
-            return maxCharacters;
+        public int getMaxLines() {
+            return model.getMaxLines();
         }
         /**
          * 
-         * @param maxCharacters The maximum characters shown in the document
-         */
-        public void setMaxCharacters(int maxCharacters) {
-            this.maxCharacters = maxCharacters;
-            try{
-                removeAdditionnalCharacters();
-            } catch (BadLocationException e) {
-                LOGGER.error("orbisgis.view.output.CannotShowLogMessage", e);
-            }
+         * @param maxLines The maximum count of lines kept in memory, older lines are written in a temporary file
+         */
+        public void setMaxLines(int maxLines) {
+            model.setMaxLines(maxLines);
+        }
+
+        /**
+         * Show only the messages within the given levels, messages printed without level are always shown.
+         * @param minLevel Included minimum LogService level
+         * @param maxLevel Included maximum LogService level
+         */
+        public void setLevelFilter(int minLevel, int maxLevel) {
+            model.setLevelFilter(minLevel, maxLevel);
         }
         
         /**
          * The user click on clear text button
          */
         public void onMenuClear() {
-            textPane.setText(null);
+            readSequence = pendingMessages.getNextSequence();
+            model.clear();
+        }
+
+        /**
+         * Write all the log lines, including the lines that are not kept in memory.
+         * @param writer Destination
+         * @throws IOException
+         */
+        public void writeLog(Writer writer) throws IOException {
+            flush();
+            model.writeTo(writer);
         }
 
         /**
@@ -183,41 +226,96 @@ public class OutputPanel extends JPanel {
 	public void print(String text) {
 		print(text, defaultColor);
 	}
-        /**
-         * Remove characters that exceed the limitation maxCharacter
-         */
-        private void removeAdditionnalCharacters() throws BadLocationException {
-                if(maxCharacters > 0) {
-                    int len = textPane.getDocument().getLength();
-                    if (len > maxCharacters) 			{
-                            textPane.getDocument().remove(0, len - maxCharacters);
-                    }                    
-                }
-        }
-        
-        private void changeAttribute(Color color) {
-            lastColor = color;
-            StyleContext sc = StyleContext.getDefaultStyleContext();
-            aset = sc.addAttribute(SimpleAttributeSet.EMPTY,
-                            StyleConstants.Foreground, color);            
-        }
+
         /**
          * Add the provided text with the provided color to the GUI document
          * @param text The text that will be added without adding a carriage return
          * @param color The color used to show the text 
          */
 	public void print(String text, Color color) {
-                if(!color.equals(lastColor)) {
-                    changeAttribute(color);
-                }
-		int len = textPane.getDocument().getLength();
-		try {
-			textPane.setCaretPosition(len);
-			textPane.getDocument().insertString(len, text, aset);
-                        removeAdditionnalCharacters();
-		} catch (BadLocationException e) {
-			LOGGER.error(I18N.tr("Cannot show the log message"), e);
-		}
-		textPane.setCaretPosition(textPane.getDocument().getLength());
+                print(text, color, LogLine.NO_LEVEL);
 	}
+
+        /**
+         * Add the provided text to the panel. This method can be called from any thread.
+         * @param text The text to show, each line separator starts a new line
+         * @param color The color used to show the text
+         * @param level LogService level of the message, used by the level filter
+         */
+        public void print(String text, Color color, int level) {
+                pendingMessages.add(text, color, level);
+        }
+
+        /**
+         * Printed messages are overwritten when the panel is not refreshed in time.
+         * @return True if messages have been skipped
+         */
+        private boolean skipOverwritten() {
+            long oldest = pendingMessages.getNextSequence() - pendingMessages.getCapacity();
+            if(readSequence < oldest) {
+                model.add(new LogLine(readSequence, I18N.tr("{0} messages skipped", oldest - readSequence),
+                        PanelAppender.COLOR_WARNING, LogLine.NO_LEVEL));
+                readSequence = oldest;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Move the printed messages to the list, called by the swing timer.
+         */
+        public void flush() {
+            long end = pendingMessages.getNextSequence();
+            if(end == readSequence) {
+                return;
+            }
+            boolean added = skipOverwritten();
+            while(readSequence < end) {
+                LogLine message = pendingMessages.get(readSequence);
+                if(message != null && message.getSequence() == readSequence) {
+                    model.add(message);
+                    added = true;
+                    readSequence++;
+                } else if(message == null || message.getSequence() < readSequence) {
+                    // Not published yet, wait for the next refresh
+                    break;
+                } else {
+                    // Overwritten while reading
+                    added |= skipOverwritten();
+                }
+            }
+            if(added) {
+                model.fireChanges();
+                updateCellWidth();
+                int last = model.getSize() - 1;
+                if(last >= 0) {
+                    list.ensureIndexIsVisible(last);
+                }
+            }
+        }
+
+        /**
+         * Show each line with its own color
+         */
+        private static class LogLineRenderer extends DefaultListCellRenderer {
+            private static final long serialVersionUID = 1L;
+
+            LogLineRenderer() {
+                // Log messages must not be interpreted as html
+                putClientProperty("html.disable", Boolean.TRUE);
+            }
+
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected,
+                    boolean cellHasFocus) {
+                LogLine line = (LogLine) value;
+                // An empty label would have no height
+                String text = line.getText().isEmpty() ? " " : line.getText();
+                super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+                if(!isSelected) {
+                    setForeground(line.getColor());
+                }
+                return this;
+            }
+        }
 }
@@ -37,9 +37,6 @@
 package org.orbisgis.logpanel;
 
 import java.awt.Color;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.SwingUtilities;
 import org.orbisgis.commons.events.EventException;
 import org.orbisgis.commons.events.Listener;
@@ -61,18 +58,12 @@ public class PanelAppender implements LogListener {
     public static final Color COLOR_WARNING = Color.ORANGE.darker();
     public static final Color COLOR_DEBUG = Color.BLUE;
     public static final Color COLOR_INFO = Color.BLACK;
-    private int lastLevel = LogService.LOG_INFO;
-    private Color lastLevelColor = getLevelColor(lastLevel);
     private OutputPanel guiPanel;
     private int lastMessageHash = 0;
-    private Long lastMessageTime = 0L;
+    private long lastMessageTime = 0L;
     private int levelMinFilter;
     private int levelMaxFilter;
     
-    //Messages are stored here before being pushed in the gui
-    private Queue<LogEntry> leQueue = new LinkedList<>();
-    private AtomicBoolean processingQueue=new AtomicBoolean(false); /*!< If true a swing runnable */
-    
     private ListenerContainer<ShowMessageEventData> messageEvent = new ListenerContainer<ShowMessageEventData>();
 
     public ListenerContainer<ShowMessageEventData> getMessageEvent() {
@@ -120,63 +111,52 @@ public class PanelAppender implements LogListener {
     }
 
 
+    /**
+     * The message is printed in the panel ring buffer by the logging thread,
+     * the panel shows it on its next refresh.
+     * @param entry Log entry
+     */
     @Override
     public void logged(LogEntry entry) {
-        if(entry.getLevel() >= levelMinFilter && entry.getLevel() <= levelMaxFilter) {
-            leQueue.add(entry);
-            // Show the application when Swing will be ready
-            if (!processingQueue.getAndSet(true)) {
-                SwingUtilities.invokeLater(new ShowMessage());
-            }
+        if(entry.getLevel() >= levelMinFilter && entry.getLevel() <= levelMaxFilter
+                && entry.getMessage() != null && !isRepeated(entry)) {
+            Color color = getLevelColor(entry.getLevel());
+            guiPanel.print(entry.getMessage(), color, entry.getLevel());
+            firePrintMessage(entry.getMessage(), color, entry.getLevel());
         }
     }
 
     /**
-     * Output the message on each listener
-     * @param text Message text
-     * @param textColor Message color
+     * @param le Log entry
+     * @return True if the same message has just been shown
      */
-    private void firePrintMessage(String text,Color textColor) {
-        try {
-            messageEvent.callListeners(new ShowMessageEventData(text, textColor, this));
-        } catch (EventException ex) {
-            //Do nothing on listener error
+    private synchronized boolean isRepeated(LogEntry le) {
+        int messageHash = le.getMessage().hashCode();
+        if(messageHash != lastMessageHash || le.getTime() - lastMessageTime > SAME_MESSAGE_IGNORE_INTERVAL) {
+            lastMessageHash = messageHash;
+            lastMessageTime = le.getTime();
+            return false;
         }
-    } 
+        return true;
+    }
 
-   /**
-    * Push awaiting messages to the gui
-    */ 
-   private class ShowMessage implements Runnable {
-       /**
-        * Push awaiting messages to the gui
-        */
-        @Override
-        public void run(){
-            try {
-                while(!leQueue.isEmpty()) {
-                    LogEntry le = leQueue.poll();
-                    if(le.getMessage() != null) {
-                        int messageHash = le.getMessage().hashCode();
-                        if(messageHash!=lastMessageHash ||
-                            le.getTime()-lastMessageTime > SAME_MESSAGE_IGNORE_INTERVAL) {
-                            lastMessageHash = messageHash;
-                            lastMessageTime = le.getTime();
-                            //Update the color if the level change
-                            if(le.getLevel() != lastLevel) {
-                                lastLevel = le.getLevel();
-                                lastLevelColor = getLevelColor(lastLevel);
-                                guiPanel.setDefaultColor(lastLevelColor);
-                            }
-                            String message = "\n"+le.getMessage();
-                            guiPanel.print(message);
-                            firePrintMessage(message,lastLevelColor);
-                        }
-                    }
+    /**
+     * Output the message on each listener, in the swing thread
+     * @param text Message text
+     * @param textColor Message color
+     * @param level Message level
+     */
+    private void firePrintMessage(String text,Color textColor, int level) {
+        final ShowMessageEventData data = new ShowMessageEventData(text, textColor, level, this);
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    messageEvent.callListeners(data);
+                } catch (EventException ex) {
+                    //Do nothing on listener error
                 }
-            } finally {
-                processingQueue.set(false);                
             }
-        }
+        });
     }
 }
@@ -45,11 +45,17 @@ import java.util.EventObject;
 public class ShowMessageEventData extends EventObject {
     String message;
     Color messageColor;
+    int level;
 
     public ShowMessageEventData(String message, Color messageColor, Object o) {
+        this(message, messageColor, LogLine.NO_LEVEL, o);
+    }
+
+    public ShowMessageEventData(String message, Color messageColor, int level, Object o) {
         super(o);
         this.message = message;
         this.messageColor = messageColor;
+        this.level = level;
     }
 
     public String getMessage() {
@@ -59,5 +65,12 @@ public class ShowMessageEventData extends EventObject {
     public Color getMessageColor() {
         return messageColor;
     }
+
+    /**
+     * @return LogService level of the message
+     */
+    public int getLevel() {
+        return level;
+    }
     
 }
@@ -36,7 +36,8 @@
  */
 package org.orbisgis.logpanel.api;
 
-import javax.swing.JTextPane;
+import java.io.IOException;
+import java.io.Writer;
 
 /**
  * Methods exposed to plugin-ins in order to expands functionality of Logging window
@@ -44,10 +45,13 @@ import javax.swing.JTextPane;
  */
 public interface MainLogFrame {
     /**
-     * Retrieve text pane
-     * @return Text pane instance
+     * Write the content of a logging tab, including the lines that are no longer kept in memory.
+     * Must be called by the swing thread.
+     * @param index Tab index
+     * @param writer Destination
+     * @throws IOException
      */
-    JTextPane getLogTextPane(int index);
+    void writeLog(int index, Writer writer) throws IOException;
 
     /**
      * Retrieve tab label
@@ -0,0 +1,154 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.logpanel;
+
+import org.junit.Test;
+import org.osgi.service.log.LogService;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.awt.Color;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Nicolas Fortin
+ */
+public class LogListModelTest {
+
+    private static LogLine message(long sequence, String text, int level) {
+        return new LogLine(sequence, text, Color.BLACK, level);
+    }
+
+    private static void assertLines(LogListModel model, String... expected) {
+        assertEquals(expected.length, model.getSize());
+        for(int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], model.getElementAt(i).getText());
+        }
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        LogListModel model = new LogListModel(3);
+        SizeListener listener = new SizeListener();
+        model.addListDataListener(listener);
+        try {
+            for(int i = 0; i < 5; i++) {
+                model.add(message(i, "m" + i, LogService.LOG_INFO));
+            }
+            model.fireChanges();
+            assertLines(model, "m2", "m3", "m4");
+            // The listeners see the same size as the model
+            assertEquals(model.getSize(), listener.size);
+            model.add(message(5, "m5", LogService.LOG_INFO));
+            model.fireChanges();
+            assertLines(model, "m3", "m4", "m5");
+            assertEquals(model.getSize(), listener.size);
+            // Evicted lines are still written
+            StringWriter writer = new StringWriter();
+            model.writeTo(writer);
+            assertEquals("m0\nm1\nm2\nm3\nm4\nm5\n", writer.toString());
+        } finally {
+            model.closeSpill();
+        }
+    }
+
+    @Test
+    public void testFilterAfterEviction() {
+        LogListModel model = new LogListModel(4);
+        SizeListener listener = new SizeListener();
+        model.addListDataListener(listener);
+        try {
+            for(int i = 0; i < 10; i++) {
+                model.add(message(i, "m" + i, i % 2 == 0 ? LogService.LOG_ERROR : LogService.LOG_INFO));
+            }
+            model.fireChanges();
+            model.setLevelFilter(LogService.LOG_ERROR, LogService.LOG_ERROR);
+            // Only the errors of the last 4 lines
+            assertLines(model, "m6", "m8");
+            assertEquals(model.getSize(), listener.size);
+            // An info line evicts the m6 error, hidden lines are not counted
+            model.add(message(10, "m10", LogService.LOG_INFO));
+            model.add(message(11, "m11", LogService.LOG_INFO));
+            model.fireChanges();
+            assertLines(model, "m8");
+            assertEquals(model.getSize(), listener.size);
+            model.add(message(12, "m12", LogService.LOG_ERROR));
+            model.fireChanges();
+            assertLines(model, "m12");
+            assertEquals(model.getSize(), listener.size);
+            model.setLevelFilter(Integer.MIN_VALUE, Integer.MAX_VALUE);
+            assertLines(model, "m9", "m10", "m11", "m12");
+            assertEquals(model.getSize(), listener.size);
+        } finally {
+            model.closeSpill();
+        }
+    }
+
+    @Test
+    public void testMultiLineMessage() {
+        LogListModel model = new LogListModel(10);
+        model.add(message(0, "\nfirst\n\tsecond\n", LogService.LOG_INFO));
+        model.fireChanges();
+        assertLines(model, "first", "    second");
+        model.clear();
+        assertEquals(0, model.getSize());
+    }
+
+    /**
+     * Size of the list, as seen by the list listeners
+     */
+    private static class SizeListener implements ListDataListener {
+        private int size = 0;
+
+        @Override
+        public void intervalAdded(ListDataEvent e) {
+            size += e.getIndex1() - e.getIndex0() + 1;
+        }
+
+        @Override
+        public void intervalRemoved(ListDataEvent e) {
+            size -= e.getIndex1() - e.getIndex0() + 1;
+        }
+
+        @Override
+        public void contentsChanged(ListDataEvent e) {
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.logpanel;
+
+import org.junit.Test;
+import org.osgi.service.log.LogService;
+
+import java.awt.Color;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Nicolas Fortin
+ */
+public class LogRingBufferTest {
+
+    @Test
+    public void testCapacity() {
+        assertEquals(1024, new LogRingBuffer(1000).getCapacity());
+        assertEquals(1024, new LogRingBuffer(1024).getCapacity());
+        assertEquals(2048, new LogRingBuffer(1025).getCapacity());
+    }
+
+    @Test
+    public void testWrapAround() {
+        LogRingBuffer buffer = new LogRingBuffer(8);
+        for(int i = 0; i < 20; i++) {
+            buffer.add("m" + i, Color.BLACK, LogService.LOG_INFO);
+        }
+        assertEquals(20, buffer.getNextSequence());
+        // The last capacity messages are kept
+        for(long sequence = 12; sequence < 20; sequence++) {
+            LogLine line = buffer.get(sequence);
+            assertEquals(sequence, line.getSequence());
+            assertEquals("m" + sequence, line.getText());
+        }
+        // Older messages have been overwritten by the newer ones of the same slot
+        assertEquals(12, buffer.get(4).getSequence());
+        assertEquals(19, buffer.get(3).getSequence());
+    }
+
+    @Test
+    public void testConcurrentAdd() throws InterruptedException {
+        final int threadCount = 4;
+        final int messagePerThread = 1000;
+        final LogRingBuffer buffer = new LogRingBuffer(threadCount * messagePerThread);
+        Thread[] threads = new Thread[threadCount];
+        for(int threadId = 0; threadId < threadCount; threadId++) {
+            final String prefix = "t" + threadId + "_";
+            threads[threadId] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for(int i = 0; i < messagePerThread; i++) {
+                        buffer.add(prefix + i, Color.BLACK, LogService.LOG_INFO);
+                    }
+                }
+            });
+            threads[threadId].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threadCount * messagePerThread, buffer.getNextSequence());
+        // No message has been lost or overwritten
+        Set<String> messages = new HashSet<>();
+        for(long sequence = 0; sequence < buffer.getNextSequence(); sequence++) {
+            LogLine line = buffer.get(sequence);
+            assertEquals(sequence, line.getSequence());
+            assertTrue(messages.add(line.getText()));
+        }
+        assertEquals(threadCount * messagePerThread, messages.size());
+    }
+}
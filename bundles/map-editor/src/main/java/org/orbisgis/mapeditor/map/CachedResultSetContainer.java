@@ -178,6 +178,16 @@ public class CachedResultSetContainer implements ResultSetProviderFactory {
 
         @Override
         public SpatialResultSet execute(ProgressMonitor pm, Envelope extent, Set<String> fields) throws SQLException {
+            return execute(pm, extent, fields, null);
+        }
+
+        @Override
+        public SpatialResultSet execute(ProgressMonitor pm, Envelope extent, Set<String> fields, String filter)
+                throws SQLException {
+            if(filter != null && !filter.isEmpty()) {
+                // The cached row set holds all rows, let the database filter them
+                return resultSetProvider.execute(pm, extent, fields, filter);
+            }
             lock = readRowSet.getReadLock();
             try {
                 lock.tryLock(LOCK_TIMEOUT, TimeUnit.SECONDS);
@@ -188,7 +198,7 @@ public class CachedResultSetContainer implements ResultSetProviderFactory {
                     readRowSet.beforeFirst();
                     return readRowSet;
                 } else {
-                    return resultSetProvider.execute(pm, extent, fields);
+                    return resultSetProvider.execute(pm, extent, fields, null);
                 }
             } catch (InterruptedException ex) {
                 throw new SQLException(I18N.tr("Lock timeout while fetching {0}, another job is using this resource.",
@@ -0,0 +1,124 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.mapeditor.map;
+
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Keep the images released by the map rendering in order to draw the next frames into them instead of allocating
+ * full size images for each rendering.
+ * @author Nicolas Fortin
+ */
+class FrameBufferPool {
+    private final int capacity;
+    private final Deque<BufferedImage> freeImages = new ArrayDeque<>();
+
+    /**
+     * @param capacity Maximum number of released images kept in the pool
+     */
+    FrameBufferPool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Return an image of the given size. The content of a reused image is not cleared.
+     * @param width Image width
+     * @param height Image height
+     * @return An image not used by anyone else
+     */
+    synchronized BufferedImage acquire(int width, int height) {
+        Iterator<BufferedImage> it = freeImages.iterator();
+        while(it.hasNext()) {
+            BufferedImage image = it.next();
+            it.remove();
+            if(image.getWidth() == width && image.getHeight() == height) {
+                return image;
+            } else {
+                // The component has been resized, this image will not be used anymore
+                image.flush();
+            }
+        }
+        return createImage(width, height);
+    }
+
+    /**
+     * Give back an image to the pool.
+     * @param image Image that is not drawn nor displayed anymore, may be null
+     */
+    synchronized void release(BufferedImage image) {
+        if(image == null) {
+            return;
+        }
+        if(freeImages.size() >= capacity) {
+            freeImages.removeLast().flush();
+        }
+        freeImages.addFirst(image);
+    }
+
+    /**
+     * @return Number of images ready to be reused
+     */
+    synchronized int getFreeImageCount() {
+        return freeImages.size();
+    }
+
+    /**
+     * Free all the images of the pool
+     */
+    synchronized void clear() {
+        for(BufferedImage image : freeImages) {
+            image.flush();
+        }
+        freeImages.clear();
+    }
+
+    static BufferedImage createImage(int width, int height) {
+        if(GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        // Same pixel layout as the screen, drawImage does not have to convert the pixels
+        GraphicsConfiguration configuration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+        return configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+}
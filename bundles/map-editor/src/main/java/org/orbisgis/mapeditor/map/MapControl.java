@@ -50,6 +50,7 @@ import org.orbisgis.coremap.layerModel.MapContext;
 import org.orbisgis.coremap.layerModel.SelectionEvent;
 import org.orbisgis.coremap.map.MapTransform;
 import org.orbisgis.coremap.map.TransformListener;
+import org.orbisgis.coremap.renderer.FrameProfiler;
 import org.orbisgis.coremap.renderer.ImageRenderer;
 import org.orbisgis.coremap.renderer.ResultSetProviderFactory;
 import org.orbisgis.mapeditor.map.tool.Automaton;
@@ -62,15 +63,17 @@ import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
 import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.Timer;
+import java.awt.AlphaComposite;
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.GraphicsConfiguration;
-import java.awt.GraphicsEnvironment;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ComponentListener;
@@ -79,6 +82,7 @@ import java.awt.event.ContainerListener;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.beans.EventHandler;
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.HashSet;
 import java.util.concurrent.ExecutorService;
@@ -97,7 +101,17 @@ public class MapControl extends JComponent implements ContainerListener {
         private static final I18n I18N = I18nFactory.getI18n(MapControl.class);
 	private static int lastMapControlId = 0;
         private static final long serialVersionUID = 1L;
-        private AtomicBoolean awaitingDrawing=new AtomicBoolean(false); /*!< A drawing process is currently requested, it is useless to request another */
+        // Invalidations received during this delay are rendered in a single frame
+        private static final int COALESCE_DELAY = Integer.getInteger("map.editor.render.coalescedelay", 100);
+        // Displayed frame, rendered frame and intermediate drawing
+        private static final int FRAME_BUFFER_COUNT = 3;
+        // Edited geometries are redrawn after this delay
+        private static final int REGION_COALESCE_DELAY = 20;
+        // Pixels around the edited geometries redrawn for the symbols width
+        private static final int REGION_MARGIN = 32;
+        // Location and background of the rendering profile overlay
+        private static final int PROFILE_MARGIN = 8;
+        private static final Color PROFILE_BACKGROUND = new Color(255, 255, 255, 200);
     private ExecutorService executorService;
 
     /** The map will draw the last generated image without querying the data. */
@@ -107,21 +121,34 @@ public class MapControl extends JComponent implements ContainerListener {
 	public static final int DIRTY = 1;
         private RefreshLayerListener refreshLayerListener = new RefreshLayerListener(this);
 
-	private int status = DIRTY;
+	private volatile int status = DIRTY;
+        // System.nanoTime() of the first invalidation not yet rendered
+        private volatile long dirtySince = System.nanoTime();
 
 	private ToolManager toolManager;
 
 	private Color defaultBackColor = Color.white;
 
-    // True if mapTransform is a intermediateDrawing and should be drawn instead of adapting updatedMapTranform image
-    private AtomicBoolean intermediateDrawing = new AtomicBoolean(false);
 	private MapTransform mapTransform = new MapTransform();
 
 	private MapContext mapContext;
 
 	private Drawer drawer;
+        private final FrameBufferPool framePool = new FrameBufferPool(FRAME_BUFFER_COUNT);
+        private final RenderStatistics renderStatistics = new RenderStatistics();
+        private final Timer renderTimer = new Timer(COALESCE_DELAY, EventHandler.create(ActionListener.class, this, "startRendering"));
+        private final Timer regionTimer = new Timer(REGION_COALESCE_DELAY, EventHandler.create(ActionListener.class, this, "startRendering"));
+        // Last complete frame, with its image and adjusted extent
+        private MapTransform frontTransform;
+        // Map area to redraw in the last complete frame
+        private final Object regionLock = new Object();
+        private Envelope dirtyRegion;
+        private volatile long regionDirtySince;
 
 	private boolean showCoordinates = true;
+        // Record the rendering events of each frame and display them over the map
+        private volatile boolean profiling = Boolean.getBoolean("map.editor.render.profile");
+        private FrameProfiler lastFrameProfile;
 
 
 	TransformListener element;
@@ -129,10 +156,13 @@ public class MapControl extends JComponent implements ContainerListener {
 	Automaton defaultTool;
 
         PropertyChangeListener boundingBoxPropertyListener = EventHandler.create(PropertyChangeListener.class,this,"onMapContextBoundingBoxChange");
-
-        MapTransform updatedMapTranform = new MapTransform();
+        // Layers read from a map context document open their data source later
+        private final PropertyChangeListener layerSourceListener = EventHandler.create(PropertyChangeListener.class, this, "onLayerSourceChange", "");
 
         private void setStatus(int newStatus) {
+            if(newStatus == DIRTY && status != DIRTY) {
+                dirtySince = System.nanoTime();
+            }
             status = newStatus;
         }
 
@@ -164,6 +194,8 @@ public class MapControl extends JComponent implements ContainerListener {
 		}
 		setDoubleBuffered(true);
 		setOpaque(true);
+		renderTimer.setRepeats(false);
+		regionTimer.setRepeats(false);
 		setStatus(DIRTY);
 
         // creating objects
@@ -203,9 +235,25 @@ public class MapControl extends JComponent implements ContainerListener {
 
 	}
 
+        /**
+         * The data source of a layer has been opened or changed, the table edition is watched
+         * @param evt Layer property change
+         */
+        public void onLayerSourceChange(PropertyChangeEvent evt) {
+            if(evt.getSource() instanceof ILayer) {
+                ILayer layer = (ILayer) evt.getSource();
+                if(!layer.getTableReference().isEmpty() && layer.getDataManager() != null) {
+                    layer.getDataManager().removeTableEditListener(layer.getTableReference(), refreshLayerListener);
+                    layer.getDataManager().addTableEditListener(layer.getTableReference(), refreshLayerListener);
+                }
+            }
+        }
+
 	private void addLayerListenerRecursively(ILayer rootLayer,
 			RefreshLayerListener refreshLayerListener) {
 		rootLayer.addLayerListener(refreshLayerListener);
+        rootLayer.removePropertyChangeListener(ILayer.PROP_SOURCE_URI, layerSourceListener);
+        rootLayer.addPropertyChangeListener(ILayer.PROP_SOURCE_URI, layerSourceListener);
         if(!rootLayer.getTableReference().isEmpty() && rootLayer.getDataManager() != null) {
             rootLayer.getDataManager().removeTableEditListener(rootLayer.getTableReference(), refreshLayerListener);
             rootLayer.getDataManager().addTableEditListener(rootLayer.getTableReference(), refreshLayerListener);
@@ -219,6 +267,7 @@ public class MapControl extends JComponent implements ContainerListener {
 	private void removeLayerListenerRecursively(ILayer rootLayer,
 			RefreshLayerListener refreshLayerListener) {
 		rootLayer.removeLayerListener(refreshLayerListener);
+        rootLayer.removePropertyChangeListener(ILayer.PROP_SOURCE_URI, layerSourceListener);
         if(!rootLayer.getTableReference().isEmpty() && rootLayer.getDataManager() != null) {
             rootLayer.getDataManager().removeTableEditListener(rootLayer.getTableReference(), refreshLayerListener);
         }
@@ -254,101 +303,289 @@ public class MapControl extends JComponent implements ContainerListener {
 	 */
         @Override
         protected void paintComponent(Graphics g) {
-            mapTransform.updateRenderingHints();            
-            BufferedImage mapTransformImage = mapTransform.getImage();
-
             // we always fill the Graphics with an opaque color
             // before drawing anything.
             g.setColor(getBackColor());
             g.fillRect(0, 0, getWidth(), getHeight());
 
-            // Overwrite the updateImage if the draw status is up to date.
-            if (mapTransformImage != null && status == UPDATED && !awaitingDrawing.get()) {
-                updatedMapTranform.setImage(mapTransformImage);
-                updatedMapTranform.setExtent(mapTransform.getExtent());
+            // The first frame is rendered without waiting for other invalidations
+            if (status == DIRTY && mapContext != null && drawer == null && !renderTimer.isRunning()) {
+                startRendering();
             }
 
             // then we render on top the already computed image
             // if it exists
-            if(updatedMapTranform.getImage() != null && !mapTransform.getAdjustedExtent().isNull()){
-                if(status == UPDATED && !awaitingDrawing.get()) {
-                    // Render last finished drawing
-                    g.drawImage(updatedMapTranform.getImage(), 0, 0, null);
-                } else if(intermediateDrawing.get()) {
+            if(!mapTransform.getAdjustedExtent().isNull()) {
+                if(drawer != null && drawer.getIntermediateImage() != null) {
                     // Render intermediate drawing
-                    g.drawImage(mapTransform.getImage(), 0, 0, null);
-                } else {
-                    // Render adapted last finished drawing (first ms of redraw)
-                    // If the image extent is not the same as the current map context extent then
-                    // Compute the translation to apply to the updated image
-                    Envelope targetExtent = mapTransform.getAdjustedExtent();
-                    Point pixelPosTarget = mapTransform.fromMapPoint(
-                            new Point2D.Double(targetExtent.getMinX(), targetExtent.getMinY()));
-                    Point pixelPosDirty = mapTransform.fromMapPoint(
-                            new Point2D.Double(updatedMapTranform.getAdjustedExtent().getMinX(), updatedMapTranform.getAdjustedExtent().getMinY()));
-                    // Compute resize
-                    int width = updatedMapTranform.getImage().getWidth();
-                    int height = updatedMapTranform.getImage().getHeight();
-                    double wRatio = updatedMapTranform.getAdjustedExtent().getWidth() / targetExtent.getWidth();
-                    double hRatio = updatedMapTranform.getAdjustedExtent().getHeight() / targetExtent.getHeight();
-                    width = (int)(((double)width) * wRatio);
-                    int hdiff = (int)(((double)height) * hRatio) - height;
-                    height = (int)(((double)height) * hRatio);
-                    // Do not resize if the image to too big
-                    if(width < MAX_IMAGE_SIZE.x && height < MAX_IMAGE_SIZE.y) {
-                        g.drawImage(updatedMapTranform.getImage(), pixelPosDirty.x - pixelPosTarget.x, pixelPosDirty.y - pixelPosTarget.y - hdiff, width, height, null);
-                    }
+                    drawFrame(g, drawer.getIntermediateImage(), drawer.getFrameExtent());
+                } else if(frontTransform != null) {
+                    // Render last finished drawing, reprojected if the extent has changed since
+                    drawFrame(g, frontTransform.getImage(), frontTransform.getAdjustedExtent());
                 }
-                toolManager.paintEdition(g);
-            }
-
-            // if the image itself is dirty
-            if (status == DIRTY && mapContext!=null) {
-                if(!awaitingDrawing.getAndSet(true)) {
-                    try {
-                        setStatus(UPDATED);
-                        intermediateDrawing.set(false);
-                        // is never null, except at first loading with no layer
-                        // in that case we do not draw anything
-                        int width = this.getWidth();
-                        int height = this.getHeight();
-
-                        // getting an image to draw in
-                        GraphicsConfiguration configuration = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
-                        BufferedImage inProcessImage = configuration.createCompatibleImage(width, height,
-                                BufferedImage.TYPE_INT_ARGB);
-
-                        Graphics gImg = inProcessImage.createGraphics();
-
-                        initImage(gImg);
-
-                        // this is the new image
-                        // mapTransform will update the AffineTransform
-                        mapTransform.setImage(inProcessImage);
-
-                        // now we start the actual drawer
-                        drawer = new Drawer(mapContext, awaitingDrawing, this, resultSetProviderFactory, intermediateDrawing);
-                        execute(drawer);
-                    } catch (Exception ex) {
-                        awaitingDrawing.set(false);
-                        throw ex;
-                    }
+                if(frontTransform != null || drawer != null) {
+                    toolManager.paintEdition(g);
+                }
+            }
+            if(profiling && lastFrameProfile != null) {
+                drawProfile(g, lastFrameProfile);
+            }
+        }
+
+        /**
+         * Draw the counters of the last rendered frame over the map
+         * @param g Component graphics
+         * @param profile Last frame profile
+         */
+        private void drawProfile(Graphics g, FrameProfiler profile) {
+            String[] lines = profile.toString().split("\n");
+            FontMetrics metrics = g.getFontMetrics();
+            int width = 0;
+            for(String line : lines) {
+                width = Math.max(width, metrics.stringWidth(line));
+            }
+            int lineHeight = metrics.getHeight();
+            g.setColor(PROFILE_BACKGROUND);
+            g.fillRect(PROFILE_MARGIN, PROFILE_MARGIN, width + 2 * PROFILE_MARGIN,
+                    lines.length * lineHeight + PROFILE_MARGIN);
+            g.setColor(Color.BLACK);
+            for(int i = 0; i < lines.length; i++) {
+                g.drawString(lines[i], 2 * PROFILE_MARGIN, PROFILE_MARGIN + (i + 1) * lineHeight);
+            }
+        }
+
+        /**
+         * Draw a frame rendered with another extent at its location in the current extent.
+         * @param g Component graphics
+         * @param image Frame image
+         * @param frameExtent Adjusted extent of the frame
+         */
+        private void drawFrame(Graphics g, BufferedImage image, Envelope frameExtent) {
+            if(frameExtent.equals(mapTransform.getAdjustedExtent()) && image.getWidth() == mapTransform.getWidth()
+                    && image.getHeight() == mapTransform.getHeight()) {
+                g.drawImage(image, 0, 0, null);
+            } else {
+                Point upperLeft = mapTransform.fromMapPoint(new Point2D.Double(frameExtent.getMinX(), frameExtent.getMaxY()));
+                Point lowerRight = mapTransform.fromMapPoint(new Point2D.Double(frameExtent.getMaxX(), frameExtent.getMinY()));
+                int width = lowerRight.x - upperLeft.x;
+                int height = lowerRight.y - upperLeft.y;
+                // Do not resize if the image to too big
+                if(width > 0 && height > 0 && width < MAX_IMAGE_SIZE.x && height < MAX_IMAGE_SIZE.y) {
+                    g.drawImage(image, upperLeft.x, upperLeft.y, width, height, null);
+                }
+            }
+        }
+
+        /**
+         * Render the map in a background frame if the map is not up to date. If a rendering is running it is
+         * cancelled, then the new rendering is started when the cancelled one is stopped.
+         */
+        public void startRendering() {
+            if(mapContext == null) {
+                return;
+            }
+            if(status != DIRTY) {
+                startRegionRendering();
+                return;
+            }
+            if(drawer != null) {
+                // Currently drawing with a mix of old and new map context !
+                // Stop the drawing, frameDone will start the new one
+                drawer.cancel();
+                return;
+            }
+            int width = getWidth();
+            int height = getHeight();
+            if(width <= 0 || height <= 0) {
+                return;
+            }
+            mapTransform.updateRenderingHints();
+            setStatus(UPDATED);
+            BufferedImage backImage = framePool.acquire(width, height);
+            Graphics2D gImg = backImage.createGraphics();
+            initImage(gImg);
+            gImg.dispose();
+            if(mapTransform.getWidth() != width || mapTransform.getHeight() != height) {
+                // mapTransform will update the AffineTransform
+                mapTransform.setImage(backImage);
+            }
+            if(mapTransform.getExtent() == null) {
+                framePool.release(backImage);
+                return;
+            }
+            // The new frame will contain the edited area
+            takeDirtyRegion();
+            // Render with a copy of the transform, the user can pan or zoom while the frame is drawn
+            MapTransform frameTransform = new MapTransform();
+            frameTransform.setAdjustExtent(mapTransform.isAdjustExtent());
+            frameTransform.setDpi(mapTransform.getDpi());
+            frameTransform.setImage(backImage);
+            frameTransform.setExtent(new Envelope(mapTransform.getExtent()));
+            // now we start the actual drawer
+            drawer = new Drawer(mapContext, this, resultSetProviderFactory, frameTransform, dirtySince);
+            execute(drawer);
+        }
+
+        /**
+         * Redraw the edited area of the last complete frame, all layers are drawn in this area then the result
+         * replace the pixels of the frame.
+         */
+        private void startRegionRendering() {
+            if(drawer != null) {
+                // frameDone will draw the region
+                return;
+            }
+            long requestTime = regionDirtySince;
+            Envelope region = takeDirtyRegion();
+            if(region == null) {
+                return;
+            }
+            if(frontTransform == null) {
+                invalidateImage();
+                return;
+            }
+            BufferedImage frontImage = frontTransform.getImage();
+            Rectangle frameBounds = new Rectangle(0, 0, frontImage.getWidth(), frontImage.getHeight());
+            // Copied pixels
+            Rectangle target = frontTransform.toPixel(region).getBounds();
+            target.grow(REGION_MARGIN, REGION_MARGIN);
+            target = target.intersection(frameBounds);
+            if(target.isEmpty()) {
+                // Edit out of the displayed extent
+                return;
+            }
+            // Rendered pixels, geometries just out of the target area may have symbols drawn in it
+            Rectangle rendered = new Rectangle(target);
+            rendered.grow(REGION_MARGIN, REGION_MARGIN);
+            rendered = rendered.intersection(frameBounds);
+            // Extent aligned on the pixels of the frame
+            Point2D upperLeft = frontTransform.toMapPoint(rendered.x, rendered.y);
+            Point2D lowerRight = frontTransform.toMapPoint(rendered.x + rendered.width, rendered.y + rendered.height);
+            BufferedImage regionImage = FrameBufferPool.createImage(rendered.width, rendered.height);
+            Graphics2D gImg = regionImage.createGraphics();
+            initImage(gImg);
+            gImg.dispose();
+            MapTransform regionTransform = new MapTransform();
+            regionTransform.setAdjustExtent(false);
+            regionTransform.setDpi(frontTransform.getDpi());
+            regionTransform.setImage(regionImage);
+            regionTransform.setExtent(new Envelope(upperLeft.getX(), lowerRight.getX(), lowerRight.getY(), upperLeft.getY()));
+            target.translate(-rendered.x, -rendered.y);
+            drawer = new Drawer(mapContext, this, resultSetProviderFactory, regionTransform, requestTime);
+            drawer.setRegion(frontTransform, target, rendered.getLocation());
+            execute(drawer);
+        }
+
+        /**
+         * @return The area to redraw, null if there is nothing to redraw. The area is cleared.
+         */
+        private Envelope takeDirtyRegion() {
+            synchronized (regionLock) {
+                Envelope region = dirtyRegion;
+                dirtyRegion = null;
+                return region;
+            }
+        }
+
+        /**
+         * Called by the drawer in the swing thread at the end of the rendering.
+         * @param finishedDrawer Drawer
+         * @param complete True if the frame has not been cancelled
+         */
+        private void frameDone(Drawer finishedDrawer, boolean complete) {
+            if(finishedDrawer != drawer) {
+                return;
+            }
+            drawer = null;
+            framePool.release(finishedDrawer.getIntermediateImage());
+            if(complete && finishedDrawer.getProfiler() != null) {
+                lastFrameProfile = finishedDrawer.getProfiler();
+            }
+            MapTransform frameTransform = finishedDrawer.getFrameTransform();
+            if(!complete) {
+                if(finishedDrawer.getRegionTarget() == null) {
+                    framePool.release(frameTransform.getImage());
+                }
+                renderStatistics.addCancelledFrame();
+            } else if(finishedDrawer.getRegionTarget() != null) {
+                // Replace the edited area in the frame it has been computed for
+                if(finishedDrawer.getRegionTarget() == frontTransform) {
+                    Rectangle source = finishedDrawer.getRegionSource();
+                    Point location = finishedDrawer.getRegionLocation();
+                    Graphics2D g2 = frontTransform.getImage().createGraphics();
+                    g2.setComposite(AlphaComposite.Src);
+                    g2.drawImage(frameTransform.getImage(), location.x + source.x, location.y + source.y,
+                            location.x + source.x + source.width, location.y + source.y + source.height,
+                            source.x, source.y, source.x + source.width, source.y + source.height, null);
+                    g2.dispose();
+                    renderStatistics.addFrame(System.nanoTime() - finishedDrawer.getRequestTime());
+                }
+            } else {
+                // Swap the front and back frames
+                if(frontTransform != null) {
+                    framePool.release(frontTransform.getImage());
+                }
+                frontTransform = frameTransform;
+                BufferedImage frontImage = frontTransform.getImage();
+                if(mapTransform.getWidth() == frontImage.getWidth() && mapTransform.getHeight() == frontImage.getHeight()) {
+                    mapTransform.setImage(frontImage);
+                }
+                renderStatistics.addFrame(System.nanoTime() - finishedDrawer.getRequestTime());
+            }
+            if(!renderTimer.isRunning() && !regionTimer.isRunning()) {
+                startRendering();
+            }
+            repaint();
+        }
+
+        /**
+         * Redraw only an area of the map, the other pixels of the last complete frame are kept.
+         * @param region Map area where geometries have been edited
+         */
+        public void invalidateRegion(Envelope region) {
+            synchronized (regionLock) {
+                if(dirtyRegion == null) {
+                    dirtyRegion = new Envelope(region);
+                    regionDirtySince = System.nanoTime();
                 } else {
-                    // Currently drawing with a mix of old and new map context !
-                    // Stop the drawing
-                    // The drawer will call paint when it will release the awaitingDrawing
-                    try {
-                        if(drawer.isDone()) {
-                            // Drawer have failing to restore awaitingDrawing flag value.
-                            awaitingDrawing.set(false);
-                        } else {
-                            drawer.cancel();
-                        }
-                    } catch (Exception ex) {
-                        // Ignore errors
-                    }
+                    dirtyRegion.expandToInclude(region);
                 }
             }
+            renderStatistics.addRequest();
+            regionTimer.restart();
+        }
+
+        /**
+         * @return Rendering latency and counters
+         */
+        public RenderStatistics getRenderStatistics() {
+            return renderStatistics;
+        }
+
+        /**
+         * @param profiling True to record the layers, rules and symbolizers counters of each frame and display them
+         *                  over the map
+         */
+        public void setProfiling(boolean profiling) {
+            this.profiling = profiling;
+            if(!profiling) {
+                lastFrameProfile = null;
+            }
+            repaint();
+        }
+
+        /**
+         * @return True if the rendering of each frame is profiled
+         */
+        public boolean isProfiling() {
+            return profiling;
+        }
+
+        /**
+         * @return Profile of the last complete frame, null if the profiling is disabled or no frame has been rendered
+         */
+        public FrameProfiler getLastFrameProfile() {
+            return lastFrameProfile;
         }
 
     private void initImage(Graphics gImg) {
@@ -398,58 +635,163 @@ public class MapControl extends JComponent implements ContainerListener {
 
 	public void invalidateImage() {
 		setStatus(DIRTY);
-        intermediateDrawing.set(false);
+        renderStatistics.addRequest();
+        // Coalesce the invalidations, the last frame is reprojected until the rendering is done
+        renderTimer.restart();
 		repaint();
 	}
 
 	private static class Drawer extends SwingWorkerPM implements ActionListener {
         private MapContext mapContext;
-        private AtomicBoolean awaitingDrawing;
-        private AtomicBoolean intermediateDrawing;
         private MapControl mapControl;
         private ResultSetProviderFactory resultSetProviderFactory;
 	private static final String DEFAULT_LOG_RENDERING_TIME_MIN = "1.0";	
         private static final int FIRST_DELAY_DRAWING = 2500;
         private static final int DELAY_DRAWING = 250; // drawing delay in ms
-        private ImageRenderer renderer;
-        private BufferedImage rendererImage;
+        private final MapTransform frameTransform;
+        private final long requestTime;
+        // Null if the profiling is disabled
+        private final FrameProfiler profiler;
+        private volatile ImageRenderer renderer;
+        private BufferedImage intermediateImage;
         private long beginDrawing = 0;
-
-        private Drawer(MapContext mapContext, AtomicBoolean awaitingDrawing, MapControl mapControl, ResultSetProviderFactory resultSetProviderFactory,AtomicBoolean intermediateDrawing) {
+        private Timer updateViewTime = new Timer(DELAY_DRAWING, this);
+        private volatile boolean complete = false;
+        // Set by the first of doInBackground or done() (on cancellation before the start) that owns the frame
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        // Set when the rendering thread does not draw anymore in the frame buffers
+        private volatile boolean finished = false;
+        // Set if this drawer redraw only an area of a frame
+        private MapTransform regionTarget;
+        private Rectangle regionSource;
+        private Point regionLocation;
+
+        private Drawer(MapContext mapContext, MapControl mapControl, ResultSetProviderFactory resultSetProviderFactory,
+                       MapTransform frameTransform, long requestTime) {
             this.mapContext = mapContext;
-            this.awaitingDrawing = awaitingDrawing;
             this.mapControl = mapControl;
             this.resultSetProviderFactory = resultSetProviderFactory;
-            this.intermediateDrawing = intermediateDrawing;
+            this.frameTransform = frameTransform;
+            this.requestTime = requestTime;
+            this.profiler = mapControl.isProfiling() ? new FrameProfiler() : null;
             setTaskName(I18N.tr("Drawing"));
         }
 
+        /**
+         * @return Rendering counters, null if the profiling is disabled
+         */
+        public FrameProfiler getProfiler() {
+            return profiler;
+        }
+
+        /**
+         * @return Transform used by this rendering, with its own image
+         */
+        public MapTransform getFrameTransform() {
+            return frameTransform;
+        }
+
+        /**
+         * @return Adjusted extent of the rendered frame
+         */
+        public Envelope getFrameExtent() {
+            return frameTransform.getAdjustedExtent();
+        }
+
+        /**
+         * @return System.nanoTime() of the invalidation that has requested this rendering
+         */
+        public long getRequestTime() {
+            return requestTime;
+        }
+
+        /**
+         * Render only an area of a complete frame
+         * @param regionTarget Frame to update
+         * @param regionSource Pixels of this drawer image to copy into the frame
+         * @param regionLocation Location of this drawer image in the frame
+         */
+        public void setRegion(MapTransform regionTarget, Rectangle regionSource, Point regionLocation) {
+            this.regionTarget = regionTarget;
+            this.regionSource = regionSource;
+            this.regionLocation = regionLocation;
+        }
+
+        /**
+         * @return Frame to update, null if this drawer render a complete frame
+         */
+        public MapTransform getRegionTarget() {
+            return regionTarget;
+        }
+
+        /**
+         * @return Pixels of this drawer image to copy into the frame
+         */
+        public Rectangle getRegionSource() {
+            return regionSource;
+        }
+
+        /**
+         * @return Location of this drawer image in the frame
+         */
+        public Point getRegionLocation() {
+            return regionLocation;
+        }
+
+        /**
+         * @return Progression of the rendering, null if the rendering is not long enough
+         */
+        public BufferedImage getIntermediateImage() {
+            return intermediateImage;
+        }
+
         @Override
         protected Object doInBackground() throws Exception {
-            Timer updateViewTime = new Timer(DELAY_DRAWING, this);
+            if(!started.compareAndSet(false, true)) {
+                // Cancelled before the start, done() has already released the frame
+                return null;
+            }
             try {
                 beginDrawing = System.currentTimeMillis();
                 renderer = new ImageRenderer();
                 renderer.setRsProvider(resultSetProviderFactory);
+                renderer.setRenderingListener(profiler);
                 updateViewTime.start();
-                rendererImage = mapControl.getMapTransform().getImage();
-                renderer.draw(mapControl.getMapTransform(), mapContext.getLayerModel(), this.getProgressMonitor());
+                renderer.draw(frameTransform, mapContext.getLayerModel(), this.getProgressMonitor());
+                complete = !getProgressMonitor().isCancelled();
 		double renderingTime =  (System.currentTimeMillis() - beginDrawing) / 1000.0;    
 		if(renderingTime >= Double.valueOf(System.getProperty("map.editor.renderingtimemin", DEFAULT_LOG_RENDERING_TIME_MIN)))  {
                 	LOGGER.debug(I18N.tr("Rendering done in {0} seconds", renderingTime));
+                	LOGGER.debug(mapControl.getRenderStatistics().toString());
 		}
             } catch (Exception ex) {
                 LOGGER.error(ex.getLocalizedMessage(), ex);
             } finally {
-                mapControl.getMapTransform().setImage(rendererImage);
-                intermediateDrawing.set(false);
-                awaitingDrawing.set(false);
                 updateViewTime.stop();
-                mapControl.repaint();
+                finished = true;
+                // The buffers are released only once this thread does not draw in them anymore.
+                // done() is not used as it is called as soon as the worker is cancelled.
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        mapControl.frameDone(Drawer.this, complete);
+                    }
+                });
             }
             return null;
         }
 
+        @Override
+        protected void done() {
+            // Swing thread
+            updateViewTime.stop();
+            if(started.compareAndSet(false, true)) {
+                // Cancelled before doInBackground has been called, it will not draw in the frame
+                finished = true;
+                mapControl.frameDone(this, false);
+            }
+        }
+
         /**
          * Some delay while drawing.
          * The user may want to see the progression of drawing after some waiting time.
@@ -457,26 +799,20 @@ public class MapControl extends JComponent implements ContainerListener {
         @Override
         public void actionPerformed(ActionEvent actionEvent) {
             // Conditions to clean rendering of last complete image and
-            if(!isCancelled() && awaitingDrawing.get() && (intermediateDrawing.get() ||
-                    (beginDrawing + FIRST_DELAY_DRAWING < System.currentTimeMillis()))) {
-                BufferedImage intermediateImg;
-                if(!intermediateDrawing.get()) {
-                    // Swap mapcontrol image with an intermediate rendering image
-                    MapTransform mt = mapControl.getMapTransform();
-                    intermediateImg = new BufferedImage(mt.getWidth(), mt.getHeight(), BufferedImage.TYPE_INT_ARGB);
-                    mapControl.getMapTransform().setImage(intermediateImg);
-                } else {
-                    // Clear image
-                    intermediateImg = mapControl.getMapTransform().getImage();
-                    mapControl.initImage(intermediateImg.createGraphics());
+            if(regionTarget == null && !finished && !isDone() && !getProgressMonitor().isCancelled() && renderer != null &&
+                    (intermediateImage != null || (beginDrawing + FIRST_DELAY_DRAWING < System.currentTimeMillis()))) {
+                BufferedImage rendererImage = frameTransform.getImage();
+                if(intermediateImage == null) {
+                    intermediateImage = mapControl.framePool.acquire(rendererImage.getWidth(), rendererImage.getHeight());
                 }
-                intermediateDrawing.set(true);
                 // Build a new image target for intermediate drawing.
-                Graphics2D sG2 = intermediateImg.createGraphics();
+                Graphics2D sG2 = intermediateImage.createGraphics();
+                mapControl.initImage(sG2);
                 // Add old layers image
                 sG2.drawImage(rendererImage, null, null);
                 // Add last layer image
                 renderer.updateImage(sG2);
+                sG2.dispose();
                 mapControl.repaint();
             }
         }
@@ -515,21 +851,31 @@ public class MapControl extends JComponent implements ContainerListener {
 
         @Override
         public void tableChange(TableEditEvent event) {
+            // The edited area is known, only this area is redrawn
+            Envelope dirtyEnvelope = event.getDirtyEnvelope();
             // Clear selection of all layers linked with this table
             TableLocation tableName = TableLocation.parse(event.getTableName());
             for(ILayer layer : mapControl.getMapContext().getLayers()) {
                 String layerTable = layer.getTableReference();
                 if(!layerTable.isEmpty() && TableLocation.parse(layerTable).equals(tableName)) {
-                    layer.setSelection(new HashSet<Long>());
+                    if(dirtyEnvelope == null) {
+                        layer.setSelection(new HashSet<Long>());
+                    } else {
+                        mapControl.clearCache(layerTable);
+                    }
                     layer.clearCache();
                     // The trigger may be lost
                     mapControl.addLayerListenerRecursively(layer, this);
                     break;
                 }
             }
-            mapControl.clearCache();
-            // Redraw
-            mapControl.invalidateImage();
+            if(dirtyEnvelope == null) {
+                mapControl.clearCache();
+                // Redraw
+                mapControl.invalidateImage();
+            } else {
+                mapControl.invalidateRegion(dirtyEnvelope);
+            }
         }
 
 
@@ -616,9 +962,13 @@ public class MapControl extends JComponent implements ContainerListener {
          * Free resources allocated by the MapControl
          */
         public void closing() {
-		/*
-		 * if (drawer != null) { drawer.cancel(); }
-		 */
+            renderTimer.stop();
+            regionTimer.stop();
+            if (drawer != null) {
+                drawer.cancel();
+            }
+            frontTransform = null;
+            framePool.clear();
             clearCache();
             if(toolManager!=null) {
                 toolManager.freeResources();
@@ -0,0 +1,119 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.mapeditor.map;
+
+import java.util.Arrays;
+
+/**
+ * Map rendering counters. The latency is the time between the first invalidation of the displayed map and the
+ * display of the complete frame, it includes the coalescing delay and the cancelled renderings.
+ * @author Nicolas Fortin
+ */
+public class RenderStatistics {
+    /** Number of latest latencies used to compute the percentiles */
+    public static final int SAMPLE_COUNT = 128;
+    private final long[] samples = new long[SAMPLE_COUNT];
+    private long frameCount = 0;
+    private long cancelledCount = 0;
+    private long requestCount = 0;
+
+    /**
+     * @param latency Time in nanoseconds between the first invalidation and the display of the frame
+     */
+    public synchronized void addFrame(long latency) {
+        samples[(int) (frameCount % SAMPLE_COUNT)] = latency;
+        frameCount++;
+    }
+
+    /**
+     * A rendering has been cancelled before the end because the map has been invalidated.
+     */
+    public synchronized void addCancelledFrame() {
+        cancelledCount++;
+    }
+
+    /**
+     * The map has been invalidated.
+     */
+    public synchronized void addRequest() {
+        requestCount++;
+    }
+
+    /**
+     * @return Number of displayed frames
+     */
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return Number of renderings cancelled before the end
+     */
+    public synchronized long getCancelledFrameCount() {
+        return cancelledCount;
+    }
+
+    /**
+     * @return Number of invalidations, several invalidations are coalesced into a single rendering
+     */
+    public synchronized long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * @param percentile Percentile in the range [0-100]
+     * @return Latency in nanoseconds of the latest frames, 0 if no frame has been rendered
+     */
+    public synchronized long getLatencyPercentile(double percentile) {
+        int count = (int) Math.min(frameCount, SAMPLE_COUNT);
+        if(count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        // Nearest rank
+        int rank = (int) Math.ceil(Math.max(0, Math.min(100, percentile)) / 100. * count);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("frames=%d cancelled=%d requests=%d p50=%dms p95=%dms p99=%dms", getFrameCount(),
+                getCancelledFrameCount(), getRequestCount(), getLatencyPercentile(50) / 1000000,
+                getLatencyPercentile(95) / 1000000, getLatencyPercentile(99) / 1000000);
+    }
+}
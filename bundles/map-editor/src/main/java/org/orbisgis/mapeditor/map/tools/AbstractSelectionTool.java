@@ -56,6 +56,7 @@ import java.util.Set;
 
 import org.h2gis.utilities.SFSUtilities;
 import org.h2gis.utilities.TableLocation;
+import org.orbisgis.commons.progress.SwingWorkerPM;
 import org.orbisgis.corejdbc.ReadTable;
 import org.orbisgis.corejdbc.common.LongUnion;
 import org.orbisgis.coremap.layerModel.ILayer;
@@ -64,7 +65,6 @@ import org.orbisgis.coremap.ui.editors.map.tool.Rectangle2DDouble;
 import org.orbisgis.mapeditor.map.tool.*;
 import org.orbisgis.mapeditor.map.tools.generated.Selection;
 
-import javax.swing.*;
 import org.orbisgis.coremap.renderer.se.Style;
 
 /**
@@ -82,6 +82,7 @@ public abstract class AbstractSelectionTool extends Selection {
 
     private Rectangle2DDouble rect = new Rectangle2DDouble();
         protected ArrayList<Handler> selected = new ArrayList<>();
+        private List<SelectionWorker> runningWorkers = new ArrayList<>();
 
         @Override
         public void transitionTo_Standby(MapContext vc, ToolManager tm)
@@ -121,9 +122,16 @@ public abstract class AbstractSelectionTool extends Selection {
             }
             rect.add(tm.getValues()[0], tm.getValues()[1]);
             Geometry selectionRect = rect.getEnvelope(ToolManager.toolsGeometryFactory);
+            // The previous selection request is not relevant anymore
+            for (SelectionWorker runningWorker : new ArrayList<>(runningWorkers)) {
+                runningWorker.cancel();
+            }
+            runningWorkers.clear();
+            SelectionMode selectionMode = SelectionMode.fromModifiers(tm.getMouseModifiers());
             for (ILayer iLayer : getAvailableLayers(mc, selectionRect.getEnvelopeInternal())) {  
                 SelectionWorker selectionWorker = new SelectionWorker(this,selectionRect, mc, tm,
-                    (tm.getMouseModifiers() & MouseEvent.CTRL_DOWN_MASK) == MouseEvent.CTRL_DOWN_MASK,intersects, iLayer);
+                    selectionMode, intersects, iLayer);
+                runningWorkers.add(selectionWorker);
                 selectionWorker.execute();
             }
         }
@@ -259,30 +267,58 @@ public abstract class AbstractSelectionTool extends Selection {
         public void drawIn_MakeMove(Graphics g, MapContext vc, ToolManager tm) {
         }
 
-        private static class SelectionWorker extends SwingWorker<Set<Long>, Set<Long>> {
+        /**
+         * How the fetched rows are combined with the current layer selection.
+         */
+        private enum SelectionMode {
+            /** Fetched rows become the selection */
+            REPLACE,
+            /** Fetched rows are added to the selection (Shift) */
+            ADD,
+            /** Fetched rows are removed from the selection (Ctrl+Shift) */
+            REMOVE,
+            /** Selection state of the fetched rows is inverted (Ctrl) */
+            TOGGLE;
+
+            private static SelectionMode fromModifiers(int modifiers) {
+                boolean control = (modifiers & MouseEvent.CTRL_DOWN_MASK) == MouseEvent.CTRL_DOWN_MASK;
+                boolean shift = (modifiers & MouseEvent.SHIFT_DOWN_MASK) == MouseEvent.SHIFT_DOWN_MASK;
+                if (control && shift) {
+                    return REMOVE;
+                } else if (control) {
+                    return TOGGLE;
+                } else if (shift) {
+                    return ADD;
+                } else {
+                    return REPLACE;
+                }
+            }
+        }
+
+        private static class SelectionWorker extends SwingWorkerPM<LongUnion, Object> {
             AbstractSelectionTool automaton;
             Geometry selectionRect;
             MapContext mc;
             ToolManager tm;
-            boolean controlDown;
+            SelectionMode selectionMode;
             boolean intersects;
             ILayer activeLayer;
 
             private SelectionWorker(AbstractSelectionTool automaton, Geometry selectionRect,
-                                    MapContext mc, ToolManager tm, boolean controlDown,
+                                    MapContext mc, ToolManager tm, SelectionMode selectionMode,
                                     boolean intersects, ILayer activeLayer) {
                 this.automaton = automaton;
                 this.selectionRect = selectionRect;
                 this.mc = mc;
                 this.tm = tm;
-                this.controlDown = controlDown;
+                this.selectionMode = selectionMode;
                 this.intersects = intersects;
                 this.activeLayer = activeLayer;
             }
 
             @Override
-            protected Set<Long> doInBackground() throws Exception {
-                Set<Long> newSelection;
+            protected LongUnion doInBackground() throws Exception {
+                LongUnion newSelection;
                 // Get all primary value where default geometry intersects a bounding box
                 TableLocation tableLocation = TableLocation.parse(activeLayer.getTableReference());
                 try (Connection connection = SFSUtilities.wrapConnection(activeLayer.getDataManager().getDataSource().getConnection())) {
@@ -295,7 +331,8 @@ public abstract class AbstractSelectionTool extends Selection {
                         selectionRect.setSRID(srid);
                     }
                     newSelection = ReadTable.getTablePkByEnvelope(mc.getDataManager(),
-                            activeLayer.getTableReference(), geomFields.get(0), selectionRect, !intersects);
+                            activeLayer.getTableReference(), geomFields.get(0), selectionRect, !intersects,
+                            getProgressMonitor(), null);
 
                 } catch (SQLException e) {
                     automaton.transition(Code.NO_SELECTION);
@@ -306,17 +343,30 @@ public abstract class AbstractSelectionTool extends Selection {
 
             @Override
             protected void done() {
+                automaton.runningWorkers.remove(this);
+                if (isCancelled()) {
+                    // A new selection has been requested
+                    return;
+                }
                 try {
-                    if (controlDown) {
-                        LongUnion newSel = new LongUnion(activeLayer.getSelection());
-                        for (long el : get()) {
-                            if (!newSel.remove(el)) {
-                                newSel.add(el);
-                            }
-                        }
-                        activeLayer.setSelection(newSel);
-                    } else {
-                        activeLayer.setSelection(get());
+                    LongUnion fetched = get();
+                    if (fetched == null) {
+                        return;
+                    }
+                    // Combine with the current selection without querying the database again
+                    LongUnion currentSelection = new LongUnion(activeLayer.getSelection());
+                    switch (selectionMode) {
+                        case ADD:
+                            activeLayer.setSelection(currentSelection.union(fetched));
+                            break;
+                        case REMOVE:
+                            activeLayer.setSelection(currentSelection.difference(fetched));
+                            break;
+                        case TOGGLE:
+                            activeLayer.setSelection(currentSelection.symmetricDifference(fetched));
+                            break;
+                        default:
+                            activeLayer.setSelection(fetched);
                     }
                     if (activeLayer.getSelection().isEmpty()) {
                         automaton.transition(Code.NO_SELECTION);
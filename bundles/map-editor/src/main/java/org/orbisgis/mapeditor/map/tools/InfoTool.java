@@ -45,10 +45,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Observable;
-import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import javax.swing.ImageIcon;
 import javax.swing.SwingWorker;
@@ -65,6 +63,7 @@ import org.slf4j.LoggerFactory;
 import org.h2gis.utilities.SFSUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.orbisgis.corejdbc.ReadTable;
+import org.orbisgis.corejdbc.common.LongUnion;
 import org.orbisgis.coremap.layerModel.ILayer;
 import org.orbisgis.coremap.layerModel.MapContext;
 import org.orbisgis.mapeditor.map.icons.MapEditorIcons;
@@ -158,7 +157,7 @@ public class InfoTool extends AbstractRectangleTool {
         private static final I18n I18N = I18nFactory.getI18n(PopulateViewJob.class);
         private final boolean intersects;
         private final EditorManager editorManager;
-        private Set<Long> newSelection = new HashSet<>();
+        private LongUnion newSelection = new LongUnion();
 
         private PopulateViewJob(Envelope envelope, ILayer layer, boolean intersects, EditorManager editorManager) {
             this.envelope = envelope;
@@ -183,7 +182,7 @@ public class InfoTool extends AbstractRectangleTool {
                     return null;
                 }
                 newSelection = ReadTable.getTablePkByEnvelope(layer.getDataManager(),
-                        layer.getTableReference(), geomFields.get(0), envGeom, !intersects);
+                        layer.getTableReference(), geomFields.get(0), envGeom, !intersects, getProgressMonitor(), null);
             } catch (SQLException ex) {
                 LOGGER.error(ex.getLocalizedMessage(), ex);
             }
@@ -193,7 +192,7 @@ public class InfoTool extends AbstractRectangleTool {
         @Override
         protected void done() {
             // Swing thread
-            if (newSelection.size() > 0) {
+            if (!isCancelled() && !newSelection.isEmpty()) {
                 // Check if the table editor is not already open
                 boolean tableEditorAlreadyThere = false;
                 for(Editor editor : editorManager.getEditors()) {
@@ -209,10 +208,10 @@ public class InfoTool extends AbstractRectangleTool {
                                 editableElement.setFiltered(true);
                             } else {
                                 // There is already a filter
-                                // we clear the filter for now
-                                // then we will apply the filter later
+                                // clear it then apply the fetched rows, no need to query again
                                 editableElement.setFiltered(false);
-                                new PopulateViewJob(envelope, layer, intersects, editorManager).execute();
+                                editableElement.setSelection(newSelection);
+                                editableElement.setFiltered(true);
                             }
                             break;
                         }
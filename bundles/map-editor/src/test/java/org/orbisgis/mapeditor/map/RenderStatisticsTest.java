@@ -0,0 +1,99 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.mapeditor.map;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test of the frame pipeline helpers of the MapControl
+ * @author Nicolas Fortin
+ */
+public class RenderStatisticsTest {
+
+        @Test
+        public void testPercentile() {
+                RenderStatistics statistics = new RenderStatistics();
+                assertEquals(0, statistics.getLatencyPercentile(50));
+                for(int i = 1; i <= 100; i++) {
+                        statistics.addFrame(i);
+                }
+                assertEquals(50, statistics.getLatencyPercentile(50));
+                assertEquals(95, statistics.getLatencyPercentile(95));
+                assertEquals(100, statistics.getLatencyPercentile(100));
+                assertEquals(1, statistics.getLatencyPercentile(0));
+                assertEquals(100, statistics.getFrameCount());
+        }
+
+        @Test
+        public void testPercentileOnLatestFrames() {
+                RenderStatistics statistics = new RenderStatistics();
+                for(int i = 0; i < RenderStatistics.SAMPLE_COUNT; i++) {
+                        statistics.addFrame(1000);
+                }
+                for(int i = 0; i < RenderStatistics.SAMPLE_COUNT; i++) {
+                        statistics.addFrame(10);
+                }
+                // Old slow frames are forgotten
+                assertEquals(10, statistics.getLatencyPercentile(99));
+                statistics.addCancelledFrame();
+                statistics.addRequest();
+                assertEquals(1, statistics.getCancelledFrameCount());
+                assertEquals(1, statistics.getRequestCount());
+        }
+
+        @Test
+        public void testFrameBufferReuse() {
+                FrameBufferPool pool = new FrameBufferPool(2);
+                BufferedImage first = pool.acquire(20, 10);
+                BufferedImage second = pool.acquire(20, 10);
+                assertNotSame(first, second);
+                pool.release(first);
+                assertSame(first, pool.acquire(20, 10));
+                pool.release(first);
+                pool.release(second);
+                pool.release(pool.acquire(5, 5));
+                // Images of the old size are dropped
+                assertEquals(1, pool.getFreeImageCount());
+                BufferedImage resized = pool.acquire(30, 10);
+                assertEquals(30, resized.getWidth());
+                assertEquals(10, resized.getHeight());
+        }
+}
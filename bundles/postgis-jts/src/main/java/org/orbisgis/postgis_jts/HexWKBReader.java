@@ -0,0 +1,147 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.postgis_jts;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.InStream;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+
+import java.io.IOException;
+
+/**
+ * Read the hexadecimal EWKB text sent by PostGIS for geometry columns.
+ * The text is decoded while the JTS reader consume it, no intermediate byte array nor PostGIS object is created.
+ * An instance is reused for all the rows of a result set, it is not thread safe.
+ * @author Nicolas Fortin
+ */
+class HexWKBReader {
+    // EWKB flags stored in the most significant byte of the geometry type
+    private static final int EWKB_M_FLAG = 0x40;
+    private final HexInStream inStream = new HexInStream();
+    private final WKBReader wkbReader;
+
+    /**
+     * @param geometryFactory Factory of the read geometries
+     */
+    HexWKBReader(GeometryFactory geometryFactory) {
+        wkbReader = new WKBReader(geometryFactory);
+    }
+
+    /**
+     * @param hexWKB Hexadecimal EWKB
+     * @return True if this reader is able to read the geometry, measured geometries are not supported by JTS.
+     */
+    static boolean isSupported(CharSequence hexWKB) {
+        if(hexWKB.length() < 10) {
+            return false;
+        }
+        // Byte order, 1 for little endian
+        boolean littleEndian = hexWKB.charAt(1) == '1';
+        int flagOffset = littleEndian ? 8 : 2;
+        int flags = Character.digit(hexWKB.charAt(flagOffset), 16);
+        return flags >= 0 && ((flags << 4) & EWKB_M_FLAG) == 0;
+    }
+
+    /**
+     * @param hexWKB Hexadecimal EWKB
+     * @return The geometry, null if the geometry is not supported
+     * @throws ParseException The text is not a valid EWKB
+     */
+    Geometry read(CharSequence hexWKB) throws ParseException {
+        if(!isSupported(hexWKB)) {
+            return null;
+        }
+        inStream.setHexWKB(hexWKB);
+        try {
+            return wkbReader.read(inStream);
+        } catch (IOException ex) {
+            throw new ParseException(ex.getLocalizedMessage());
+        } finally {
+            inStream.setHexWKB(null);
+        }
+    }
+
+    /**
+     * @param hexWKB Hexadecimal EWKB
+     * @return Binary EWKB
+     * @throws ParseException The text is not valid hexadecimal
+     */
+    static byte[] toBytes(CharSequence hexWKB) throws ParseException {
+        if(hexWKB.length() % 2 != 0) {
+            throw new ParseException("Odd hexadecimal EWKB length");
+        }
+        byte[] bytes = new byte[hexWKB.length() / 2];
+        try {
+            HexInStream inStream = new HexInStream();
+            inStream.setHexWKB(hexWKB);
+            inStream.read(bytes);
+        } catch (IOException ex) {
+            throw new ParseException(ex.getLocalizedMessage());
+        }
+        return bytes;
+    }
+
+    /**
+     * Decode hexadecimal characters on demand.
+     */
+    private static class HexInStream implements InStream {
+        private CharSequence hexWKB;
+        private int position = 0;
+
+        private void setHexWKB(CharSequence hexWKB) {
+            this.hexWKB = hexWKB;
+            this.position = 0;
+        }
+
+        @Override
+        public void read(byte[] buf) throws IOException {
+            if(position + buf.length * 2 > hexWKB.length()) {
+                throw new IOException("Unexpected end of EWKB");
+            }
+            for(int i = 0; i < buf.length; i++) {
+                int high = Character.digit(hexWKB.charAt(position++), 16);
+                int low = Character.digit(hexWKB.charAt(position++), 16);
+                if(high < 0 || low < 0) {
+                    throw new IOException("Invalid hexadecimal character at " + (position - 2));
+                }
+                buf[i] = (byte) ((high << 4) | low);
+            }
+        }
+    }
+}
@@ -39,6 +39,7 @@ package org.orbisgis.postgis_jts;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.ParseException;
 import com.vividsolutions.jts.io.WKBWriter;
 import org.postgis.PGboxbase;
 import org.postgis.Point;
@@ -82,6 +83,9 @@ public class ResultSetWrapper implements ResultSet {
     private ResultSet rs;
     public static final Set<String> GEOMETRY_COLUMNS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("geometry", "box2d", "box3d")));
     private Set<Integer> spatialFields = new HashSet<Integer>();
+    // Spatial fields sent as hexadecimal EWKB
+    private Set<Integer> geometryFields = new HashSet<>();
+    private HexWKBReader hexWKBReader;
     private Set<Integer> tidFields = new HashSet<>();
     private static GeometryFactory geometryFactory = new GeometryFactory();
 
@@ -95,6 +99,9 @@ public class ResultSetWrapper implements ResultSet {
                 String typeName = meta.getColumnTypeName(col);
                 if(GEOMETRY_COLUMNS.contains(typeName)) {
                     spatialFields.add(col);
+                    if("geometry".equals(typeName)) {
+                        geometryFields.add(col);
+                    }
                 } else if(typeName.equals("tid")) {
                     tidFields.add(col);
                 }
@@ -104,8 +111,36 @@ public class ResultSetWrapper implements ResultSet {
         }
     }
 
+    /**
+     * Decode the geometry directly from the EWKB text of the row, without going through the driver object model.
+     * @param columnIndex Geometry column
+     * @return Geometry, or null if the fast path is not available for this value
+     * @throws SQLException
+     */
+    private Geometry readGeometry(int columnIndex) throws SQLException {
+        String hexWKB = rs.getString(columnIndex);
+        if(hexWKB == null) {
+            return null;
+        }
+        if(hexWKBReader == null) {
+            hexWKBReader = new HexWKBReader(geometryFactory);
+        }
+        try {
+            return hexWKBReader.read(hexWKB);
+        } catch (ParseException ex) {
+            // Let the driver parse this value
+            return null;
+        }
+    }
+
     @Override
     public Object getObject(int columnIndex) throws SQLException {
+        if(geometryFields.contains(columnIndex)) {
+            Geometry geometry = readGeometry(columnIndex);
+            if(geometry != null || rs.wasNull()) {
+                return geometry;
+            }
+        }
         Object object = rs.getObject(columnIndex);
         if(spatialFields.contains(columnIndex)) {
             if(object instanceof JtsGeometry) {
@@ -978,6 +1013,19 @@ public class ResultSetWrapper implements ResultSet {
 
     @Override
     public byte[] getBytes(int columnIndex) throws SQLException {
+        if(geometryFields.contains(columnIndex)) {
+            // The EWKB sent by the server is readable by JTS, no need to encode it again
+            String hexWKB = rs.getString(columnIndex);
+            if(hexWKB == null) {
+                return null;
+            } else if(HexWKBReader.isSupported(hexWKB)) {
+                try {
+                    return HexWKBReader.toBytes(hexWKB);
+                } catch (ParseException ex) {
+                    // Let the driver parse this value
+                }
+            }
+        }
         if(spatialFields.contains(columnIndex)) {
             // Spatial field, return WKB
             Object object = getObject(columnIndex);
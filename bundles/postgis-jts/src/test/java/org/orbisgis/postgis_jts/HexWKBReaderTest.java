@@ -0,0 +1,143 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.postgis_jts;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compare the on demand hexadecimal decoding with the JTS reader of binary WKB.
+ * @author Nicolas Fortin
+ */
+public class HexWKBReaderTest {
+    // POINT(1 2)
+    private static final String POINT_LITTLE_ENDIAN = "0101000000000000000000F03F0000000000000040";
+    private static final String POINT_BIG_ENDIAN = "00000000013FF00000000000004000000000000000";
+    // SRID=4326;POINT(1 2)
+    private static final String POINT_SRID = "0101000020E6100000000000000000F03F0000000000000040";
+    // POINT Z(1 2 3)
+    private static final String POINT_Z = "0101000080000000000000F03F00000000000000400000000000000840";
+    // POINT M(1 2 3)
+    private static final String POINT_M = "0101000040000000000000F03F00000000000000400000000000000840";
+    // POINT ZM(1 2 3 4)
+    private static final String POINT_ZM =
+            "01010000C0000000000000F03F000000000000004000000000000008400000000000001040";
+    // LINESTRING(0 0, 1 1, 2 0)
+    private static final String LINESTRING = "0102000000030000000000000000000000000000000000000000000000000000" +
+            "00F03F000000000000F03F00000000000000400000000000000000";
+
+    private static Geometry readBinary(String hexWKB) throws ParseException {
+        return new WKBReader().read(WKBReader.hexToBytes(hexWKB));
+    }
+
+    private static void assertSameGeometry(String hexWKB) throws ParseException {
+        Geometry expected = readBinary(hexWKB);
+        Geometry geometry = new HexWKBReader(new GeometryFactory()).read(hexWKB);
+        assertTrue(geometry.toText(), expected.equalsExact(geometry));
+        assertEquals(expected.getSRID(), geometry.getSRID());
+        assertEquals(expected.getCoordinate().z, geometry.getCoordinate().z, 0);
+    }
+
+    @Test
+    public void testUpperAndLowerCase() throws ParseException {
+        for(String hexWKB : new String[]{POINT_LITTLE_ENDIAN, POINT_BIG_ENDIAN, LINESTRING}) {
+            assertSameGeometry(hexWKB);
+            assertSameGeometry(hexWKB.toLowerCase());
+            assertArrayEquals(WKBReader.hexToBytes(hexWKB), HexWKBReader.toBytes(hexWKB.toLowerCase()));
+        }
+    }
+
+    @Test
+    public void testEWKBSrid() throws ParseException {
+        assertSameGeometry(POINT_SRID);
+        assertEquals(4326, new HexWKBReader(new GeometryFactory()).read(POINT_SRID).getSRID());
+    }
+
+    @Test
+    public void testZFlag() throws ParseException {
+        assertTrue(HexWKBReader.isSupported(POINT_Z));
+        assertSameGeometry(POINT_Z);
+        assertEquals(3, new HexWKBReader(new GeometryFactory()).read(POINT_Z).getCoordinate().z, 0);
+    }
+
+    @Test
+    public void testMFlag() throws ParseException {
+        // Measured geometries are not supported by JTS
+        assertFalse(HexWKBReader.isSupported(POINT_M));
+        assertFalse(HexWKBReader.isSupported(POINT_ZM.toLowerCase()));
+        assertNull(new HexWKBReader(new GeometryFactory()).read(POINT_M));
+        assertNull(new HexWKBReader(new GeometryFactory()).read(POINT_ZM));
+        // Too short to hold the geometry type
+        assertFalse(HexWKBReader.isSupported("0101"));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testOddLength() throws ParseException {
+        HexWKBReader.toBytes(POINT_LITTLE_ENDIAN.substring(1));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testTruncated() throws ParseException {
+        new HexWKBReader(new GeometryFactory()).read(POINT_LITTLE_ENDIAN.substring(0, 30));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testInvalidCharacter() throws ParseException {
+        new HexWKBReader(new GeometryFactory()).read(POINT_LITTLE_ENDIAN.replace("F03F", "G03F"));
+    }
+
+    @Test
+    public void testReaderReuse() throws ParseException {
+        HexWKBReader reader = new HexWKBReader(new GeometryFactory());
+        try {
+            reader.read(POINT_LITTLE_ENDIAN.substring(0, 30));
+        } catch (ParseException ex) {
+            // Expected
+        }
+        // A failed read does not change the next one
+        assertTrue(readBinary(LINESTRING).equalsExact(reader.read(LINESTRING)));
+    }
+}
@@ -37,23 +37,43 @@
 package org.orbisgis.scp;
 
 import javax.sql.DataSource;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
 
 import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 import org.fife.ui.rsyntaxtextarea.parser.AbstractParser;
 import org.fife.ui.rsyntaxtextarea.parser.DefaultParseResult;
 import org.fife.ui.rsyntaxtextarea.parser.DefaultParserNotice;
 import org.fife.ui.rsyntaxtextarea.parser.ParseResult;
 import org.fife.ui.rsyntaxtextarea.parser.ParserNotice;
+import org.h2.util.ScriptReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.StringReader;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * A parser for SQL syntax that provides error locations.
+ *
+ * The verdict of each statement is cached using the statement text and the schema version, then only edited
+ * statements are sent to the database. When a text area is set with {@link #setTextArea(RSyntaxTextArea)} the
+ * validation is done in a background thread, the text area is parsed again when the validation is done.
  * @author Antoine Gourlay
  * @author Nicolas Fortin
  */
@@ -62,6 +82,31 @@ public class RSyntaxSQLParser extends AbstractParser {
     private Logger log = LoggerFactory.getLogger(RSyntaxSQLParser.class);
     public static int WORD_POSITION = 0;
     public static int WORD_LENGTH = 1;
+    /** Delay in ms between the last parse request and the background validation */
+    public static final long DEFAULT_VALIDATION_DELAY = 300;
+    /** The validation connection is released after this delay in ms without validation */
+    private static final long CONNECTION_IDLE_DELAY = 60000;
+    private static final int VERDICT_CACHE_SIZE = 4096;
+    private static final Pattern WORD_PATTERN = Pattern.compile("\\w+");
+    private final Map<String, Verdict> verdictCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, Verdict>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Verdict> eldest) {
+                    return size() > VERDICT_CACHE_SIZE;
+                }
+            });
+    private final AtomicLong schemaVersion = new AtomicLong();
+    // Incremented on each validation request, a running validation stop when it is not the last request
+    private final AtomicLong validationRequest = new AtomicLong();
+    private final AtomicLong preparedStatementCount = new AtomicLong();
+    private final Object connectionLock = new Object();
+    private Connection validationConnection;
+    private volatile Validation lastValidation;
+    private RSyntaxTextArea textArea;
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> pendingValidation;
+    private ScheduledFuture<?> pendingRelease;
+    private long validationDelay = DEFAULT_VALIDATION_DELAY;
 
     /**
      * Constructor
@@ -80,8 +125,7 @@ public class RSyntaxSQLParser extends AbstractParser {
     public static int[] getLastWordPositionAndLength(String statement, int end) {
         int[] res = new int[2];
         res[WORD_POSITION] = -1;
-        Pattern p = Pattern.compile("\\w+");
-        Matcher m = p.matcher(statement);
+        Matcher m = WORD_PATTERN.matcher(statement);
         while(m.find() && m.start() < end) {
             res[WORD_POSITION] = m.start();
             res[WORD_LENGTH] = m.group().length();
@@ -98,6 +142,75 @@ public class RSyntaxSQLParser extends AbstractParser {
      */
     public void setDataSource(DataSource dataSource) {
         this.dataSource = dataSource;
+        releaseConnection();
+        notifySchemaChange();
+    }
+
+    /**
+     * Validate statements in a background thread. The text area is parsed again when the validation is done.
+     * @param textArea Text area that use this parser, null to validate in the parse call.
+     */
+    public synchronized void setTextArea(RSyntaxTextArea textArea) {
+        this.textArea = textArea;
+        if(textArea != null && executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "SQL syntax validation");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * @param validationDelay Delay in ms between the last parse request and the background validation
+     */
+    public void setValidationDelay(long validationDelay) {
+        this.validationDelay = validationDelay;
+    }
+
+    /**
+     * The database structure has been updated, cached verdicts are no longer valid.
+     */
+    public void notifySchemaChange() {
+        schemaVersion.incrementAndGet();
+    }
+
+    /**
+     * @return Number of statements sent to the database for validation
+     */
+    public long getPreparedStatementCount() {
+        return preparedStatementCount.get();
+    }
+
+    /**
+     * Stop the background validation and release the validation connection
+     */
+    public void dispose() {
+        validationRequest.incrementAndGet();
+        synchronized (this) {
+            textArea = null;
+            if(executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
+        releaseConnection();
+    }
+
+    private void releaseConnection() {
+        synchronized (connectionLock) {
+            if(validationConnection != null) {
+                try {
+                    validationConnection.close();
+                } catch (SQLException ex) {
+                    log.trace(ex.getLocalizedMessage(), ex);
+                }
+                validationConnection = null;
+            }
+        }
     }
 
     @Override
@@ -107,47 +220,211 @@ public class RSyntaxSQLParser extends AbstractParser {
         if (docLength==0) {
             return res;
         }
-        DocumentSQLReader documentReader = new DocumentSQLReader(doc);
-        long start = System.currentTimeMillis();
+        String text;
         try {
-            try (Connection connection = dataSource.getConnection()) {
-                while (documentReader.hasNext()) {
-                    String statement = documentReader.next();
-                    if (!documentReader.isInsideRemark()) {
-                        try {
-                            connection.prepareStatement(statement);
-                        } catch (SQLException ex) {
-                            // Find the beginning of the rightmost word in error
-                            int syntaxErrorPosition = ex.getLocalizedMessage().indexOf("[*]");
-                            int syntaxErrorLength;
-                            if (syntaxErrorPosition == -1) {
-                                // Could not find exact position, underline all the statement (remove preceding line break)
-                                syntaxErrorPosition = statement.indexOf(statement.trim());
-                                syntaxErrorLength = statement.length() - syntaxErrorPosition;
-                            } else {
-                                int[] syntaxWord = getLastWordPositionAndLength(ex.getLocalizedMessage(), syntaxErrorPosition);
-                                String word = ex.getLocalizedMessage().substring(syntaxWord[WORD_POSITION], syntaxWord[WORD_POSITION] + syntaxWord[WORD_LENGTH]);
-                                syntaxErrorPosition = statement.toLowerCase().indexOf(word.toLowerCase());
-                                syntaxErrorLength = syntaxWord[WORD_LENGTH];
-                            }
-                            // Compute syntax error position from the beginning of the document, (-1 is length of ; char)
-                            int syntaxErrorPositionOffset = Math.min(docLength,
-                                    documentReader.getPosition() + syntaxErrorPosition);
-                            DefaultParserNotice notice = new DefaultParserNotice(this, ex.getLocalizedMessage(),
-                                    documentReader.getLineIndex(syntaxErrorPositionOffset), syntaxErrorPositionOffset,
-                                    syntaxErrorLength);
-                            notice.setLevel(ParserNotice.Level.ERROR);
+            text = doc.getText(0, docLength);
+        } catch (BadLocationException ex) {
+            log.trace(ex.getLocalizedMessage(), ex);
+            return res;
+        }
+        Validation last = lastValidation;
+        if(last != null && last.schemaVersion == schemaVersion.get() && last.text.equals(text)) {
+            return last.result;
+        }
+        synchronized (this) {
+            if(executor != null) {
+                scheduleValidation(text);
+                // Keep previous notices until the validation is done
+                if(last != null) {
+                    for(Object noticeObject : last.result.getNotices()) {
+                        ParserNotice notice = (ParserNotice) noticeObject;
+                        if(notice.getOffset() + notice.getLength() <= docLength) {
                             res.addNotice(notice);
                         }
                     }
                 }
+                return res;
             }
-        } catch (SQLException ex) {
-            log.trace(ex.getLocalizedMessage(), ex);
-            // ignore
         }
-        long time = System.currentTimeMillis() - start;
-        res.setParseTime(time);
-        return res;
+        Validation validation = validate(text, validationRequest.incrementAndGet());
+        releaseConnection();
+        if(validation == null) {
+            return res;
+        }
+        lastValidation = validation;
+        return validation.result;
+    }
+
+    private void scheduleValidation(final String text) {
+        final long request = validationRequest.incrementAndGet();
+        if(pendingValidation != null) {
+            pendingValidation.cancel(false);
+        }
+        if(pendingRelease != null) {
+            pendingRelease.cancel(false);
+        }
+        pendingValidation = executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                Validation validation = validate(text, request);
+                if(validation != null) {
+                    lastValidation = validation;
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            RSyntaxTextArea area = textArea;
+                            if(area != null) {
+                                area.forceReparsing(RSyntaxSQLParser.this);
+                            }
+                        }
+                    });
+                }
+            }
+        }, validationDelay, TimeUnit.MILLISECONDS);
+        pendingRelease = executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                releaseConnection();
+            }
+        }, validationDelay + CONNECTION_IDLE_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Validate all statements of the text
+     * @param text Script
+     * @param request Validation request identifier
+     * @return Validation result, null if a more recent validation has been requested
+     */
+    private Validation validate(String text, long request) {
+        long start = System.currentTimeMillis();
+        long version = schemaVersion.get();
+        DefaultParseResult res = new DefaultParseResult(this);
+        int[] lineStart = getLineStartOffsets(text);
+        ScriptReader scriptReader = new ScriptReader(new StringReader(text));
+        int position = 0;
+        String statement = scriptReader.readStatement();
+        while (statement != null) {
+            if(request != validationRequest.get()) {
+                return null;
+            }
+            if (!scriptReader.isInsideRemark()) {
+                Verdict verdict = verdictCache.get(statement);
+                if(verdict == null || verdict.schemaVersion != version) {
+                    try {
+                        verdict = check(statement, version);
+                    } catch (SQLException ex) {
+                        // Database not available
+                        log.trace(ex.getLocalizedMessage(), ex);
+                        return null;
+                    }
+                    verdictCache.put(statement, verdict);
+                }
+                if(verdict.message != null) {
+                    // Compute syntax error position from the beginning of the document
+                    int syntaxErrorPositionOffset = Math.min(text.length(), position + verdict.offset);
+                    DefaultParserNotice notice = new DefaultParserNotice(this, verdict.message,
+                            getLineIndex(lineStart, syntaxErrorPositionOffset), syntaxErrorPositionOffset,
+                            Math.min(verdict.length, text.length() - syntaxErrorPositionOffset));
+                    notice.setLevel(ParserNotice.Level.ERROR);
+                    res.addNotice(notice);
+                }
+            }
+            position += statement.length() + 1;
+            statement = scriptReader.readStatement();
+        }
+        res.setParseTime(System.currentTimeMillis() - start);
+        return new Validation(text, version, res);
+    }
+
+    /**
+     * Send the statement to the database
+     * @param statement SQL statement
+     * @param version Schema version
+     * @return Verdict of the database
+     * @throws SQLException The database is not available
+     */
+    private Verdict check(String statement, long version) throws SQLException {
+        synchronized (connectionLock) {
+            if(validationConnection == null || validationConnection.isClosed()) {
+                validationConnection = dataSource.getConnection();
+            }
+            preparedStatementCount.incrementAndGet();
+            try (PreparedStatement st = validationConnection.prepareStatement(statement)) {
+                return new Verdict(version, null, 0, 0);
+            } catch (SQLException ex) {
+                if(validationConnection.isClosed()) {
+                    validationConnection = null;
+                    throw ex;
+                }
+                String message = ex.getLocalizedMessage();
+                // Find the beginning of the rightmost word in error
+                int syntaxErrorPosition = message.indexOf("[*]");
+                int[] syntaxWord = syntaxErrorPosition == -1 ? null :
+                        getLastWordPositionAndLength(message, syntaxErrorPosition);
+                int syntaxErrorLength;
+                if (syntaxWord == null) {
+                    // Could not find exact position, underline all the statement (remove preceding line break)
+                    syntaxErrorPosition = statement.indexOf(statement.trim());
+                    syntaxErrorLength = statement.length() - syntaxErrorPosition;
+                } else {
+                    String word = message.substring(syntaxWord[WORD_POSITION], syntaxWord[WORD_POSITION] + syntaxWord[WORD_LENGTH]);
+                    syntaxErrorPosition = Math.max(0, statement.toLowerCase().indexOf(word.toLowerCase()));
+                    syntaxErrorLength = syntaxWord[WORD_LENGTH];
+                }
+                return new Verdict(version, message, syntaxErrorPosition, syntaxErrorLength);
+            }
+        }
+    }
+
+    private static int[] getLineStartOffsets(String text) {
+        int[] lineStart = new int[16];
+        int lineCount = 1;
+        for(int i = 0; i < text.length(); i++) {
+            if(text.charAt(i) == '\n') {
+                if(lineCount == lineStart.length) {
+                    lineStart = Arrays.copyOf(lineStart, lineCount * 2);
+                }
+                lineStart[lineCount++] = i + 1;
+            }
+        }
+        return Arrays.copyOf(lineStart, lineCount);
+    }
+
+    private static int getLineIndex(int[] lineStart, int offset) {
+        int index = Arrays.binarySearch(lineStart, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Database verdict of a statement
+     */
+    private static class Verdict {
+        private final long schemaVersion;
+        // Error message, null if the statement is valid
+        private final String message;
+        private final int offset;
+        private final int length;
+
+        private Verdict(long schemaVersion, String message, int offset, int length) {
+            this.schemaVersion = schemaVersion;
+            this.message = message;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Result of the validation of a text
+     */
+    private static class Validation {
+        private final String text;
+        private final long schemaVersion;
+        private final ParseResult result;
+
+        private Validation(String text, long schemaVersion, ParseResult result) {
+            this.text = text;
+            this.schemaVersion = schemaVersion;
+            this.result = result;
+        }
     }
 }
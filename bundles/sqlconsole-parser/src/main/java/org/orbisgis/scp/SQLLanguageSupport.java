@@ -34,113 +34,152 @@
  * or contact directly:
  * info_at_ orbisgis.org
  */
-package org.orbisgis.scp;
-
-import org.fife.rsta.ac.AbstractLanguageSupport;
-import org.fife.rsta.ac.LanguageSupport;
-import org.fife.ui.autocomplete.AutoCompletion;
-import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
-import org.fife.ui.rsyntaxtextarea.parser.Parser;
-import org.h2.util.OsgiDataSourceFactory;
-import org.osgi.service.component.annotations.Component;
-import org.osgi.service.component.annotations.Reference;
-import org.osgi.service.jdbc.DataSourceFactory;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import javax.sql.DataSource;
-import java.sql.SQLException;
-import java.util.Properties;
-
-/**
- * Provides the support for SQL syntax in the console.
- * 
- * This class needs a registered SQLMetadataManager in order to work, i.e.
- * the code below should return a valid instance of SQLMetadataManager
- * <code>
- * SQLMetadataManager metManager = Services.getService(SQLMetadataManager.class);
- * </code>
- * 
- * This class installs the following on the text area
- *  - a Parser implementation that highlight error in the SQL
- *  - a CompletionProvider that auto-completes SQL queries
- * 
- * @author Antoine Gourlay
- * @author Nicolas Fortin
- */
-@Component(service = LanguageSupport.class ,servicefactory = true, property = {"language=sql"})
-public class SQLLanguageSupport extends AbstractLanguageSupport {
-        private Logger log = LoggerFactory.getLogger(SQLLanguageSupport.class);
-        private RSyntaxSQLParser parser;
-        private SQLCompletionProvider sqlCompletionProvider;
-        private DataSource dataSource;
-
-        @Override
-        public void install(RSyntaxTextArea textArea) {
-                // install parser
-                try {
-                        if(dataSource == null) {
-                            // Create H2 memory DataSource
-                            org.h2.Driver driver = org.h2.Driver.load();
-                            OsgiDataSourceFactory dataSourceFactory = new OsgiDataSourceFactory(driver);
-                            Properties properties = new Properties();
-                            properties.setProperty(DataSourceFactory.JDBC_URL, "jdbc:h2:mem:syntax");
-                            dataSource = dataSourceFactory.createDataSource(properties);
-                        }
-                        // SQL parser take too much time to evaluate, currently deactivated
-                        //parser = new RSyntaxSQLParser(dataSource);
-                        //textArea.putClientProperty(PROPERTY_LANGUAGE_PARSER, parser);
-                        //textArea.addParser(parser);
-
-                        // install auto-completion
-                        sqlCompletionProvider = new SQLCompletionProvider(dataSource, false);
-                        AutoCompletion autoCompletion = createAutoCompletion(sqlCompletionProvider);
-                        autoCompletion.install(textArea);
-                        installImpl(textArea, autoCompletion);
-                } catch (SQLException ex) {
-                    log.error(ex.getLocalizedMessage(), ex);
-                }
-
-        }
-
-        /**
-         * @param dataSource DataSource to use in auto completion
-         */
-        @Reference
-        public void setDataSource(DataSource dataSource) {
-            this.dataSource = dataSource;
-            if( parser != null ) {
-                parser.setDataSource(dataSource);
-            }
-            if(sqlCompletionProvider!=null) {
-                sqlCompletionProvider.setDataSource(dataSource);
-            }
-        }
-
-        /**
-         * @param dataSource DataSource to unset
-         */
-        public void unsetDataSource(DataSource dataSource) {
-            this.dataSource = null;
-            if( parser!=null ) {
-                parser.setDataSource(null);
-            }
-            if(sqlCompletionProvider!=null) {
-                sqlCompletionProvider.setDataSource(null);
-            }
-        }
-
-
-        @Override
-        public void uninstall(RSyntaxTextArea textArea) {
-                // remove completion
-                uninstallImpl(textArea);
-                
-                // remove parser
-                Object parser = textArea.getClientProperty(PROPERTY_LANGUAGE_PARSER);
-                if(parser instanceof RSyntaxSQLParser) {
-                    textArea.removeParser((Parser)parser);
-                }
-                textArea.putClientProperty(PROPERTY_LANGUAGE_PARSER, null);
-        }
-}
+package org.orbisgis.scp;
+
+import org.fife.rsta.ac.AbstractLanguageSupport;
+import org.fife.rsta.ac.LanguageSupport;
+import org.fife.ui.autocomplete.AutoCompletion;
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rsyntaxtextarea.parser.Parser;
+import org.h2.util.OsgiDataSourceFactory;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.DatabaseProgressionListener;
+import org.orbisgis.corejdbc.StateEvent;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.jdbc.DataSourceFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * Provides the support for SQL syntax in the console.
+ * 
+ * This class needs a registered SQLMetadataManager in order to work, i.e.
+ * the code below should return a valid instance of SQLMetadataManager
+ * <code>
+ * SQLMetadataManager metManager = Services.getService(SQLMetadataManager.class);
+ * </code>
+ * 
+ * This class installs the following on the text area
+ *  - a Parser implementation that highlight error in the SQL
+ *  - a CompletionProvider that auto-completes SQL queries
+ * 
+ * @author Antoine Gourlay
+ * @author Nicolas Fortin
+ */
+@Component(service = LanguageSupport.class ,servicefactory = true, property = {"language=sql"})
+public class SQLLanguageSupport extends AbstractLanguageSupport implements DatabaseProgressionListener {
+        private Logger log = LoggerFactory.getLogger(SQLLanguageSupport.class);
+        private volatile RSyntaxSQLParser parser;
+        private SQLCompletionProvider sqlCompletionProvider;
+        private DataSource dataSource;
+        // Bound and unbound by OSGi while the database thread notifies the statements
+        private volatile DataManager dataManager;
+
+        @Override
+        public void install(RSyntaxTextArea textArea) {
+                // install parser
+                try {
+                        if(dataSource == null) {
+                            // Create H2 memory DataSource
+                            org.h2.Driver driver = org.h2.Driver.load();
+                            OsgiDataSourceFactory dataSourceFactory = new OsgiDataSourceFactory(driver);
+                            Properties properties = new Properties();
+                            properties.setProperty(DataSourceFactory.JDBC_URL, "jdbc:h2:mem:syntax");
+                            dataSource = dataSourceFactory.createDataSource(properties);
+                        }
+                        // Statements are validated in a background thread
+                        parser = new RSyntaxSQLParser(dataSource);
+                        parser.setTextArea(textArea);
+                        textArea.putClientProperty(PROPERTY_LANGUAGE_PARSER, parser);
+                        textArea.addParser(parser);
+
+                        // install auto-completion
+                        sqlCompletionProvider = new SQLCompletionProvider(dataSource, false);
+                        AutoCompletion autoCompletion = createAutoCompletion(sqlCompletionProvider);
+                        autoCompletion.install(textArea);
+                        installImpl(textArea, autoCompletion);
+                } catch (SQLException ex) {
+                    log.error(ex.getLocalizedMessage(), ex);
+                }
+
+        }
+
+        /**
+         * @param dataSource DataSource to use in auto completion
+         */
+        @Reference
+        public void setDataSource(DataSource dataSource) {
+            this.dataSource = dataSource;
+            if( parser != null ) {
+                parser.setDataSource(dataSource);
+            }
+            if(sqlCompletionProvider!=null) {
+                sqlCompletionProvider.setDataSource(dataSource);
+            }
+        }
+
+        /**
+         * @param dataManager DataManager that fire database structure updates
+         */
+        @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+        public void setDataManager(DataManager dataManager) {
+            this.dataManager = dataManager;
+            dataManager.addDatabaseProgressionListener(this, StateEvent.DB_STATES.STATE_STATEMENT_END);
+        }
+
+        /**
+         * @param dataManager DataManager to unset
+         */
+        public void unsetDataManager(DataManager dataManager) {
+            dataManager.removeDatabaseProgressionListener(this);
+            if(this.dataManager == dataManager) {
+                // A new DataManager may have been bound before this one is unbound
+                this.dataManager = null;
+            }
+        }
+
+        @Override
+        public void progressionUpdate(StateEvent state) {
+            // Read the fields once, the events of a DataManager being unbound are ignored
+            DataManager manager = dataManager;
+            RSyntaxSQLParser sqlParser = parser;
+            if(manager != null && sqlParser != null && state.isUpdateDatabaseStructure()) {
+                sqlParser.notifySchemaChange();
+            }
+        }
+
+        /**
+         * @param dataSource DataSource to unset
+         */
+        public void unsetDataSource(DataSource dataSource) {
+            this.dataSource = null;
+            if( parser!=null ) {
+                parser.setDataSource(null);
+            }
+            if(sqlCompletionProvider!=null) {
+                sqlCompletionProvider.setDataSource(null);
+            }
+        }
+
+
+        @Override
+        public void uninstall(RSyntaxTextArea textArea) {
+                // remove completion
+                uninstallImpl(textArea);
+                
+                // remove parser
+                Object parser = textArea.getClientProperty(PROPERTY_LANGUAGE_PARSER);
+                if(parser instanceof RSyntaxSQLParser) {
+                    ((RSyntaxSQLParser) parser).dispose();
+                    textArea.removeParser((Parser)parser);
+                }
+                textArea.putClientProperty(PROPERTY_LANGUAGE_PARSER, null);
+        }
+}
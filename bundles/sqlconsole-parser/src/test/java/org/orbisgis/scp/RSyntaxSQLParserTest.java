@@ -38,6 +38,7 @@ package org.orbisgis.scp;
 
 import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
 import org.fife.ui.rsyntaxtextarea.parser.ParseResult;
 import org.fife.ui.rsyntaxtextarea.parser.ParserNotice;
 import org.h2.util.OsgiDataSourceFactory;
@@ -126,4 +127,35 @@ public class RSyntaxSQLParserTest {
         assertEquals(0, notice.getOffset());
         assertEquals(5, notice.getLength());
     }
+
+    @Test
+    public void testIncrementalValidation() throws Exception {
+        org.h2.Driver driver = org.h2.Driver.load();
+        OsgiDataSourceFactory dataSourceFactory = new OsgiDataSourceFactory(driver);
+        Properties properties = new Properties();
+        properties.setProperty(OsgiDataSourceFactory.JDBC_URL, DATABASE_PATH);
+        RSyntaxSQLParser parser = new RSyntaxSQLParser(dataSourceFactory.createDataSource(properties));
+
+        RSyntaxDocument document = new RSyntaxDocument(SyntaxConstants.SYNTAX_STYLE_SQL);
+        document.insertString(0, "SELECT 1;\nSELECT * FROM;\nSELECT 2;", null);
+        ParseResult res = parser.parse(document, "");
+        assertEquals(1, res.getNotices().size());
+        assertEquals(1, res.getNotices().get(0).getLine());
+        long statementCount = parser.getPreparedStatementCount();
+        assertEquals(3, statementCount);
+        // Same document, verdicts come from the cache
+        res = parser.parse(document, "");
+        assertEquals(1, res.getNotices().size());
+        assertEquals(statementCount, parser.getPreparedStatementCount());
+        // Only the edited statement is validated
+        document.insertString(document.getLength() - 1, "0", null);
+        res = parser.parse(document, "");
+        assertEquals(1, res.getNotices().size());
+        assertEquals(statementCount + 1, parser.getPreparedStatementCount());
+        // Schema update invalidate all verdicts
+        parser.notifySchemaChange();
+        parser.parse(document, "");
+        assertEquals(statementCount * 2 + 1, parser.getPreparedStatementCount());
+        parser.dispose();
+    }
 }
@@ -53,16 +53,21 @@ import javax.swing.text.AbstractDocument;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.PlainDocument;
-import javax.swing.text.StringContent;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.UndoableEdit;
 import java.beans.EventHandler;
 import java.beans.PropertyChangeListener;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Locale;
 
 /**
- * Execute SQL script in a background process
+ * Execute SQL script in a background process.
+ * The script is split and executed in a single pass, the progression follows the position in the script.
+ * Consecutive DML statements can be sent to the database by batch, see {@link #setBatchSize(int)}.
  */
 public class ExecuteScriptProcess extends SwingWorkerPM {
 
@@ -74,8 +79,14 @@ public class ExecuteScriptProcess extends SwingWorkerPM {
         private ScriptSplitterFactory splitterFactory;
         private static final int MAX_PRINTED_ROWS = 100;
         private static final int MAX_FIELD_LENGTH = 30;
+        /** Number of result rows sent to the log in one message */
+        private static final int PRINTED_ROWS_CHUNK = 20;
+        /** Longer queries are truncated in the log */
+        private static final int MAX_LOGGED_QUERY_LENGTH = 1000;
+        private static final String[] DML_PREFIXES = new String[] {"INSERT", "UPDATE", "DELETE", "MERGE"};
         private int timeOut =0;
         private final boolean onlySelected;
+        private int batchSize = 0;
         
         /**
          * @param panel Console panel (Can be null)
@@ -92,6 +103,21 @@ public class ExecuteScriptProcess extends SwingWorkerPM {
                 setTaskName(I18N.tr("Executing script"));
         }
 
+        /**
+         * @param batchSize Maximum number of consecutive INSERT, UPDATE, DELETE or MERGE statements sent in one batch.
+         *                  0 or 1 to execute the statements one by one.
+         */
+        public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+        }
+
+        /**
+         * @return Maximum number of consecutive DML statements sent in one batch
+         */
+        public int getBatchSize() {
+                return batchSize;
+        }
+
         private void showPanelMessage(final String message) {
                 if (panel != null) {
                         SwingUtilities.invokeLater(new Runnable() {
@@ -103,61 +129,137 @@ public class ExecuteScriptProcess extends SwingWorkerPM {
                 }
         }
 
+        /**
+         * @return The script to execute, null if there is nothing to execute
+         */
+        private String getScript() {
+                if (onlySelected) {
+                        return panel.getScriptPanel().getSelectedText();
+                } else {
+                        return panel.getScriptPanel().getText();
+                }
+        }
+
+        /**
+         * @param query Trimmed statement
+         * @return True if the statement can be added to a batch
+         */
+        private static boolean isDML(String query) {
+                for (String prefix : DML_PREFIXES) {
+                        if (query.regionMatches(true, 0, prefix, 0, prefix.length())
+                                && (query.length() == prefix.length()
+                                || Character.isWhitespace(query.charAt(prefix.length())))) {
+                                return true;
+                        }
+                }
+                return false;
+        }
+
+        private static String abbreviate(String query) {
+                if (query.length() > MAX_LOGGED_QUERY_LENGTH) {
+                        return query.substring(0, MAX_LOGGED_QUERY_LENGTH) + "..";
+                } else {
+                        return query;
+                }
+        }
+
         /**
          * Parse the script and execute each sql statements.
-         * The script is cloned to avoid user modifications during its execution.
+         * The script is a snapshot of the editor to avoid user modifications during its execution.
          * 
-         * @param pm
-         * @param st
+         * @param pm Progress monitor, the end of the task is the script length
+         * @param st Statement
+         * @param script SQL script
          * @throws SQLException 
          */
-        private void parseAndExecuteScript(ProgressMonitor pm, Statement st) throws SQLException {
-            // Clone SQL script
-            AbstractDocument.Content sqlScript = new StringContent(panel.getScriptPanel().getDocument().getLength());
-            try {
-                if (onlySelected) {                    
-                    sqlScript.insertString(0, panel.getScriptPanel().getSelectedText());                    
-                }
-                else{
-                    sqlScript.insertString(0, panel.getScriptPanel().getText());
-                }
-                
-            } catch (BadLocationException ex) {
-                LOGGER.error(ex.getLocalizedMessage(), ex);
-                return;
-            }
-            Document sqlDocument = new PlainDocument(sqlScript);
+        private void parseAndExecuteScript(ProgressMonitor pm, Statement st, String script) throws SQLException {
+            Document sqlDocument = new PlainDocument(new ScriptContent(script));
             ScriptSplitter splitter = splitterFactory.create(sqlDocument, true);
-            int totalRequests = 0;
-            while (splitter.hasNext()) {
-                if (!splitter.next().trim().isEmpty()) {
-                    totalRequests++;
-                }
-            }
-            splitter = splitterFactory.create(sqlDocument, true);
             int currentRequest = 0;
-            while (splitter.hasNext()) {
-                currentRequest++;
+            int pendingBatch = 0;
+            long debBatch = 0;
+            while (splitter.hasNext() && !pm.isCancelled()) {
                 String query = splitter.next().trim();
-                if (!query.isEmpty()) {
+                if (query.isEmpty()) {
+                    continue;
+                }
+                currentRequest++;
+                String progress = String.format(Locale.getDefault(), "%.1f",
+                        splitter.getPosition() * 100. / Math.max(1, script.length()));
+                if (batchSize > 1 && isDML(query)) {
+                    if (pendingBatch == 0) {
+                        debBatch = System.currentTimeMillis();
+                    }
+                    st.addBatch(query);
+                    pendingBatch++;
+                    if (pendingBatch >= batchSize) {
+                        executeBatch(st, pendingBatch, debBatch, progress);
+                        pendingBatch = 0;
+                    }
+                } else {
+                    if (pendingBatch > 0) {
+                        executeBatch(st, pendingBatch, debBatch, progress);
+                        pendingBatch = 0;
+                    }
                     // Some queries need to be shown to the user
-                    LOGGER.info(I18N.tr("Execute request {0}/{1}: {2}", currentRequest, totalRequests, query));
+                    LOGGER.info(I18N.tr("Execute request {0} ({1}%): {2}", currentRequest, progress, abbreviate(query)));
                     long debQuery = System.currentTimeMillis();
                     if (st.execute(query)) {
-                        ResultSet rs = st.getResultSet();
-                        LOGGER.info("\n" + ReadTable.resultSetToString(rs, MAX_FIELD_LENGTH, MAX_PRINTED_ROWS, true, true));
-
+                        try (ResultSet rs = st.getResultSet()) {
+                            printResultSet(rs);
+                        }
                     }
                     LOGGER.info(I18N.tr("Done in {0} seconds\n", (System.currentTimeMillis() - debQuery) / 1000.));
-                    pm.endTask();
                 }
+                pm.progressTo(Math.min(script.length(), splitter.getPosition()));
+            }
+            if (pendingBatch > 0 && !pm.isCancelled()) {
+                executeBatch(st, pendingBatch, debBatch, "100");
+            }
+            pm.progressTo(script.length());
+        }
+
+        private void executeBatch(Statement st, int statementCount, long debBatch, String progress) throws SQLException {
+            try {
+                st.executeBatch();
+            } finally {
+                st.clearBatch();
+            }
+            LOGGER.info(I18N.tr("Batch of {0} statements ({1}%) done in {2} seconds", statementCount, progress,
+                    (System.currentTimeMillis() - debBatch) / 1000.));
+        }
+
+        /**
+         * Send the result set rows to the log by chunks, the log panel is updated while the rows are fetched.
+         * @param rs Result set
+         * @throws SQLException
+         */
+        private void printResultSet(ResultSet rs) throws SQLException {
+            int printed = ReadTable.printResultSet(rs, MAX_FIELD_LENGTH, MAX_PRINTED_ROWS, PRINTED_ROWS_CHUNK, true,
+                    true, new ReadTable.ResultSetFilter() {
+                        @Override
+                        public boolean printRow(ResultSet rs) {
+                            return true;
+                        }
+                    }, new ReadTable.ResultSetPrinter() {
+                        @Override
+                        public void print(String chunk) {
+                            LOGGER.info("\n" + chunk);
+                        }
+                    });
+            if (printed >= MAX_PRINTED_ROWS) {
+                LOGGER.info(I18N.tr("Only the first {0} rows are shown", MAX_PRINTED_ROWS));
             }
         }
 
     @Override
     protected Object doInBackground() throws Exception {
         long t1 = System.currentTimeMillis();
-        ProgressMonitor pm = getProgressMonitor().startTask(I18N.tr("Execute SQL Request"), panel.getScriptPanel().getLineCount());
+        String script = getScript();
+        if (script == null) {
+            return null;
+        }
+        ProgressMonitor pm = getProgressMonitor().startTask(I18N.tr("Execute SQL Request"), Math.max(1, script.length()));
         try(Connection connection = ds.getConnection()) {
             try(Statement st = connection.createStatement()) {
                 st.setQueryTimeout(timeOut);
@@ -165,16 +267,9 @@ public class ExecuteScriptProcess extends SwingWorkerPM {
                 pm.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL ,
                         EventHandler.create(PropertyChangeListener.class, st, "cancel"));
                 if(splitterFactory != null) {
-                    parseAndExecuteScript(pm, st);
+                    parseAndExecuteScript(pm, st, script);
                 } else {
-                    if (onlySelected) {   
-                        String selectedText = panel.getScriptPanel().getSelectedText();
-                        if (selectedText != null) {
-                            st.execute(selectedText.trim());
-                        }
-                    } else {
-                        st.execute(panel.getScriptPanel().getText().trim());
-                    }
+                    st.execute(script.trim());
                 }
             }
         } catch (SQLException ex) {
@@ -187,4 +282,60 @@ public class ExecuteScriptProcess extends SwingWorkerPM {
         showPanelMessage(message);
         return null;
     }
+
+    /**
+     * Read only document content that share the script string instead of copying it.
+     */
+    private static class ScriptContent implements AbstractDocument.Content {
+        private final String script;
+
+        public ScriptContent(String script) {
+            this.script = script;
+        }
+
+        @Override
+        public Position createPosition(final int offset) throws BadLocationException {
+            return new Position() {
+                @Override
+                public int getOffset() {
+                    return offset;
+                }
+            };
+        }
+
+        @Override
+        public int length() {
+            // Document content always ends with an implied break
+            return script.length() + 1;
+        }
+
+        @Override
+        public UndoableEdit insertString(int where, String str) throws BadLocationException {
+            throw new BadLocationException("Read only script", where);
+        }
+
+        @Override
+        public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+            throw new BadLocationException("Read only script", where);
+        }
+
+        @Override
+        public String getString(int where, int len) throws BadLocationException {
+            if (where < 0 || len < 0 || where + len > length()) {
+                throw new BadLocationException("Invalid range", where);
+            }
+            if (where + len <= script.length()) {
+                return script.substring(where, where + len);
+            } else {
+                return script.substring(where) + "\n";
+            }
+        }
+
+        @Override
+        public void getChars(int where, int len, Segment txt) throws BadLocationException {
+            txt.array = getString(where, len).toCharArray();
+            txt.offset = 0;
+            txt.count = len;
+        }
+    }
 }
@@ -57,4 +57,5 @@ public interface SQLAction extends ActionFactoryService<SQLConsoleEditor> {
     public static final String A_BLOCKCOMMENT = "M_BLOCKCOMMENT";
     public static final String A_SQL_LIST = "M_SQL_LIST";    
     public static final String A_SQL_TIMEOUT = "M_SQL_TIMEOUT";
+    public static final String A_SQL_BATCH = "M_SQL_BATCH";
 }
@@ -122,6 +122,7 @@ public class SQLConsolePanel extends JPanel {
         private DefaultAction saveAsAction;
         private DataSource dataSource;
         private int timeOut =0;
+        private int batchSize = 0;
         private ExecutorService executorService;
         private SQLElement sqlElement;
         private DeactivableSplitPane split;
@@ -298,6 +299,14 @@ public class SQLConsolePanel extends JPanel {
                         EventHandler.create(ActionListener.class,this,"onSQLTimeOut"),
                         KeyStroke.getKeyStroke(KeyEvent.VK_T, InputEvent.CTRL_DOWN_MASK)
                 ).setLogicalGroup("custom"));
+                //Batch action
+                actions.addAction(new DefaultAction(SQLAction.A_SQL_BATCH,
+                        I18N.tr("Batch"),
+                        I18N.tr("Send consecutive INSERT, UPDATE, DELETE or MERGE statements by batch"),
+                        null,
+                        EventHandler.create(ActionListener.class,this,"onSQLBatch"),
+                        null
+                ).setLogicalGroup("custom"));
         }
 
         public void onShowHideFunctionPanel() {
@@ -355,7 +364,9 @@ public class SQLConsolePanel extends JPanel {
          */
         public void onExecute() {      
                 if (scriptPanel.getDocument().getLength() > 0) {
-                    execute(new ExecuteScriptProcess(this, dataSource, splitterFactory, timeOut, false));
+                    ExecuteScriptProcess process = new ExecuteScriptProcess(this, dataSource, splitterFactory, timeOut, false);
+                    process.setBatchSize(batchSize);
+                    execute(process);
                 }
         }
         
@@ -364,11 +375,27 @@ public class SQLConsolePanel extends JPanel {
          */
         public void onExecuteSelected(){
             if (scriptPanel.getDocument().getLength() > 0) {
-                execute(new ExecuteScriptProcess(this, dataSource, splitterFactory, timeOut, true));
+                ExecuteScriptProcess process = new ExecuteScriptProcess(this, dataSource, splitterFactory, timeOut, true);
+                process.setBatchSize(batchSize);
+                execute(process);
             }
         }
 
 
+        /**
+         * @param batchSize Maximum number of consecutive DML statements sent in one batch, 0 to disable batching
+         */
+        public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+        }
+
+        /**
+         * @return Maximum number of consecutive DML statements sent in one batch, 0 if batching is disabled
+         */
+        public int getBatchSize() {
+                return batchSize;
+        }
+
         public void setExecutorService(ExecutorService executorService) {
                 this.executorService = executorService;
         }
@@ -548,6 +575,25 @@ public class SQLConsolePanel extends JPanel {
         }
     }
         
+    /**
+     * Open a panel to change the number of DML statements executed by batch
+     */
+    public void onSQLBatch() {
+        MultiInputPanel batchPanel = new MultiInputPanel(I18N.tr("DML batch"));
+        String BATCH_SIZE = "batchsize";
+        batchPanel.addInput(BATCH_SIZE,
+                I18N.tr("Number of statements (0 to disable)"),
+                String.valueOf(batchSize),
+                new TextBoxType(8));
+        MIPValidationInteger mipVal = new MIPValidationInteger(BATCH_SIZE, I18N.tr("Number of statements"));
+        mipVal.setMinValue(0);
+        batchPanel.addValidation(mipVal);
+
+        if (UIFactory.showDialog(batchPanel, true, true)) {
+            batchSize = Integer.valueOf(batchPanel.getInput(BATCH_SIZE));
+        }
+    }
+        
         private JToolBar getStatusToolBar() {
                 if (infoToolBar == null) {
                         infoToolBar = new JToolBar();
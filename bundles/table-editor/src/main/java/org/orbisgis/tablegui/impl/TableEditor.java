@@ -97,6 +97,7 @@ import java.beans.PropertyChangeListener;
 import java.sql.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -153,6 +154,10 @@ public class TableEditor extends JPanel implements EditorDockable, SourceTable,T
     private ExecutorService executorService;
     private ActionCommands dockingActions = new ActionCommands();
     private Collection<PropertyChangeListener> listTablePropertyChangeListener = new ArrayList<>();
+    /**
+     * Longest values of each column, used by the optimal width job until the table is updated
+     */
+    private final Map<String, List<Object>> optimalWidthCandidates = new ConcurrentHashMap<>();
 
     /**
      * Activate method
@@ -233,6 +238,7 @@ public class TableEditor extends JPanel implements EditorDockable, SourceTable,T
 
     @Override
     public void tableChange(TableEditEvent event) {
+        optimalWidthCandidates.clear();
         if (event.getUndoableEdit() == null && !table.isEditing()) {
             executorService.execute(new RefreshTableJob(tableModel, event, this, tableSorter));
         } else {
@@ -901,7 +907,8 @@ public class TableEditor extends JPanel implements EditorDockable, SourceTable,T
      * Compute the optimal width for this column
      */
     public void onMenuOptimalWidth() {
-        executorService.execute(new OptimalWidthJob(table, popupCellAdress.x));
+        executorService.execute(new OptimalWidthJob(table, popupCellAdress.x, dataSource,
+                tableEditableElement.getTableReference(), optimalWidthCandidates));
     }
 
     /**
@@ -37,64 +37,99 @@
 package org.orbisgis.tablegui.impl.jobs;
 
 import java.awt.Component;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import javax.sql.DataSource;
 import javax.swing.JTable;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 import org.orbisgis.commons.progress.ProgressMonitor;
 import org.orbisgis.commons.progress.SwingWorkerPM;
+import org.orbisgis.corejdbc.ReadTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
 /**
- * Computation of the optimal column width of the entire table
+ * Computation of the optimal column width of the entire table.
+ * The table is not read, the database returns the values having the longest text, then only these values and the
+ * visible rows are measured.
  */
 public class OptimalWidthJob extends SwingWorkerPM<Integer, Integer> {
         protected final static I18n I18N = I18nFactory.getI18n(OptimalWidthJob.class);
         private final static Logger LOGGER = LoggerFactory.getLogger(OptimalWidthJob.class);
+        /** Number of longest values fetched from the database */
+        public static final int CANDIDATE_COUNT = 20;
+        /** Maximum number of visible rows measured */
+        public static final int MAX_SAMPLE_ROWS = 200;
+        private static final int MARGIN = 5;
+        private static final int HEADER_MARGIN = 10;
         private JTable table;
         private int selectedColumn;
+        private DataSource dataSource;
+        private String tableReference;
+        private Map<String, List<Object>> candidatesCache;
 
-
-        public OptimalWidthJob(JTable table, int selectedColumn) {
+        /**
+         * @param table Table component
+         * @param selectedColumn Column index in the view
+         * @param dataSource Table data source
+         * @param tableReference Table identifier
+         * @param candidatesCache Longest values of each column, the cache must be cleared when the table is updated
+         */
+        public OptimalWidthJob(JTable table, int selectedColumn, DataSource dataSource, String tableReference,
+                               Map<String, List<Object>> candidatesCache) {
                 this.table = table;
                 this.selectedColumn = selectedColumn;
+                this.dataSource = dataSource;
+                this.tableReference = tableReference;
+                this.candidatesCache = candidatesCache;
                 setTaskName(I18N.tr("Computation of the optimal column width"));
         }
 
         @Override
         protected Integer doInBackground() throws Exception {
-            return getColumnOptimalWidth(table,table.getRowCount(), Integer.MAX_VALUE,
-                    selectedColumn, this.getProgressMonitor());
+            String columnName = table.getModel().getColumnName(table.convertColumnIndexToModel(selectedColumn));
+            List<Object> candidates = candidatesCache.get(columnName);
+            if(candidates == null) {
+                try(Connection connection = dataSource.getConnection()) {
+                    candidates = ReadTable.getLongestValues(connection, tableReference, columnName,
+                            CANDIDATE_COUNT, getProgressMonitor());
+                    candidatesCache.put(columnName, candidates);
+                } catch (SQLException ex) {
+                    LOGGER.warn(I18N.tr("Cannot fetch the longest values of the column {0}, only visible rows are" +
+                            " measured", columnName), ex);
+                    candidates = Collections.emptyList();
+                }
+            }
+            if(getProgressMonitor().isCancelled()) {
+                return null;
+            }
+            return getColumnOptimalWidth(table, candidates, Integer.MAX_VALUE, selectedColumn);
         }
 
         @Override
         protected void done() {
             try {
-                TableColumn col = table.getColumnModel().getColumn(selectedColumn);
-                col.setPreferredWidth(get());
+                Integer width = get();
+                if(width != null) {
+                    TableColumn col = table.getColumnModel().getColumn(selectedColumn);
+                    col.setPreferredWidth(width);
+                }
             } catch (ExecutionException|InterruptedException ex) {
                 LOGGER.error(ex.getLocalizedMessage(), ex);
             }
         }
 
-        /**
-         * Compute the optimal width of a table column
-         * @param table 
-         * @param rowsToCheck Number of rows used to evaluate the optimal width
-         * @param maxWidth Limitation of the width
-         * @param column Column index
-         * @param pm Progress information
-         * @return 
-         */
-        public static int getColumnOptimalWidth(JTable table, int rowsToCheck, int maxWidth,
-                int column, ProgressMonitor pm) {
+        private static int getHeaderWidth(JTable table, int column) {
                 TableColumn col = table.getColumnModel().getColumn(column);
-                int margin = 5;
-                int headerMargin = 10;
-
                 // Get width of column header
                 TableCellRenderer renderer = col.getHeaderRenderer();
 
@@ -108,8 +143,63 @@ public class OptimalWidthJob extends SwingWorkerPM<Integer, Integer> {
 
                 // Check header
                 comp = renderer.getTableCellRendererComponent(table, col.getHeaderValue(), false, false, 0, column);
-                width = Math.max(width, comp.getPreferredSize().width + 2
-                        * headerMargin);
+                return Math.max(width, comp.getPreferredSize().width + 2 * HEADER_MARGIN);
+        }
+
+        private static int getCellWidth(JTable table, Object value, int row, int column) {
+                TableCellRenderer renderer = table.getCellRenderer(row, column);
+                Component comp = renderer.getTableCellRendererComponent(table, value, false, false, row, column);
+                return comp.getPreferredSize().width;
+        }
+
+        /**
+         * Compute the optimal width of a table column using the given values and the visible rows.
+         * @param table Table component
+         * @param candidates Column values to measure, fetched by {@link ReadTable#getLongestValues}
+         * @param maxWidth Limitation of the width
+         * @param column Column index
+         * @return Column width
+         */
+        public static int getColumnOptimalWidth(JTable table, List<Object> candidates, int maxWidth, int column) {
+                int width = getHeaderWidth(table, column);
+                // Measure the visible rows, their values are already fetched
+                Rectangle visibleRect = table.getVisibleRect();
+                int firstRow = Math.max(0, table.rowAtPoint(visibleRect.getLocation()));
+                int lastRow = table.rowAtPoint(new Point(visibleRect.x, visibleRect.y + visibleRect.height - 1));
+                if(lastRow < 0) {
+                        lastRow = table.getRowCount() - 1;
+                }
+                lastRow = Math.min(lastRow, firstRow + MAX_SAMPLE_ROWS - 1);
+                for (int r = firstRow; r <= lastRow; r++) {
+                        width = Math.max(width, getCellWidth(table, table.getValueAt(r, column), r, column));
+                }
+                // The longest text is not always the widest one, all candidates are measured
+                if(table.getRowCount() > 0) {
+                        for (Object value : candidates) {
+                                width = Math.max(width, getCellWidth(table, value, firstRow, column));
+                        }
+                }
+                // limit
+                width = Math.min(width, maxWidth);
+
+                // Add margin
+                width += 2 * MARGIN;
+
+                return width;
+        }
+
+        /**
+         * Compute the optimal width of a table column
+         * @param table 
+         * @param rowsToCheck Number of rows used to evaluate the optimal width
+         * @param maxWidth Limitation of the width
+         * @param column Column index
+         * @param pm Progress information
+         * @return 
+         */
+        public static int getColumnOptimalWidth(JTable table, int rowsToCheck, int maxWidth,
+                int column, ProgressMonitor pm) {
+                int width = getHeaderWidth(table, column);
                 // Get maximum width of column data
                 for (int r = 0; r < rowsToCheck; r++) {
                         if (r / 100 == r / 100.0) {
@@ -119,16 +209,14 @@ public class OptimalWidthJob extends SwingWorkerPM<Integer, Integer> {
                                         pm.progressTo(100 * r / rowsToCheck);
                                 }
                         }
-                        renderer = table.getCellRenderer(r, column);
-                        comp = renderer.getTableCellRendererComponent(table, table.getValueAt(r, column), false, false, r, column);
-                        width = Math.max(width, comp.getPreferredSize().width);
+                        width = Math.max(width, getCellWidth(table, table.getValueAt(r, column), r, column));
                 }
 
                 // limit
                 width = Math.min(width, maxWidth);
 
                 // Add margin
-                width += 2 * margin;
+                width += 2 * MARGIN;
 
                 return width;
         }
@@ -79,10 +79,12 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.Action;
@@ -184,6 +186,8 @@ public class Toc extends JPanel implements EditorDockable, TocExt, TableEditList
         private PropertyChangeListener mapContextPropertyChange = EventHandler.create(PropertyChangeListener.class,this,"onMapContextPropertyChange","");
         private EditorManager editorManager;
         private ExecutorService executorService;
+        // Layers of which the data source is being opened in background
+        private final Set<ILayer> openingLayers = new HashSet<>();
         private CoreWorkspace coreWorkspace;
         private MapEditorExtension mapEditorExtension;
         /**
@@ -631,6 +635,62 @@ public class Toc extends JPanel implements EditorDockable, TocExt, TableEditList
                 swingWorker.execute();
             }
         }
+
+        /**
+         * @return The selected layers and the layers of the selected styles
+         */
+        private List<ILayer> getSelectedSourceLayers() {
+            List<ILayer> layers = new ArrayList<>(Arrays.asList(mapContext.getSelectedLayers()));
+            for (Style style : mapContext.getSelectedStyles()) {
+                layers.add(style.getLayer());
+            }
+            return layers;
+        }
+
+        /**
+         * Query in background the data source of the layers that do not have a table reference yet. The layers read
+         * from a map context document open their data source on the first query, it must not be done in the swing
+         * thread.
+         * @param layers Layers to open
+         * @param onOpened Run in the swing thread once the data sources are opened, may be null
+         */
+        public void openDataSources(Collection<ILayer> layers, final Runnable onOpened) {
+            final List<ILayer> toOpen = new ArrayList<>();
+            for (ILayer layer : layers) {
+                // Without callback, the layers already being opened are skipped
+                if (!layer.acceptsChilds() && layer.getTableReference().isEmpty() &&
+                        (openingLayers.add(layer) || onOpened != null)) {
+                    toOpen.add(layer);
+                }
+            }
+            if (toOpen.isEmpty()) {
+                if (onOpened != null) {
+                    onOpened.run();
+                }
+                return;
+            }
+            execute(new SwingWorker<Object, Object>() {
+                @Override
+                protected Object doInBackground() throws Exception {
+                    for (ILayer layer : toOpen) {
+                        try {
+                            layer.isStream();
+                        } catch (LayerException ex) {
+                            LOGGER.error(I18N.tr("Cannot open layer : {0} ", layer.getName()), ex);
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                protected void done() {
+                    openingLayers.removeAll(toOpen);
+                    if (onOpened != null) {
+                        onOpened.run();
+                    }
+                }
+            });
+        }
         /**
          * @return A list of selected layers, same as {@link org.orbisgis.coremap.layerModel.MapContext#getSelectedLayers()}
          */
@@ -973,7 +1033,16 @@ public class Toc extends JPanel implements EditorDockable, TocExt, TableEditList
          * Called by EventHandler. This methods opens a wizard for the configuration
          * of a legend that will be added to the selected style in a dedicated Rule.
          */
-        public void onAddLegend(){
+        public void onAddLegend() {
+            openDataSources(getSelectedSourceLayers(), new Runnable() {
+                @Override
+                public void run() {
+                    addLegend();
+                }
+            });
+        }
+
+        private void addLegend() {
             Style[] styles = mapContext.getSelectedStyles();
             if(styles.length == 1){
                 Style base = styles[0];
@@ -998,6 +1067,15 @@ public class Toc extends JPanel implements EditorDockable, TocExt, TableEditList
          * Add a new default style to the selected layer.
          */
         public void onAddStyle() {
+            openDataSources(getSelectedSourceLayers(), new Runnable() {
+                @Override
+                public void run() {
+                    addStyle();
+                }
+            });
+        }
+
+        private void addStyle() {
             ILayer[] layers = mapContext.getSelectedLayers();
             if (layers.length == 1) {
                 LegendWizard lw = new LegendWizard();
@@ -1019,7 +1097,16 @@ public class Toc extends JPanel implements EditorDockable, TocExt, TableEditList
          * The user choose to import a style and to add it to the selected layer
          * through the dedicated menu.
          */
-        public void onImportStyle() {                
+        public void onImportStyle() {
+            openDataSources(getSelectedSourceLayers(), new Runnable() {
+                @Override
+                public void run() {
+                    importStyle();
+                }
+            });
+        }
+
+        private void importStyle() {
                 ILayer[] layers = mapContext.getSelectedLayers();
                 if (layers.length == 1) {
                         ILayer layer = layers[0];
@@ -1053,53 +1140,62 @@ public class Toc extends JPanel implements EditorDockable, TocExt, TableEditList
         public void onSimpleEditor() {
             TreePath selObjs = tree.getSelectionPath();
             if (selObjs.getLastPathComponent() instanceof TocTreeNodeStyle) {
-                try {
-                    Style style = ((TocTreeNodeStyle) selObjs.getLastPathComponent()).getStyle();
-                    final Layer layer = (Layer) style.getLayer();
-                    if(isStyleAllowed(layer)){
-                        final int index = layer.indexOf(style);
-                        //In order to be able to cancel all of our modifications,
-                        //we produce a copy of our style.
-                        JAXBElement<StyleType> jest = style.getJAXBElement();
-                        
-                        int geometryType;
-                        TableLocation tableLocation = TableLocation.parse(layer.getTableReference());
-                        try(Connection connection = mapContext.getDataManager().getDataSource().getConnection()) {
-                            geometryType = SFSUtilities.getGeometryType(connection, tableLocation, "");
-                        }
-                        Style copy = new Style(jest, layer);
-
-                        final SimpleStyleEditor pan = new SimpleStyleEditor(mapEditorExtension.getMapTransform(), geometryType, layer, copy);
-                        ActionListener apply = new ActionListener() {
-                            @Override
-                            public void actionPerformed(ActionEvent actionEvent) {
-                                Style s1 = pan.getStyleWrapper().getStyle();
-                                JAXBElement<StyleType> jaxbElement = s1.getJAXBElement();
-                                try {
-                                    Style s2 = new Style(jaxbElement, layer);
-                                    layer.setStyle(index, s2);
-                                } catch (SeExceptions.InvalidStyle invalidStyle) {
-                                    LOGGER.error(I18N.tr("You produced an invalid style while copying " +
-                                            "a valid one. Things are getting really wrong here."));
-                                }
+                final Style style = ((TocTreeNodeStyle) selObjs.getLastPathComponent()).getStyle();
+                openDataSources(Collections.singletonList(style.getLayer()), new Runnable() {
+                    @Override
+                    public void run() {
+                        showSimpleEditor(style);
+                    }
+                });
+            }
+        }
+
+        private void showSimpleEditor(Style style) {
+            try {
+                final Layer layer = (Layer) style.getLayer();
+                if(isStyleAllowed(layer)){
+                    final int index = layer.indexOf(style);
+                    //In order to be able to cancel all of our modifications,
+                    //we produce a copy of our style.
+                    JAXBElement<StyleType> jest = style.getJAXBElement();
+                    
+                    int geometryType;
+                    TableLocation tableLocation = TableLocation.parse(layer.getTableReference());
+                    try(Connection connection = mapContext.getDataManager().getDataSource().getConnection()) {
+                        geometryType = SFSUtilities.getGeometryType(connection, tableLocation, "");
+                    }
+                    Style copy = new Style(jest, layer);
+
+                    final SimpleStyleEditor pan = new SimpleStyleEditor(mapEditorExtension.getMapTransform(), geometryType, layer, copy);
+                    ActionListener apply = new ActionListener() {
+                        @Override
+                        public void actionPerformed(ActionEvent actionEvent) {
+                            Style s1 = pan.getStyleWrapper().getStyle();
+                            JAXBElement<StyleType> jaxbElement = s1.getJAXBElement();
+                            try {
+                                Style s2 = new Style(jaxbElement, layer);
+                                layer.setStyle(index, s2);
+                            } catch (SeExceptions.InvalidStyle invalidStyle) {
+                                LOGGER.error(I18N.tr("You produced an invalid style while copying " +
+                                        "a valid one. Things are getting really wrong here."));
                             }
-                        };
-                        if (UIFactory.showApplyDialog(pan, apply, false)) {
-                            layer.setStyle(index, pan.getStyleWrapper().getStyle());
                         }
-                    }else{
-                        LOGGER.info(I18N.tr("Styles can be set only on vector layers."));
+                    };
+                    if (UIFactory.showApplyDialog(pan, apply, false)) {
+                        layer.setStyle(index, pan.getStyleWrapper().getStyle());
                     }
-                } catch (SeExceptions.InvalidStyle sis) {
-                    //I don't know how this could happen : we are creating a style
-                    //from a valid style. Should be valid too, consequently...
-                    LOGGER.error(I18N.tr("The style you're trying to edit is not valid !"));
-                } catch (SQLException de) {
-                    LOGGER.error(I18N.tr("An error occurred while processing the DataSource"));
-                } catch (UnsupportedOperationException uoe){
-                    LOGGER_POPUP.info(I18N.tr("Cannot create the user interface for this style. \n"
-                            + "Please uses the advanced style editor."), uoe);
+                }else{
+                    LOGGER.info(I18N.tr("Styles can be set only on vector layers."));
                 }
+            } catch (SeExceptions.InvalidStyle sis) {
+                //I don't know how this could happen : we are creating a style
+                //from a valid style. Should be valid too, consequently...
+                LOGGER.error(I18N.tr("The style you're trying to edit is not valid !"));
+            } catch (SQLException de) {
+                LOGGER.error(I18N.tr("An error occurred while processing the DataSource"));
+            } catch (UnsupportedOperationException uoe){
+                LOGGER_POPUP.info(I18N.tr("Cannot create the user interface for this style. \n"
+                        + "Please uses the advanced style editor."), uoe);
             }
         }
         
@@ -43,6 +43,7 @@ import org.orbisgis.tocapi.TocActionFactory;
 import org.orbisgis.view.toc.Toc;
 import javax.swing.*;
 import java.awt.event.ActionListener;
+import java.util.List;
 
 /**
  * @author Nicolas Fortin
@@ -94,7 +95,11 @@ public class EditLayerSourceAction extends LayerAction {
      */
     private boolean checkDataSource() {
         ILayer activeLayer = toc.getMapContext().getActiveLayer();
-        for(ILayer layer : toc.getSelectedLayers()) {
+        List<ILayer> selectedLayers = toc.getSelectedLayers();
+        // The data source of a layer read from a map context document may not be opened yet, it is opened in
+        // background and the action is available once the table reference is known
+        toc.openDataSources(selectedLayers, null);
+        for(ILayer layer : selectedLayers) {
                     if(layer.getTableReference()==null || layer.getTableReference().isEmpty() ||
                             ((enabledOnActiveLayer && !layer.equals(activeLayer))
                             || (enabledOnNotActiveLayer && layer.equals(activeLayer))
@@ -132,23 +132,44 @@ public class CanvasSE extends JPanel {
      */
     public BufferedImage getImage(){
         if(bi == null){
-            BufferedImage newBi = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
-            Graphics2D g2 = (Graphics2D) newBi.getGraphics();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            try {
-                g2.setBackground(new Color(255, 255, 255, 0));
-                g2.clearRect(0, 0, width, height);
-                ResultSet rs = getQuery();
-                s.draw(g2, rs, 0, false, mt, geom);
-            } catch (SQLException | ParameterException
-                   | IOException | IllegalArgumentException ie){
-                    LOGGER.error(ie.getMessage());
-            }
-            this.bi = newBi;
+            bi = drawImage(s, width, height, mt, geom, sample);
         }
         return bi;
     }
 
+    /**
+     * Draw the preview of a symbolizer without building the panel, this method can be called outside the swing
+     * thread.
+     * @param sym the symbolizer to draw, it must not be edited while drawing
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param sample the field values of the sample feature, may be null
+     * @return The preview of the symbolizer
+     */
+    public static BufferedImage drawImage(Symbolizer sym, int width, int height, Map<String, Object> sample) {
+        MapTransform transform = new MapTransform();
+        transform.setExtent(new Envelope(0, width, 0, height));
+        Geometry geometry = getSampleGeometry(sym, new GeometryFactory(), width, height);
+        return drawImage(sym, width, height, transform, geometry, sample);
+    }
+
+    private static BufferedImage drawImage(Symbolizer sym, int width, int height, MapTransform transform,
+                                           Geometry geometry, Map<String, Object> sample) {
+        BufferedImage newBi = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
+        Graphics2D g2 = (Graphics2D) newBi.getGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        try {
+            g2.setBackground(new Color(255, 255, 255, 0));
+            g2.clearRect(0, 0, width, height);
+            ResultSet rs = getQuery(geometry, sample);
+            sym.draw(g2, rs, 0, false, transform, geometry);
+        } catch (SQLException | ParameterException
+               | IOException | IllegalArgumentException ie){
+                LOGGER.error(ie.getMessage());
+        }
+        return newBi;
+    }
+
 	@Override
 	public void paintComponent(Graphics g) {
             g.drawImage(getImage(), 0, 0, null);
@@ -173,7 +194,7 @@ public class CanvasSE extends JPanel {
         /**
          * @return SQL query from sample map.
          */
-        private ResultSet getQuery() throws SQLException {
+        private static ResultSet getQuery(Geometry geometry, Map<String, Object> sample) throws SQLException {
             if(sample == null) {
                 sample = new HashMap<>();
             }
@@ -181,7 +202,7 @@ public class CanvasSE extends JPanel {
             String[] fieldsName = new String[sample.size() + 1];
             int fieldId = 1;
             fieldsName[0] = "THE_GEOM";
-            values[0] = getSampleGeometry();
+            values[0] = geometry;
             for(Map.Entry<String,Object> entry : sample.entrySet()) {
                 values[fieldId] = entry.getValue();
                 fieldsName[fieldId] = entry.getKey();
@@ -219,9 +240,9 @@ public class CanvasSE extends JPanel {
 		return s;
 	}
 
-	private LineString getComplexLine() {
-		int widthUnit = getWidth() / 8;
-		int heightUnit = getHeight() / 8;
+	private static LineString getComplexLine(GeometryFactory gf, int width, int height) {
+		int widthUnit = width / 8;
+		int heightUnit = height / 8;
 		return gf.createLineString(new Coordinate[] {
 				new Coordinate(widthUnit, 7 * heightUnit),
 				new Coordinate(3 * widthUnit, 4 * heightUnit),
@@ -229,9 +250,9 @@ public class CanvasSE extends JPanel {
 				new Coordinate(7 * widthUnit, heightUnit) });
 	}
 
-	private Geometry getComplexPolygon() {
-		int widthUnit = getWidth() / 8;
-		int heightUnit = getHeight() / 8;
+	private static Geometry getComplexPolygon(GeometryFactory gf, int width, int height) {
+		int widthUnit = width / 8;
+		int heightUnit = height / 8;
 		Coordinate[] coordsP = { new Coordinate(widthUnit, heightUnit),
 				new Coordinate(7 * widthUnit, heightUnit),
 				new Coordinate(widthUnit, 7 * heightUnit),
@@ -240,16 +261,20 @@ public class CanvasSE extends JPanel {
 	}
 
         private Geometry getSampleGeometry() {
+                return getSampleGeometry(s, gf, getWidth(), getHeight());
+        }
+
+        private static Geometry getSampleGeometry(Symbolizer s, GeometryFactory gf, int width, int height) {
                 if(s instanceof LineSymbolizer){
-                        return getComplexLine();
+                        return getComplexLine(gf, width, height);
                 } else if(s instanceof AreaSymbolizer){
-                        return getComplexPolygon();
+                        return getComplexPolygon(gf, width, height);
                 } else {
                         PointSymbolizer ps = (PointSymbolizer)s;
                         if(ps.isOnVertex()){
-                                return getComplexPolygon();
+                                return getComplexPolygon(gf, width, height);
                         } else {
-                                return gf.createPoint(new Coordinate(getWidth() / 2, getHeight() / 2));
+                                return gf.createPoint(new Coordinate(width / 2, height / 2));
                         }
                 }
         }
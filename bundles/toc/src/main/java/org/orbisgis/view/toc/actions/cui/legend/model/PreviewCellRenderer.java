@@ -41,17 +41,25 @@ import org.orbisgis.sif.components.renderers.TableLaFCellRenderer;
 import org.orbisgis.view.toc.actions.cui.components.CanvasSE;
 
 import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
 import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This renderer is used to draw previews of the symbols defined in unique value analysis. It draws a preview of the
  * symbol that will be associated to a particular value from the original data.
+ * Previews are kept in a {@link SymbolPreviewCache}, dropped when the table model changes and drawn in background;
+ * the previews of the visible rows and of the next page are requested ahead of painting.
  * @author alexis
  */
 public class PreviewCellRenderer extends TableLaFCellRenderer {
-    private final MappedLegend legend;
+    private final SymbolPreviewCache previewCache;
+    private int prefetchFirstRow = -1;
+    private int prefetchLastRow = -1;
 
     /**
      * Set listener to L&F events
@@ -61,25 +69,85 @@ public class PreviewCellRenderer extends TableLaFCellRenderer {
      * @param type  Default cell renderer for this columnClass
      */
     public PreviewCellRenderer(JTable table, Class<?> type, MappedLegend sym) {
+        this(table, type, new SymbolPreviewCache(sym, CanvasSE.WIDTH/2, CanvasSE.HEIGHT/2));
+    }
+
+    /**
+     * @param table Where the listener has to be installed
+     * @param type  Default cell renderer for this columnClass
+     * @param previewCache Preview cache of the legend
+     */
+    PreviewCellRenderer(final JTable table, Class<?> type, SymbolPreviewCache previewCache) {
         super(table, type);
-        legend = sym;
+        this.previewCache = previewCache;
+        table.getModel().addTableModelListener(new TableModelListener() {
+            @Override
+            public void tableChanged(TableModelEvent e) {
+                clearPreviews();
+            }
+        });
+        previewCache.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                table.repaint();
+            }
+        });
     }
 
+    /**
+     * @return The preview cache used by this renderer
+     */
+    public SymbolPreviewCache getPreviewCache() {
+        return previewCache;
+    }
+
+    /**
+     * Drop the cached previews, the legend has been edited.
+     */
+    public void clearPreviews() {
+        previewCache.invalidate();
+        prefetchFirstRow = -1;
+        prefetchLastRow = -1;
+    }
 
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
         JLabel lab = (JLabel)lookAndFeelRenderer.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         if(value instanceof String || value instanceof Double){
             lab.setText("");
-            CanvasSE cse = new CanvasSE(legend.getSymbolizer(),CanvasSE.WIDTH/2, CanvasSE.HEIGHT/2);
-            Map<String,Object> map = new HashMap<String,Object>();
-            map.put(legend.getLookupFieldName(), value);
-            cse.setSampleDatasource(map);
-            ImageIcon ii = new ImageIcon(cse.getImage());
-            lab.setIcon(ii);
+            prefetch(table, column);
+            lab.setIcon(previewCache.getPreview(value));
             lab.setOpaque(true);
             lab.setPreferredSize(new Dimension(CanvasSE.WIDTH/2, CanvasSE.HEIGHT/2));
         }
         return lab;
     }
+
+    /**
+     * Request the previews of the visible rows and of the following page, once per viewport position.
+     * @param table Table being painted
+     * @param column Preview column
+     */
+    private void prefetch(JTable table, int column) {
+        Rectangle visible = table.getVisibleRect();
+        int first = table.rowAtPoint(visible.getLocation());
+        if(first < 0) {
+            return;
+        }
+        int last = table.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+        if(last < 0) {
+            last = table.getRowCount() - 1;
+        }
+        last = Math.min(table.getRowCount() - 1, last + (last - first + 1));
+        if(first == prefetchFirstRow && last == prefetchLastRow) {
+            return;
+        }
+        prefetchFirstRow = first;
+        prefetchLastRow = last;
+        List<Object> values = new ArrayList<Object>(last - first + 1);
+        for(int row = first; row <= last; row++) {
+            values.add(table.getValueAt(row, column));
+        }
+        previewCache.prefetch(values);
+    }
 }
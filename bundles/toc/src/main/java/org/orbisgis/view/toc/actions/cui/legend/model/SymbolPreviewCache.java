@@ -0,0 +1,335 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.view.toc.actions.cui.legend.model;
+
+import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
+import org.orbisgis.coremap.renderer.se.Symbolizer;
+import org.orbisgis.legend.thematic.SymbolParameters;
+import org.orbisgis.legend.thematic.map.MappedLegend;
+import org.orbisgis.view.toc.actions.cui.components.CanvasSE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.ImageIcon;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keep the symbol previews of a {@link MappedLegend}, one image per lookup value. Missing previews are drawn by a
+ * background executor, the listeners are notified when a new preview is available. Previews are dropped when the
+ * symbolizer of the legend is replaced or when {@link #invalidate()} is called; a preview drawn while the legend was
+ * edited is discarded.
+ * A preview is kept with the symbol parameters of its value, a preview whose parameters no longer match the legend is
+ * drawn again. The background executor draws from a copy of the symbolizer taken when the drawing is scheduled, the
+ * methods of this class must be called from the thread that edits the legend.
+ * @author Nicolas Fortin
+ */
+public class SymbolPreviewCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SymbolPreviewCache.class);
+    /** Maximum number of cached previews */
+    public static final int DEFAULT_CAPACITY = 512;
+    private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+    private final MappedLegend<?, ?> legend;
+    private final int width;
+    private final int height;
+    private final Executor executor;
+    private final Map<Object, Preview> previews;
+    private final Map<Object, SymbolParameters> pending = new HashMap<Object, SymbolParameters>();
+    private final List<ChangeListener> listeners = new ArrayList<ChangeListener>();
+    private Symbolizer symbolizer;
+    private long version = 0;
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    /**
+     * Previews are drawn by a shared background thread.
+     * @param legend Legend to preview
+     * @param width Preview width in pixels
+     * @param height Preview height in pixels
+     */
+    public SymbolPreviewCache(MappedLegend<?, ?> legend, int width, int height) {
+        this(legend, width, height, DEFAULT_EXECUTOR, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param legend Legend to preview
+     * @param width Preview width in pixels
+     * @param height Preview height in pixels
+     * @param executor Executor that draws the previews
+     * @param capacity Maximum number of cached previews, least recently used previews are evicted first
+     */
+    public SymbolPreviewCache(MappedLegend<?, ?> legend, int width, int height, Executor executor,
+                              final int capacity) {
+        this.legend = legend;
+        this.width = width;
+        this.height = height;
+        this.executor = executor;
+        this.symbolizer = legend.getSymbolizer();
+        this.previews = new LinkedHashMap<Object, Preview>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Preview> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private static Executor createDefaultExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Symbol preview");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Listeners are called from the drawing thread when a preview has been added to the cache.
+     * @param listener Listener instance
+     */
+    public synchronized void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener Listener instance
+     */
+    public synchronized void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets the preview of the symbol associated with the lookup value. If the preview is not cached yet its drawing
+     * is scheduled and this method returns null.
+     * @param value Lookup value
+     * @return The preview or null if not available yet
+     */
+    public synchronized ImageIcon getPreview(Object value) {
+        checkSymbolizer();
+        SymbolParameters parameters = getParameters(value);
+        Preview preview = previews.get(value);
+        if (preview != null && preview.parameters.equals(parameters)) {
+            hitCount++;
+            return preview.icon;
+        } else {
+            missCount++;
+            if (!parameters.equals(pending.get(value))) {
+                Symbolizer snapshot = copySymbolizer();
+                if (snapshot != null) {
+                    schedule(value, parameters, snapshot);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Schedule the drawing of the previews that are not cached yet.
+     * @param values Lookup values
+     */
+    public synchronized void prefetch(Collection<?> values) {
+        checkSymbolizer();
+        Symbolizer snapshot = null;
+        for (Object value : values) {
+            SymbolParameters parameters = getParameters(value);
+            Preview preview = previews.get(value);
+            if ((preview == null || !preview.parameters.equals(parameters))
+                    && !parameters.equals(pending.get(value))) {
+                if (snapshot == null) {
+                    // One copy of the symbolizer for all the previews of this request
+                    snapshot = copySymbolizer();
+                    if (snapshot == null) {
+                        return;
+                    }
+                }
+                schedule(value, parameters, snapshot);
+            }
+        }
+    }
+
+    /**
+     * Drop all previews, this must be called when the legend has been edited.
+     */
+    public synchronized void invalidate() {
+        version++;
+        previews.clear();
+        pending.clear();
+    }
+
+    /**
+     * @return Number of {@link #getPreview(Object)} calls answered from the cache
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return Number of {@link #getPreview(Object)} calls that had to schedule a drawing
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return Number of cached previews
+     */
+    public synchronized int size() {
+        return previews.size();
+    }
+
+    private void checkSymbolizer() {
+        Symbolizer current = legend.getSymbolizer();
+        if (current != symbolizer) {
+            symbolizer = current;
+            invalidate();
+        }
+    }
+
+    /**
+     * @param value Lookup value
+     * @return The symbol parameters currently associated with the value
+     */
+    private SymbolParameters getParameters(Object value) {
+        SymbolParameters parameters = legend.get(value);
+        return parameters != null ? parameters : legend.getFallbackParameters();
+    }
+
+    /**
+     * @return A copy of the symbolizer of the legend that the drawing thread can use, null if it cannot be copied
+     */
+    private Symbolizer copySymbolizer() {
+        try {
+            return Symbolizer.createSymbolizerFromJAXBElement(symbolizer.getJAXBElement());
+        } catch (InvalidStyle ex) {
+            LOGGER.debug("Cannot copy the symbolizer of the legend", ex);
+            return null;
+        }
+    }
+
+    private void schedule(Object value, SymbolParameters parameters, Symbolizer snapshot) {
+        pending.put(value, parameters);
+        executor.execute(new DrawPreview(value, parameters, version, snapshot, legend.getLookupFieldName()));
+    }
+
+    private void onPreviewDrawn(Object value, SymbolParameters parameters, long drawVersion, ImageIcon icon) {
+        ChangeListener[] toNotify;
+        synchronized (this) {
+            if (drawVersion != version) {
+                return;
+            }
+            if (parameters.equals(pending.get(value))) {
+                pending.remove(value);
+            }
+            if (icon == null) {
+                return;
+            }
+            previews.put(value, new Preview(parameters, icon));
+            toNotify = listeners.toArray(new ChangeListener[listeners.size()]);
+        }
+        ChangeEvent event = new ChangeEvent(this);
+        for (ChangeListener listener : toNotify) {
+            listener.stateChanged(event);
+        }
+    }
+
+    /**
+     * Cached preview and the symbol parameters it has been drawn with.
+     */
+    private static class Preview {
+        private final SymbolParameters parameters;
+        private final ImageIcon icon;
+
+        private Preview(SymbolParameters parameters, ImageIcon icon) {
+            this.parameters = parameters;
+            this.icon = icon;
+        }
+    }
+
+    /**
+     * Draw the preview of a single lookup value.
+     */
+    private class DrawPreview implements Runnable {
+        private final Object value;
+        private final SymbolParameters parameters;
+        private final long drawVersion;
+        private final Symbolizer sym;
+        private final String lookupFieldName;
+
+        private DrawPreview(Object value, SymbolParameters parameters, long drawVersion, Symbolizer sym,
+                            String lookupFieldName) {
+            this.value = value;
+            this.parameters = parameters;
+            this.drawVersion = drawVersion;
+            this.sym = sym;
+            this.lookupFieldName = lookupFieldName;
+        }
+
+        @Override
+        public void run() {
+            synchronized (SymbolPreviewCache.this) {
+                if (drawVersion != version) {
+                    // The legend has been edited since
+                    return;
+                }
+            }
+            ImageIcon icon = null;
+            try {
+                Map<String, Object> map = new HashMap<String, Object>();
+                map.put(lookupFieldName, value);
+                icon = new ImageIcon(CanvasSE.drawImage(sym, width, height, map));
+            } catch (RuntimeException ex) {
+                LOGGER.debug("Cannot draw the symbol preview of " + value, ex);
+            }
+            onPreviewDrawn(value, parameters, drawVersion, icon);
+        }
+    }
+}
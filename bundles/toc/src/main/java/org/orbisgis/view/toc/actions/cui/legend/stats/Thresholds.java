@@ -50,6 +50,9 @@ import java.util.TreeSet;
 public class Thresholds {
     private DescriptiveStatistics stats;
     private String fieldName;
+    private double min;
+    private double max;
+    private double mean;
 
     /**
      * Builds a new {@code Thresholds} instance using the given {@code DescriptiveStatistics} and {@code String} instance.
@@ -57,7 +60,23 @@ public class Thresholds {
      * @param name The name of the field we took the data from.
      */
     public Thresholds(DescriptiveStatistics input, String name){
-        this.stats = input;
+        this(input, input.getMin(), input.getMax(), input.getMean(), name);
+    }
+
+    /**
+     * Builds a new {@code Thresholds} instance from a sample of the field values. The extrema and the mean of the
+     * whole field are used instead of the ones of the sample.
+     * @param sample The statistics of a sample of the values.
+     * @param min The minimum value of the field.
+     * @param max The maximum value of the field.
+     * @param mean The mean value of the field.
+     * @param name The name of the field we took the data from.
+     */
+    public Thresholds(DescriptiveStatistics sample, double min, double max, double mean, String name){
+        this.stats = sample;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
         this.fieldName = name;
     }
 
@@ -84,8 +103,6 @@ public class Thresholds {
      * @return The thresholds in a SortedSet.
      */
     public SortedSet<Double> getEqualIntervals(int classNumber){
-        Double min = stats.getMin();
-        Double max = stats.getMax();
         TreeSet<Double> ret = new TreeSet<Double>();
         if(min < Double.POSITIVE_INFINITY && max > Double.NEGATIVE_INFINITY){
             Double step = (max - min) / classNumber;
@@ -120,7 +137,6 @@ public class Thresholds {
     public SortedSet<Double> getQuantiles(int classNumber){
         Double step = 100/((double)classNumber);
         TreeSet<Double> ret = new TreeSet<Double>();
-        Double min = stats.getMin();
         ret.add(min);
         for(int i=1; i<classNumber; i++){
             double p = i*step;
@@ -137,9 +153,9 @@ public class Thresholds {
      */
     public SortedSet<Double> getBoxedMeans(int classNumber){
         SortedSet<Double> ret = new TreeSet<Double>();
-        ret.add(stats.getMin());
+        ret.add(min);
         int levels = classNumber == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(classNumber) -1;
-        computeBoxedMeans(stats, ret, levels-1);
+        computeBoxedMeans(stats.getSortedValues(), mean, ret, levels-1);
         return ret;
     }
 
@@ -147,21 +163,20 @@ public class Thresholds {
      * This method :
      * - Feeds the given SortedSet with the mean of the given statistics.
      * - Calls itself recursively on the two subset obtained by dividing the set around its mean, if lev > 0.
-     * @param inpStat The input statistics
+     * @param input The sorted input values
+     * @param inputMean The mean of the input values
      * @param toFeed The SortedSet we want to feed
      * @param lev The remaining number of levels we have to process.
      */
-    private void computeBoxedMeans(DescriptiveStatistics inpStat, SortedSet<Double> toFeed, int lev){
-        double[] input = inpStat.getSortedValues();
-        double mean = inpStat.getMean();
-        toFeed.add(mean);
+    private void computeBoxedMeans(double[] input, double inputMean, SortedSet<Double> toFeed, int lev){
+        toFeed.add(inputMean);
         if(lev > 0){
-            int i = Arrays.binarySearch(input, mean);
+            int i = Arrays.binarySearch(input, inputMean);
             int ind = i < 0 ? -i-1 : i;
             double[] first = Arrays.copyOf(input, ind);
             double[] tail = Arrays.copyOfRange(input, ind, input.length);
-            computeBoxedMeans(new DescriptiveStatistics(first), toFeed, lev-1);
-            computeBoxedMeans(new DescriptiveStatistics(tail), toFeed, lev-1);
+            computeBoxedMeans(first, new DescriptiveStatistics(first).getMean(), toFeed, lev-1);
+            computeBoxedMeans(tail, new DescriptiveStatistics(tail).getMean(), toFeed, lev-1);
         }
     }
 
@@ -171,7 +186,6 @@ public class Thresholds {
      * @return The thresholds
      */
     private SortedSet<Double> getMeanStandardDevOdd(int classNumber) {
-        Double mean = stats.getMean();
         Double stDev = stats.getStandardDeviation();
         SortedSet<Double> ret = new TreeSet<Double>();
         ret.add(Double.NEGATIVE_INFINITY);
@@ -191,7 +205,6 @@ public class Thresholds {
      * @return The thresholds
      */
     private SortedSet<Double> getMeanStandardDevEven(int classNumber) {
-        Double mean = stats.getMean();
         Double stDev = stats.getStandardDeviation();
         SortedSet<Double> ret = new TreeSet<Double>();
         ret.add(Double.NEGATIVE_INFINITY);
@@ -40,8 +40,9 @@ import net.miginfocom.swing.MigLayout;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.h2gis.utilities.TableLocation;
 import org.orbisgis.corejdbc.MetaData;
+import org.orbisgis.coremap.renderer.classification.ClassificationUtils;
+import org.orbisgis.coremap.renderer.classification.QuantileSketch;
 import org.orbisgis.coremap.renderer.se.parameter.Categorize;
 import org.orbisgis.legend.thematic.LineParameters;
 import org.orbisgis.legend.thematic.categorize.AbstractCategorizedLegend;
@@ -63,9 +64,7 @@ import javax.swing.*;
 import java.awt.event.ActionListener;
 import java.beans.EventHandler;
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.SortedSet;
@@ -124,11 +123,15 @@ public abstract class PnlAbstractCategorized<U extends LineParameters> extends P
 
     private Thresholds computeStats(String fieldName){
         DescriptiveStatistics stats = new DescriptiveStatistics();
-        try(Connection connection = getDataSource().getConnection();
-            Statement st = connection.createStatement();
-            ResultSet rs = st.executeQuery("select "+ TableLocation.quoteIdentifier(fieldName)+ " from "+getTable()+ " where "+ TableLocation.quoteIdentifier(fieldName) + " is not null" )) {
-            while(rs.next()) {
-                stats.addValue(rs.getDouble(1));
+        // The quantiles are computed on a bounded sample of the values, the extrema and the mean are exact
+        try(Connection connection = getDataSource().getConnection()) {
+            QuantileSketch sketch = ClassificationUtils.getQuantileSketch(connection, getTable(), fieldName,
+                    QuantileSketch.DEFAULT_CAPACITY);
+            for(double value : sketch.getSortedSample()) {
+                stats.addValue(value);
+            }
+            if(sketch.getCount() > 0) {
+                return new Thresholds(stats, sketch.getMin(), sketch.getMax(), sketch.getMean(), fieldName);
             }
         } catch (SQLException e) {
             LOGGER.warn(I18N.tr("The application has ended unexpectedly"),e);
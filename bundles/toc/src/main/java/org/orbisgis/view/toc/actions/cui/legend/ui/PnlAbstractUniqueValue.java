@@ -40,9 +40,9 @@ import net.miginfocom.swing.MigLayout;
 import org.orbisgis.commons.progress.SwingWorkerPM;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.h2gis.utilities.TableLocation;
 import org.orbisgis.corejdbc.MetaData;
-import org.orbisgis.corejdbc.ReadTable;
+import org.orbisgis.coremap.renderer.classification.TopKCounter;
+import org.orbisgis.coremap.renderer.classification.UniqueValueDiscovery;
 import org.orbisgis.legend.thematic.LineParameters;
 import org.orbisgis.legend.thematic.map.MappedLegend;
 import org.orbisgis.legend.thematic.recode.AbstractRecodedLegend;
@@ -63,15 +63,11 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.beans.EventHandler;
-import java.beans.PropertyChangeListener;
 import java.net.URL;
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.TreeSet;
 
 /**
@@ -95,6 +91,8 @@ public abstract class PnlAbstractUniqueValue<U extends LineParameters> extends P
     private JPanel classifPanel;
 
     private static final String COMPUTED = "Computed";
+    /** Number of values from which the user is asked to confirm the classification */
+    private static final int WARN_THRESHOLD = 100;
     protected final static String JOB_NAME = "recodeSelectDistinct";
 
     /**
@@ -238,8 +236,9 @@ public abstract class PnlAbstractUniqueValue<U extends LineParameters> extends P
     }
 
     /**
-     * Called to build a classification from the given data source and field. Makes a SELECT DISTINCT field FROM tableIdentifier;
-     * and feeds the legend that has been cleared prior to that.
+     * Called to build a classification from the given data source and field. Discovers the distinct values of the
+     * field, or its most frequent values if there are too many, and feeds the legend that has been cleared prior to
+     * that.
      */
     public void onCreateClassification(ActionEvent e){
         if(e.getActionCommand().equals("click")){
@@ -297,48 +296,48 @@ public abstract class PnlAbstractUniqueValue<U extends LineParameters> extends P
         }
 
         /**
-         * Gathers all the distinct values of the input DataSource in a {@link HashSet}.
+         * Gathers the distinct values of the input DataSource in a {@link TreeSet}. If the field has too many
+         * distinct values, only the most frequent ones are returned.
          * @param progress Used to be able to cancel the job.
-         * @return The distinct values as String instances in a {@link HashSet} or null if the job has been cancelled.
+         * @return The distinct values as String instances in a {@link TreeSet} or null if the job has been cancelled.
          */
-        public TreeSet<String> getValues(ProgressMonitor progress){
+        public TreeSet<String> getValues(final ProgressMonitor progress){
             Comparator<String> comparator = pnlAbstractUniqueValue.getComparator();
             TreeSet<String> ret = comparator != null ? new TreeSet<>(comparator) : new TreeSet<String>();
-            try(Connection connection = pnlAbstractUniqueValue.getDataSource().getConnection();
-                Statement st = connection.createStatement()) {
-                PropertyChangeListener cancelPm = EventHandler.create(PropertyChangeListener.class, st, "cancel");
-                progress.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL, cancelPm);
-                try(ResultSet rs = st.executeQuery("SELECT DISTINCT "+ TableLocation.quoteIdentifier(fieldName)+" FROM "+ pnlAbstractUniqueValue.getTable()
-                + " WHERE "+ TableLocation.quoteIdentifier(fieldName) + " IS NOT NULL")) {
-                    final ProgressMonitor pm = progress.startTask(I18N.tr("Retrieving classes"),
-                            ReadTable.getRowCount(connection, pnlAbstractUniqueValue.getTable()));
-                    final int warn = 100;
-                    int size = 0;
-                    while(rs.next()) {
-                        ret.add(rs.getString(1));
-                        size++;
-                        if(size == warn){
-                            final UIPanel cancel = new CancelPanel(warn);
-                            try{
-                                SwingUtilities.invokeAndWait(new Runnable() {
-                                    @Override
-                                    public void run() {
-                                        if(!UIFactory.showDialog(cancel,true, true)){
-                                            pm.setCancelled(true);
-                                        }
+            try(Connection connection = pnlAbstractUniqueValue.getDataSource().getConnection()) {
+                final UniqueValueDiscovery discovery = new UniqueValueDiscovery();
+                // Ask the user as soon as the threshold is reached, not after reading the whole table
+                discovery.setCardinalityWarning(WARN_THRESHOLD, new UniqueValueDiscovery.CardinalityWarning() {
+                    @Override
+                    public boolean continueScan(long distinctCount) {
+                        final UIPanel cancel = new CancelPanel(distinctCount, discovery.getValueLimit(),
+                                discovery.getTopK());
+                        try{
+                            SwingUtilities.invokeAndWait(new Runnable() {
+                                @Override
+                                public void run() {
+                                    if(!UIFactory.showDialog(cancel,true, true)){
+                                        progress.setCancelled(true);
                                     }
-                                });
-                            } catch (Exception ie){
-                                LOGGER.warn(I18N.tr("The application has ended unexpectedly"));
-                            }
-                        }
-                        pm.endTask();
-                        if(pm.isCancelled()) {
-                            return null;
+                                }
+                            });
+                        } catch (Exception ie){
+                            LOGGER.warn(I18N.tr("The application has ended unexpectedly"));
                         }
+                        return !progress.isCancelled();
+                    }
+                });
+                UniqueValueDiscovery.Result values = discovery.discover(connection,
+                        pnlAbstractUniqueValue.getTable(), fieldName, progress);
+                if(values == null) {
+                    return null;
+                }
+                if(values.isCapped()) {
+                    for(TopKCounter.ValueCount value : values.getTopValues()) {
+                        ret.add(value.getValue());
                     }
-                } finally {
-                    progress.removePropertyChangeListener(cancelPm);
+                } else {
+                    ret.addAll(values.getDistinctValues());
                 }
             } catch (SQLException e) {
                 LOGGER.error("IO error while handling the input data source",e);
@@ -361,15 +360,21 @@ public abstract class PnlAbstractUniqueValue<U extends LineParameters> extends P
      */
     private static class CancelPanel implements UIPanel {
 
-        private int threshold;
+        private long cardinality;
+        private int valueLimit;
+        private int kept;
 
         /**
          * Builds a new CancelPanel
-         * @param thres The expected limit, displayed in the inner JLabel.
+         * @param cardinality The number of values already found, displayed in the inner JLabel.
+         * @param valueLimit Over this number of values, only the most frequent values are kept.
+         * @param kept The number of values kept in the classification if there is more values than the limit.
          */
-        public CancelPanel(int thres){
+        public CancelPanel(long cardinality, int valueLimit, int kept){
             super();
-            threshold = thres;
+            this.cardinality = cardinality;
+            this.valueLimit = valueLimit;
+            this.kept = kept;
         }
 
         @Override
@@ -391,8 +396,15 @@ public abstract class PnlAbstractUniqueValue<U extends LineParameters> extends P
         public Component getComponent() {
             JPanel pan = new JPanel();
             JLabel lab = new JLabel();
-            lab.setText(I18N.tr("<html><p>The analysis seems to generate more than ") + threshold +
-                    I18N.tr(" different values...</p><p>Are you sure you want to continue ?</p></html>"));
+            StringBuilder text = new StringBuilder("<html><p>");
+            text.append(I18N.tr("The analysis has already found {0} different values...", cardinality));
+            text.append("</p><p>");
+            text.append(I18N.tr("Over {0} values, only the {1} most frequent values will be classified.",
+                    valueLimit, kept));
+            text.append("</p><p>");
+            text.append(I18N.tr("Are you sure you want to continue ?"));
+            text.append("</p></html>");
+            lab.setText(text.toString());
             pan.add(lab);
             return pan;
         }
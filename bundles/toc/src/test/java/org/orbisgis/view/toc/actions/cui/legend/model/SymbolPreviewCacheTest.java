@@ -0,0 +1,237 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.view.toc.actions.cui.legend.model;
+
+import org.junit.Test;
+import org.orbisgis.legend.thematic.AreaParameters;
+import org.orbisgis.legend.thematic.recode.RecodedArea;
+
+import javax.swing.ImageIcon;
+import javax.swing.JTable;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test of the symbol preview cache of the legend tables
+ * @author Nicolas Fortin
+ */
+public class SymbolPreviewCacheTest {
+    private static final int WIDTH = 63;
+    private static final int HEIGHT = 35;
+
+    private static RecodedArea createLegend(int keyCount) {
+        RecodedArea legend = new RecodedArea();
+        legend.setLookupFieldName("TYPE");
+        for(int i = 0; i < keyCount; i++) {
+            legend.put(String.format("%04d", i), getParameters(Color.RED));
+        }
+        return legend;
+    }
+
+    private static AreaParameters getParameters(Color fill) {
+        return new AreaParameters(Color.BLACK, 1.0, 0.25, "", fill, 1.0);
+    }
+
+    private static int countPixels(ImageIcon icon, Color color) {
+        BufferedImage image = (BufferedImage) icon.getImage();
+        int count = 0;
+        for(int x = 0; x < image.getWidth(); x++) {
+            for(int y = 0; y < image.getHeight(); y++) {
+                if(image.getRGB(x, y) == color.getRGB()) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testInvalidation() {
+        RecodedArea legend = createLegend(3);
+        CountingExecutor executor = new CountingExecutor();
+        SymbolPreviewCache cache = new SymbolPreviewCache(legend, WIDTH, HEIGHT, executor, 16);
+        // First call draw the preview in background
+        assertNull(cache.getPreview("0001"));
+        ImageIcon red = cache.getPreview("0001");
+        assertNotNull(red);
+        assertTrue(countPixels(red, Color.RED) > 0);
+        assertSame(red, cache.getPreview("0001"));
+        assertEquals(1, executor.count);
+        // Edit the symbol
+        legend.put("0001", getParameters(Color.GREEN));
+        cache.invalidate();
+        assertEquals(0, cache.size());
+        assertNull(cache.getPreview("0001"));
+        ImageIcon green = cache.getPreview("0001");
+        assertNotNull(green);
+        assertEquals(0, countPixels(green, Color.RED));
+        assertTrue(countPixels(green, Color.GREEN) > 0);
+        assertEquals(2, executor.count);
+    }
+
+    @Test
+    public void testStalePreviewDiscarded() {
+        RecodedArea legend = createLegend(3);
+        QueueExecutor executor = new QueueExecutor();
+        SymbolPreviewCache cache = new SymbolPreviewCache(legend, WIDTH, HEIGHT, executor, 16);
+        assertNull(cache.getPreview("0001"));
+        // Requested twice, drawn once
+        assertNull(cache.getPreview("0001"));
+        assertEquals(1, executor.tasks.size());
+        // The legend is edited while the preview is waiting to be drawn
+        legend.put("0001", getParameters(Color.GREEN));
+        cache.invalidate();
+        executor.runAll();
+        assertEquals(0, cache.size());
+        assertNull(cache.getPreview("0001"));
+        executor.runAll();
+        ImageIcon green = cache.getPreview("0001");
+        assertNotNull(green);
+        assertEquals(0, countPixels(green, Color.RED));
+    }
+
+    @Test
+    public void testEditWithoutInvalidation() {
+        RecodedArea legend = createLegend(3);
+        QueueExecutor executor = new QueueExecutor();
+        SymbolPreviewCache cache = new SymbolPreviewCache(legend, WIDTH, HEIGHT, executor, 16);
+        assertNull(cache.getPreview("0001"));
+        // The legend is edited while the preview is waiting to be drawn, without any table event
+        legend.put("0001", getParameters(Color.GREEN));
+        executor.runAll();
+        // The preview has been drawn from the symbol of the scheduling time, it is not returned
+        assertEquals(1, cache.size());
+        assertNull(cache.getPreview("0001"));
+        executor.runAll();
+        ImageIcon green = cache.getPreview("0001");
+        assertNotNull(green);
+        assertEquals(0, countPixels(green, Color.RED));
+        assertTrue(countPixels(green, Color.GREEN) > 0);
+        // Editing another value does not redraw this one
+        legend.put("0002", getParameters(Color.BLUE));
+        assertSame(green, cache.getPreview("0001"));
+        assertTrue(executor.tasks.isEmpty());
+    }
+
+    @Test
+    public void testHitRateWhileScrolling() {
+        final int keyCount = 1000;
+        final int visibleRows = 20;
+        RecodedArea legend = createLegend(keyCount);
+        List<String> keys = new ArrayList<String>(legend.keySet());
+        CountingExecutor executor = new CountingExecutor();
+        SymbolPreviewCache cache = new SymbolPreviewCache(legend, WIDTH, HEIGHT, executor,
+                SymbolPreviewCache.DEFAULT_CAPACITY);
+        int paintedCells = 0;
+        // Scroll down two rows at a time, every visible row is painted at each step
+        for(int first = 0; first + visibleRows <= keyCount; first += 2) {
+            // Visible page and the next one are requested before painting
+            cache.prefetch(keys.subList(first, Math.min(keyCount, first + 2 * visibleRows)));
+            for(int row = first; row < first + visibleRows; row++) {
+                assertNotNull(cache.getPreview(keys.get(row)));
+                paintedCells++;
+            }
+        }
+        assertEquals(paintedCells, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+        // Each symbol is drawn only once
+        assertEquals(keyCount, executor.count);
+        assertEquals(SymbolPreviewCache.DEFAULT_CAPACITY, cache.size());
+    }
+
+    @Test
+    public void testRendererClearOnTableChange() {
+        RecodedArea legend = createLegend(100);
+        TableModelRecodedArea model = new TableModelRecodedArea(legend);
+        JTable table = new JTable(model);
+        table.setSize(WIDTH, table.getRowHeight() * 10);
+        CountingExecutor executor = new CountingExecutor();
+        SymbolPreviewCache cache = new SymbolPreviewCache(legend, WIDTH, HEIGHT, executor, 64);
+        PreviewCellRenderer renderer = new PreviewCellRenderer(table, String.class, cache);
+        renderer.getTableCellRendererComponent(table, table.getValueAt(0, TableModelUniqueValue.PREVIEW_COLUMN), false, false, 0,
+                TableModelUniqueValue.PREVIEW_COLUMN);
+        // The ten visible rows and the next page are drawn
+        assertEquals(20, cache.size());
+        // Painting the other visible rows does not draw anything
+        for(int row = 1; row < 10; row++) {
+            renderer.getTableCellRendererComponent(table, table.getValueAt(row, TableModelUniqueValue.PREVIEW_COLUMN), false, false,
+                    row, TableModelUniqueValue.PREVIEW_COLUMN);
+        }
+        assertEquals(20, executor.count);
+        assertEquals(10, cache.getHitCount());
+        model.fireTableDataChanged();
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Run the tasks immediately and count them
+     */
+    private static class CountingExecutor implements Executor {
+        private int count = 0;
+
+        @Override
+        public void execute(Runnable command) {
+            count++;
+            command.run();
+        }
+    }
+
+    /**
+     * Keep the tasks until {@link #runAll()} is called
+     */
+    private static class QueueExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        public void runAll() {
+            while(!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+}
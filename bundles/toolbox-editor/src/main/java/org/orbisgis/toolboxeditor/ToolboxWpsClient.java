@@ -139,7 +139,8 @@ public interface ToolboxWpsClient extends WpsClient {
     List<Map<JdbcProperties, Object>> getColumnInformation(String tableName);
 
     /**
-     * Returns the list of distinct values contained by a column from a table from the database
+     * Returns the list of distinct values contained by a column from a table from the database. The list is limited to
+     * the first values in ascending order.
      *
      * @param tableName Name of the table containing the column.
      * @param columnName Name of the column containing the values.
@@ -148,6 +149,18 @@ public interface ToolboxWpsClient extends WpsClient {
      */
     List<String> getValueList(String tableName, String columnName);
 
+    /**
+     * Returns a page of the distinct values contained by a column from a table from the database, in ascending order.
+     *
+     * @param tableName Name of the table containing the column.
+     * @param columnName Name of the column containing the values.
+     * @param offset Number of values to skip.
+     * @param limit Maximum number of values to return.
+     *
+     * @return The page of distinct values of the column.
+     */
+    List<String> getValueList(String tableName, String columnName, int offset, int limit);
+
     /**
      * Returns the list of the available SRID.
      *
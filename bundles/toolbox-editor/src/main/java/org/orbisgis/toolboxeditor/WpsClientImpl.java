@@ -43,12 +43,14 @@ import net.opengis.ows._2.GetCapabilitiesType.AcceptLanguages;
 import net.opengis.ows._2.MetadataType;
 import net.opengis.wps._2_0.*;
 import net.opengis.wps._2_0.ObjectFactory;
+import org.h2gis.utilities.GeometryTypeCodes;
 import org.h2gis.utilities.JDBCUtilities;
-import org.h2gis.utilities.SFSUtilities;
 import org.h2gis.utilities.TableLocation;
+import org.orbisgis.corejdbc.CatalogMetadata;
+import org.orbisgis.corejdbc.CatalogMetadataListener;
+import org.orbisgis.corejdbc.ColumnMetadata;
 import org.orbisgis.corejdbc.DataManager;
-import org.orbisgis.corejdbc.DatabaseProgressionListener;
-import org.orbisgis.corejdbc.StateEvent;
+import org.orbisgis.corejdbc.TableMetadata;
 import org.orbisgis.frameworkapi.CoreWorkspace;
 import org.orbisgis.sif.UIFactory;
 import org.orbisgis.sif.components.OpenFilePanel;
@@ -67,7 +69,9 @@ import org.orbisgis.toolboxeditor.editor.log.LogEditor;
 import org.orbisgis.toolboxeditor.editor.process.ProcessEditableElement;
 import org.orbisgis.toolboxeditor.editor.process.ProcessEditor;
 import org.orbisgis.toolboxeditor.utils.Job;
+import org.orbisgis.toolboxeditor.utils.ProcessJobScheduler;
 import org.orbisgis.toolboxeditor.utils.ToolBoxIcon;
+import org.orbisgis.toolboxeditor.utils.WpsMetadataCache;
 import org.orbiswps.client.api.WpsClient;
 import org.orbiswps.client.api.utils.ProcessExecutionType;
 import org.orbiswps.client.api.utils.WpsJobStateListener;
@@ -98,6 +102,7 @@ import java.io.*;
 import java.net.URI;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -114,10 +119,11 @@ import static org.orbisgis.toolboxeditor.utils.Job.*;
 
 @Component(immediate = true, service = {DockingPanel.class, ToolboxWpsClient.class, WpsClient.class})
 public class WpsClientImpl
-        implements DockingPanel, ToolboxWpsClient, PropertyChangeListener, WpsServerListener, DatabaseProgressionListener {
+        implements DockingPanel, ToolboxWpsClient, PropertyChangeListener, WpsServerListener, CatalogMetadataListener {
 
     private static final String TOOLBOX_PROPERTIES = "toolbox.properties";
     private static final String PROPERTY_SOURCES = "PROPERTY_SOURCES";
+    private static final String PROPERTY_MAX_PROCESS = "PROPERTY_MAX_PROCESS";
     /** String of the action Refresh. */
     private static final String ACTION_REFRESH = "ACTION_REFRESH";
     /** Client Local (language). */
@@ -127,7 +133,8 @@ public class WpsClientImpl
     /** I18N object */
     private static final I18n I18N = I18nFactory.getI18n(WpsClientImpl.class);
     /**Array of the table type accepted. */
-    private static final String[] SHOWN_TABLE_TYPES = new String[]{"TABLE","LINKED TABLE","VIEW","EXTERNAL"};
+    /** Table types available in the process inputs, the catalog cache also contains the system tables */
+    private static final List<String> SHOWN_TABLE_TYPES = Arrays.asList("TABLE","LINKED TABLE","VIEW","EXTERNAL");
     /** Logger */
     private static final Logger LOGGER = LoggerFactory.getLogger(WpsClientImpl.class);
 
@@ -151,6 +158,8 @@ public class WpsClientImpl
     private ExecutorService executorService;
     /** OrbisGIS DataManager. */
     private DataManager dataManager;
+    /** Cached database catalog, shared with the other OrbisGIS components. */
+    private CatalogMetadata catalogMetadata;
     /** OrbisGIS WpsServer. */
     private WpsServer wpsServer;
     /** OrbisGIS CoreWorkspace. */
@@ -174,6 +183,18 @@ public class WpsClientImpl
     private AtomicBoolean awaitingRefresh=new AtomicBoolean(false);
     private Map<String, String> processUriPath = new HashMap<>();
     private Map<URI, Map<ProcessMetadata.INTERNAL_METADATA, Object>> processMetadataMap = new HashMap<>();
+    /** Process descriptions used to build the execute requests. */
+    private Map<URI, ProcessDescriptionType> processDescriptionCache = new ConcurrentHashMap<>();
+    /** Cached geometry types, value lists and SRID list of the database. */
+    private WpsMetadataCache metadataCache;
+    /** Runs the processes of the WPS server with a limit of processes running at once on the database. */
+    private ProcessJobScheduler jobScheduler;
+    /** Identifier of the database in the job scheduler. */
+    private String databaseId = "";
+    /** True if the database allows more than one process at the same time. */
+    private boolean isMultiProcess = false;
+    /** Maximum number of processes running at once, if the database allows it. */
+    private int maxProcess = Runtime.getRuntime().availableProcessors();
 
 
 
@@ -185,9 +206,17 @@ public class WpsClientImpl
 
     @Activate
     public void activate(){
+        isMultiProcess = testDBForMultiProcess();
         if(wpsServer != null){
             wpsServer.setDataSource(dataManager.getDataSource());
-            wpsServer.setExecutorService(executorService);
+            if(executorService != null) {
+                //The server processes are queued by the scheduler
+                jobScheduler = new ProcessJobScheduler(executorService);
+                wpsServer.setExecutorService(jobScheduler.getExecutorService(databaseId));
+            }
+            else {
+                wpsServer.setExecutorService(executorService);
+            }
         }
         toolBoxPanel = new ToolBoxPanel(this);
         dataUIManager = new DataUIManager(this);
@@ -221,15 +250,15 @@ public class WpsClientImpl
 
 
         if(dataManager != null) {
+            metadataCache = new WpsMetadataCache(dataManager, isH2, catalogMetadata.getDefaultSchema());
             //Install database listeners
-            dataManager.addDatabaseProgressionListener(this, StateEvent.DB_STATES.STATE_STATEMENT_END);
-            //Call readDatabase when a SourceManager fire an event
-            onDataManagerChange();
+            catalogMetadata.addCatalogMetadataListener(this);
+            //Call readDatabase when the catalog fire an event
+            reloadTableList();
         }
         else{
             LOGGER.warn(I18N.tr("Warning, no DataManager found."));
         }
-        testDBForMultiProcess();
         if(workspace != null) {
             Properties tbProperties = new Properties();
             //Load the property file
@@ -252,10 +281,19 @@ public class WpsClientImpl
                     addLocalSource(f.toURI(), null, true, new File(f.getParent()).getName());
                 }
             }
+            String maxProcessProp = tbProperties.getProperty(PROPERTY_MAX_PROCESS);
+            if(maxProcessProp != null && !maxProcessProp.isEmpty()){
+                try {
+                    maxProcess = Integer.parseInt(maxProcessProp);
+                } catch (NumberFormatException e) {
+                    LOGGER.warn(I18N.tr("Invalid maximum number of running processes : {0}.", maxProcessProp));
+                }
+            }
         }
         else{
             LOGGER.warn("Warning, no CoreWorkspace found. Unable to load the previous state.");
         }
+        setMaxProcess(maxProcess);
 
         refreshAvailableScripts();
     }
@@ -268,6 +306,9 @@ public class WpsClientImpl
         }
         openEditorList = new ArrayList<>();
         toolBoxPanel.dispose();
+        if(metadataCache != null) {
+            metadataCache.clear();
+        }
         //Try to save the local files loaded.
         try {
             Properties tbProperties = new Properties();
@@ -280,6 +321,7 @@ public class WpsClientImpl
             }
             //Save the open process source path
             tbProperties.setProperty(PROPERTY_SOURCES, path);
+            tbProperties.setProperty(PROPERTY_MAX_PROCESS, Integer.toString(maxProcess));
             tbProperties.store(
                     new FileOutputStream(workspace.getWorkspaceFolder() + File.separator + TOOLBOX_PROPERTIES),
                     I18N.tr("Save of the OrbisGIS toolBox"));
@@ -309,6 +351,15 @@ public class WpsClientImpl
         return dataManager;
     }
 
+    @Reference
+    public void setCatalogMetadata(CatalogMetadata catalogMetadata) {
+        this.catalogMetadata = catalogMetadata;
+    }
+    public void unsetCatalogMetadata(CatalogMetadata catalogMetadata) {
+        catalogMetadata.removeCatalogMetadataListener(this);
+        this.catalogMetadata = null;
+    }
+
     @Reference
     public void setExecutorService(ExecutorService executorService) {
         this.executorService = executorService;
@@ -320,6 +371,34 @@ public class WpsClientImpl
         return executorService;
     }
 
+    /**
+     * Returns the scheduler running the processes of the WPS server.
+     * @return The job scheduler, null if there is no ExecutorService.
+     */
+    public ProcessJobScheduler getJobScheduler(){
+        return jobScheduler;
+    }
+
+    /**
+     * Sets the maximum number of processes running at once. If the database does not allow more than one process at
+     * the same time, the processes are run one after the other.
+     * @param maxProcess Maximum number of processes running at once.
+     */
+    public void setMaxProcess(int maxProcess){
+        this.maxProcess = Math.max(1, maxProcess);
+        if(jobScheduler != null) {
+            jobScheduler.setConcurrencyLimit(databaseId, isMultiProcess ? this.maxProcess : 1);
+        }
+    }
+
+    /**
+     * Returns the maximum number of processes running at once.
+     * @return The maximum number of processes running at once.
+     */
+    public int getMaxProcess(){
+        return maxProcess;
+    }
+
     @Reference
     public void setDockingManager(DockingManager dockingManager) {
         this.dockingManager = dockingManager;
@@ -621,7 +700,7 @@ public class WpsClientImpl
      * Open the UI of the process selected in the ToolBoxPanel.
      */
     public void openProcess(){
-        this.onDataManagerChange();
+        this.reloadTableList();
         openProcess(toolBoxPanel.getSelectedNode().getIdentifier(),
                 new HashMap<URI, Object>(), ProcessExecutionType.STANDARD);
     }
@@ -682,6 +761,7 @@ public class WpsClientImpl
      */
     public void removeProcess(URI processIdentifier){
         processUriPath.remove(processIdentifier.toString());
+        processDescriptionCache.remove(processIdentifier);
         wpsServer.removeProcess(processIdentifier);
     }
 
@@ -796,6 +876,7 @@ public class WpsClientImpl
     @Override
     public void refreshAvailableScripts(){
         isRefreshScheduled = false;
+        processDescriptionCache.clear();
         //Removes all the processes from the UI of the toolbox
         toolBoxPanel.cleanAll();
         //Adds all the available processes
@@ -818,8 +899,8 @@ public class WpsClientImpl
                     isValid = true;
                 }
                 else if(map.containsKey(JdbcProperties.COLUMN_TYPE)) {
-                    try (Connection connection = dataManager.getDataSource().getConnection()) {
-                        Map<String, Integer> types = SFSUtilities.getGeometryTypes(connection, tablelocation);
+                    try {
+                        Map<String, Integer> types = metadataCache.getGeometryTypes(map.get(JdbcProperties.TABLE_LOCATION));
                         for (Map.Entry<String, Integer> entry : types.entrySet()) {
                             if(dataTypes != null) {
                                 for (DataType dataType : dataTypes) {
@@ -842,15 +923,11 @@ public class WpsClientImpl
                     }
                 }
                 else {
-                    try (Connection connection = dataManager.getDataSource().getConnection()) {
-                        //Get the metadata of the table
-                        ResultSet rs = connection.createStatement().executeQuery(String.format("select * from %s limit 1", tablelocation.getTable()));
-                        ResultSetMetaData metaData = rs.getMetaData();
-                        //For each column, get its DataType
-                        for(int columnId = 1; columnId <= metaData.getColumnCount(); ++columnId) {
-                            String columnTypeName = metaData.getColumnTypeName(columnId);
-                            if(!columnTypeName.equalsIgnoreCase("geometry")) {
-                                DataType dataType = DataType.getDataType(metaData.getColumnType(columnId));
+                    try {
+                        //For each column of the cached table metadata, get its DataType
+                        for(ColumnMetadata column : catalogMetadata.getColumns(map.get(JdbcProperties.TABLE_LOCATION))) {
+                            if(!column.isSpatial()) {
+                                DataType dataType = DataType.getDataType(column.getDataType());
                                 //Tests if the DataType is compatible with the acceptedTypes and excludedTypes.
                                 if(dataTypes != null && !dataTypes.isEmpty()) {
                                     for (DataType acceptedType : dataTypes) {
@@ -872,8 +949,8 @@ public class WpsClientImpl
                             }
                         }
                     } catch (SQLException e) {
-                        LOGGER.error(I18N.tr("Unable to get the connection.\nCause : {0}.",
-                                e.getMessage()));
+                        LOGGER.error(I18N.tr("Unable to get the columns of the table {0}.\nCause : {1}.",
+                                tablelocation, e.getMessage()));
                     }
                 }
 
@@ -895,43 +972,29 @@ public class WpsClientImpl
     @Override
     public List<Map<JdbcProperties, Object>> getColumnInformation(String tableName){
         List<Map<JdbcProperties, Object>> mapList = new ArrayList<>();
-        try(Connection connection = dataManager.getDataSource().getConnection()) {
-            //Get the list of the columns of a table
-            ResultSet rs1 = connection.createStatement().executeQuery(String.format("select * from %s limit 1", tableName));
-            ResultSetMetaData metaData = rs1.getMetaData();
+        try {
+            List<ColumnMetadata> columns = catalogMetadata.getColumns(tableName);
             //If the column isn't a geometry, add it to the map
-            for(int i=1; i<=metaData.getColumnCount(); i++){
-                if(!metaData.getColumnTypeName(i).equalsIgnoreCase("GEOMETRY")){
+            for(ColumnMetadata column : columns){
+                if(!column.isSpatial()){
                     Map<JdbcProperties, Object> map = new HashMap<>();
-                    map.put(JdbcProperties.COLUMN_NAME, metaData.getColumnLabel(i));
-                    map.put(JdbcProperties.COLUMN_TYPE, metaData.getColumnTypeName(i));
+                    map.put(JdbcProperties.COLUMN_NAME, column.getName());
+                    map.put(JdbcProperties.COLUMN_TYPE, column.getTypeName());
                     map.put(JdbcProperties.COLUMN_SRID, 0);
                     map.put(JdbcProperties.COLUMN_DIMENSION, 0);
                     mapList.add(map);
                 }
             }
             //Once the non geometric columns are get, do the same with the geometric one.
-            Statement statement = connection.createStatement();
-            String query = "SELECT * FROM GEOMETRY_COLUMNS WHERE F_TABLE_NAME LIKE '" +
-                    TableLocation.parse(tableName).getTable() + "';";
-            ResultSet rs = statement.executeQuery(query);
-            while (rs.next()) {
-                Map<JdbcProperties, Object> map = new HashMap<>();
-                //Case of H2 database
-                if(isH2) {
-                    map.put(JdbcProperties.COLUMN_NAME, rs.getString(4));
-                    map.put(JdbcProperties.COLUMN_TYPE, SFSUtilities.getGeometryTypeNameFromCode(rs.getInt(6)));
-                    map.put(JdbcProperties.COLUMN_SRID, rs.getInt(8));
-                    map.put(JdbcProperties.COLUMN_DIMENSION, rs.getInt(7));
-                }
-                //Other case
-                else{
-                    map.put(JdbcProperties.COLUMN_NAME, rs.getString(4));
-                    map.put(JdbcProperties.COLUMN_TYPE, rs.getString(7));
-                    map.put(JdbcProperties.COLUMN_SRID, rs.getInt(6));
-                    map.put(JdbcProperties.COLUMN_DIMENSION, rs.getInt(5));
+            for(ColumnMetadata column : columns){
+                if(column.isSpatial()){
+                    Map<JdbcProperties, Object> map = new HashMap<>();
+                    map.put(JdbcProperties.COLUMN_NAME, column.getName());
+                    map.put(JdbcProperties.COLUMN_TYPE, column.getGeometryType());
+                    map.put(JdbcProperties.COLUMN_SRID, column.getSrid());
+                    map.put(JdbcProperties.COLUMN_DIMENSION, column.getDimension());
+                    mapList.add(map);
                 }
-                mapList.add(map);
             }
         } catch (SQLException e) {
             LOGGER.error(I18N.tr("Unable to get the column INFORMATION of the table {0} information.\nCause : {1}.",
@@ -949,40 +1012,36 @@ public class WpsClientImpl
             excludedTypes = new ArrayList<>();
         }
         List<String> columnList = new ArrayList<>();
-        try(Connection connection = dataManager.getDataSource().getConnection()) {
-            DatabaseMetaData dmd = connection.getMetaData();
-            TableLocation tablelocation = TableLocation.parse(tableName, isH2);
-            ResultSet result = dmd.getColumns(tablelocation.getCatalog(), tablelocation.getSchema(),
-                    tablelocation.getTable(), "%");
-            while(result.next()){
+        try {
+            List<ColumnMetadata> columns = catalogMetadata.getColumns(tableName);
+            for(ColumnMetadata column : columns){
+                String type = column.getTypeName();
                 if (!dataTypes.isEmpty()) {
                     for (DataType dataType : dataTypes) {
-                        String type = result.getObject(6).toString();
                         if(type.equalsIgnoreCase("GEOMETRY")){
-                            int geomType = SFSUtilities.getGeometryType(connection, tablelocation,
-                                    result.getObject(4).toString().toUpperCase());
+                            int geomType = getGeometryType(metadataCache.getGeometryTypes(tableName), column.getName());
                             if (dataType.isDataTypeEquivalent(DataType.getGeometryType(geomType))) {
-                                columnList.add(result.getObject(4).toString());
+                                columnList.add(column.getName());
                             }
                         }
                         else {
-                            if (dataType.equals(DataType.getDataType(result.getObject(6).toString().toUpperCase()))) {
-                                columnList.add(result.getObject(4).toString());
+                            if (dataType.equals(DataType.getDataType(type.toUpperCase()))) {
+                                columnList.add(column.getName());
                             }
                         }
                     }
                 } else if(!excludedTypes.isEmpty()){
                     boolean accepted = true;
                     for (DataType dataType : excludedTypes) {
-                        if (dataType.equals(DataType.getDataType(result.getObject(6).toString()))) {
+                        if (dataType.equals(DataType.getDataType(type))) {
                             accepted = false;
                         }
                     }
                     if(accepted) {
-                        columnList.add(result.getObject(4).toString());
+                        columnList.add(column.getName());
                     }
                 }else{
-                    columnList.add(result.getObject(4).toString());
+                    columnList.add(column.getName());
                 }
             }
         } catch (SQLException e) {
@@ -991,14 +1050,34 @@ public class WpsClientImpl
         return columnList;
     }
 
+    /**
+     * Returns the geometry type code of a column, ignoring the case of the column name.
+     * @param geometryTypes Geometry type codes of the table by column name.
+     * @param columnName Name of the column.
+     * @return The geometry type code, GEOMETRY if not known.
+     */
+    private static int getGeometryType(Map<String, Integer> geometryTypes, String columnName){
+        Integer geomType = geometryTypes.get(columnName);
+        if(geomType == null) {
+            for(Map.Entry<String, Integer> entry : geometryTypes.entrySet()) {
+                if(entry.getKey().equalsIgnoreCase(columnName)) {
+                    geomType = entry.getValue();
+                }
+            }
+        }
+        return geomType == null ? GeometryTypeCodes.GEOMETRY : geomType;
+    }
+
     @Override
     public List<String> getValueList(String tableName, String columnName) {
+        return getValueList(tableName, columnName, 0, WpsMetadataCache.DEFAULT_VALUE_LIMIT);
+    }
+
+    @Override
+    public List<String> getValueList(String tableName, String columnName, int offset, int limit) {
         List<String> values = new ArrayList<>();
-        try(Connection connection = dataManager.getDataSource().getConnection()) {
-            tableName = TableLocation.parse(tableName, isH2).toString();
-            values.addAll(JDBCUtilities.getUniqueFieldValues(connection,
-                    tableName,
-                    columnName));
+        try {
+            values.addAll(metadataCache.getValues(tableName, columnName, offset, limit));
         } catch (SQLException e) {
             LOGGER.error(I18N.tr("Unable to get the column {0}.{1} value list.\nCause : {2}.",
                     tableName, columnName, e.getMessage()));
@@ -1009,12 +1088,8 @@ public class WpsClientImpl
     @Override
     public List<String> getSRIDList(){
         List<String> sridList = new ArrayList<>();
-        try(Connection connection = dataManager.getDataSource().getConnection()) {
-            PreparedStatement statement = connection.prepareStatement("SELECT srid, AUTH_NAME FROM SPATIAL_REF_SYS");
-            ResultSet resultSet = statement.executeQuery();
-            while (resultSet.next()) {
-                sridList.add(resultSet.getString("AUTH_NAME") + ":" +resultSet.getInt("srid"));
-            }
+        try {
+            sridList.addAll(metadataCache.getSRIDList());
         } catch (SQLException e) {
             LOGGER.error(I18N.tr("Error on getting the SRID list.\nCause : {0}.", e.getMessage()));
         }
@@ -1123,7 +1198,13 @@ public class WpsClientImpl
     @Override
     public StatusInfo executeProcess(URI processIdentifier, Map<URI,Object> dataMap) {
         //Get the ProcessDescriptionType corresponding to the process identifier
-        ProcessDescriptionType process = getInternalProcess(processIdentifier);
+        ProcessDescriptionType process = processDescriptionCache.get(processIdentifier);
+        if(process == null) {
+            process = getInternalProcess(processIdentifier);
+            if(process != null) {
+                processDescriptionCache.put(processIdentifier, process);
+            }
+        }
         //Build the ExecuteRequest object
         ExecuteRequestType executeRequest = new ExecuteRequestType();
         //Sets the identifier of the process to execute
@@ -1202,6 +1283,7 @@ public class WpsClientImpl
         try(Connection connection = dataManager.getDataSource().getConnection()) {
             if(dataManager != null){
                 isH2 = JDBCUtilities.isH2DataBase(connection.getMetaData());
+                databaseId = connection.getMetaData().getURL();
                 if(isH2){
                     wpsServer.setDatabase(WpsServer.Database.H2GIS);
                 }
@@ -1233,9 +1315,17 @@ public class WpsClientImpl
     /*******************************************************/
 
     /**
-     * Method called when a change happens in the DataManager (i.e. a table suppression, a table add ...)
+     * Method called when a change happens in the DataManager (i.e. a table suppression, a table add ...).
+     * The cached catalog is read again, then the table list is updated through {@link #catalogChanged(Collection)}.
      */
     public void onDataManagerChange() {
+        catalogMetadata.refresh();
+    }
+
+    /**
+     * Update the table list from the catalog cache.
+     */
+    private void reloadTableList() {
         //If not actually doing a refresh, do it.
         if(!awaitingRefresh.getAndSet(true)) {
             ReadDataManagerOnSwingThread worker = new ReadDataManagerOnSwingThread(this);
@@ -1252,10 +1342,12 @@ public class WpsClientImpl
     }
 
     @Override
-    public void progressionUpdate(StateEvent state) {
-        if (state.isUpdateDatabaseStructure()) {
-            onDataManagerChange();
+    public void catalogChanged(Collection<TableLocation> updatedTables) {
+        if(metadataCache != null) {
+            metadataCache.catalogChanged(updatedTables);
         }
+        // The table list is read again from the catalog cache
+        reloadTableList();
     }
 
     /**
@@ -1263,67 +1355,44 @@ public class WpsClientImpl
      */
     private void readDatabase() {
         List<Map<JdbcProperties, String>> newTables = new ArrayList<>();
-        try (Connection connection = dataManager.getDataSource().getConnection()) {
-            final String defaultCatalog = connection.getCatalog();
-            String defaultSchema = "PUBLIC";
-            try {
-                if (connection.getSchema() != null) {
-                    defaultSchema = connection.getSchema();
+        try {
+            final String defaultCatalog = catalogMetadata.getDefaultCatalog();
+            final String defaultSchema = catalogMetadata.getDefaultSchema();
+            for(TableMetadata table : catalogMetadata.getTables()) {
+                if(!SHOWN_TABLE_TYPES.contains(table.getTableType())) {
+                    continue;
                 }
-            } catch (AbstractMethodError | Exception ex) {
-                // Driver has been compiled with JAVA 6, or is not implemented
-            }
-            // Fetch Geometry tables
-            Map<String,String> tableGeometry = new HashMap<>();
-            try(Statement st = connection.createStatement();
-                ResultSet rs = st.executeQuery("SELECT * FROM "+defaultSchema+".geometry_columns")) {
-                while(rs.next()) {
-                    tableGeometry.put(new TableLocation(rs.getString("F_TABLE_CATALOG"),
-                            rs.getString("F_TABLE_SCHEMA"), rs.getString("F_TABLE_NAME")).toString(), rs.getString("TYPE"));
+                Map<JdbcProperties, String> tableAttr = new HashMap<>();
+                TableLocation location = table.getLocation();
+                // Make Label
+                StringBuilder label = new StringBuilder(addQuotesIfNecessary(location.getTable()));
+                if(!location.getSchema().isEmpty() && !location.getSchema().equalsIgnoreCase(defaultSchema)) {
+                    label.insert(0, ".");
+                    label.insert(0, addQuotesIfNecessary(location.getSchema()));
                 }
-            } catch (SQLException ex) {
-                LOGGER.warn(I18N.tr("Geometry columns information of tables are not available.", ex));
-            }
-            // Fetch all tables
-            try(ResultSet rs = connection.getMetaData().getTables(null, null, null, SHOWN_TABLE_TYPES)) {
-                while(rs.next()) {
-                    Map<JdbcProperties, String> tableAttr = new HashMap<>();
-                    TableLocation location = new TableLocation(rs);
-                    if(location.getCatalog().isEmpty()) {
-                        // PostGIS return empty catalog on metadata
-                        location = new TableLocation(defaultCatalog, location.getSchema(), location.getTable());
-                    }
-                    // Make Label
-                    StringBuilder label = new StringBuilder(addQuotesIfNecessary(location.getTable()));
-                    if(!location.getSchema().isEmpty() && !location.getSchema().equalsIgnoreCase(defaultSchema)) {
-                        label.insert(0, ".");
-                        label.insert(0, addQuotesIfNecessary(location.getSchema()));
-                    }
-                    if(!location.getCatalog().isEmpty() && !location.getCatalog().equalsIgnoreCase(defaultCatalog)) {
-                        label.insert(0, ".");
-                        label.insert(0, addQuotesIfNecessary(location.getCatalog()));
-                    }
-                    // Shortcut location for H2 database
-                    TableLocation shortLocation;
-                    if(isH2) {
-                        shortLocation = new TableLocation("",
-                                location.getSchema().equals(defaultSchema) ? "" : location.getSchema(),
-                                location.getTable());
-                    } else {
-                        shortLocation = new TableLocation(location.getCatalog().equalsIgnoreCase(defaultCatalog) ?
-                                "" : location.getCatalog(),
-                                location.getCatalog().equalsIgnoreCase(defaultCatalog) &&
-                                        location.getSchema().equalsIgnoreCase(defaultSchema) ? "" : location.getSchema(),
-                                location.getTable());
-                    }
-                    tableAttr.put(JdbcProperties.TABLE_LOCATION, shortLocation.toString(isH2));
-                    tableAttr.put(JdbcProperties.TABLE_LABEL, label.toString());
-                    String type = tableGeometry.get(location.toString());
-                    if(type != null) {
-                        tableAttr.put(JdbcProperties.COLUMN_TYPE, type);
-                    }
-                    newTables.add(tableAttr);
+                if(!location.getCatalog().isEmpty() && !location.getCatalog().equalsIgnoreCase(defaultCatalog)) {
+                    label.insert(0, ".");
+                    label.insert(0, addQuotesIfNecessary(location.getCatalog()));
+                }
+                // Shortcut location for H2 database
+                TableLocation shortLocation;
+                if(isH2) {
+                    shortLocation = new TableLocation("",
+                            location.getSchema().equals(defaultSchema) ? "" : location.getSchema(),
+                            location.getTable());
+                } else {
+                    shortLocation = new TableLocation(location.getCatalog().equalsIgnoreCase(defaultCatalog) ?
+                            "" : location.getCatalog(),
+                            location.getCatalog().equalsIgnoreCase(defaultCatalog) &&
+                                    location.getSchema().equalsIgnoreCase(defaultSchema) ? "" : location.getSchema(),
+                            location.getTable());
+                }
+                tableAttr.put(JdbcProperties.TABLE_LOCATION, shortLocation.toString(isH2));
+                tableAttr.put(JdbcProperties.TABLE_LABEL, label.toString());
+                if(table.isSpatial()) {
+                    tableAttr.put(JdbcProperties.COLUMN_TYPE, table.getGeometryType());
                 }
+                newTables.add(tableAttr);
             }
             tableList.clear();
             tableList.addAll(newTables);
@@ -1363,7 +1432,7 @@ public class WpsClientImpl
             // An update occurs during fetching tables
             if(wpsClient.updateWhileAwaitingRefresh) {
                 wpsClient.updateWhileAwaitingRefresh = false;
-                wpsClient.onDataManagerChange();
+                wpsClient.reloadTableList();
             }
         }
     }
@@ -46,6 +46,7 @@ import org.orbisgis.sif.common.ContainerItem;
 import org.orbisgis.toolboxeditor.WpsClientImpl;
 import org.orbisgis.toolboxeditor.utils.ToolBoxIcon;
 import org.orbisgis.toolboxeditor.utils.WaitLayerUI;
+import org.orbisgis.toolboxeditor.utils.WpsMetadataCache;
 import org.orbiswps.server.model.DataType;
 import org.orbiswps.server.model.JDBCValue;
 import org.xnap.commons.i18n.I18n;
@@ -54,12 +55,14 @@ import org.xnap.commons.i18n.I18nFactory;
 import javax.swing.*;
 import javax.swing.event.ListDataListener;
 import javax.swing.event.ListSelectionListener;
+import java.awt.event.AdjustmentListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.beans.EventHandler;
 import java.math.BigInteger;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -89,6 +92,13 @@ public class JDBCValueUI implements DataUI {
     private static final String ORIENTATION_PROPERTY = "ORIENTATION_PROPERTY";
     private static final String MAX_JLIST_ROW_COUNT = "MAX_JLIST_ROW_COUNT";
     private static final String DEFAULT_ELEMENT_PROPERTY = "DEFAULT_ELEMENT_PROPERTY";
+    private static final String LIST_PROPERTY = "LIST_PROPERTY";
+    private static final String TABLE_PROPERTY = "TABLE_PROPERTY";
+    private static final String COLUMN_PROPERTY = "COLUMN_PROPERTY";
+    /** Offset of the next page of values, null if all the values are loaded */
+    private static final String NEXT_OFFSET_PROPERTY = "NEXT_OFFSET_PROPERTY";
+    /** Number of values loaded at once, the next page is loaded when the end of the list is reached */
+    private static final int VALUE_PAGE_SIZE = WpsMetadataCache.DEFAULT_VALUE_LIMIT;
     /** I18N object */
     private static final I18n I18N = I18nFactory.getI18n(JDBCValueUI.class);
 
@@ -182,6 +192,9 @@ public class JDBCValueUI implements DataUI {
 
         //Adds a WaitLayerUI which will be displayed when the toolbox is loading the data
         JScrollPane listScroller = new JScrollPane(list);
+        listScroller.getVerticalScrollBar().putClientProperty(LIST_PROPERTY, list);
+        listScroller.getVerticalScrollBar().addAdjustmentListener(
+                EventHandler.create(AdjustmentListener.class, this, "onListScroll", "source"));
         WaitLayerUI layerUI = new WaitLayerUI();
         JLayer<JComponent> layer = new JLayer<>(listScroller, layerUI);
         panel.add(layer, "growx, wrap");
@@ -244,6 +257,28 @@ public class JDBCValueUI implements DataUI {
         }
     }
 
+    /**
+     * When the end of the JList is reached, load the next page of values.
+     * @param source the vertical JScrollBar of the JList.
+     */
+    public void onListScroll(Object source){
+        JScrollBar scrollBar = (JScrollBar)source;
+        JList list = (JList)scrollBar.getClientProperty(LIST_PROPERTY);
+        Object nextOffset = list.getClientProperty(NEXT_OFFSET_PROPERTY);
+        if(nextOffset != null && scrollBar.getValue() + scrollBar.getVisibleAmount() >= scrollBar.getMaximum()) {
+            // Only one page is loaded at once
+            list.putClientProperty(NEXT_OFFSET_PROPERTY, null);
+            ValuePageWorker worker = new ValuePageWorker(list, (int) nextOffset);
+            ExecutorService executorService = wpsClient.getExecutorService();
+            if(executorService != null){
+                executorService.execute(worker);
+            }
+            else{
+                worker.execute();
+            }
+        }
+    }
+
     public void onListSelection(Object source){
         JList list = (JList)source;
         URI uri = (URI)list.getClientProperty(URI_PROPERTY);
@@ -323,6 +358,7 @@ public class JDBCValueUI implements DataUI {
             //If the JDBCColumn related to the jdbcValue has been modified, reload the JDBCColumn values
             if(jdbcValue.isJDBCColumnModified()) {
                 jdbcValue.setJDBCColumnModified(false);
+                list.putClientProperty(NEXT_OFFSET_PROPERTY, null);
                 String tableName = null;
                 String ColumnName = null;
                 String uriValue = jdbcValue.getJDBCColumnIdentifier().toString();
@@ -367,11 +403,14 @@ public class JDBCValueUI implements DataUI {
                             ColumnName = column;
                         }
                     }
-                    //Retrieve the rowSet reading the table from the wpsService.
+                    //Retrieve the first page of values, already sorted by the wpsService.
                     model.removeAllElements();
-                    List<String> listValues = wpsClient.getValueList(tableName, ColumnName);
-                    Collections.sort(listValues);
+                    List<String> listValues = wpsClient.getValueList(tableName, ColumnName, 0, VALUE_PAGE_SIZE);
                     model.addAll(listValues.toArray());
+                    list.putClientProperty(TABLE_PROPERTY, tableName);
+                    list.putClientProperty(COLUMN_PROPERTY, ColumnName);
+                    list.putClientProperty(NEXT_OFFSET_PROPERTY,
+                            listValues.size() < VALUE_PAGE_SIZE ? null : listValues.size());
                     int maxRowCount;
                     if(orientation.equals(Orientation.VERTICAL)){
                         maxRowCount = JLIST_VERTICAL_MAX_ROW_COUNT;
@@ -449,4 +488,43 @@ public class JDBCValueUI implements DataUI {
             return null;
         }
     }
+    /**
+     * SwingWorker appending the next page of values at the end of the list
+     */
+    private class ValuePageWorker extends SwingWorker<List<String>, Object>{
+        private JList<Object> list;
+        private int offset;
+        private String tableName;
+        private String columnName;
+
+        public ValuePageWorker(JList<Object> list, int offset){
+            this.list = list;
+            this.offset = offset;
+            this.tableName = (String)list.getClientProperty(TABLE_PROPERTY);
+            this.columnName = (String)list.getClientProperty(COLUMN_PROPERTY);
+            ((WaitLayerUI)list.getClientProperty(LAYERUI_PROPERTY)).start();
+        }
+
+        @Override
+        protected List<String> doInBackground() throws Exception {
+            return wpsClient.getValueList(tableName, columnName, offset, VALUE_PAGE_SIZE);
+        }
+
+        @Override
+        protected void done() {
+            ((WaitLayerUI)list.getClientProperty(LAYERUI_PROPERTY)).stop();
+            try {
+                List<String> listValues = get();
+                if(tableName.equals(list.getClientProperty(TABLE_PROPERTY)) &&
+                        columnName.equals(list.getClientProperty(COLUMN_PROPERTY)) &&
+                        list.getModel().getSize() == offset) {
+                    ((CustomListModel<Object>)list.getModel()).addAll(listValues.toArray());
+                    list.putClientProperty(NEXT_OFFSET_PROPERTY,
+                            listValues.size() < VALUE_PAGE_SIZE ? null : offset + listValues.size());
+                }
+            } catch (InterruptedException | ExecutionException ignored) {
+                // The values are not loaded, the list is kept as is
+            }
+        }
+    }
 }
@@ -0,0 +1,532 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.toolboxeditor.utils;
+
+import org.orbisgis.commons.progress.ProgressMonitor;
+import org.orbisgis.commons.progress.RootProgressMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run process jobs on a shared executor. Jobs are queued by database and each database has a limit of concurrently
+ * running jobs; independent databases do not wait for each other. The progression of the running and queued jobs is
+ * aggregated until the scheduler becomes idle.
+ * @author Nicolas Fortin
+ */
+public class ProcessJobScheduler {
+    /** Property of the events fired when a job changes of state, the new value is the {@link ScheduledJob} */
+    public static final String PROP_JOB_STATE = "jobState";
+    /** Property of the events fired when the aggregated progression changes, the new value is a Double */
+    public static final String PROP_PROGRESS = "progress";
+    /** Limit applied to a database without configuration */
+    public static final int DEFAULT_CONCURRENCY_LIMIT = 1;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProcessJobScheduler.class);
+    private static final I18n I18N = I18nFactory.getI18n(ProcessJobScheduler.class);
+
+    public enum JobState { QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED }
+
+    /**
+     * Work done by a job.
+     */
+    public interface JobTask {
+        /**
+         * @param progressMonitor Progression of the job, cancelled when the job is cancelled
+         * @throws Exception The job failed
+         */
+        void run(ProgressMonitor progressMonitor) throws Exception;
+    }
+
+    private final Executor executor;
+    private final PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
+    private final Map<String, DatabaseQueue> queues = new HashMap<>();
+    /** Jobs ended since the scheduler was last idle, used for the aggregated progression */
+    private int endedJobs = 0;
+
+    /**
+     * @param executor Executor that runs the jobs, it must be able to run at least the sum of the limits at once
+     */
+    public ProcessJobScheduler(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @param database Database identifier
+     * @param limit Maximum number of jobs running at once on this database
+     */
+    public void setConcurrencyLimit(String database, int limit) {
+        if(limit < 1) {
+            throw new IllegalArgumentException(I18N.tr("The concurrency limit must be at least 1"));
+        }
+        synchronized (this) {
+            getQueue(database).limit = limit;
+            dispatch(database);
+        }
+    }
+
+    /**
+     * @param database Database identifier
+     * @return Maximum number of jobs running at once on this database
+     */
+    public synchronized int getConcurrencyLimit(String database) {
+        DatabaseQueue queue = queues.get(database);
+        return queue == null ? DEFAULT_CONCURRENCY_LIMIT : queue.limit;
+    }
+
+    /**
+     * Queue a job, it starts as soon as the database has a free slot.
+     * @param database Database identifier
+     * @param name Job name
+     * @param task Work to do
+     * @return The job
+     */
+    public ScheduledJob submit(String database, String name, JobTask task) {
+        ScheduledJob job = new ScheduledJob(database, name, task);
+        synchronized (this) {
+            getQueue(database).queued.add(job);
+            dispatch(database);
+        }
+        fireJobState(job);
+        return job;
+    }
+
+    /**
+     * Cancel a job. A queued job is removed from the queue, a running job has its progress monitor cancelled and its
+     * thread interrupted.
+     * @param job Job to cancel
+     * @return False if the job was already ended
+     */
+    public boolean cancel(ScheduledJob job) {
+        synchronized (this) {
+            DatabaseQueue queue = queues.get(job.database);
+            if(job.state == JobState.QUEUED && queue != null && queue.queued.remove(job)) {
+                job.state = JobState.CANCELLED;
+                endedJobs++;
+                job.done.countDown();
+                notifyAll();
+            } else if(job.state == JobState.RUNNING) {
+                job.progressMonitor.setCancelled(true);
+                Thread runner = job.runner;
+                if(runner != null) {
+                    runner.interrupt();
+                }
+                return true;
+            } else {
+                return false;
+            }
+        }
+        fireJobState(job);
+        fireProgress();
+        return true;
+    }
+
+    /**
+     * @return Number of jobs waiting for a free slot
+     */
+    public synchronized int getQueuedCount() {
+        int count = 0;
+        for(DatabaseQueue queue : queues.values()) {
+            count += queue.queued.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return Number of running jobs
+     */
+    public synchronized int getRunningCount() {
+        int count = 0;
+        for(DatabaseQueue queue : queues.values()) {
+            count += queue.running.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return Queued and running jobs
+     */
+    public synchronized List<ScheduledJob> getJobs() {
+        List<ScheduledJob> jobs = new ArrayList<>();
+        for(DatabaseQueue queue : queues.values()) {
+            jobs.addAll(queue.running);
+            jobs.addAll(queue.queued);
+        }
+        return jobs;
+    }
+
+    /**
+     * @return Progression of the jobs submitted since the scheduler was last idle, in [0-1]
+     */
+    public synchronized double getProgress() {
+        double done = endedJobs;
+        int total = endedJobs;
+        for(DatabaseQueue queue : queues.values()) {
+            for(ScheduledJob job : queue.running) {
+                done += job.progressMonitor.getOverallProgress();
+            }
+            total += queue.running.size() + queue.queued.size();
+        }
+        return total == 0 ? 1 : done / total;
+    }
+
+    /**
+     * The returned executor queues the runnable as jobs of the given database. Shutting it down does not shut down
+     * the executor of the scheduler.
+     * @param database Database identifier
+     * @return Executor service view of this scheduler
+     */
+    public DatabaseExecutorService getExecutorService(String database) {
+        return new DatabaseExecutorService(database);
+    }
+
+    /**
+     * @param listener Listener of {@link #PROP_JOB_STATE} and {@link #PROP_PROGRESS} events
+     */
+    public void addPropertyChangeListener(PropertyChangeListener listener) {
+        propertyChangeSupport.addPropertyChangeListener(listener);
+    }
+
+    /**
+     * @param listener Listener instance
+     */
+    public void removePropertyChangeListener(PropertyChangeListener listener) {
+        propertyChangeSupport.removePropertyChangeListener(listener);
+    }
+
+    private DatabaseQueue getQueue(String database) {
+        DatabaseQueue queue = queues.get(database);
+        if(queue == null) {
+            queue = new DatabaseQueue();
+            queues.put(database, queue);
+        }
+        return queue;
+    }
+
+    /**
+     * Start queued jobs while the database has free slots. Must be called while holding the lock of this scheduler.
+     */
+    private void dispatch(String database) {
+        DatabaseQueue queue = queues.get(database);
+        while(queue != null && queue.running.size() < queue.limit && !queue.queued.isEmpty()) {
+            ScheduledJob job = queue.queued.poll();
+            job.state = JobState.RUNNING;
+            queue.running.add(job);
+            try {
+                executor.execute(new JobRunner(job));
+            } catch (RejectedExecutionException ex) {
+                LOGGER.error(I18N.tr("Cannot start the job {0}", job.name), ex);
+                queue.running.remove(job);
+                job.state = JobState.FAILED;
+                job.error = ex;
+                endedJobs++;
+                job.done.countDown();
+            }
+        }
+    }
+
+    private void jobEnded(ScheduledJob job, JobState state, Throwable error) {
+        synchronized (this) {
+            job.state = state;
+            job.error = error;
+            job.runner = null;
+            // Jobs are interrupted while holding this lock, clear the flag of a cancelled job before giving back
+            // the thread
+            Thread.interrupted();
+            queues.get(job.database).running.remove(job);
+            endedJobs++;
+            dispatch(job.database);
+            if(getRunningCount() == 0 && getQueuedCount() == 0) {
+                endedJobs = 0;
+            }
+            job.done.countDown();
+            notifyAll();
+        }
+        fireJobState(job);
+        fireProgress();
+    }
+
+    private void fireJobState(ScheduledJob job) {
+        propertyChangeSupport.firePropertyChange(new PropertyChangeEvent(this, PROP_JOB_STATE, null, job));
+    }
+
+    private void fireProgress() {
+        propertyChangeSupport.firePropertyChange(new PropertyChangeEvent(this, PROP_PROGRESS, null, getProgress()));
+    }
+
+    /**
+     * Jobs of a database
+     */
+    private static class DatabaseQueue {
+        private final Deque<ScheduledJob> queued = new ArrayDeque<>();
+        private final List<ScheduledJob> running = new ArrayList<>();
+        private int limit = DEFAULT_CONCURRENCY_LIMIT;
+    }
+
+    /**
+     * Run a job then release its slot
+     */
+    private class JobRunner implements Runnable {
+        private final ScheduledJob job;
+
+        private JobRunner(ScheduledJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            job.runner = Thread.currentThread();
+            fireJobState(job);
+            JobState state = JobState.SUCCEEDED;
+            Throwable error = null;
+            try {
+                if(!job.progressMonitor.isCancelled()) {
+                    job.task.run(job.progressMonitor);
+                }
+            } catch (Exception ex) {
+                if(!job.progressMonitor.isCancelled()) {
+                    LOGGER.error(I18N.tr("The job {0} has failed", job.name), ex);
+                    state = JobState.FAILED;
+                    error = ex;
+                }
+            } finally {
+                if(job.progressMonitor.isCancelled()) {
+                    state = JobState.CANCELLED;
+                }
+                jobEnded(job, state, error);
+            }
+        }
+    }
+
+    /**
+     * A queued, running or ended job
+     */
+    public class ScheduledJob {
+        private final UUID id = UUID.randomUUID();
+        private final String database;
+        private final String name;
+        private final JobTask task;
+        private final RootProgressMonitor progressMonitor = new RootProgressMonitor(1);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile JobState state = JobState.QUEUED;
+        private volatile Throwable error;
+        private volatile Thread runner;
+
+        private ScheduledJob(String database, String name, JobTask task) {
+            this.database = database;
+            this.name = name;
+            this.task = task;
+            progressMonitor.addPropertyChangeListener(ProgressMonitor.PROP_PROGRESSION, new PropertyChangeListener() {
+                @Override
+                public void propertyChange(PropertyChangeEvent evt) {
+                    fireProgress();
+                }
+            });
+        }
+
+        /**
+         * @return Job identifier
+         */
+        public UUID getId() {
+            return id;
+        }
+
+        /**
+         * @return Database identifier
+         */
+        public String getDatabase() {
+            return database;
+        }
+
+        /**
+         * @return Job name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Current state
+         */
+        public JobState getState() {
+            return state;
+        }
+
+        /**
+         * @return Job progression in [0-1]
+         */
+        public double getProgress() {
+            switch (state) {
+                case QUEUED:
+                    return 0;
+                case RUNNING:
+                    return progressMonitor.getOverallProgress();
+                default:
+                    return 1;
+            }
+        }
+
+        /**
+         * @return The exception thrown by a failed job, null otherwise
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        /**
+         * @return True if the job is succeeded, failed or cancelled
+         */
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        /**
+         * @see ProcessJobScheduler#cancel(ScheduledJob)
+         * @return False if the job was already ended
+         */
+        public boolean cancel() {
+            return ProcessJobScheduler.this.cancel(this);
+        }
+
+        /**
+         * Wait for the end of the job.
+         * @param timeout Maximum time to wait
+         * @param unit Unit of timeout
+         * @return True if the job is ended
+         * @throws InterruptedException The current thread has been interrupted
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return done.await(timeout, unit);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Executor service that queues runnables as jobs of a database
+     */
+    public class DatabaseExecutorService extends AbstractExecutorService {
+        private final String database;
+        private volatile boolean shutdown = false;
+
+        private DatabaseExecutorService(String database) {
+            this.database = database;
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            if(shutdown) {
+                throw new RejectedExecutionException(I18N.tr("The executor has been shut down"));
+            }
+            ProcessJobScheduler.this.submit(database, command.toString(), new JobTask() {
+                @Override
+                public void run(ProgressMonitor progressMonitor) throws Exception {
+                    command.run();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            List<ScheduledJob> jobs = new ArrayList<>();
+            synchronized (ProcessJobScheduler.this) {
+                DatabaseQueue queue = queues.get(database);
+                if(queue != null) {
+                    jobs.addAll(queue.running);
+                    jobs.addAll(queue.queued);
+                }
+            }
+            for(ScheduledJob job : jobs) {
+                job.cancel();
+            }
+            return new ArrayList<>();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            synchronized (ProcessJobScheduler.this) {
+                DatabaseQueue queue = queues.get(database);
+                return shutdown && (queue == null || (queue.running.isEmpty() && queue.queued.isEmpty()));
+            }
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (ProcessJobScheduler.this) {
+                while(!isTerminated()) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if(remaining <= 0) {
+                        return false;
+                    }
+                    ProcessJobScheduler.this.wait(remaining);
+                }
+                return true;
+            }
+        }
+    }
+}
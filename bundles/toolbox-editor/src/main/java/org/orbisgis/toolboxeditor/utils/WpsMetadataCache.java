@@ -0,0 +1,228 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.toolboxeditor.utils;
+
+import org.h2gis.utilities.SFSUtilities;
+import org.h2gis.utilities.TableLocation;
+import org.orbisgis.corejdbc.CatalogMetadataListener;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.TableEditEvent;
+import org.orbisgis.corejdbc.TableEditListener;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the database metadata and values read by the WPS client: geometry types of the tables, pages of distinct
+ * column values and the SRID list. The entries of a table are dropped when the catalog notifies a change of this
+ * table, or when rows of this table are edited.
+ * @author Nicolas Fortin
+ */
+public class WpsMetadataCache implements CatalogMetadataListener {
+    /** Maximum number of distinct values returned when no page is specified */
+    public static final int DEFAULT_VALUE_LIMIT = 1000;
+    private static final String SPATIAL_REF_SYS = "SPATIAL_REF_SYS";
+    private final DataManager dataManager;
+    private final boolean isH2;
+    private final String defaultSchema;
+    private final Map<String, Map<String, Integer>> geometryTypes = new ConcurrentHashMap<>();
+    /** Table key, then column/offset/limit key */
+    private final ConcurrentMap<String, Map<String, List<String>>> valuePages = new ConcurrentHashMap<>();
+    /** Tables with a registered edit listener, with their reference used at registration */
+    private final Map<String, String> editListenedTables = new ConcurrentHashMap<>();
+    private final TableEditListener tableEditListener = new TableEditListener() {
+        @Override
+        public void tableChange(TableEditEvent event) {
+            modificationCount.incrementAndGet();
+            valuePages.remove(getKey(event.getTableName()));
+        }
+    };
+    private volatile List<String> sridList;
+    /** Incremented on each invalidation, a value read during an invalidation is not cached */
+    private final AtomicLong modificationCount = new AtomicLong();
+
+    /**
+     * @param dataManager Data manager, used to read the database and to listen the table edition
+     * @param isH2 True if the database is H2
+     * @param defaultSchema Default schema of the connection
+     */
+    public WpsMetadataCache(DataManager dataManager, boolean isH2, String defaultSchema) {
+        this.dataManager = dataManager;
+        this.isH2 = isH2;
+        this.defaultSchema = defaultSchema;
+    }
+
+    private String getKey(String tableReference) {
+        return getKey(TableLocation.parse(tableReference, isH2));
+    }
+
+    private String getKey(TableLocation location) {
+        return location.getSchema(defaultSchema) + "." + location.getTable();
+    }
+
+    /**
+     * @param tableReference Table reference [[catalog.]schema.]table
+     * @return Geometry type code of the geometry columns, by column name
+     * @throws SQLException Error while reading the database
+     */
+    public Map<String, Integer> getGeometryTypes(String tableReference) throws SQLException {
+        String key = getKey(tableReference);
+        Map<String, Integer> types = geometryTypes.get(key);
+        if(types == null) {
+            long version = modificationCount.get();
+            try(Connection connection = dataManager.getDataSource().getConnection()) {
+                types = Collections.unmodifiableMap(SFSUtilities.getGeometryTypes(connection,
+                        TableLocation.parse(tableReference, isH2)));
+            }
+            if(version == modificationCount.get()) {
+                geometryTypes.put(key, types);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Read a page of the sorted distinct values of a column.
+     * @param tableReference Table reference [[catalog.]schema.]table
+     * @param columnName Column name
+     * @param offset Number of values to skip
+     * @param limit Maximum number of values to return
+     * @return Distinct values of the column, as String
+     * @throws SQLException Error while reading the database
+     */
+    public List<String> getValues(String tableReference, String columnName, int offset, int limit)
+            throws SQLException {
+        String key = getKey(tableReference);
+        String pageKey = columnName + "\n" + offset + "\n" + limit;
+        Map<String, List<String>> pages = valuePages.get(key);
+        List<String> values = pages == null ? null : pages.get(pageKey);
+        if(values == null) {
+            long version = modificationCount.get();
+            String table = TableLocation.parse(tableReference, isH2).toString(isH2);
+            if(!editListenedTables.containsKey(key)) {
+                editListenedTables.put(key, table);
+                dataManager.addTableEditListener(table, tableEditListener);
+            }
+            values = new ArrayList<>();
+            String column = TableLocation.quoteIdentifier(columnName, isH2);
+            try(Connection connection = dataManager.getDataSource().getConnection();
+                PreparedStatement st = connection.prepareStatement("SELECT DISTINCT " + column + " FROM " + table +
+                        " ORDER BY " + column + " LIMIT ? OFFSET ?")) {
+                st.setInt(1, limit);
+                st.setInt(2, offset);
+                try(ResultSet rs = st.executeQuery()) {
+                    while(rs.next()) {
+                        values.add(rs.getString(1));
+                    }
+                }
+            }
+            values = Collections.unmodifiableList(values);
+            if(version == modificationCount.get()) {
+                Map<String, List<String>> newPages = new ConcurrentHashMap<>();
+                pages = valuePages.putIfAbsent(key, newPages);
+                (pages == null ? newPages : pages).put(pageKey, values);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return Spatial reference systems, as AUTH_NAME:SRID
+     * @throws SQLException Error while reading the database
+     */
+    public List<String> getSRIDList() throws SQLException {
+        List<String> srids = sridList;
+        if(srids == null) {
+            long version = modificationCount.get();
+            srids = new ArrayList<>();
+            try(Connection connection = dataManager.getDataSource().getConnection();
+                PreparedStatement statement = connection.prepareStatement("SELECT srid, AUTH_NAME FROM " +
+                        SPATIAL_REF_SYS);
+                ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    srids.add(resultSet.getString("AUTH_NAME") + ":" + resultSet.getInt("srid"));
+                }
+            }
+            srids = Collections.unmodifiableList(srids);
+            if(version == modificationCount.get()) {
+                sridList = srids;
+            }
+        }
+        return srids;
+    }
+
+    @Override
+    public void catalogChanged(Collection<TableLocation> updatedTables) {
+        modificationCount.incrementAndGet();
+        if(updatedTables.isEmpty()) {
+            clear();
+        } else {
+            for(TableLocation location : updatedTables) {
+                String key = getKey(location);
+                geometryTypes.remove(key);
+                valuePages.remove(key);
+                if(SPATIAL_REF_SYS.equalsIgnoreCase(location.getTable())) {
+                    sridList = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop all the cached entries and remove the table edit listeners.
+     */
+    public void clear() {
+        modificationCount.incrementAndGet();
+        geometryTypes.clear();
+        valuePages.clear();
+        sridList = null;
+        for(String table : new ArrayList<>(editListenedTables.values())) {
+            dataManager.removeTableEditListener(table, tableEditListener);
+        }
+        editListenedTables.clear();
+    }
+}
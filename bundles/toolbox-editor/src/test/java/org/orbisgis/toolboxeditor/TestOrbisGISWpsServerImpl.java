@@ -44,6 +44,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.internal.CatalogMetadataImpl;
 import org.orbisgis.corejdbc.internal.DataManagerImpl;
 import org.orbisgis.frameworkapi.CoreWorkspace;
 import org.orbiswps.server.WpsServerImpl;
@@ -86,6 +87,7 @@ public class TestOrbisGISWpsServerImpl {
         DataManager dataManager = new DataManagerImpl(dataSource);
         wpsClient.setWpsServer(new WpsServerImpl());
         wpsClient.setDataManager(dataManager);
+        wpsClient.setCatalogMetadata(new CatalogMetadataImpl(dataManager));
         wpsClient.setCoreWorkspace(new CustomCoreWorkspace());
         wpsClient.setDockingManager(new CustomDockingManager());
         wpsClient.activate();
@@ -0,0 +1,326 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.toolboxeditor.utils;
+
+import org.h2gis.functions.factory.H2GISDBFactory;
+import org.h2gis.utilities.SFSUtilities;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orbisgis.commons.progress.ProgressMonitor;
+import org.orbisgis.toolboxeditor.utils.ProcessJobScheduler.JobState;
+import org.orbisgis.toolboxeditor.utils.ProcessJobScheduler.JobTask;
+import org.orbisgis.toolboxeditor.utils.ProcessJobScheduler.ScheduledJob;
+
+import javax.sql.DataSource;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test of the process job scheduler, using stand-in processes that create tables in a H2 database.
+ * @author Nicolas Fortin
+ */
+public class ProcessJobSchedulerTest {
+    private static final String DATABASE = "h2";
+    private static final long TIMEOUT = 10;
+    private static DataSource dataSource;
+    private ExecutorService executor;
+    private ProcessJobScheduler scheduler;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    @BeforeClass
+    public static void tearUp() throws Exception {
+        dataSource = SFSUtilities.wrapSpatialDataSource(
+                H2GISDBFactory.createDataSource(ProcessJobSchedulerTest.class.getSimpleName(), true));
+    }
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        scheduler = new ProcessJobScheduler(executor);
+        running.set(0);
+        maxRunning.set(0);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static int countRows(String table) throws SQLException {
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement();
+            ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static boolean tableExists(String table) throws SQLException {
+        try(Connection connection = dataSource.getConnection();
+            ResultSet rs = connection.getMetaData().getTables(null, null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    private static void dropTables(String... tables) throws SQLException {
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            for(String table : tables) {
+                st.execute("DROP TABLE IF EXISTS " + table);
+            }
+        }
+    }
+
+    private static void waitFor(ScheduledJob job, JobState state) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT);
+        while(job.getState() != state) {
+            assertTrue("Timeout while waiting for " + state, System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        scheduler.setConcurrencyLimit(DATABASE, 2);
+        CountDownLatch gate = new CountDownLatch(1);
+        List<ScheduledJob> jobs = new ArrayList<>();
+        for(int i = 0; i < 6; i++) {
+            jobs.add(scheduler.submit(DATABASE, "copy" + i, new CopyRangeTask("COPY" + i, gate, null)));
+        }
+        waitFor(jobs.get(1), JobState.RUNNING);
+        assertEquals(2, scheduler.getRunningCount());
+        assertEquals(4, scheduler.getQueuedCount());
+        assertEquals(JobState.QUEUED, jobs.get(2).getState());
+        gate.countDown();
+        for(ScheduledJob job : jobs) {
+            assertTrue(job.await(TIMEOUT, TimeUnit.SECONDS));
+            assertEquals(JobState.SUCCEEDED, job.getState());
+        }
+        assertEquals(2, maxRunning.get());
+        for(int i = 0; i < 6; i++) {
+            assertEquals(1000, countRows("COPY" + i));
+        }
+        dropTables("COPY0", "COPY1", "COPY2", "COPY3", "COPY4", "COPY5");
+    }
+
+    @Test
+    public void testIndependentDatabases() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        ScheduledJob blocked = scheduler.submit(DATABASE, "blocked", new CopyRangeTask("BLOCKED", gate, null));
+        ScheduledJob other = scheduler.submit("other", "other", new CopyRangeTask("OTHER", null, null));
+        // The other database does not wait for the first one
+        assertTrue(other.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(JobState.SUCCEEDED, other.getState());
+        assertEquals(JobState.RUNNING, blocked.getState());
+        gate.countDown();
+        assertTrue(blocked.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(JobState.SUCCEEDED, blocked.getState());
+        dropTables("BLOCKED", "OTHER");
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        ScheduledJob runningJob = scheduler.submit(DATABASE, "running", new CopyRangeTask("RUNNINGJOB", gate, null));
+        ScheduledJob queuedJob = scheduler.submit(DATABASE, "queued", new CopyRangeTask("QUEUEDJOB", null, null));
+        waitFor(runningJob, JobState.RUNNING);
+        // Cancel a queued job
+        assertTrue(queuedJob.cancel());
+        assertEquals(JobState.CANCELLED, queuedJob.getState());
+        assertTrue(queuedJob.isDone());
+        assertEquals(0, scheduler.getQueuedCount());
+        // Cancel a running job, it is interrupted while waiting
+        assertTrue(runningJob.cancel());
+        assertTrue(runningJob.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(JobState.CANCELLED, runningJob.getState());
+        assertFalse(runningJob.cancel());
+        assertFalse(tableExists("QUEUEDJOB"));
+        // The slot has been released
+        ScheduledJob next = scheduler.submit(DATABASE, "next", new CopyRangeTask("NEXTJOB", null, null));
+        assertTrue(next.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(JobState.SUCCEEDED, next.getState());
+        dropTables("RUNNINGJOB", "NEXTJOB");
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        ScheduledJob failing = scheduler.submit(DATABASE, "failing", new JobTask() {
+            @Override
+            public void run(ProgressMonitor progressMonitor) throws Exception {
+                try(Connection connection = dataSource.getConnection();
+                    Statement st = connection.createStatement()) {
+                    st.execute("SELECT * FROM NOT_A_TABLE");
+                }
+            }
+        });
+        ScheduledJob next = scheduler.submit(DATABASE, "next", new CopyRangeTask("AFTERFAILURE", null, null));
+        assertTrue(failing.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(JobState.FAILED, failing.getState());
+        assertTrue(failing.getError() instanceof SQLException);
+        assertTrue(next.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(JobState.SUCCEEDED, next.getState());
+        dropTables("AFTERFAILURE");
+    }
+
+    @Test
+    public void testProgressAggregation() throws Exception {
+        final List<Double> progressEvents = new CopyOnWriteArrayList<>();
+        scheduler.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if(ProcessJobScheduler.PROP_PROGRESS.equals(evt.getPropertyName())) {
+                    progressEvents.add((Double) evt.getNewValue());
+                }
+            }
+        });
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch halfway = new CountDownLatch(1);
+        ScheduledJob first = scheduler.submit(DATABASE, "first", new CopyRangeTask("PROGRESS1", gate, halfway));
+        ScheduledJob second = scheduler.submit(DATABASE, "second", new CopyRangeTask("PROGRESS2", null, null));
+        assertTrue(halfway.await(TIMEOUT, TimeUnit.SECONDS));
+        // First job at half, second job queued
+        assertEquals(0.5, first.getProgress(), 1e-6);
+        assertEquals(0, second.getProgress(), 1e-6);
+        assertEquals(0.25, scheduler.getProgress(), 1e-6);
+        gate.countDown();
+        assertTrue(first.await(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(second.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(1, scheduler.getProgress(), 1e-6);
+        // The last event is fired after the release of the job
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT);
+        while(progressEvents.isEmpty() || progressEvents.get(progressEvents.size() - 1) < 1) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+        dropTables("PROGRESS1", "PROGRESS2");
+    }
+
+    @Test
+    public void testExecutorServiceView() throws Exception {
+        ExecutorService view = scheduler.getExecutorService(DATABASE);
+        Future<?> future = view.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    new CopyRangeTask("VIEWJOB", null, null).run(null);
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        });
+        future.get(TIMEOUT, TimeUnit.SECONDS);
+        assertEquals(1000, countRows("VIEWJOB"));
+        view.shutdown();
+        assertTrue(view.awaitTermination(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(view.isTerminated());
+        try {
+            view.execute(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            fail();
+        } catch (RejectedExecutionException ex) {
+            // Expected
+        }
+        dropTables("VIEWJOB");
+    }
+
+    /**
+     * Stand-in process, copy a range of values into a new table then wait for the gate
+     */
+    private class CopyRangeTask implements JobTask {
+        private final String table;
+        private final CountDownLatch gate;
+        private final CountDownLatch halfway;
+
+        private CopyRangeTask(String table, CountDownLatch gate, CountDownLatch halfway) {
+            this.table = table;
+            this.gate = gate;
+            this.halfway = halfway;
+        }
+
+        @Override
+        public void run(ProgressMonitor progressMonitor) throws Exception {
+            int now = running.incrementAndGet();
+            synchronized (maxRunning) {
+                maxRunning.set(Math.max(maxRunning.get(), now));
+            }
+            try {
+                ProgressMonitor steps = progressMonitor == null ? null : progressMonitor.startTask(2);
+                try(Connection connection = dataSource.getConnection();
+                    Statement st = connection.createStatement()) {
+                    st.execute("DROP TABLE IF EXISTS " + table);
+                    st.execute("CREATE TABLE " + table + " AS SELECT X FROM SYSTEM_RANGE(1, 1000)");
+                }
+                if(steps != null) {
+                    steps.endTask();
+                }
+                if(halfway != null) {
+                    halfway.countDown();
+                }
+                if(gate != null) {
+                    gate.await(TIMEOUT, TimeUnit.SECONDS);
+                }
+                if(steps != null) {
+                    steps.endTask();
+                }
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.toolboxeditor.utils;
+
+import org.h2gis.functions.factory.H2GISDBFactory;
+import org.h2gis.utilities.GeometryTypeCodes;
+import org.h2gis.utilities.SFSUtilities;
+import org.h2gis.utilities.TableLocation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.TableEditEvent;
+import org.orbisgis.corejdbc.internal.DataManagerImpl;
+
+import javax.sql.DataSource;
+import javax.swing.event.TableModelEvent;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test of the metadata cache of the WPS client.
+ * @author Nicolas Fortin
+ */
+public class WpsMetadataCacheTest {
+    private static DataSource dataSource;
+    private DataManager dataManager;
+    private WpsMetadataCache cache;
+
+    @BeforeClass
+    public static void tearUp() throws Exception {
+        dataSource = SFSUtilities.wrapSpatialDataSource(
+                H2GISDBFactory.createDataSource(WpsMetadataCacheTest.class.getSimpleName(), true));
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        execute("DROP TABLE IF EXISTS VALS, GEOMS",
+                "CREATE TABLE VALS(ID SERIAL, NAME VARCHAR)",
+                "INSERT INTO VALS(NAME) VALUES ('d'), ('b'), ('a'), ('c'), ('b'), ('e'), ('a')",
+                "CREATE TABLE GEOMS(THE_GEOM POINT)");
+        dataManager = new DataManagerImpl(dataSource);
+        cache = new WpsMetadataCache(dataManager, true, "PUBLIC");
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        cache.clear();
+        dataManager.dispose();
+        execute("DROP TABLE IF EXISTS VALS, GEOMS");
+    }
+
+    private static void execute(String... queries) throws SQLException {
+        try(Connection connection = dataSource.getConnection();
+            Statement st = connection.createStatement()) {
+            for(String query : queries) {
+                st.execute(query);
+            }
+        }
+    }
+
+    @Test
+    public void testValuePages() throws SQLException {
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"),
+                cache.getValues("VALS", "NAME", 0, WpsMetadataCache.DEFAULT_VALUE_LIMIT));
+        assertEquals(Arrays.asList("a", "b"), cache.getValues("VALS", "NAME", 0, 2));
+        assertEquals(Arrays.asList("c", "d"), cache.getValues("PUBLIC.VALS", "NAME", 2, 2));
+        assertEquals(Collections.singletonList("e"), cache.getValues("VALS", "NAME", 4, 2));
+        assertTrue(cache.getValues("VALS", "NAME", 6, 2).isEmpty());
+        // Same instance, read from the cache
+        assertSame(cache.getValues("VALS", "NAME", 0, 2), cache.getValues("PUBLIC.VALS", "NAME", 0, 2));
+    }
+
+    @Test
+    public void testValuesTableEdit() throws SQLException {
+        List<String> values = cache.getValues("VALS", "NAME", 0, 10);
+        assertEquals(5, values.size());
+        execute("INSERT INTO VALS(NAME) VALUES ('f')");
+        dataManager.fireTableEditHappened(new TableEditEvent("PUBLIC.VALS", TableModelEvent.ALL_COLUMNS, null, null,
+                TableModelEvent.INSERT));
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e", "f"), cache.getValues("VALS", "NAME", 0, 10));
+    }
+
+    @Test
+    public void testValuesCatalogChange() throws SQLException {
+        assertEquals(5, cache.getValues("VALS", "NAME", 0, 10).size());
+        execute("ALTER TABLE VALS ADD COLUMN OTHER INT", "UPDATE VALS SET NAME = 'z' WHERE NAME = 'a'");
+        cache.catalogChanged(Collections.singletonList(TableLocation.parse("VALS", true)));
+        assertEquals(Arrays.asList("b", "c", "d", "e", "z"), cache.getValues("VALS", "NAME", 0, 10));
+        // Unrelated table, the cached page is kept
+        List<String> values = cache.getValues("VALS", "NAME", 0, 10);
+        cache.catalogChanged(Collections.singletonList(TableLocation.parse("GEOMS", true)));
+        assertSame(values, cache.getValues("VALS", "NAME", 0, 10));
+        // Empty collection, the whole cache is dropped
+        cache.catalogChanged(Collections.<TableLocation>emptyList());
+        assertNotSame(values, cache.getValues("VALS", "NAME", 0, 10));
+    }
+
+    @Test
+    public void testGeometryTypes() throws SQLException {
+        Map<String, Integer> types = cache.getGeometryTypes("GEOMS");
+        assertEquals(GeometryTypeCodes.POINT, (int) types.get("THE_GEOM"));
+        assertSame(types, cache.getGeometryTypes("PUBLIC.GEOMS"));
+        execute("DROP TABLE GEOMS", "CREATE TABLE GEOMS(THE_GEOM POLYGON)");
+        cache.catalogChanged(Collections.singletonList(TableLocation.parse("GEOMS", true)));
+        assertEquals(GeometryTypeCodes.POLYGON, (int) cache.getGeometryTypes("GEOMS").get("THE_GEOM"));
+    }
+
+    @Test
+    public void testSRIDList() throws SQLException {
+        List<String> srids = cache.getSRIDList();
+        assertFalse(srids.isEmpty());
+        assertTrue(srids.contains("EPSG:4326"));
+        assertSame(srids, cache.getSRIDList());
+        cache.catalogChanged(Collections.singletonList(TableLocation.parse("SPATIAL_REF_SYS", true)));
+        assertNotSame(srids, cache.getSRIDList());
+        assertEquals(srids, cache.getSRIDList());
+    }
+}
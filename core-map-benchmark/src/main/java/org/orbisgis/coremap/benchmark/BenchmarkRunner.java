@@ -0,0 +1,189 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Run the benchmarks with the GC profiler and compare the scores with a baseline.
+ * Usage: java -jar benchmarks.jar [--baseline file] [--save-baseline] [--threshold ratio] [include regexp]
+ * The process exit with status 1 when a score regress more than the threshold (10% by default).
+ * The baseline must be recorded with --save-baseline on the reference machine.
+ * @author Nicolas Fortin
+ */
+public class BenchmarkRunner {
+    public static final String DEFAULT_BASELINE = "rendering-baseline.properties";
+    public static final String RESULT_FILE = "rendering-results.json";
+    public static final double DEFAULT_THRESHOLD = 0.1;
+    private static final String ALLOCATION_KEY = "gc.alloc.rate.norm";
+    private static final String ALLOCATION_SUFFIX = ".alloc";
+    /** Secondary result of the {@link RenderingBenchmark.FeatureCounter} auxiliary counter */
+    private static final String FEATURES_KEY = "features";
+    private static final String FEATURES_SUFFIX = "." + FEATURES_KEY;
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        File baselineFile = new File(DEFAULT_BASELINE);
+        boolean saveBaseline = false;
+        double threshold = DEFAULT_THRESHOLD;
+        String include = BenchmarkRunner.class.getPackage().getName();
+        for (int i = 0; i < args.length; i++) {
+            if ("--baseline".equals(args[i]) && i + 1 < args.length) {
+                baselineFile = new File(args[++i]);
+            } else if ("--save-baseline".equals(args[i])) {
+                saveBaseline = true;
+            } else if ("--threshold".equals(args[i]) && i + 1 < args.length) {
+                threshold = Double.parseDouble(args[++i]);
+            } else {
+                include = args[i];
+            }
+        }
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT_FILE)
+                .build();
+        Properties scores = toProperties(new Runner(options).run());
+        if (saveBaseline) {
+            try (OutputStream out = new FileOutputStream(baselineFile)) {
+                scores.store(out, "Rendering benchmark baseline");
+            }
+            System.out.println("Baseline saved in " + baselineFile.getAbsolutePath());
+        } else if (baselineFile.exists()) {
+            Properties baseline = new Properties();
+            try (InputStream in = new FileInputStream(baselineFile)) {
+                baseline.load(in);
+            }
+            if (compare(baseline, scores, threshold) > 0) {
+                System.exit(1);
+            }
+        } else {
+            System.out.println("No baseline found in " + baselineFile.getAbsolutePath() +
+                    ", run with --save-baseline to record it");
+        }
+    }
+
+    /**
+     * @param params Benchmark parameters
+     * @return Unique key of the benchmark, ex: frameTime.avgt.CATEGORIZED.10000
+     */
+    public static String getKey(BenchmarkParams params) {
+        String benchmark = params.getBenchmark();
+        StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.') + 1));
+        key.append('.').append(params.getMode().shortLabel());
+        for (String paramKey : params.getParamsKeys()) {
+            key.append('.').append(params.getParam(paramKey));
+        }
+        return key.toString();
+    }
+
+    /**
+     * @param runResults JMH results
+     * @return Score, allocated bytes per operation and drawn features per second of each benchmark
+     */
+    public static Properties toProperties(Collection<RunResult> runResults) {
+        Properties scores = new Properties();
+        for (RunResult runResult : runResults) {
+            String key = getKey(runResult.getParams());
+            scores.setProperty(key, Double.toString(runResult.getPrimaryResult().getScore()));
+            for (Map.Entry<String, Result> entry : runResult.getSecondaryResults().entrySet()) {
+                if (entry.getKey().endsWith(ALLOCATION_KEY)) {
+                    scores.setProperty(key + ALLOCATION_SUFFIX, Double.toString(entry.getValue().getScore()));
+                } else if (FEATURES_KEY.equals(entry.getKey())) {
+                    scores.setProperty(key + FEATURES_SUFFIX, Double.toString(entry.getValue().getScore()));
+                }
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Print the score changes against the baseline.
+     * @param baseline Baseline scores
+     * @param scores Current scores
+     * @param threshold Accepted regression ratio
+     * @return Number of regressions
+     */
+    public static int compare(Properties baseline, Properties scores, double threshold) {
+        int regressions = 0;
+        for (String key : new TreeSet<>(scores.stringPropertyNames())) {
+            String reference = baseline.getProperty(key);
+            if (reference == null) {
+                continue;
+            }
+            double before = Double.parseDouble(reference);
+            double after = Double.parseDouble(scores.getProperty(key));
+            if (before == 0) {
+                continue;
+            }
+            double change = (after - before) / before;
+            // Throughput and drawn features per second have to increase, time and allocations have to decrease
+            boolean higherIsBetter = key.endsWith(FEATURES_SUFFIX) || (!key.endsWith(ALLOCATION_SUFFIX) &&
+                    key.contains("." + Mode.Throughput.shortLabel() + "."));
+            boolean regression = higherIsBetter ? change < -threshold : change > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.println(String.format("%-55s %14.3f %14.3f %+8.1f%%%s", key, before, after, change * 100,
+                    regression ? " REGRESSION" : ""));
+        }
+        return regressions;
+    }
+}
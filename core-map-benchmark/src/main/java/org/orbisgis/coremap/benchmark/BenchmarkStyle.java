@@ -0,0 +1,111 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.benchmark;
+
+import net.opengis.se._2_0.core.StyleType;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.layerModel.Layer;
+import org.orbisgis.coremap.layerModel.LayerException;
+import org.orbisgis.coremap.map.JaxbContainer;
+import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
+import org.orbisgis.coremap.renderer.se.Style;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Representative SE styles, each one is applied on the synthetic layer of the matching geometry type.
+ * @author Nicolas Fortin
+ */
+public enum BenchmarkStyle {
+    /** AreaSymbolizer, SolidFill with a Categorize color and PenStroke */
+    CATEGORIZED("categorized.se", SyntheticDatabase.POLYGONS),
+    /** LineSymbolizer, PenStroke with a Recode color */
+    RECODED("recoded.se", SyntheticDatabase.LINES),
+    /** AreaSymbolizer, HatchedFill */
+    HATCHED("hatched.se", SyntheticDatabase.POLYGONS),
+    /** LineSymbolizer, GraphicStroke of marks */
+    GRAPHIC_STROKE("graphicstroke.se", SyntheticDatabase.LINES),
+    /** AreaSymbolizer, GraphicFill of marks */
+    GRAPHIC_FILL("graphicfill.se", SyntheticDatabase.POLYGONS),
+    /** PointSymbolizer and TextSymbolizer */
+    LABELLED("labelled.se", SyntheticDatabase.POINTS);
+
+    private final String resource;
+    private final String tableName;
+
+    BenchmarkStyle(String resource, String tableName) {
+        this.resource = resource;
+        this.tableName = tableName;
+    }
+
+    /**
+     * @return Synthetic table rendered with this style
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Create and open the layer of the synthetic table with this style
+     * @param dataManager Synthetic database
+     * @return Layer instance
+     * @throws IOException The style cannot be read
+     * @throws LayerException The layer cannot be opened
+     */
+    public ILayer createLayer(DataManager dataManager) throws IOException, LayerException {
+        ILayer layer = new Layer(name(), tableName, dataManager);
+        layer.addStyle(loadStyle(layer));
+        layer.open();
+        return layer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Style loadStyle(ILayer layer) throws IOException {
+        try (InputStream in = BenchmarkStyle.class.getResourceAsStream(resource)) {
+            Unmarshaller unmarshaller = JaxbContainer.JAXBCONTEXT.createUnmarshaller();
+            JAXBElement<StyleType> styleType = (JAXBElement<StyleType>) unmarshaller.unmarshal(in);
+            return new Style(styleType, layer);
+        } catch (JAXBException | InvalidStyle ex) {
+            throw new IOException("Cannot load the style " + resource, ex);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+package org.orbisgis.coremap.benchmark;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.orbisgis.commons.progress.NullProgressMonitor;
+import org.orbisgis.corejdbc.ReadTable;
+import org.orbisgis.corejdbc.internal.ReadRowSetImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the database aggregation used by the table editor optimal column width, {@link #aggregate()}, with the
+ * read of all the rows through the row set, {@link #rowScan()}.
+ * @author Nicolas Fortin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LongestValuesBenchmark {
+    private static final String TABLE = "BENCH_WIDTH";
+    private static final int LIMIT = 20;
+    @Param({"100000"})
+    public int rowCount;
+
+    private JdbcDataSource dataSource;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        // The database is kept until the last connection is closed
+        dataSource.setURL("jdbc:h2:mem:" + LongestValuesBenchmark.class.getSimpleName());
+        connection = dataSource.getConnection();
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS " + TABLE);
+            st.execute("CREATE TABLE " + TABLE + "(ID INT PRIMARY KEY, TXT VARCHAR) AS SELECT X, REPEAT('a', " +
+                    "MOD(X * 7919, 97)) FROM SYSTEM_RANGE(1, " + rowCount + ")");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Object> aggregate() throws SQLException {
+        return ReadTable.getLongestValues(connection, TABLE, "TXT", LIMIT, new NullProgressMonitor());
+    }
+
+    @Benchmark
+    public int rowScan() throws SQLException {
+        int maxLength = 0;
+        try (ReadRowSetImpl rs = new ReadRowSetImpl(dataSource)) {
+            rs.initialize(TABLE, "ID", new NullProgressMonitor());
+            for (int row = 1; row <= rowCount; row++) {
+                rs.absolute(row);
+                String value = rs.getString(2);
+                if (value != null) {
+                    maxLength = Math.max(maxLength, value.length());
+                }
+            }
+        }
+        return maxLength;
+    }
+}
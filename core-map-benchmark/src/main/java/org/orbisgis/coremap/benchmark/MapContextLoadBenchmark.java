@@ -0,0 +1,138 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.benchmark;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.orbisgis.commons.progress.NullProgressMonitor;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.layerModel.MapContext;
+import org.orbisgis.coremap.layerModel.OwsMapContext;
+import org.orbisgis.coremap.map.MapTransform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load a generated OWS map context document of synthetic layers. One layer out of two is hidden.
+ * {@link #openMapContext()} measures the time until the map context is usable and
+ * {@link #openAndDrawMapContext()} the time until the first frame is rendered.
+ * @author Nicolas Fortin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class MapContextLoadBenchmark {
+    @Param({"500"})
+    public int layerCount;
+
+    private SyntheticDatabase database;
+    private byte[] document;
+    private MapContext mapContext;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = new SyntheticDatabase(MapContextLoadBenchmark.class.getSimpleName());
+        MapContext generated = new OwsMapContext(database.getDataManager());
+        generated.open(new NullProgressMonitor());
+        BenchmarkStyle[] styles = BenchmarkStyle.values();
+        for (int i = 0; i < layerCount; i++) {
+            ILayer layer = styles[i % styles.length].createLayer(database.getDataManager());
+            layer.setVisible(i % 2 == 0);
+            generated.getLayerModel().addLayer(layer);
+        }
+        generated.close(new NullProgressMonitor());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generated.write(out);
+        document = out.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeMapContext() {
+        if (mapContext != null) {
+            mapContext.close(new NullProgressMonitor());
+            mapContext = null;
+        }
+    }
+
+    private MapContext readMapContext() throws Exception {
+        mapContext = new OwsMapContext(database.getDataManager());
+        mapContext.read(new ByteArrayInputStream(document));
+        mapContext.open(new NullProgressMonitor());
+        return mapContext;
+    }
+
+    @Benchmark
+    public MapContext openMapContext() throws Exception {
+        return readMapContext();
+    }
+
+    @Benchmark
+    public BufferedImage openAndDrawMapContext() throws Exception {
+        MapContext loaded = readMapContext();
+        MapTransform mapTransform = new MapTransform();
+        mapTransform.setDpi(RenderingBenchmark.DPI);
+        BufferedImage image = new BufferedImage(RenderingBenchmark.WIDTH, RenderingBenchmark.HEIGHT,
+                BufferedImage.TYPE_INT_ARGB);
+        mapTransform.setImage(image);
+        mapTransform.setExtent(new Envelope(0, SyntheticDatabase.EXTENT_SIZE, 0, SyntheticDatabase.EXTENT_SIZE));
+        loaded.draw(mapTransform, new NullProgressMonitor());
+        return image;
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.benchmark;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.map.MapTransform;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render one frame of a synthetic layer with a SE style, at several scales.
+ * The frame is centered on the synthetic layers extent.
+ * {@link #frameTime()} measures the time per frame and {@link #featureThroughput(FeatureCounter)} the drawn
+ * features per second. Run with the GC profiler to get the allocation rate, see {@link BenchmarkRunner}.
+ * @author Nicolas Fortin
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class RenderingBenchmark {
+    public static final int WIDTH = 1024;
+    public static final int HEIGHT = 768;
+    public static final double DPI = 96;
+
+    @Param({"CATEGORIZED", "RECODED", "HATCHED", "GRAPHIC_STROKE", "GRAPHIC_FILL", "LABELLED"})
+    public BenchmarkStyle style;
+
+    /** At 96 dpi the whole synthetic extent is visible at 1:369000 */
+    @Param({"10000", "50000", "250000"})
+    public double scaleDenominator;
+
+    private SyntheticDatabase database;
+    private ILayer layer;
+    private MapTransform mapTransform;
+    private BufferedImage image;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = new SyntheticDatabase(RenderingBenchmark.class.getSimpleName());
+        layer = style.createLayer(database.getDataManager());
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        mapTransform = new MapTransform();
+        mapTransform.setDpi(DPI);
+        mapTransform.setImage(image);
+        mapTransform.setExtent(new Envelope(0, SyntheticDatabase.EXTENT_SIZE, 0, SyntheticDatabase.EXTENT_SIZE));
+        mapTransform.setScaleDenominator(scaleDenominator);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    /**
+     * @return Number of drawn features
+     */
+    private int drawFrame() {
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.setBackground(Color.WHITE);
+            g2.clearRect(0, 0, WIDTH, HEIGHT);
+            CountingImageRenderer renderer = new CountingImageRenderer();
+            renderer.draw(mapTransform, g2, WIDTH, HEIGHT, layer, null);
+            return renderer.getFeatureCount();
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int frameTime() {
+        return drawFrame();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int featureThroughput(FeatureCounter featureCounter) {
+        int featureCount = drawFrame();
+        featureCounter.features += featureCount;
+        return featureCount;
+    }
+
+    /**
+     * Drawn features, reported in features per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class FeatureCounter {
+        public long features;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            features = 0;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.benchmark;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.h2gis.functions.factory.H2GISFunctions;
+import org.h2gis.utilities.SFSUtilities;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.internal.DataManagerImpl;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * In memory H2GIS database filled with synthetic point, line and polygon layers.
+ * Data are generated with a fixed seed, then two runs render exactly the same features.
+ * All layers cover the {@link #EXTENT_SIZE} square, in metric coordinates.
+ * @author Nicolas Fortin
+ */
+public class SyntheticDatabase implements AutoCloseable {
+    public static final String POINTS = "BENCH_POINTS";
+    public static final String LINES = "BENCH_LINES";
+    public static final String POLYGONS = "BENCH_POLYGONS";
+    /** Width and height of the layers extent */
+    public static final double EXTENT_SIZE = 100000;
+    public static final int POINT_COUNT = 20000;
+    public static final int LINE_COUNT = 5000;
+    /** Polygons are placed on a grid of POLYGON_GRID_SIZE x POLYGON_GRID_SIZE cells */
+    public static final int POLYGON_GRID_SIZE = 100;
+    public static final int CATEGORY_COUNT = 10;
+    private static final long SEED = 42;
+    private static final int BATCH_SIZE = 1000;
+    private final Connection connection;
+    private final DataManager dataManager;
+
+    /**
+     * Create the database and the layers
+     * @param name Database name, databases of the same name share the same content
+     * @throws SQLException
+     */
+    public SyntheticDatabase(String name) throws SQLException {
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        // The database is kept until the last connection is closed
+        h2DataSource.setURL("jdbc:h2:mem:" + name);
+        DataSource dataSource = SFSUtilities.wrapSpatialDataSource(h2DataSource);
+        connection = dataSource.getConnection();
+        H2GISFunctions.load(connection);
+        createPoints(new Random(SEED));
+        createLines(new Random(SEED + 1));
+        createPolygons(new Random(SEED + 2));
+        dataManager = new DataManagerImpl(dataSource);
+    }
+
+    /**
+     * @return DataManager of this database
+     */
+    public DataManager getDataManager() {
+        return dataManager;
+    }
+
+    private void createTable(String tableName, String geometryType) throws SQLException {
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS " + tableName);
+            st.execute("CREATE TABLE " + tableName + "(PK INT PRIMARY KEY, THE_GEOM " + geometryType +
+                    ", CATEGORY INT, VAL DOUBLE, LABEL VARCHAR)");
+        }
+    }
+
+    private void createIndex(String tableName) throws SQLException {
+        try(Statement st = connection.createStatement()) {
+            st.execute("CREATE SPATIAL INDEX ON " + tableName + "(THE_GEOM)");
+        }
+    }
+
+    private static void addRow(PreparedStatement st, int pk, String wkt, Random random, String label)
+            throws SQLException {
+        st.setInt(1, pk);
+        st.setString(2, wkt);
+        st.setInt(3, random.nextInt(CATEGORY_COUNT));
+        st.setDouble(4, random.nextDouble() * 100);
+        st.setString(5, label);
+        st.addBatch();
+        if(pk % BATCH_SIZE == 0) {
+            st.executeBatch();
+        }
+    }
+
+    private static String coordinate(double x, double y) {
+        return String.format(Locale.ROOT, "%.2f %.2f", x, y);
+    }
+
+    private void createPoints(Random random) throws SQLException {
+        createTable(POINTS, "POINT");
+        try(PreparedStatement st = connection.prepareStatement("INSERT INTO " + POINTS + " VALUES (?, ?, ?, ?, ?)")) {
+            for(int pk = 1; pk <= POINT_COUNT; pk++) {
+                addRow(st, pk, "POINT(" + coordinate(random.nextDouble() * EXTENT_SIZE,
+                        random.nextDouble() * EXTENT_SIZE) + ")", random, "P" + pk);
+            }
+            st.executeBatch();
+        }
+        createIndex(POINTS);
+    }
+
+    /**
+     * Random walks of 10 to 30 vertices
+     */
+    private void createLines(Random random) throws SQLException {
+        createTable(LINES, "LINESTRING");
+        final double step = EXTENT_SIZE / 200;
+        try(PreparedStatement st = connection.prepareStatement("INSERT INTO " + LINES + " VALUES (?, ?, ?, ?, ?)")) {
+            for(int pk = 1; pk <= LINE_COUNT; pk++) {
+                double x = random.nextDouble() * EXTENT_SIZE;
+                double y = random.nextDouble() * EXTENT_SIZE;
+                double angle = random.nextDouble() * 2 * Math.PI;
+                int vertexCount = 10 + random.nextInt(21);
+                StringBuilder wkt = new StringBuilder("LINESTRING(");
+                wkt.append(coordinate(x, y));
+                for(int vertex = 1; vertex < vertexCount; vertex++) {
+                    angle += (random.nextDouble() - 0.5) * Math.PI / 2;
+                    x = Math.min(EXTENT_SIZE, Math.max(0, x + Math.cos(angle) * step));
+                    y = Math.min(EXTENT_SIZE, Math.max(0, y + Math.sin(angle) * step));
+                    wkt.append(", ").append(coordinate(x, y));
+                }
+                wkt.append(")");
+                addRow(st, pk, wkt.toString(), random, "L" + pk);
+            }
+            st.executeBatch();
+        }
+        createIndex(LINES);
+    }
+
+    /**
+     * One irregular star-shaped polygon of 8 to 16 vertices by grid cell
+     */
+    private void createPolygons(Random random) throws SQLException {
+        createTable(POLYGONS, "POLYGON");
+        final double cellSize = EXTENT_SIZE / POLYGON_GRID_SIZE;
+        try(PreparedStatement st = connection.prepareStatement("INSERT INTO " + POLYGONS + " VALUES (?, ?, ?, ?, ?)")) {
+            int pk = 1;
+            for(int row = 0; row < POLYGON_GRID_SIZE; row++) {
+                for(int column = 0; column < POLYGON_GRID_SIZE; column++) {
+                    double centerX = (column + 0.5) * cellSize;
+                    double centerY = (row + 0.5) * cellSize;
+                    int vertexCount = 8 + random.nextInt(9);
+                    StringBuilder wkt = new StringBuilder("POLYGON((");
+                    String first = null;
+                    for(int vertex = 0; vertex < vertexCount; vertex++) {
+                        double angle = 2 * Math.PI * vertex / vertexCount;
+                        double radius = cellSize * (0.3 + random.nextDouble() * 0.2);
+                        String point = coordinate(centerX + Math.cos(angle) * radius,
+                                centerY + Math.sin(angle) * radius);
+                        if(first == null) {
+                            first = point;
+                        } else {
+                            wkt.append(", ");
+                        }
+                        wkt.append(point);
+                    }
+                    wkt.append(", ").append(first).append("))");
+                    addRow(st, pk, wkt.toString(), random, "A" + pk);
+                    pk++;
+                }
+            }
+            st.executeBatch();
+        }
+        createIndex(POLYGONS);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        dataManager.dispose();
+        connection.close();
+    }
+}
@@ -53,6 +53,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -85,9 +90,31 @@ public class BundleTools {
     private final Logger LOGGER;
     private static final int DELETE_TRY_COUNT = 3;
     private static final long WAIT_RETRY_DELETE = 250;
+    private final ManifestIndex manifestIndex;
 
     public BundleTools(Logger LOGGER) {
+        this(LOGGER, new ManifestIndex());
+    }
+
+    /**
+     * @param LOGGER Logger
+     * @param manifestIndex Jar manifest index, jars are opened only if they are not in the index
+     */
+    public BundleTools(Logger LOGGER, ManifestIndex manifestIndex) {
         this.LOGGER = LOGGER;
+        this.manifestIndex = manifestIndex;
+    }
+
+    /**
+     * @return Jar manifest index used by this instance
+     */
+    public ManifestIndex getManifestIndex() {
+        return manifestIndex;
+    }
+
+    private static ExecutorService createExecutor(int taskCount) {
+        return Executors.newFixedThreadPool(Math.max(1, Math.min(taskCount,
+                Runtime.getRuntime().availableProcessors())));
     }
 
     /**
@@ -200,13 +227,10 @@ public class BundleTools {
                 for(File file : files) {
                     if(FilenameUtils.isExtension(file.getName(),"jar")) {
                         // Read Manifest
-                        try(JarFile jar = new JarFile(file)) {
-                            Manifest manifest = jar.getManifest();
-                            if(manifest!=null && manifest.getMainAttributes()!=null) {
-                                String artifact = manifest.getMainAttributes().getValue(Constants.FRAGMENT_HOST);
-                                if(artifact != null) {
-                                    fragmentBundlesArtifacts.add(parseManifest(manifest, null).getArtifactId());
-                                }
+                        try {
+                            ManifestIndex.Entry entry = manifestIndex.get(file);
+                            if(entry.getFragmentHost() != null) {
+                                fragmentBundlesArtifacts.add(entry.getBundleReference().getArtifactId());
                             }
                         } catch (IOException ex) {
                             LOGGER.log(Logger.LOG_ERROR, "Error while reading Jar manifest:\n"+file.getPath());
@@ -225,7 +249,7 @@ public class BundleTools {
                                 File jarBundle = new File(cacheBundleFolder[0], "bundle.jar");
                                 if (jarBundle.exists()) {
                                     // Read artifact
-                                    String artifact = parseJarManifest(jarBundle, null).getArtifactId();
+                                    String artifact = manifestIndex.get(jarBundle).getBundleReference().getArtifactId();
                                     if (fragmentBundlesArtifacts.contains(artifact)) {
                                         // Delete the cache folder
                                         int tryCount = 0;
@@ -309,34 +333,22 @@ public class BundleTools {
             final List<Bundle> installedBundleList = new LinkedList<Bundle>();
             for (File jarFile : jarList) {
                 // Extract version and symbolic name of the bundle
-                String key="";
                 BundleReference jarRef;
                 try {
-                    List<PackageDeclaration> packageDeclarations = new ArrayList<PackageDeclaration>();
-                    jarRef = parseJarManifest(jarFile, packageDeclarations);
-                    key = jarRef.getArtifactId();
+                    jarRef = manifestIndex.get(jarFile).getBundleReference();
                 } catch (IOException ex) {
                     LOGGER.log(Logger.LOG_ERROR, ex.getLocalizedMessage(), ex);
                     // Do not install this jar
                     continue;
                 }
+                String key = jarRef.getArtifactId();
                 // Retrieve from the framework cache the bundle at this location
                 Bundle installedBundle = installedBundleMap.remove(key);
 
-                // Read Jar manifest without installing it
                 BundleReference reference = new BundleReference(""); // Default deploy
-                try(JarFile jar = new JarFile(jarFile)) {
-                    Manifest manifest = jar.getManifest();
-                    if(manifest!=null && manifest.getMainAttributes()!=null) {
-                        String artifact = manifest.getMainAttributes().getValue(Constants.BUNDLE_SYMBOLICNAME);
-                        BundleReference customRef = customDeployBundles.get(artifact);
-                        if(customRef!=null) {
-                            reference = customRef;
-                        }
-                    }
-
-                } catch (Exception ex) {
-                    LOGGER.log(Logger.LOG_ERROR, I18N.tr("Could not read bundle manifest"), ex);
+                BundleReference customRef = customDeployBundles.get(key);
+                if(customRef!=null) {
+                    reference = customRef;
                 }
 
                 try {
@@ -448,16 +460,40 @@ public class BundleTools {
      * @return
      */
     public Collection<PackageDeclaration> fetchManifests() {
+        long begin = System.currentTimeMillis();
+        int readJarCount = manifestIndex.getReadJarCount();
         List<PackageDeclaration> packages = new LinkedList<PackageDeclaration>();
         List<String> pathElements = getClassPath();
+        // Read the jar manifests in parallel, unchanged jars are not opened
+        ExecutorService executorService = createExecutor(pathElements.size());
+        Map<String, Future<ManifestIndex.Entry>> jarManifests = new HashMap<>();
+        try {
+            for (String element : pathElements) {
+                final File filePath = new File(element);
+                if (FilenameUtils.getExtension(element).equals("jar") && filePath.exists()) {
+                    jarManifests.put(element, executorService.submit(new Callable<ManifestIndex.Entry>() {
+                        @Override
+                        public ManifestIndex.Entry call() throws Exception {
+                            return manifestIndex.get(filePath);
+                        }
+                    }));
+                }
+            }
+        } finally {
+            executorService.shutdown();
+        }
         // Fetch
         for (String element : pathElements) {
             File filePath = new File(element);
-            if (FilenameUtils.getExtension(element).equals("jar") && filePath.exists()) {
+            Future<ManifestIndex.Entry> jarManifest = jarManifests.get(element);
+            if (jarManifest != null) {
                 try {
-                    parseJarManifest(filePath, packages);
-                } catch (IOException ex) {
-                    LOGGER.log(Logger.LOG_DEBUG, "Unable to fetch packages in " + filePath.getAbsolutePath(), ex);
+                    packages.addAll(jarManifest.get().getPackages());
+                } catch (ExecutionException ex) {
+                    LOGGER.log(Logger.LOG_DEBUG, "Unable to fetch packages in " + filePath.getAbsolutePath(), ex.getCause());
+                } catch (InterruptedException ex) {
+                    LOGGER.log(Logger.LOG_WARNING, "Interrupted while fetching packages", ex);
+                    break;
                 }
             } else if (filePath.isDirectory()) {
                 try {
@@ -467,7 +503,9 @@ public class BundleTools {
                 }
             }
         }
-
+        LOGGER.log(Logger.LOG_DEBUG, "Fetch manifests of " + jarManifests.size() + " jars (" +
+                (manifestIndex.getReadJarCount() - readJarCount) + " not indexed) in " +
+                (System.currentTimeMillis() - begin) + " ms");
         return packages;
     }
 
@@ -113,7 +113,6 @@ final class Main {
         properties.setProperty("org.jooq.no-logo","True");
         // debug try { Thread.sleep(5000); } catch (Exception ex) {}
         long deploymentTime = 0;
-        BundleTools bundleTools = new BundleTools(LOGGER);
         parseCommandLine(args);
         //Check if the java version is greater than 1.6+
         if (!isVersion(MIN_JAVA_VERSION, MAX_JAVA_VERSION)) {
@@ -166,7 +165,15 @@ final class Main {
                 }
                 // Delete snapshot fragments bundles
                 long beginDeleteFragments = System.currentTimeMillis();
+                ManifestIndex manifestIndex = ManifestIndex.load(new File(coreWorkspace.getApplicationFolder(),
+                        ManifestIndex.INDEX_FILENAME));
+                BundleTools bundleTools = new BundleTools(LOGGER, manifestIndex);
                 bundleTools.deleteFragmentInCache(felixBundleCache);
+                try {
+                    manifestIndex.save();
+                } catch (IOException ex) {
+                    LOGGER.log(Logger.LOG_WARNING, "Cannot save the manifest index", ex);
+                }
                 deploymentTime += System.currentTimeMillis() - beginDeleteFragments;
                 LOGGER.log(Logger.LOG_INFO, I18N.tr("Waiting for bundle stability, deployment of built-in bundles done in" + " {0} s", deploymentTime / 1000.0));
                 // Start main of felix framework
@@ -0,0 +1,274 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import org.osgi.framework.Constants;
+import org.osgi.framework.Version;
+
+/**
+ * Index of the jar manifests, the key is the jar path, size and last modification date.
+ * The index is persisted in the application folder, then unchanged jars are not opened at the next startup.
+ * This class is thread safe.
+ * @author Nicolas Fortin
+ */
+public class ManifestIndex {
+    public static final String INDEX_FILENAME = "manifest-index.bin";
+    // Increment when the file format change, older files are ignored
+    private static final int FILE_VERSION = 1;
+    private final File indexFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean modified = new AtomicBoolean(false);
+    private final AtomicInteger readJarCount = new AtomicInteger(0);
+
+    /**
+     * In memory index
+     */
+    public ManifestIndex() {
+        this.indexFile = null;
+    }
+
+    /**
+     * @param indexFile Persisted index, may not exist
+     */
+    public ManifestIndex(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Load the persisted index. A missing or unreadable file result in an empty index.
+     * @param indexFile Index file location
+     * @return Index instance
+     */
+    public static ManifestIndex load(File indexFile) {
+        ManifestIndex index = new ManifestIndex(indexFile);
+        if(indexFile.isFile()) {
+            try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+                if(in.readInt() == FILE_VERSION) {
+                    int entryCount = in.readInt();
+                    for(int i = 0; i < entryCount; i++) {
+                        String path = in.readUTF();
+                        index.entries.put(path, Entry.read(in));
+                    }
+                }
+            } catch (IOException ex) {
+                // The index will be rebuilt
+                index.entries.clear();
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Write the index if it has been modified since the last load or save.
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        if(indexFile == null || !modified.getAndSet(false)) {
+            return;
+        }
+        File parent = indexFile.getParentFile();
+        if(parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create the folder " + parent);
+        }
+        File tmpFile = new File(indexFile.getPath() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            List<Map.Entry<String, Entry>> entryList = new ArrayList<>(entries.entrySet());
+            out.writeInt(FILE_VERSION);
+            out.writeInt(entryList.size());
+            for(Map.Entry<String, Entry> entry : entryList) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().write(out);
+            }
+        }
+        if(indexFile.exists() && !indexFile.delete()) {
+            throw new IOException("Cannot replace the file " + indexFile);
+        }
+        if(!tmpFile.renameTo(indexFile)) {
+            throw new IOException("Cannot rename the file " + tmpFile);
+        }
+    }
+
+    /**
+     * Fetch the manifest of a jar, the jar is opened only if it is not in the index or if it has been modified.
+     * @param jarFile Jar file
+     * @return Manifest information
+     * @throws IOException The jar cannot be read
+     */
+    public Entry get(File jarFile) throws IOException {
+        String path = jarFile.getAbsolutePath();
+        long size = jarFile.length();
+        long lastModified = jarFile.lastModified();
+        Entry entry = entries.get(path);
+        if(entry == null || entry.size != size || entry.lastModified != lastModified) {
+            readJarCount.incrementAndGet();
+            try(JarFile jar = new JarFile(jarFile)) {
+                entry = Entry.fromManifest(size, lastModified, jar.getManifest());
+            }
+            entries.put(path, entry);
+            modified.set(true);
+        }
+        return entry;
+    }
+
+    /**
+     * @return Number of jar opened by this index instance
+     */
+    public int getReadJarCount() {
+        return readJarCount.get();
+    }
+
+    /**
+     * @return Number of indexed jar
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Manifest information of a jar
+     */
+    public static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final String symbolicName;
+        private final String version;
+        private final String fragmentHost;
+        private final List<PackageDeclaration> packages;
+
+        private Entry(long size, long lastModified, String symbolicName, String version, String fragmentHost,
+                      List<PackageDeclaration> packages) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.symbolicName = symbolicName;
+            this.version = version;
+            this.fragmentHost = fragmentHost;
+            this.packages = Collections.unmodifiableList(packages);
+        }
+
+        private static Entry fromManifest(long size, long lastModified, Manifest manifest) throws IOException {
+            List<PackageDeclaration> packages = new ArrayList<>();
+            if(manifest == null || manifest.getMainAttributes() == null) {
+                return new Entry(size, lastModified, null, null, null, packages);
+            }
+            BundleReference reference = BundleTools.parseManifest(manifest, packages);
+            return new Entry(size, lastModified, reference.getArtifactId(),
+                    reference.getVersion() == null ? null : reference.getVersion().toString(),
+                    manifest.getMainAttributes().getValue(Constants.FRAGMENT_HOST), packages);
+        }
+
+        private static void writeNullable(DataOutputStream out, String value) throws IOException {
+            out.writeBoolean(value != null);
+            if(value != null) {
+                out.writeUTF(value);
+            }
+        }
+
+        private static String readNullable(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeLong(size);
+            out.writeLong(lastModified);
+            writeNullable(out, symbolicName);
+            writeNullable(out, version);
+            writeNullable(out, fragmentHost);
+            out.writeInt(packages.size());
+            for(PackageDeclaration packageDeclaration : packages) {
+                out.writeUTF(packageDeclaration.getPackageName());
+                writeNullable(out, packageDeclaration.getVersion() == null ? null :
+                        packageDeclaration.getVersion().toString());
+            }
+        }
+
+        private static Entry read(DataInputStream in) throws IOException {
+            long size = in.readLong();
+            long lastModified = in.readLong();
+            String symbolicName = readNullable(in);
+            String version = readNullable(in);
+            String fragmentHost = readNullable(in);
+            int packageCount = in.readInt();
+            List<PackageDeclaration> packages = new ArrayList<>(packageCount);
+            for(int i = 0; i < packageCount; i++) {
+                String packageName = in.readUTF();
+                String packageVersion = readNullable(in);
+                packages.add(new PackageDeclaration(packageName, packageVersion == null ? null :
+                        new Version(packageVersion)));
+            }
+            return new Entry(size, lastModified, symbolicName, version, fragmentHost, packages);
+        }
+
+        /**
+         * @return Bundle symbolic name and version, null symbolic name if this jar is not a bundle
+         */
+        public BundleReference getBundleReference() {
+            return new BundleReference(symbolicName, version == null ? null : new Version(version));
+        }
+
+        /**
+         * @return Fragment-Host header, null if this bundle is not a fragment
+         */
+        public String getFragmentHost() {
+            return fragmentHost;
+        }
+
+        /**
+         * @return Exported packages
+         */
+        public List<PackageDeclaration> getPackages() {
+            return packages;
+        }
+    }
+}
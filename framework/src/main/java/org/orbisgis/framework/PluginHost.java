@@ -37,6 +37,7 @@
 package org.orbisgis.framework;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 import org.apache.felix.framework.Logger;
@@ -94,7 +95,10 @@ public class PluginHost {
      * @return 
      */
     private String getExtraPackage(Set<String> ignorePackages) {
-        BundleTools bundleTools = new BundleTools(LOGGER);
+        // Manifests of unchanged classpath jars are read from the index
+        ManifestIndex manifestIndex = ManifestIndex.load(new File(pluginCacheFolder.getParentFile(),
+                ManifestIndex.INDEX_FILENAME));
+        BundleTools bundleTools = new BundleTools(LOGGER, manifestIndex);
         //Build a set of packages to skip programmaticaly defined packages
         Set<String> packagesName = new HashSet<>(ignorePackages);
         List<String> sortedPackagesExport = new ArrayList<String>();
@@ -104,6 +108,11 @@ public class PluginHost {
         }
         // Fetch built-ins OSGi bundles package declarations
         Collection<PackageDeclaration> packageDeclarations = bundleTools.fetchManifests();
+        try {
+            manifestIndex.save();
+        } catch (IOException ex) {
+            LOGGER.log(Logger.LOG_WARNING, "Cannot save the manifest index", ex);
+        }
         for(PackageDeclaration packageDeclaration : packageDeclarations) {
             if(!packagesName.contains(packageDeclaration.getPackageName())) {
                 packagesName.add(packageDeclaration.getPackageName());
@@ -0,0 +1,153 @@
+/**
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the 
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ * 
+ * OrbisGIS is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2007-2014 CNRS (IRSTV FR CNRS 2488)
+ * Copyright (C) 2015-2017 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.osgi.framework.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test of the persisted jar manifest index.
+ * @author Nicolas Fortin
+ */
+public class ManifestIndexTest {
+    private static final int JAR_COUNT = 200;
+    private static final int PACKAGE_PER_JAR = 20;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static File createJar(File folder, int jarId) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+        attributes.putValue(Constants.BUNDLE_SYMBOLICNAME, "org.orbisgis.test.bundle" + jarId);
+        attributes.putValue(Constants.BUNDLE_VERSION, "1.0." + jarId);
+        StringBuilder exportPackage = new StringBuilder();
+        for(int packageId = 0; packageId < PACKAGE_PER_JAR; packageId++) {
+            if(exportPackage.length() > 0) {
+                exportPackage.append(",");
+            }
+            exportPackage.append("org.orbisgis.test.bundle").append(jarId).append(".p").append(packageId)
+                    .append(";version=\"1.").append(packageId).append("\"");
+        }
+        attributes.putValue(Constants.EXPORT_PACKAGE, exportPackage.toString());
+        File jarFile = new File(folder, "bundle" + jarId + ".jar");
+        new JarOutputStream(new FileOutputStream(jarFile), manifest).close();
+        return jarFile;
+    }
+
+    private List<File> createJars() throws IOException {
+        File jarFolder = folder.newFolder("bundle");
+        List<File> jars = new ArrayList<>(JAR_COUNT);
+        for(int jarId = 0; jarId < JAR_COUNT; jarId++) {
+            jars.add(createJar(jarFolder, jarId));
+        }
+        return jars;
+    }
+
+    private static long scan(ManifestIndex index, List<File> jars) throws IOException {
+        long begin = System.nanoTime();
+        for(File jar : jars) {
+            index.get(jar);
+        }
+        return System.nanoTime() - begin;
+    }
+
+    @Test
+    public void testColdWarmScan() throws IOException {
+        List<File> jars = createJars();
+        File indexFile = new File(folder.getRoot(), ManifestIndex.INDEX_FILENAME);
+        ManifestIndex coldIndex = ManifestIndex.load(indexFile);
+        long coldTime = scan(coldIndex, jars);
+        assertEquals(JAR_COUNT, coldIndex.getReadJarCount());
+        coldIndex.save();
+        // Second startup, no jar should be opened
+        ManifestIndex warmIndex = ManifestIndex.load(indexFile);
+        assertEquals(JAR_COUNT, warmIndex.size());
+        long warmTime = scan(warmIndex, jars);
+        assertEquals(0, warmIndex.getReadJarCount());
+        for(File jar : jars) {
+            ManifestIndex.Entry cold = coldIndex.get(jar);
+            ManifestIndex.Entry warm = warmIndex.get(jar);
+            assertEquals(cold.getBundleReference().getArtifactId(), warm.getBundleReference().getArtifactId());
+            assertEquals(cold.getBundleReference().getVersion(), warm.getBundleReference().getVersion());
+            assertEquals(PACKAGE_PER_JAR, warm.getPackages().size());
+            for(int packageId = 0; packageId < PACKAGE_PER_JAR; packageId++) {
+                assertEquals(cold.getPackages().get(packageId).getPackageName(),
+                        warm.getPackages().get(packageId).getPackageName());
+                assertEquals(cold.getPackages().get(packageId).getVersion(),
+                        warm.getPackages().get(packageId).getVersion());
+            }
+            assertNull(warm.getFragmentHost());
+        }
+        // The warm scan does not open the jars
+        assertTrue("cold: " + coldTime / 1e6 + " ms, warm: " + warmTime / 1e6 + " ms", warmTime < coldTime);
+    }
+
+    @Test
+    public void testModifiedJar() throws IOException {
+        List<File> jars = createJars();
+        File indexFile = new File(folder.getRoot(), ManifestIndex.INDEX_FILENAME);
+        ManifestIndex index = ManifestIndex.load(indexFile);
+        scan(index, jars);
+        index.save();
+        // Replace one jar
+        File modifiedJar = jars.get(JAR_COUNT / 2);
+        long lastModified = modifiedJar.lastModified();
+        assertEquals(modifiedJar, createJar(modifiedJar.getParentFile(), JAR_COUNT / 2));
+        modifiedJar.setLastModified(lastModified + 2000);
+        index = ManifestIndex.load(indexFile);
+        scan(index, jars);
+        assertEquals(1, index.getReadJarCount());
+    }
+}
@@ -37,17 +37,23 @@
 package org.orbisgis.commons.progress;
 
 import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Default implementation of an ProgressMonitor.
+ *
+ * The progression is kept in an atomic counter, a child monitor push its progression to the parent chain without
+ * locking. There is no finalizer, call {@link #processFinished()} in order to complete a task that has not been
+ * ended.
  */
 public class DefaultProgressMonitor implements ProgressMonitor {
+    // Relative tolerance of the accumulated progression rounding errors
+    private static final double END_EPSILON = 1e-9;
 
     protected DefaultProgressMonitor parentProcess;
-    private long subprocess_size;
-    private double subprocess_done = 0;
+    private final long subprocess_size;
+    // Raw bits of the double value of the progression
+    private final AtomicLong subprocess_done = new AtomicLong(Double.doubleToRawLongBits(0));
 
     public DefaultProgressMonitor(long subprocess_size, DefaultProgressMonitor parentProcess) {
         this.subprocess_size = subprocess_size;
@@ -85,19 +91,62 @@ public class DefaultProgressMonitor implements ProgressMonitor {
         return new DefaultProgressMonitor(end, this);
     }
 
-    protected synchronized void pushProgression(double incProg) {
-        if (subprocess_done + incProg <= subprocess_size) {
-            double oldProgress = subprocess_done;
-            subprocess_done += incProg;
-            if (parentProcess != null) {
-                parentProcess.pushProgression((incProg / subprocess_size));
+    /**
+     * @return Progression of this process in the range [0-getEnd()]
+     */
+    private double getDone() {
+        return Double.longBitsToDouble(subprocess_done.get());
+    }
+
+    /**
+     * @return True if the progression of this process has reached its end
+     */
+    protected boolean isEnded() {
+        return getDone() >= subprocess_size;
+    }
+
+    /**
+     * Add progression to this process. The progression is bounded by the end of this process.
+     * @param incProg Progression increment in the unit of this process
+     * @param taskEnded True if the increment comes from the end of a task, then a progression that differs from the
+     *                  end of this process by rounding errors only is set to the end.
+     * @return The progression really added to this process
+     */
+    private double addProgression(double incProg, boolean taskEnded) {
+        while (true) {
+            long oldBits = subprocess_done.get();
+            double oldProgress = Double.longBitsToDouble(oldBits);
+            if (oldProgress >= subprocess_size) {
+                return 0;
+            }
+            double newProgress = Math.min(subprocess_size, oldProgress + incProg);
+            if (taskEnded && subprocess_size - newProgress <= subprocess_size * END_EPSILON) {
+                newProgress = subprocess_size;
             }
+            if (subprocess_done.compareAndSet(oldBits, Double.doubleToRawLongBits(newProgress))) {
+                return newProgress - oldProgress;
+            }
+        }
+    }
+
+    protected void pushProgression(double incProg) {
+        pushProgression(incProg, false);
+    }
+
+    /**
+     * @param incProg Progression increment in the unit of this process
+     * @param taskEnded True if the increment comes from the end of a task
+     */
+    protected void pushProgression(double incProg, boolean taskEnded) {
+        double added = addProgression(incProg, taskEnded);
+        if (added != 0 && parentProcess != null) {
+            parentProcess.pushProgression((added / subprocess_size), isEnded());
         }
     }
 
     @Override
     public void endTask() {
-        pushProgression(1.0);
+        pushProgression(1.0, true);
     }
 
     @Override
@@ -110,29 +159,18 @@ public class DefaultProgressMonitor implements ProgressMonitor {
     }
 
     /**
-     * Optional, When the current process is done call this method. Or let the
-     * garbage collector free the object
+     * Optional, When the current process is done call this method in order to push the remaining progression to the
+     * parent process.
      */
-    public synchronized void processFinished() {
-        if (Double.compare(subprocess_done, subprocess_size) != 0) {
-            this.parentProcess
-                    .pushProgression(1 - (subprocess_done / subprocess_size));
-            subprocess_done = subprocess_size;
-        }
-    }
-
-    @Override
-    protected synchronized void finalize() throws Throwable {
-        // do finalization here
-        if (this.parentProcess != null) {
-            processFinished();
+    public void processFinished() {
+        if (!isEnded()) {
+            pushProgression(subprocess_size - getDone(), true);
         }
-        super.finalize();
     }
 
     @Override
     public void progressTo(long progress) {
-        pushProgression(progress - subprocess_done);
+        pushProgression(progress - getDone());
     }
 
     @Override
@@ -140,13 +178,13 @@ public class DefaultProgressMonitor implements ProgressMonitor {
         if(parentProcess != null) {
             return parentProcess.getOverallProgress();
         } else {
-            return subprocess_done / subprocess_size;
+            return getDone() / subprocess_size;
         }
     }
 
     @Override
     public long getCurrentProgress() {
-        return (long)Math.floor(subprocess_done);
+        return (long)Math.floor(getDone());
     }
 
     @Override
@@ -38,15 +38,26 @@ package org.orbisgis.commons.progress;
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Root progress monitor hold canceled property and listeners
+ * Root progress monitor hold canceled property and listeners.
+ *
+ * Progression events can be throttled: when an event interval is set, listeners receive at most one
+ * {@link ProgressMonitor#PROP_PROGRESSION} event per interval, plus the event of the completion of the process.
  * @author Nicolas Fortin
  */
 public class RootProgressMonitor extends DefaultProgressMonitor {
+    /** Default interval between two progression events, in milliseconds */
+    public static final long DEFAULT_EVENT_INTERVAL = 50;
     private PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
-    private boolean canceled;
-    private String taskName = "";
+    private volatile boolean canceled;
+    private volatile String taskName = "";
+    private volatile long eventIntervalNanos = 0;
+    private final AtomicLong lastEventTime = new AtomicLong(System.nanoTime());
+    // Raw bits of the last published overall progression
+    private final AtomicLong lastPublishedProgress = new AtomicLong(Double.doubleToRawLongBits(0));
 
     /**
      * Constructor.
@@ -66,6 +77,21 @@ public class RootProgressMonitor extends DefaultProgressMonitor {
         this.taskName = taskName;
     }
 
+    /**
+     * @param eventInterval Minimal interval between two progression events in milliseconds, 0 to fire an event on
+     *                      each progression.
+     */
+    public void setEventInterval(long eventInterval) {
+        this.eventIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, eventInterval));
+    }
+
+    /**
+     * @return Minimal interval between two progression events in milliseconds
+     */
+    public long getEventInterval() {
+        return TimeUnit.NANOSECONDS.toMillis(eventIntervalNanos);
+    }
+
     @Override
     public void removePropertyChangeListener(PropertyChangeListener listener) {
         propertyChangeSupport.removePropertyChangeListener(listener);
@@ -94,10 +120,33 @@ public class RootProgressMonitor extends DefaultProgressMonitor {
     }
 
     @Override
-    protected synchronized void pushProgression(double incProg) {
-        double oldProgress = getOverallProgress();
-        super.pushProgression(incProg);
-        propertyChangeSupport.firePropertyChange(PROP_PROGRESSION, oldProgress, getOverallProgress());
+    protected void pushProgression(double incProg, boolean taskEnded) {
+        super.pushProgression(incProg, taskEnded);
+        // The completion is never throttled
+        publishProgression(isEnded());
+    }
+
+    /**
+     * Publish the current progression to listeners, even if the event interval is not elapsed.
+     */
+    public void flushProgression() {
+        publishProgression(true);
+    }
+
+    private void publishProgression(boolean force) {
+        double progress = getOverallProgress();
+        long interval = eventIntervalNanos;
+        if (interval > 0 && !force) {
+            long lastTime = lastEventTime.get();
+            long now = System.nanoTime();
+            // Only the thread that wins the time slot fire the event
+            if (now - lastTime < interval || !lastEventTime.compareAndSet(lastTime, now)) {
+                return;
+            }
+        }
+        double oldProgress = Double.longBitsToDouble(lastPublishedProgress.getAndSet(
+                Double.doubleToRawLongBits(progress)));
+        propertyChangeSupport.firePropertyChange(PROP_PROGRESSION, oldProgress, progress);
     }
 
     @Override
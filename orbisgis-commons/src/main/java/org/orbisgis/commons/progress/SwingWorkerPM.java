@@ -88,6 +88,8 @@ public abstract class SwingWorkerPM<T, V> extends SwingWorker<T, V> {
     }
 
     private void setListeners() {
+        // Swing progress bar does not need more than a few updates per second
+        progressMonitor.setEventInterval(RootProgressMonitor.DEFAULT_EVENT_INTERVAL);
         progressMonitor.addPropertyChangeListener(ProgressMonitor.PROP_PROGRESSION, EventHandler.create
                 (PropertyChangeListener.class, this, "onProgressMonitorChange"));
         progressMonitor.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL, EventHandler.create
@@ -110,12 +112,6 @@ public abstract class SwingWorkerPM<T, V> extends SwingWorker<T, V> {
         setProgress((int) (progressMonitor.getOverallProgress() * 100));
     }
 
-    @Override
-    public void finalize() throws Throwable {
-        super.finalize();
-        progressMonitor.finalize();
-    }
-
     /**
      * Cancel Job
      */
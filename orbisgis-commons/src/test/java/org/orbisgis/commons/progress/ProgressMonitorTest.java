@@ -39,7 +39,11 @@ package org.orbisgis.commons.progress;
 import org.junit.Test;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class ProgressMonitorTest {
 
@@ -101,6 +105,101 @@ public class ProgressMonitorTest {
         pm.progressTo(100);
     }
 
+    @Test
+    public void testThrottledListeners() throws Exception {
+        RootProgressMonitor pm = new RootProgressMonitor("open file", 10000);
+        pm.setEventInterval(60000);
+        CountListener pl = new CountListener();
+        pm.addPropertyChangeListener(ProgressMonitor.PROP_PROGRESSION, pl);
+        for(int i=0; i < 9999; i++) {
+            pm.endTask();
+        }
+        // No event until the interval is elapsed
+        assertEquals(0, pl.count.get());
+        pm.flushProgression();
+        assertEquals(1, pl.count.get());
+        assertEquals(9999 / 10000., pl.lastSeenProgress, 1e-12);
+        // Completion is always published
+        pm.endTask();
+        assertEquals(2, pl.count.get());
+        assertEquals(1, pl.lastSeenProgress, 1e-12);
+    }
+
+    @Test
+    public void testThrottledCompletion() throws Exception {
+        RootProgressMonitor pm = new RootProgressMonitor("loops", 1);
+        pm.setEventInterval(60000);
+        CountListener pl = new CountListener();
+        pm.addPropertyChangeListener(ProgressMonitor.PROP_PROGRESSION, pl);
+        // The sum of seven 1/7 increments is lower than 1 in floating point
+        ProgressMonitor subProcess = pm.startTask(7);
+        for(int i=0; i < 7; i++) {
+            subProcess.endTask();
+        }
+        assertEquals(1, pm.getOverallProgress(), 0);
+        assertEquals(1, pl.count.get());
+        assertEquals(1, pl.lastSeenProgress, 0);
+    }
+
+    @Test
+    public void testThrottledProcessFinished() throws Exception {
+        RootProgressMonitor pm = new RootProgressMonitor("loops", 10);
+        pm.setEventInterval(60000);
+        CountListener pl = new CountListener();
+        pm.addPropertyChangeListener(ProgressMonitor.PROP_PROGRESSION, pl);
+        pm.endTask();
+        assertEquals(0, pl.count.get());
+        pm.processFinished();
+        assertEquals(1, pl.count.get());
+        assertEquals(1, pl.lastSeenProgress, 0);
+    }
+
+    @Test
+    public void testConcurrentSubTask() throws Exception {
+        final ProgressMonitor pm = new RootProgressMonitor("threads", 8);
+        List<Thread> threads = new ArrayList<>();
+        for(int i=0; i < 8; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ProgressMonitor subProcess = pm.startTask(1000);
+                    for(int j=0; j < 1000; j++) {
+                        subProcess.endTask();
+                    }
+                }
+            }));
+        }
+        for(Thread thread : threads) {
+            thread.start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, pm.getOverallProgress(), 0);
+    }
+
+    @Test
+    public void testProcessFinished() throws Exception {
+        ProgressMonitor pm = new RootProgressMonitor("loops", 2);
+        DefaultProgressMonitor subProcess = (DefaultProgressMonitor)pm.startTask(5);
+        subProcess.endTask();
+        subProcess.processFinished();
+        assertEquals(0.5, pm.getOverallProgress(), 1e-12);
+        subProcess.processFinished();
+        assertEquals(0.5, pm.getOverallProgress(), 1e-12);
+    }
+
+    private static class CountListener implements PropertyChangeListener {
+        AtomicInteger count = new AtomicInteger();
+        double lastSeenProgress = 0;
+
+        @Override
+        public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
+            count.incrementAndGet();
+            lastSeenProgress = (Double)propertyChangeEvent.getNewValue();
+        }
+    }
+
     private static class ProgressListener implements PropertyChangeListener {
         double lastSeenProgress = 0;
 
@@ -155,6 +155,8 @@ public class WorkspaceSelectionDialog extends JPanel {
                         }
                     } catch (SQLException ex) {
                         errorMessage = ex.getLocalizedMessage();
+                    } finally {
+                        dataSourceService.dispose();
                     }
                 } else {
                     // User cancel, stop OrbisGIS